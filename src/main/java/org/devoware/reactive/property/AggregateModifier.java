@@ -0,0 +1,71 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class AggregateModifier<V> implements Modifier<V> {
+  private final Kind kind;
+  private final Arithmetic<V> arithmetic;
+  private final V operand;
+
+  AggregateModifier(Kind kind, V operand) {
+    checkNotNull(kind, "kind cannot be null");
+    checkNotNull(operand, "operand cannot be null");
+    this.kind = kind;
+    this.arithmetic = Arithmetic.of(operand);
+    this.operand = operand;
+  }
+
+  public V getOperand() {
+    return operand;
+  }
+
+  Kind getKind() {
+    return kind;
+  }
+
+  Arithmetic<V> getArithmetic() {
+    return arithmetic;
+  }
+
+  @Override
+  public V onBoundValueChanged(PropertyContext context, V value) {
+    return kind.apply(arithmetic, value, operand);
+  }
+
+  @Override
+  public String toString() {
+    return kind.name().toLowerCase() + "(" + operand + ")";
+  }
+
+  // aggregates of a stage are applied in declaration order: flat bonuses, then multipliers,
+  // then floors, then caps
+  enum Kind {
+    SUM {
+      @Override
+      <V> V apply(Arithmetic<V> arithmetic, V value, V aggregate) {
+        return arithmetic.add(value, aggregate);
+      }
+    },
+    PRODUCT {
+      @Override
+      <V> V apply(Arithmetic<V> arithmetic, V value, V aggregate) {
+        return arithmetic.multiply(value, aggregate);
+      }
+    },
+    MAX {
+      @Override
+      <V> V apply(Arithmetic<V> arithmetic, V value, V aggregate) {
+        return arithmetic.compare(value, aggregate) >= 0 ? value : aggregate;
+      }
+    },
+    MIN {
+      @Override
+      <V> V apply(Arithmetic<V> arithmetic, V value, V aggregate) {
+        return arithmetic.compare(value, aggregate) <= 0 ? value : aggregate;
+      }
+    };
+
+    abstract <V> V apply(Arithmetic<V> arithmetic, V value, V aggregate);
+  }
+
+}
@@ -0,0 +1,22 @@
+package org.devoware.reactive.property;
+
+public class AggregateModifiers {
+
+  public static <V extends Number> AggregateModifier<V> sum(V operand) {
+    return new AggregateModifier<>(AggregateModifier.Kind.SUM, operand);
+  }
+
+  public static <V extends Number> AggregateModifier<V> product(V operand) {
+    return new AggregateModifier<>(AggregateModifier.Kind.PRODUCT, operand);
+  }
+
+  public static <V extends Number> AggregateModifier<V> max(V operand) {
+    return new AggregateModifier<>(AggregateModifier.Kind.MAX, operand);
+  }
+
+  public static <V extends Number> AggregateModifier<V> min(V operand) {
+    return new AggregateModifier<>(AggregateModifier.Kind.MIN, operand);
+  }
+
+  private AggregateModifiers() {}
+}
@@ -0,0 +1,137 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Comparator;
+
+abstract class Arithmetic<V> implements Comparator<V> {
+
+  static final Arithmetic<Integer> INTEGER = new Arithmetic<Integer>() {
+
+    @Override
+    Integer zero() {
+      return 0;
+    }
+
+    @Override
+    Integer one() {
+      return 1;
+    }
+
+    @Override
+    Integer add(Integer a, Integer b) {
+      return a + b;
+    }
+
+    @Override
+    Integer subtract(Integer a, Integer b) {
+      return a - b;
+    }
+
+    @Override
+    Integer multiply(Integer a, Integer b) {
+      return a * b;
+    }
+
+    @Override
+    public int compare(Integer a, Integer b) {
+      return Integer.compare(a, b);
+    }
+  };
+
+  static final Arithmetic<Long> LONG = new Arithmetic<Long>() {
+
+    @Override
+    Long zero() {
+      return 0L;
+    }
+
+    @Override
+    Long one() {
+      return 1L;
+    }
+
+    @Override
+    Long add(Long a, Long b) {
+      return a + b;
+    }
+
+    @Override
+    Long subtract(Long a, Long b) {
+      return a - b;
+    }
+
+    @Override
+    Long multiply(Long a, Long b) {
+      return a * b;
+    }
+
+    @Override
+    public int compare(Long a, Long b) {
+      return Long.compare(a, b);
+    }
+  };
+
+  static final Arithmetic<Double> DOUBLE = new Arithmetic<Double>() {
+
+    @Override
+    Double zero() {
+      return 0.0;
+    }
+
+    @Override
+    Double one() {
+      return 1.0;
+    }
+
+    @Override
+    Double add(Double a, Double b) {
+      return a + b;
+    }
+
+    @Override
+    Double subtract(Double a, Double b) {
+      return a - b;
+    }
+
+    @Override
+    Double multiply(Double a, Double b) {
+      return a * b;
+    }
+
+    @Override
+    public int compare(Double a, Double b) {
+      return Double.compare(a, b);
+    }
+  };
+
+  @SuppressWarnings("unchecked")
+  static <V> Arithmetic<V> of(V value) {
+    checkNotNull(value, "value cannot be null");
+    if (value instanceof Integer) {
+      return (Arithmetic<V>) INTEGER;
+    }
+    if (value instanceof Long) {
+      return (Arithmetic<V>) LONG;
+    }
+    if (value instanceof Double) {
+      return (Arithmetic<V>) DOUBLE;
+    }
+    throw new IllegalArgumentException("unsupported numeric type " + value.getClass().getName());
+  }
+
+  abstract V zero();
+
+  abstract V one();
+
+  abstract V add(V a, V b);
+
+  abstract V subtract(V a, V b);
+
+  abstract V multiply(V a, V b);
+
+  boolean isZero(V value) {
+    return compare(value, zero()) == 0;
+  }
+
+}
@@ -0,0 +1,39 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+// results are applied to the manager by tasks run on the completions executor, which must run
+// them on whichever thread owns the manager, outside of any batch: a queue that the thread
+// drains, or the mailbox of an actor, for instance
+public class AsyncProperties {
+  static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
+  public static AsyncPropertyGroup create(PropertyManager manager, Executor completions) {
+    return create(manager, completions, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  // rejected results are reported to the uncaught exception handler of the completing thread
+  public static AsyncPropertyGroup create(PropertyManager manager, Executor completions,
+      int maxInFlight) {
+    return create(manager, completions, maxInFlight, (e) -> {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    });
+  }
+
+  public static AsyncPropertyGroup create(PropertyManager manager, Executor completions,
+      int maxInFlight, Consumer<? super RuntimeException> failureHandler) {
+    BasicPropertyManager basicManager = BasicPropertyManager.from(manager);
+    checkNotNull(completions, "completions cannot be null");
+    checkNotNull(failureHandler, "failureHandler cannot be null");
+    checkArgument(maxInFlight > 0, "maxInFlight must be positive");
+    return new AsyncPropertyGroup(basicManager, completions, maxInFlight, failureHandler);
+  }
+
+  private AsyncProperties() {}
+
+}
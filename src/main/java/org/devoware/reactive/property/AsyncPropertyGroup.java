@@ -0,0 +1,237 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+// properties whose values are computed off the propagating thread. Each one keeps serving its
+// last value while a newer one is computed: a hidden request property reads the inputs, and
+// starts a computation whenever they change, superseding and cancelling the one before it. Only
+// the result of the newest computation is set on the property, which then propagates as any
+// other change would. The group bounds the number of computations in flight across all of its
+// properties; a property whose inputs change while the group is at its bound waits for a slot,
+// and then computes from its inputs as they stand, skipping the states in between. A computation
+// that fails, or whose result is rejected, leaves the last value in place; a rejection is handed
+// to the failure handler, rather than thrown into the completions executor
+public class AsyncPropertyGroup {
+  private final BasicPropertyManager manager;
+  private final Executor completions;
+  private final int maxInFlight;
+  private final Consumer<? super RuntimeException> failureHandler;
+  // requests may be made by the lanes of a parallel pass, so the state shared across properties
+  // is thread-safe; the state of each property is only touched by one lane at a time
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Queue<Revalidation<?>> queue = new ConcurrentLinkedQueue<>();
+  private final Map<PropertyIdentifier<?>, Revalidation<?>> revalidations = Maps.newHashMap();
+
+  AsyncPropertyGroup(BasicPropertyManager manager, Executor completions, int maxInFlight,
+      Consumer<? super RuntimeException> failureHandler) {
+    this.manager = manager;
+    this.completions = completions;
+    this.maxInFlight = maxInFlight;
+    this.failureHandler = failureHandler;
+  }
+
+  public <V> Property<V> create(PropertyIdentifier<V> id, V initialValue,
+      AsyncValueFunction<V> function) {
+    checkNotNull(id, "id cannot be null");
+    checkNotNull(initialValue, "initialValue cannot be null");
+    checkNotNull(function, "function cannot be null");
+    checkArgument(!revalidations.containsKey(id), "%s is already an async property", id);
+    Revalidation<V> revalidation = new Revalidation<>(id, function);
+    manager.batch(() -> {
+      revalidation.property = manager.create(id).withValue(initialValue).build();
+      revalidation.request =
+          manager.create(new RequestId(id)).withValue(revalidation::request).build();
+    });
+    revalidations.put(id, revalidation);
+    return revalidation.property;
+  }
+
+  // removes the property along with its request, and cancels its computation; a slot it held is
+  // handed on to a waiting property
+  public void remove(PropertyIdentifier<?> id) {
+    checkNotNull(id, "id cannot be null");
+    Revalidation<?> revalidation = revalidations.remove(id);
+    checkNotNull(revalidation, "%s is not an async property", id);
+    manager.removeAll(ImmutableList.of(id, new RequestId(id)));
+    revalidation.cancel();
+  }
+
+  // whether a newer value than the one being served is being computed, or waiting for a slot
+  public boolean isRevalidating(PropertyIdentifier<?> id) {
+    checkNotNull(id, "id cannot be null");
+    Revalidation<?> revalidation = revalidations.get(id);
+    checkNotNull(revalidation, "%s is not an async property", id);
+    return revalidation.current != null || revalidation.waiting;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private boolean acquire() {
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= maxInFlight) {
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  // each waiting property is requested again, which reads its inputs afresh
+  private void startWaiting() {
+    while (inFlight.get() < maxInFlight) {
+      Revalidation<?> revalidation = queue.poll();
+      if (revalidation == null) {
+        return;
+      }
+      revalidation.waiting = false;
+      if (manager.isRegistered((BasicProperty<?>) revalidation.request)) {
+        manager.withoutHistory(revalidation::restart);
+      }
+    }
+  }
+
+  private class Revalidation<V> {
+    private final PropertyIdentifier<V> id;
+    private final AsyncValueFunction<V> function;
+    private Property<V> property;
+    private Property<Long> request;
+    private CompletableFuture<V> current;
+    private long generation;
+    private boolean waiting;
+
+    private Revalidation(PropertyIdentifier<V> id, AsyncValueFunction<V> function) {
+      this.id = id;
+      this.function = function;
+    }
+
+    // the value function of the request property, whose value is the number of computations
+    // started; a computation that supersedes another takes over its slot. A computation started
+    // by a pass that is rolled back is cancelled, and if it had superseded another, the property
+    // computes again from the inputs it was rolled back to
+    private long request(PropertyContext context) {
+      CompletableFuture<V> previous = current;
+      if (previous == null && !acquire()) {
+        if (!waiting) {
+          waiting = true;
+          queue.add(this);
+        }
+        return generation;
+      }
+      CompletableFuture<V> future;
+      try {
+        future = checkNotNull(function.onBoundValueChanged(context),
+            "the function of %s returned no future", id);
+      } catch (RuntimeException e) {
+        if (previous == null) {
+          inFlight.decrementAndGet();
+        }
+        throw e;
+      }
+      long oldGeneration = generation;
+      current = future;
+      generation++;
+      if (previous != null) {
+        previous.cancel(true);
+      }
+      manager.logInverse(() -> {
+        generation = oldGeneration;
+        if (current == future) {
+          current = null;
+          inFlight.decrementAndGet();
+        }
+        future.cancel(true);
+        if (previous != null && !waiting) {
+          waiting = true;
+          queue.add(this);
+          completions.execute(AsyncPropertyGroup.this::startWaiting);
+        }
+      });
+      future.whenComplete((value, failure) ->
+          completions.execute(() -> complete(future, value, failure)));
+      return generation;
+    }
+
+    private void complete(CompletableFuture<V> future, V value, Throwable failure) {
+      if (future != current) {
+        // superseded, cancelled or rolled back, after its slot was handed on or released
+        return;
+      }
+      current = null;
+      inFlight.decrementAndGet();
+      try {
+        if (failure == null && value != null
+            && manager.isRegistered((BasicProperty<?>) property)) {
+          manager.withoutHistory(() -> property.set(value));
+        }
+      } catch (RuntimeException e) {
+        failureHandler.accept(e);
+      } finally {
+        startWaiting();
+      }
+    }
+
+    private void restart() {
+      request.set(this::request);
+    }
+
+    private void cancel() {
+      CompletableFuture<V> future = current;
+      if (future != null) {
+        current = null;
+        inFlight.decrementAndGet();
+        future.cancel(true);
+        completions.execute(AsyncPropertyGroup.this::startWaiting);
+      }
+    }
+  }
+
+  // identifies the hidden request property of an async property
+  private static class RequestId implements PropertyIdentifier<Long>, InternalIdentifier {
+    private final PropertyIdentifier<?> id;
+
+    private RequestId(PropertyIdentifier<?> id) {
+      this.id = id;
+    }
+
+    @Override
+    public Long getDefaultValue() {
+      return 0L;
+    }
+
+    @Override
+    public Class<Long> getType() {
+      return Long.class;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof RequestId && ((RequestId) obj).id.equals(id);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * id.hashCode() + 1;
+    }
+
+    @Override
+    public String toString() {
+      return id + "_REQUEST";
+    }
+  }
+
+}
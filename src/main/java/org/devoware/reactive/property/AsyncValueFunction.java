@@ -0,0 +1,9 @@
+package org.devoware.reactive.property;
+
+import java.util.concurrent.CompletableFuture;
+
+// reads its inputs through the context when called, as a value function does, but returns a
+// future for the value instead of computing it on the propagating thread; see AsyncProperties
+public interface AsyncValueFunction<V> {
+  public CompletableFuture<V> onBoundValueChanged(PropertyContext context);
+}
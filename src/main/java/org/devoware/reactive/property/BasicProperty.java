@@ -1,30 +1,65 @@
 package org.devoware.reactive.property;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static org.devoware.reactive.property.ModifierOrderingRules.apply;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.devoware.reactive.property.BasicPropertyManager.Builder;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
 class BasicProperty<V> implements Property<V> {
 
   private final BasicPropertyManager manager;
   private final PropertyIdentifier<V> identifier;
   private final Modifiers<V> modifiers = Modifiers.create();
   private ValueSource<V> valueSource;
-  private V cachedValue;
-  private Optional<Validator<V>> validator;
+  // written only within a batch, and read by consistent reads from other threads
+  private volatile V cachedValue;
+  private volatile long version;
+  private Optional<ValidationRule<V>> validator;
+  private ValueEquivalence<? super V> equivalence;
+  private final Map<Identifier, TimingWheel.Timeout<?>> expirations = Maps.newHashMap();
+  // contexts carry no per-evaluation state, so they are created once rather than on every
+  // recomputation; the declared context is kept for as long as the inputs it was created for
+  private PropertyContext bindingContext;
+  private PropertyContext readingContext;
+  private PropertyContext declaredContext;
+  private Set<PropertyIdentifier<?>> declaredInputs;
+  // the partition that a mirrored property takes its value from; a mirror cannot be set or
+  // modified locally, and is only written by its partition as the updates of its owner arrive
+  private String mirroredFrom;
+  // the number of the last propagation pass that visited, changed or staled this property; the
+  // manager marks properties rather than collecting them into sets while it propagates
+  long visitedWave;
+  long changedWave;
+  long staleWave;
+  // the time spent recomputing this property while a recompute profile is attached
+  long recomputeCount;
+  long recomputeNanos;
 
   public BasicProperty(Builder<V> builder) {
     this.manager = builder.getPropertyManager();
     this.identifier = builder.getIdentifier();
     this.validator = builder.getValidator();
+    this.equivalence = builder.getEquivalence().orElse(identifier.getEquivalence());
     this.valueSource = builder.getValueSource();
-    validate(this.valueSource, false);
+    bindDeclaredInputs(this.valueSource);
+    check(validate(this.valueSource, false));
     this.cachedValue = get(this.valueSource);
     validate(this.valueSource, true);
+    this.version = manager.getSequence();
   }
 
   @Override
@@ -40,40 +75,96 @@ class BasicProperty<V> implements Property<V> {
 
   @Override
   public Property<V> set(ValueFunction<V> function) {
-    set(new ValueFunctionSource<>(function));
+    set(ValueFunctionSource.of(function));
+    return this;
+  }
+
+  @Override
+  public Property<V> set(ValueFunction<V> function, PropertyIdentifier<?>... inputs) {
+    set(ValueFunctions.declare(function, inputs));
     return this;
   }
 
+  @Override
+  public ValidationResult trySet(V value) {
+    checkWritable();
+    LiteralValueSource<V> source = new LiteralValueSource<>(value);
+    return manager.tryBatch(() -> update(source));
+  }
+
   @Override
   public V get() {
     return this.cachedValue;
   }
 
+  @Override
+  public long getVersion() {
+    return this.version;
+  }
+
   @Override
   public Property<V> addPropertyChangeListener(PropertyChangeListener<V> listener) {
     manager.addPropertyChangeListener(this, listener);
     return this;
   }
 
+  @Override
+  public Property<V> addWeakPropertyChangeListener(PropertyChangeListener<V> listener) {
+    manager.addWeakPropertyChangeListener(this, listener);
+    return this;
+  }
+
   @Override
   public Property<V> removePropertyChangeListener(PropertyChangeListener<V> listener) {
     manager.removePropertyChangeListener(this, listener);
     return this;
   }
 
+  @Override
+  public Watch watch(Predicate<? super V> condition, PropertyChangeListener<V> listener) {
+    return manager.getOrCreateWatches(this).watch(condition, listener);
+  }
+
+  @Override
+  public Watch watchAtLeast(double threshold, PropertyChangeListener<V> listener) {
+    return manager.getOrCreateWatches(this).watchAtLeast(threshold, listener);
+  }
+
+  @Override
+  public Watch watchBelow(double threshold, PropertyChangeListener<V> listener) {
+    return manager.getOrCreateWatches(this).watchBelow(threshold, listener);
+  }
+
   @Override
   public Property<V> setValidator(Validator<V> validator) {
     checkNotNull(validator, "validator cannot be null");
-    Optional<Validator<V>> v = Optional.of(validator);
-    validate(v, this.valueSource, this.modifiers, false);
-    this.validator = v;
+    return setValidationRule(asRule(validator));
+  }
+
+  @Override
+  public Property<V> setValidationRule(ValidationRule<V> rule) {
+    checkNotNull(rule, "rule cannot be null");
+    Optional<ValidationRule<V>> v = Optional.of(rule);
+    check(validate(v, this.valueSource, this.modifiers, false));
+    replaceValidator(v);
     validate(v, this.valueSource, this.modifiers, true);
     return this;
   }
 
   @Override
   public Property<V> removeValidator() {
-    this.validator = Optional.empty();
+    replaceValidator(Optional.empty());
+    return this;
+  }
+
+  @Override
+  public Property<V> setEquivalence(ValueEquivalence<? super V> equivalence) {
+    checkNotNull(equivalence, "equivalence cannot be null");
+    ValueEquivalence<? super V> oldEquivalence = this.equivalence;
+    this.equivalence = equivalence;
+    if (manager.isBatchOpen()) {
+      manager.logInverse(() -> this.equivalence = oldEquivalence);
+    }
     return this;
   }
 
@@ -98,19 +189,37 @@ class BasicProperty<V> implements Property<V> {
   
   @Override
   public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule) {
-    checkNotNull(id, "id cannot be null");
+    putModifier(id, modifier, rule, null);
+    return this;
+  }
+
+  @Override
+  public Identifier addModifier(Modifier<V> modifier, Duration duration) {
     checkNotNull(modifier, "modifier cannot be null");
-    checkNotNull(rule, "rule cannot be null");
-    Modifiers<V> modifiers = Modifiers.create(this.modifiers);
-    rule.insert(modifiers, id, modifier);
-    validate(this.valueSource, modifiers,false);
-    V oldValue = get();
-    rule.insert(this.modifiers, id, modifier);
-    this.cachedValue = get(this.valueSource);
-    validate(this.valueSource, modifiers,true);
-    if (!oldValue.equals(this.cachedValue)) {
-      manager.firePropertyValueChange(this);
-    }
+    Identifier id = new Identifier () {};
+    addModifier(id, modifier, apply(), duration);
+    return id;
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, Duration duration) {
+    return addModifier(id, modifier, apply(), duration);
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule,
+      Duration duration) {
+    checkNotNull(duration, "duration cannot be null");
+    return addModifier(id, modifier, rule, manager.getClock().instant().plus(duration));
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule,
+      Instant deadline) {
+    checkNotNull(deadline, "deadline cannot be null");
+    long deadlineMillis = deadline.toEpochMilli();
+    putModifier(id, modifier, rule,
+        () -> manager.scheduleExpiration(this, id, modifier, deadlineMillis));
     return this;
   }
 
@@ -120,47 +229,260 @@ class BasicProperty<V> implements Property<V> {
     if (!modifiers.containsKey(id)) {
       return this;
     }
-    Modifiers<V> modifiers = Modifiers.create(this.modifiers); 
-    modifiers.remove(id);
-    validate(this.valueSource, modifiers, false);
-    V oldValue = get();
-    this.modifiers.remove(id);
-    this.cachedValue = get(this.valueSource);
-    validate(this.valueSource, modifiers, false);
-    if (!oldValue.equals(this.cachedValue)) {
-      manager.firePropertyValueChange(this);
+    manager.beginBatch();
+    int mark = manager.getUndoMark();
+    try {
+      V oldValue = get();
+      long oldVersion = this.version;
+      Modifier<V> removed = this.modifiers.get(id);
+      ModifierOrderingRule<V> rule = this.modifiers.getRule(id);
+      TimingWheel.Timeout<?> removedExpiration = expirations.get(id);
+      Runnable restoreRemoved = this.modifiers.restorer(id);
+      manager.logInverse(() -> {
+        restoreRemoved.run();
+        restoreValue(oldValue, oldVersion);
+      });
+      this.modifiers.remove(id);
+      check(validate(this.valueSource, false));
+      this.cachedValue = get(this.valueSource);
+      cancelExpiration(id);
+      if (manager.isRecording()) {
+        manager.record(this, () -> putModifier(id, removed, rule, rescheduler(removedExpiration)),
+            () -> removeModifier(id));
+      }
+      fireIfChanged(oldValue);
+    } catch (RuntimeException e) {
+      manager.rollback(mark);
+      throw e;
+    } finally {
+      manager.endBatch();
     }
     return this;
   }
 
+  // the expiration, if any, is only scheduled once the modifier has been validated, and the
+  // history keeps the deadline of each modifier it restores, so that a timed modifier that is
+  // undone or redone still expires when it would have
+  private void putModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule,
+      Supplier<TimingWheel.Timeout<?>> expiration) {
+    checkNotNull(id, "id cannot be null");
+    checkNotNull(modifier, "modifier cannot be null");
+    checkNotNull(rule, "rule cannot be null");
+    checkWritable();
+    manager.beginBatch();
+    int mark = manager.getUndoMark();
+    try {
+      V oldValue = get();
+      long oldVersion = this.version;
+      Modifier<V> previous = this.modifiers.get(id);
+      ModifierOrderingRule<V> previousRule = this.modifiers.getRule(id);
+      TimingWheel.Timeout<?> previousExpiration = expirations.get(id);
+      Runnable restorePrevious = this.modifiers.restorer(id);
+      manager.logInverse(() -> {
+        restorePrevious.run();
+        restoreValue(oldValue, oldVersion);
+      });
+      rule.insert(this.modifiers, id, modifier);
+      check(validate(this.valueSource, false));
+      this.cachedValue = get(this.valueSource);
+      validate(this.valueSource, true);
+      cancelExpiration(id);
+      TimingWheel.Timeout<?> scheduled = null;
+      if (expiration != null) {
+        scheduled = expiration.get();
+        installExpiration(id, scheduled);
+      }
+      if (manager.isRecording()) {
+        Supplier<TimingWheel.Timeout<?>> redoExpiration = rescheduler(scheduled);
+        if (previous == null) {
+          manager.record(this, () -> removeModifier(id),
+              () -> putModifier(id, modifier, rule, redoExpiration));
+        } else {
+          manager.record(this,
+              () -> putModifier(id, previous, previousRule, rescheduler(previousExpiration)),
+              () -> putModifier(id, modifier, rule, redoExpiration));
+        }
+      }
+      fireIfChanged(oldValue);
+    } catch (RuntimeException e) {
+      manager.rollback(mark);
+      throw e;
+    } finally {
+      manager.endBatch();
+    }
+  }
+
+  // a recorded expiration is cancelled by the time it is restored, and is rescheduled for its
+  // original deadline
+  private Supplier<TimingWheel.Timeout<?>> rescheduler(TimingWheel.Timeout<?> expiration) {
+    return expiration == null ? null : () -> manager.rescheduleExpiration(expiration);
+  }
+
   @Override
   public Iterator<Identifier> getModifierIdentifiers() {
     return this.modifiers.keySet().iterator();
   }
   
   void set(ValueSource<V> source) {
+    checkWritable();
+    check(update(source));
+  }
+
+  void mirror(String owner) {
+    this.mirroredFrom = owner;
+  }
+
+  boolean isMirrored() {
+    return mirroredFrom != null;
+  }
+
+  void setMirroredValue(V value) {
+    check(update(new LiteralValueSource<>(value)));
+  }
+
+  private void checkWritable() {
+    checkState(mirroredFrom == null,
+        "%s is mirrored from partition %s, and cannot be changed locally", identifier,
+        mirroredFrom);
+  }
+
+  // a rejection by this property's own rule is returned; one by a rule downstream is returned
+  // by the batch instead, which also rolls this change back
+  private ValidationResult update(ValueSource<V> source) {
     checkNotNull(source, "source cannot be null");
-    validate(source, false);
-    V oldValue = get();
-    manager.unbindConsumer(this);
-    this.cachedValue = get(source);
-    this.valueSource = source;
-    validate(source, true);
-    if (!oldValue.equals(this.cachedValue)) {
-      manager.firePropertyValueChange(this);
+    ValidationResult result = validate(source, false);
+    if (!result.isValid()) {
+      return result;
+    }
+    manager.beginBatch();
+    int mark = manager.getUndoMark();
+    try {
+      V oldValue = get();
+      long oldVersion = this.version;
+      ValueSource<V> oldSource = this.valueSource;
+      Collection<PropertyIdentifier<?>> oldInputs = manager.unbindConsumer(this);
+      manager.logInverse(() -> {
+        this.valueSource = oldSource;
+        restoreValue(oldValue, oldVersion);
+        manager.rebindConsumer(this, oldInputs);
+      });
+      bindDeclaredInputs(source);
+      this.cachedValue = get(source);
+      this.valueSource = source;
+      validate(source, true);
+      if (manager.isRecording()) {
+        manager.record(this, () -> set(oldSource), () -> set(source));
+      }
+      fireIfChanged(oldValue);
+    } catch (RuntimeException e) {
+      manager.rollback(mark);
+      throw e;
+    } finally {
+      manager.endBatch();
     }
+    return result;
   }
 
-  void onProducerPropertyValueChange() {
-    validate(this.valueSource, false);    
+  // invoked by the manager while propagating a change; returns whether the value changed, and
+  // leaves the notification of listeners to the manager. A rejection is handed to the manager,
+  // which rolls back the whole pass
+  boolean recompute() {
+    ValidationResult result = validate(this.valueSource, false);
+    if (!result.isValid()) {
+      manager.reject(result);
+      return false;
+    }
     V oldValue = get();
+    manager.logValue(this, oldValue, this.version);
     this.cachedValue = get(this.valueSource);
-    validate(this.valueSource, true);    
-    if (!oldValue.equals(this.cachedValue)) {
-      manager.firePropertyValueChange(this);
+    validate(this.valueSource, true);
+    return hasChanged(oldValue);
+  }
+
+  @SuppressWarnings("unchecked")
+  void restoreValue(Object value, long version) {
+    this.cachedValue = (V) value;
+    this.version = version;
+  }
+
+  // validators are restored as they were, without validating the current value against them
+  void replaceValidator(Optional<ValidationRule<V>> validator) {
+    Optional<ValidationRule<V>> oldValidator = this.validator;
+    this.validator = validator;
+    if (manager.isBatchOpen()) {
+      manager.logInverse(() -> this.validator = oldValidator);
+    }
+    if (manager.isRecording()) {
+      manager.beginBatch();
+      try {
+        manager.record(this, () -> replaceValidator(oldValidator),
+            () -> replaceValidator(validator));
+      } finally {
+        manager.endBatch();
+      }
+    }
+  }
+
+  void expireModifier(Identifier id) {
+    expirations.remove(id);
+    removeModifier(id);
+  }
+
+  // a rejected expiration is rescheduled, unless the modifier has since been replaced or removed
+  void retryExpiration(Identifier id, Modifier<V> modifier, long deadlineMillis) {
+    if (manager.isRegistered(this) && modifiers.get(id) == modifier
+        && !expirations.containsKey(id)) {
+      expirations.put(id, manager.scheduleExpiration(this, id, modifier, deadlineMillis));
+    }
+  }
+
+  // returns the expirations that were cancelled, so that they can be restored
+  Map<Identifier, TimingWheel.Timeout<?>> cancelExpirations() {
+    Map<Identifier, TimingWheel.Timeout<?>> cancelled = ImmutableMap.copyOf(expirations);
+    cancelled.values().forEach(TimingWheel.Timeout::cancel);
+    expirations.clear();
+    return cancelled;
+  }
+
+  void restoreExpirations(Map<Identifier, TimingWheel.Timeout<?>> cancelled) {
+    cancelled.forEach((id, expiration) ->
+        expirations.put(id, manager.rescheduleExpiration(expiration)));
+  }
+
+  // the expiration is installed and cancelled within the batch, and is cancelled or restored as
+  // it was should the batch be rolled back
+  private void installExpiration(Identifier id, TimingWheel.Timeout<?> expiration) {
+    expirations.put(id, expiration);
+    manager.logInverse(() -> {
+      expirations.remove(id, expiration);
+      expiration.cancel();
+    });
+  }
+
+  private void cancelExpiration(Identifier id) {
+    TimingWheel.Timeout<?> expiration = expirations.remove(id);
+    if (expiration != null) {
+      expiration.cancel();
+      manager.logInverse(() -> restoreExpirations(ImmutableMap.of(id, expiration)));
     }
   }
   
+  private void fireIfChanged(V oldValue) {
+    if (hasChanged(oldValue)) {
+      manager.firePropertyValueChange(this);
+    }
+  }
+
+  private boolean hasChanged(V oldValue) {
+    if (equivalence.equivalent(oldValue, this.cachedValue)) {
+      // keep the value that consumers have already seen
+      this.cachedValue = oldValue;
+      return false;
+    }
+    this.version = manager.getSequence();
+    return true;
+  }
+
   private V get(ValueSource<V> source) {
     return get(source, true);
   }
@@ -170,26 +492,81 @@ class BasicProperty<V> implements Property<V> {
   }
 
   private V get(ValueSource<V> source, boolean createBindings, Modifiers<V> modifiers) {
-    PropertyContext context = manager.getPropertyContextFor(this, createBindings);
-    V value = source.apply(context);
+    PropertyContext context = getContext(createBindings);
+    V value;
+    if (source.isDeclared()) {
+      value = source.apply(getDeclaredContext(source.getInputs()));
+    } else {
+      value = source.apply(context);
+    }
     value = modifiers.applyModifiers(context, value);
     return value;
   }
+
+  private PropertyContext getContext(boolean createBindings) {
+    if (createBindings) {
+      if (bindingContext == null) {
+        bindingContext = manager.getPropertyContextFor(this, true);
+      }
+      return bindingContext;
+    }
+    if (readingContext == null) {
+      readingContext = manager.getPropertyContextFor(this, false);
+    }
+    return readingContext;
+  }
+
+  // declared inputs are bound once, when the source is set, rather than on every evaluation
+  private void bindDeclaredInputs(ValueSource<V> source) {
+    if (source.isDeclared()) {
+      manager.bindInputs(this, source.getInputs());
+    }
+  }
+
+  boolean declares(PropertyIdentifier<?> id) {
+    return valueSource.isDeclared() && valueSource.getInputs().contains(id);
+  }
+
+  private PropertyContext getDeclaredContext(Set<PropertyIdentifier<?>> inputs) {
+    if (declaredContext == null || declaredInputs != inputs) {
+      declaredContext = manager.getDeclaredPropertyContextFor(this, inputs);
+      declaredInputs = inputs;
+    }
+    return declaredContext;
+  }
   
-  private void validate(ValueSource<V> source, boolean createBindings) {
-    validate(source, this.modifiers, createBindings);
+  // the second validation of each update only binds the inputs that the rule reads, and
+  // returns the same result as the first
+  private ValidationResult validate(ValueSource<V> source, boolean createBindings) {
+    return validate(source, this.modifiers, createBindings);
   }
 
-  private void validate(ValueSource<V> source, Modifiers<V> modifiers, boolean createBindings) {
-    validate(this.validator, source, modifiers, createBindings);
+  private ValidationResult validate(ValueSource<V> source, Modifiers<V> modifiers,
+      boolean createBindings) {
+    return validate(this.validator, source, modifiers, createBindings);
   }
 
-  private void validate(Optional<Validator<V>> validator, ValueSource<V> source, Modifiers<V> modifiers, boolean createBindings) {
-    validator.ifPresent((v) -> {
-      PropertyContext context = manager.getPropertyContextFor(this, createBindings);
-      V value = get(source, false);
-      v.validate(context, value);
-    });
+  private ValidationResult validate(Optional<ValidationRule<V>> validator, ValueSource<V> source, Modifiers<V> modifiers, boolean createBindings) {
+    if (validator.isPresent()) {
+      V value = get(source, false, modifiers);
+      return validator.get().check(getContext(createBindings), value);
+    }
+    return ValidationResult.valid();
+  }
+
+  // the rejections of the throwing API are built only once a rule has rejected a value
+  private static void check(ValidationResult result) {
+    if (!result.isValid()) {
+      throw new IllegalArgumentException(result.getMessage());
+    }
+  }
+
+  // a validator rejects by throwing, and its exception is left to propagate as it always has
+  static <V> ValidationRule<V> asRule(Validator<V> validator) {
+    return (context, value) -> {
+      validator.validate(context, value);
+      return ValidationResult.valid();
+    };
   }
   
 
@@ -1,23 +1,120 @@
 package org.devoware.reactive.property;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
 
 class BasicPropertyManager implements PropertyManager {
+  private static final int SPINS_BEFORE_YIELD = 64;
+
   private final Map<PropertyIdentifier<?>, BasicProperty<?>> properties = Maps.newConcurrentMap();
   private final Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> consumerBindings = LinkedHashMultimap.create();
   private final Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> producerBindings = LinkedHashMultimap.create();
-  private final Multimap<PropertyIdentifier<?>, PropertyChangeListener<?>> listeners =
-      LinkedListMultimap.create();
+  private final PropertyComponents components =
+      new PropertyComponents(consumerBindings, producerBindings);
+  private final Map<PropertyIdentifier<?>, PropertyChangeListeners<?>> listeners = Maps.newHashMap();
+  private final ReferenceQueue<PropertyChangeListener<?>> staleListeners = new ReferenceQueue<>();
+  private final Map<PropertyIdentifier<?>, PropertyWatches<?>> watches = Maps.newHashMap();
+  private final boolean strictDependencyChecks;
+  private final Clock clock;
+  private final TimingWheel<Expiration<?>> expirations;
+  // properties whose value changed, and properties that must be recomputed, since the last
+  // propagation pass; both are drained once the outermost batch completes
+  private final Set<PropertyIdentifier<?>> changedProperties = Sets.newLinkedHashSet();
+  private final Set<PropertyIdentifier<?>> staleProperties = Sets.newLinkedHashSet();
+  private int batchDepth;
+  // a sequence lock for readers on other threads: the sequence is odd while a batch is open,
+  // and every value is written within one, so a read that starts and ends on the same even
+  // sequence cannot have overlapped a propagation
+  private volatile long sequence;
+  private volatile Thread writer;
+  // operations are recorded while a history is attached, unless they are being replayed by it
+  // or are made by the manager itself, such as expirations
+  private PropertyHistory history;
+  private int unrecorded;
+  private RecomputeProfile profile;
+  // everything overwritten since the last commit point of the outermost batch: its start, and
+  // the end of each propagation pass that recomputed without failing or being rejected,
+  // including the registration and removal of properties
+  private final UndoLog undoLog = new UndoLog();
+  private ValidationResult rejection;
+  private int tentative;
+  // counts the points at which changes were committed, each pass and each outermost batch
+  private long commits;
+  // run once the outermost batch commits; an action queued by a part of the batch that is
+  // rolled back is dropped along with it
+  private final List<Runnable> commitActions = Lists.newArrayList();
+  private Set<PropertyIdentifier<?>> propagated;
+  // scratch state of the propagation pass, reused across passes so that a steady stream of
+  // changes does not allocate a fresh graph traversal each time
+  private final List<BasicProperty<?>> order = Lists.newArrayList();
+  private final Deque<BasicProperty<?>> path = new ArrayDeque<>();
+  private final Deque<Iterator<PropertyIdentifier<?>>> iterators = new ArrayDeque<>();
+  private long wave;
+  private final Map<Identifier, Broadcast<?>> broadcasts = Maps.newLinkedHashMap();
+  private final List<Consumer<Set<PropertyIdentifier<?>>>> propagationListeners =
+      Lists.newArrayList();
+  private final List<Consumer<PropertyIdentifier<?>>> removalListeners = Lists.newArrayList();
+  // the lanes of parallel passes, if any; parallel is only set while they are running, during
+  // which the thread that ends the batch does nothing but wait for them
+  private final Executor laneExecutor;
+  private final Lane[] lanes;
+  private final int minParallelPass;
+  private final ThreadLocal<Lane> currentLane = new ThreadLocal<>();
+  private boolean parallel;
+
+  BasicPropertyManager(PropertyManagers.Builder builder) {
+    checkNotNull(builder, "builder cannot be null");
+    this.strictDependencyChecks = builder.isStrictDependencyChecks();
+    this.clock = builder.getClock();
+    this.expirations = new TimingWheel<>(builder.getTickDuration().toMillis(), clock.millis());
+    this.laneExecutor = builder.getLaneExecutor();
+    this.minParallelPass = builder.getMinParallelPass();
+    if (laneExecutor == null) {
+      this.lanes = null;
+    } else {
+      this.lanes = new Lane[builder.getLanes()];
+      for (int i = 0; i < lanes.length; i++) {
+        lanes[i] = new Lane();
+      }
+    }
+  }
+
+  // the factories of the features built into the manager only accept managers it created
+  static BasicPropertyManager from(PropertyManager manager) {
+    checkNotNull(manager, "manager cannot be null");
+    checkArgument(manager instanceof BasicPropertyManager,
+        "manager must be created by PropertyManagers");
+    return (BasicPropertyManager) manager;
+  }
 
   @Override
   public <V> PropertyManager.Builder<V> create(PropertyIdentifier<V> id) {
@@ -31,18 +128,224 @@ class BasicPropertyManager implements PropertyManager {
   
   @Override
   public <V> PropertyManager remove(PropertyIdentifier<V> id) {
-    Property<V> property = get(id);
-    properties.remove(id);
-    unbindConsumer(property);
-    unbindProducer(property);
+    BasicProperty<V> property = getBasicProperty(id);
+    if (property == null && producerBindings.containsKey(id)) {
+      // a placeholder holds nothing but the bindings of its consumers, which would bind it again
+      // as soon as they were recomputed, so there is nothing to remove, as with removeAll
+      return this;
+    }
+    checkNotNull(property, "no property is registered for %s", id);
+    batch(() -> detach(property));
     return this;
   }
 
+  // every property is detached before any consumer is recomputed, so consumers that are removed
+  // as well are never recomputed, and the survivors are recomputed once each
+  @Override
+  public PropertyManager removeAll(Collection<? extends PropertyIdentifier<?>> ids) {
+    checkNotNull(ids, "ids cannot be null");
+    batch(() -> {
+      for (PropertyIdentifier<?> id : ids) {
+        BasicProperty<?> property = getBasicProperty(id);
+        if (property != null) {
+          detach(property);
+        }
+      }
+    });
+    return this;
+  }
+
+  @Override
+  public PropertyManager removeIf(Predicate<? super PropertyIdentifier<?>> predicate) {
+    checkNotNull(predicate, "predicate cannot be null");
+    List<PropertyIdentifier<?>> ids = Lists.newArrayList();
+    for (PropertyIdentifier<?> id : getIds()) {
+      if (predicate.test(id)) {
+        ids.add(id);
+      }
+    }
+    return removeAll(ids);
+  }
+
+  @Override
+  public void batch(Runnable updates) {
+    checkNotNull(updates, "updates cannot be null");
+    beginBatch();
+    int mark = getUndoMark();
+    try {
+      updates.run();
+    } catch (RuntimeException e) {
+      rollback(mark);
+      throw e;
+    } finally {
+      endBatch();
+    }
+  }
+
+  // values are read optimistically, and read again only if a batch was open at the time, or
+  // was opened before the read completed; an uncontended read never blocks
+  @Override
+  public PropertyReading readConsistent(PropertyIdentifier<?>... ids) {
+    checkNotNull(ids, "ids cannot be null");
+    PropertyIdentifier<?>[] copy = ids.clone();
+    for (PropertyIdentifier<?> id : copy) {
+      checkNotNull(id, "id cannot be null");
+    }
+    Object[] values = new Object[copy.length];
+    long[] versions = new long[copy.length];
+    for (int attempt = 0;; attempt++) {
+      long before = sequence;
+      if ((before & 1) == 0) {
+        for (int i = 0; i < copy.length; i++) {
+          BasicProperty<?> property = properties.get(copy[i]);
+          values[i] = property == null ? null : property.get();
+          versions[i] = property == null ? -1 : property.getVersion();
+        }
+        if (sequence == before) {
+          return new PropertyReading(copy, values, versions, before);
+        }
+      } else if (writer == Thread.currentThread()) {
+        throw new IllegalStateException("cannot read consistently from within a batch");
+      }
+      if (attempt >= SPINS_BEFORE_YIELD) {
+        Thread.yield();
+      }
+    }
+  }
+
+  // a broadcast modifier is added to each of its targets within a single batch, so that the
+  // properties downstream of them are recomputed once, however many targets they depend on
+  @Override
+  public <V> Identifier addBroadcastModifier(Iterable<? extends PropertyIdentifier<V>> ids,
+      Modifier<V> modifier) {
+    return addBroadcastModifier(ids, modifier, ModifierOrderingRules.apply());
+  }
+
+  @Override
+  public <V> Identifier addBroadcastModifier(Iterable<? extends PropertyIdentifier<V>> ids,
+      Modifier<V> modifier, ModifierOrderingRule<V> rule) {
+    checkNotNull(ids, "ids cannot be null");
+    Broadcast<V> broadcast = new Broadcast<>(modifier, rule, null, null);
+    addBroadcastModifier(broadcast, () -> {
+      for (PropertyIdentifier<V> id : ids) {
+        checkNotNull(id, "id cannot be null");
+        broadcast.applyTo((BasicProperty<V>) materialize(id));
+      }
+    });
+    return broadcast.id;
+  }
+
+  // unlike one registered against a set of identifiers, a broadcast modifier registered against
+  // a predicate is also added to matching properties that are created later on
+  @Override
+  public <V> Identifier addBroadcastModifier(Class<V> type,
+      Predicate<? super PropertyIdentifier<V>> predicate, Modifier<V> modifier,
+      ModifierOrderingRule<V> rule) {
+    checkNotNull(type, "type cannot be null");
+    checkNotNull(predicate, "predicate cannot be null");
+    Broadcast<V> broadcast = new Broadcast<>(modifier, rule, type, predicate);
+    addBroadcastModifier(broadcast, () -> {
+      // adding the modifier to a placeholder is its first write
+      for (PropertyIdentifier<?> id : ImmutableSet.copyOf(producerBindings.keySet())) {
+        if (!properties.containsKey(id) && broadcast.matches(id)) {
+          materialize(id);
+        }
+      }
+      for (BasicProperty<?> property : ImmutableSet.copyOf(properties.values())) {
+        broadcast.applyIfMatches(property);
+      }
+    });
+    return broadcast.id;
+  }
+
+  @Override
+  public PropertyManager removeBroadcastModifier(Identifier id) {
+    checkNotNull(id, "id cannot be null");
+    Broadcast<?> broadcast = broadcasts.get(id);
+    if (broadcast != null) {
+      batch(() -> {
+        broadcasts.remove(id);
+        logInverse(() -> broadcasts.put(id, broadcast));
+        broadcast.removeAll();
+      });
+    }
+    return this;
+  }
+
+  // all of the modifiers that are due are removed within a single batch, so that consumers
+  // shared between them are recomputed only once; should it be rejected, each of them is removed
+  // in a batch of its own, so that one rejection cannot hold back the others. A rejected
+  // expiration is retried on the next tick, and reported once the rest are applied
+  @Override
+  public void expireModifiers() {
+    List<Expiration<?>> expired = expirations.advance(clock.millis());
+    if (expired.isEmpty()) {
+      return;
+    }
+    try {
+      withoutHistory(() -> expired.forEach(Expiration::run));
+      return;
+    } catch (RuntimeException e) {
+      if (expired.size() == 1) {
+        expired.get(0).retry();
+        throw e;
+      }
+    }
+    RuntimeException failure = null;
+    for (Expiration<?> expiration : expired) {
+      try {
+        withoutHistory(expiration);
+      } catch (RuntimeException e) {
+        expiration.retry();
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <V> Property<V> get(PropertyIdentifier<V> id) {
     checkNotNull(id, "id cannot be null");
-    return (Property<V>) properties.get(id);
+    Property<V> property = (Property<V>) properties.get(id);
+    if (property == null && producerBindings.containsKey(id)) {
+      return new PlaceholderProperty<>(this, id);
+    }
+    return property;
+  }
+
+  // a mirror is created without the broadcast modifiers of this manager, since its value is
+  // already final in the partition that owns it
+  <V> Property<V> mirror(PropertyIdentifier<V> id, String owner) {
+    checkNotNull(id, "id cannot be null");
+    checkNotNull(owner, "owner cannot be null");
+    BasicProperty<V> property = getBasicProperty(id);
+    if (property == null) {
+      return new Builder<>(id).mirroredFrom(owner).withValue(id.getDefaultValue()).build();
+    }
+    property.mirror(owner);
+    return property;
+  }
+
+  // unlike get, never answers with a placeholder
+  <V> Property<V> getMaterialized(PropertyIdentifier<V> id) {
+    return getBasicProperty(id);
+  }
+
+  // an identifier that is only read by value functions is left as a placeholder, so that it
+  // costs no more than its bindings, until it is first written to
+  <V> Property<V> materialize(PropertyIdentifier<V> id) {
+    BasicProperty<V> property = getBasicProperty(id);
+    if (property != null) {
+      return property;
+    }
+    return create(id).withValue(id.getDefaultValue()).build();
   }
   
   @Override
@@ -52,55 +355,662 @@ class BasicPropertyManager implements PropertyManager {
   
   @Override
   public Set<PropertyIdentifier<?>> getProducerBindings(Property<?> producer) {
-    return ImmutableSet.copyOf(producerBindings.get(producer.getId()));
+    return ImmutableSet.copyOf(
+        Collections2.filter(producerBindings.get(producer.getId()), (id) -> !isInternal(id)));
   }
 
   PropertyContext getPropertyContextFor(BasicProperty<?> consumer, boolean createBindings) {
     checkNotNull(consumer, "requestorProperty cannot be null");
-    return new Context(consumer, createBindings);
+    return new Context(consumer, createBindings, null);
+  }
+
+  PropertyContext getDeclaredPropertyContextFor(BasicProperty<?> consumer,
+      Set<PropertyIdentifier<?>> inputs) {
+    checkNotNull(consumer, "consumer cannot be null");
+    checkNotNull(inputs, "inputs cannot be null");
+    return new Context(consumer, false, inputs);
+  }
+
+  void bindInputs(BasicProperty<?> consumer, Set<PropertyIdentifier<?>> inputs) {
+    checkNotNull(consumer, "consumer cannot be null");
+    checkNotNull(inputs, "inputs cannot be null");
+    for (PropertyIdentifier<?> input : inputs) {
+      bindTo(consumer, input);
+    }
   }
 
   <V> void addPropertyChangeListener(BasicProperty<V> property,
       PropertyChangeListener<V> listener) {
     checkNotNull(property, "property cannot be null");
     checkNotNull(listener, "listener cannot be null");
-    listeners.put(property.getId(), listener);
+    purgeStaleListeners();
+    getOrCreateListeners(property.getId()).add(listener);
+  }
+
+  <V> void addWeakPropertyChangeListener(BasicProperty<V> property,
+      PropertyChangeListener<V> listener) {
+    checkNotNull(property, "property cannot be null");
+    checkNotNull(listener, "listener cannot be null");
+    purgeStaleListeners();
+    getOrCreateListeners(property.getId()).addWeak(listener, staleListeners);
+  }
+
+  // the reference through which a weak listener is held, so that tests can clear and enqueue it
+  // as the collector would, and whether any listeners are left for a property
+  <V> Reference<?> getWeakReference(PropertyIdentifier<V> id, PropertyChangeListener<V> listener) {
+    PropertyChangeListeners<V> propertyListeners = getListeners(id);
+    return propertyListeners == null ? null : propertyListeners.getWeakReference(listener);
+  }
+
+  boolean hasListeners(PropertyIdentifier<?> id) {
+    return listeners.containsKey(id);
   }
 
   <V> void removePropertyChangeListener(BasicProperty<V> property,
       PropertyChangeListener<V> listener) {
     checkNotNull(property, "property cannot be null");
     checkNotNull(listener, "listener cannot be null");
-    listeners.remove(property.getId(), listener);
+    PropertyChangeListeners<V> propertyListeners = getListeners(property.getId());
+    if (propertyListeners != null && propertyListeners.remove(listener)) {
+      removeIfEmpty(propertyListeners);
+    }
   }
 
+  // watches that have all been cancelled are only discarded once their property changes again
   @SuppressWarnings("unchecked")
+  <V> PropertyWatches<V> getOrCreateWatches(BasicProperty<V> property) {
+    checkNotNull(property, "property cannot be null");
+    PropertyWatches<V> propertyWatches = (PropertyWatches<V>) watches.get(property.getId());
+    if (propertyWatches == null) {
+      propertyWatches = new PropertyWatches<>(property.getId(), property.get());
+      watches.put(property.getId(), propertyWatches);
+    }
+    return propertyWatches;
+  }
+
   <V> void firePropertyValueChange(Property<V> producer) {
-    listeners.get(producer.getId()).forEach((listener) -> {
-      PropertyChangeListener<V> typedListener = (PropertyChangeListener<V>) listener;
-      typedListener.onValueChanged(producer.getId(), producer.get());;
-    });
-  
-    producerBindings.get(producer.getId()).forEach((consumer) -> {
-      getBasicProperty(consumer).onProducerPropertyValueChange();
+    changedProperties.add(producer.getId());
+    if (batchDepth == 0) {
+      beginBatch();
+      endBatch();
+    }
+  }
+
+  void beginBatch() {
+    if (batchDepth++ == 0) {
+      writer = Thread.currentThread();
+      sequence++;
+    }
+  }
+
+  // the outermost batch propagates its changes before the sequence is released; a pass that
+  // fails, or that a validation rule rejects, is rolled back along with everything logged since
+  // the last commit point, so listeners only ever observe values that were committed.
+  // Propagation listeners, and then the commit actions, are told of the committed changes
+  // outside of the batch
+  void endBatch() {
+    if (batchDepth > 1) {
+      batchDepth--;
+      return;
+    }
+    propagated = propagationListeners.isEmpty() ? null : Sets.newLinkedHashSet();
+    boolean committed = false;
+    try {
+      committed = propagate();
+    } finally {
+      if (committed) {
+        commits++;
+      } else {
+        undoLog.rollback(0);
+        changedProperties.clear();
+        staleProperties.clear();
+      }
+      undoLog.clear();
+      batchDepth--;
+      writer = null;
+      sequence++;
+      if (history != null) {
+        history.endStep();
+      }
+      List<Runnable> actions = committed ? ImmutableList.copyOf(commitActions) : null;
+      commitActions.clear();
+      Set<PropertyIdentifier<?>> propagated = this.propagated;
+      this.propagated = null;
+      if (propagated != null && !propagated.isEmpty()) {
+        Set<PropertyIdentifier<?>> changed = ImmutableSet.copyOf(propagated);
+        propagationListeners.forEach((listener) -> listener.accept(changed));
+      }
+      if (actions != null) {
+        actions.forEach(Runnable::run);
+      }
+    }
+    if (rejection != null && tentative == 0) {
+      ValidationResult rejected = rejection;
+      rejection = null;
+      throw new IllegalArgumentException(rejected.getMessage());
+    }
+  }
+
+  // runs an update whose rejections are returned rather than thrown, whether they come from the
+  // property being updated or from a rule downstream of it
+  ValidationResult tryBatch(Supplier<ValidationResult> update) {
+    ValidationResult result;
+    tentative++;
+    try {
+      result = update.get();
+    } finally {
+      tentative--;
+    }
+    if (rejection != null && tentative == 0) {
+      result = rejection;
+      rejection = null;
+    }
+    return result;
+  }
+
+  // runs the updates in a batch, and returns the failure of a batch that was rolled back as a
+  // whole, whether it was rejected or failed before any of its changes were committed. A
+  // failure once a pass has been committed, such as a listener's, is thrown instead, since what
+  // was committed before it is not undone
+  RuntimeException tryCommit(Runnable updates) {
+    long before = commits;
+    try {
+      batch(updates);
+      return null;
+    } catch (RuntimeException e) {
+      if (commits != before) {
+        throw e;
+      }
+      return e;
+    }
+  }
+
+  int getUndoMark() {
+    return undoLog.size();
+  }
+
+  // undoes what was logged after the mark, when an update fails part way through a batch
+  void rollback(int mark) {
+    undoLog.rollback(mark);
+  }
+
+  // nothing is logged outside of a batch, where there is nothing to roll back
+  void logValue(BasicProperty<?> property, Object value, long version) {
+    Lane lane = parallel ? currentLane.get() : null;
+    if (lane != null) {
+      lane.undoLog.logValue(property, value, version);
+    } else if (batchDepth > 0) {
+      undoLog.logValue(property, value, version);
+    }
+  }
+
+  // runs the action once the changes made so far are committed, or right away outside of a batch
+  void afterCommit(Runnable action) {
+    if (batchDepth == 0) {
+      action.run();
+      return;
+    }
+    commitActions.add(action);
+    logInverse(() -> commitActions.remove(action));
+  }
+
+  void logInverse(Runnable inverse) {
+    Lane lane = parallel ? currentLane.get() : null;
+    if (lane != null) {
+      lane.undoLog.logInverse(inverse);
+    } else if (batchDepth > 0) {
+      undoLog.logInverse(inverse);
+    }
+  }
+
+  // only the first rejection of a pass is kept, since the pass stops there
+  void reject(ValidationResult result) {
+    Lane lane = parallel ? currentLane.get() : null;
+    if (lane != null) {
+      if (lane.rejection == null) {
+        lane.rejection = result;
+      }
+    } else if (rejection == null) {
+      rejection = result;
+    }
+  }
+
+  boolean isBatchOpen() {
+    return batchDepth > 0;
+  }
+
+  boolean isRecording() {
+    return history != null && unrecorded == 0;
+  }
+
+  void record(BasicProperty<?> property, Runnable undo, Runnable redo) {
+    if (isRecording()) {
+      PropertyHistory history = this.history;
+      history.record(property, undo, redo);
+      undoLog.logInverse(history::discardLast);
+    }
+  }
+
+  void withoutHistory(Runnable updates) {
+    unrecorded++;
+    try {
+      batch(updates);
+    } finally {
+      unrecorded--;
+    }
+  }
+
+  PropertyHistory getHistory() {
+    return history;
+  }
+
+  void setHistory(PropertyHistory history) {
+    this.history = history;
+  }
+
+  RecomputeProfile getProfile() {
+    return profile;
+  }
+
+  void setProfile(RecomputeProfile profile) {
+    this.profile = profile;
+  }
+
+  Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> getProducerBindings() {
+    return Multimaps.unmodifiableMultimap(producerBindings);
+  }
+
+  PropertyComponents getComponents() {
+    return components;
+  }
+
+  // internal properties are left out
+  Set<PropertyIdentifier<?>> getIds() {
+    return Collections.unmodifiableSet(Sets.filter(properties.keySet(), (id) -> !isInternal(id)));
+  }
+
+  static boolean isInternal(PropertyIdentifier<?> id) {
+    return id instanceof InternalIdentifier;
+  }
+
+  boolean isRegistered(BasicProperty<?> property) {
+    return properties.get(property.getId()) == property;
+  }
+
+  // the version of a property is the sequence of the batch that last changed it
+  long getSequence() {
+    return sequence;
+  }
+
+  <V> TimingWheel.Timeout<Expiration<?>> scheduleExpiration(BasicProperty<V> property,
+      Identifier id, Modifier<V> modifier, long deadlineMillis) {
+    return expirations.schedule(new Expiration<>(property, id, modifier), deadlineMillis);
+  }
+
+  @SuppressWarnings("unchecked")
+  TimingWheel.Timeout<?> rescheduleExpiration(TimingWheel.Timeout<?> cancelled) {
+    return expirations.reschedule((TimingWheel.Timeout<Expiration<?>>) cancelled);
+  }
+
+  Clock getClock() {
+    return clock;
+  }
+
+  // propagation listeners are told which properties changed once all of the passes triggered by
+  // an outermost batch have completed
+  void addPropagationListener(Consumer<Set<PropertyIdentifier<?>>> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    propagationListeners.add(listener);
+  }
+
+  void removePropagationListener(Consumer<Set<PropertyIdentifier<?>>> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    propagationListeners.remove(listener);
+  }
+
+  // removal listeners are told of each property as it is removed, within the removing batch
+  void addRemovalListener(Consumer<PropertyIdentifier<?>> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    removalListeners.add(listener);
+  }
+
+  void removeRemovalListener(Consumer<PropertyIdentifier<?>> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    removalListeners.remove(listener);
+  }
+
+  // the removal is logged as a whole, so that a batch that is rolled back restores the
+  // registration, watches, expirations and bindings of the property as they were
+  private void detach(BasicProperty<?> property) {
+    PropertyIdentifier<?> id = property.getId();
+    properties.remove(id);
+    PropertyWatches<?> propertyWatches = watches.remove(id);
+    Map<Identifier, TimingWheel.Timeout<?>> cancelled = property.cancelExpirations();
+    Collection<PropertyIdentifier<?>> producers = unbindConsumer(property);
+    List<PropertyIdentifier<?>> consumers = unbindProducer(property);
+    logInverse(() -> {
+      properties.put(id, property);
+      if (propertyWatches != null) {
+        watches.put(id, propertyWatches);
+      }
+      property.restoreExpirations(cancelled);
+      rebindConsumer(property, producers);
+      consumers.forEach((consumer) -> bindUnchecked(consumer, id));
     });
+    removalListeners.forEach((listener) -> listener.accept(id));
   }
 
-  <V> void unbindConsumer(Property<V> consumer) {
+  // returns the producers the consumer was bound to, so that the bindings can be restored
+  <V> Collection<PropertyIdentifier<?>> unbindConsumer(Property<V> consumer) {
     checkNotNull(consumer, "consumer cannot be null");
-    consumerBindings.get(consumer.getId()).forEach((producer) -> {
+    Collection<PropertyIdentifier<?>> producers = consumerBindings.removeAll(consumer.getId());
+    for (PropertyIdentifier<?> producer : producers) {
       producerBindings.remove(producer, consumer.getId());
-    });
-    consumerBindings.removeAll(consumer.getId());
+      components.unbind(consumer.getId(), producer);
+    }
+    return producers;
+  }
+
+  // restored bindings were acyclic when they were made, and are checked no further
+  void rebindConsumer(Property<?> consumer, Collection<PropertyIdentifier<?>> producers) {
+    unbindConsumer(consumer);
+    for (PropertyIdentifier<?> producer : producers) {
+      bindUnchecked(consumer.getId(), producer);
+    }
   }
   
-  private <V> void unbindProducer(Property<V> producer) {
+  // a consumer that declares the producer as an input stays bound to it, now as a placeholder,
+  // since its declared inputs are only bound when its source is set. Returns the consumers that
+  // were unbound, so that the bindings can be restored
+  private <V> List<PropertyIdentifier<?>> unbindProducer(Property<V> producer) {
     checkNotNull(producer, "producer cannot be null");
-    producerBindings.get(producer.getId()).forEach((consumer) -> {
+    List<PropertyIdentifier<?>> unbound = Lists.newArrayList();
+    for (PropertyIdentifier<?> consumer : ImmutableList.copyOf(
+        producerBindings.get(producer.getId()))) {
+      BasicProperty<?> property = getBasicProperty(consumer);
+      if (property != null) {
+        staleProperties.add(consumer);
+        if (property.declares(producer.getId())) {
+          continue;
+        }
+      }
       consumerBindings.remove(consumer, producer.getId());
-      getBasicProperty(consumer).onProducerPropertyValueChange();
+      producerBindings.remove(producer.getId(), consumer);
+      components.unbind(consumer, producer.getId());
+      unbound.add(consumer);
+    }
+    return unbound;
+  }
+
+  // each pass visits the properties downstream of the changes in topological order, so that a
+  // property is recomputed at most once, and only after all of its producers. A pass is
+  // committed once every property has been recomputed, and only then are listeners told of it;
+  // changes made by listeners are collected, and propagated by the next pass. Returns false if
+  // a pass was rejected, in which case it is left for the caller to roll back
+  private boolean propagate() {
+    try {
+      while (!changedProperties.isEmpty() || !staleProperties.isEmpty()) {
+        long wave = ++this.wave;
+        for (PropertyIdentifier<?> id : changedProperties) {
+          BasicProperty<?> property = getBasicProperty(id);
+          // a change that was rolled back leaves the version as it was before the batch
+          if (property != null && property.getVersion() == sequence) {
+            property.changedWave = wave;
+          }
+        }
+        for (PropertyIdentifier<?> id : staleProperties) {
+          BasicProperty<?> property = getBasicProperty(id);
+          if (property != null) {
+            property.staleWave = wave;
+          }
+        }
+        visitDownstream(changedProperties, wave);
+        visitDownstream(staleProperties, wave);
+        changedProperties.clear();
+        staleProperties.clear();
+        if (!recomputeAll(wave)) {
+          return false;
+        }
+        commits++;
+        undoLog.clear();
+        for (int i = order.size() - 1; i >= 0; i--) {
+          BasicProperty<?> property = order.get(i);
+          if (properties.get(property.getId()) != property) {
+            // removed by a listener earlier in the pass
+            continue;
+          }
+          if (property.changedWave == wave) {
+            fire(property);
+            if (propagated != null) {
+              propagated.add(property.getId());
+            }
+          }
+        }
+        order.clear();
+      }
+      return true;
+    } finally {
+      order.clear();
+      path.clear();
+      iterators.clear();
+    }
+  }
+
+  private boolean recomputeInOrder(long wave) {
+    for (int i = order.size() - 1; i >= 0; i--) {
+      BasicProperty<?> property = order.get(i);
+      if ((property.staleWave == wave || dependsOnChange(property, wave))
+          && recompute(property)) {
+        property.changedWave = wave;
+      }
+      if (rejection != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // a large pass is split by connected component, and each component is routed to a single
+  // lane, so that lanes never share a property and need no locking; while they run, the
+  // bindings and the rest of the manager are only ever read. A lane that reads a producer its
+  // consumer is not yet bound to would have to bind it, possibly uniting its component with one
+  // that another lane is recomputing, so the pass is rolled back instead, and recomputed in
+  // order, which makes the binding
+  private boolean recomputeAll(long wave) {
+    if (lanes == null || order.size() < minParallelPass) {
+      return recomputeInOrder(wave);
+    }
+    int busy = 0;
+    for (int i = order.size() - 1; i >= 0; i--) {
+      BasicProperty<?> property = order.get(i);
+      Lane lane = lanes[laneOf(components.getRepresentative(property.getId()))];
+      if (lane.properties.isEmpty()) {
+        busy++;
+      }
+      lane.properties.add(property);
+    }
+    if (busy < 2) {
+      for (Lane lane : lanes) {
+        lane.reset();
+      }
+      return recomputeInOrder(wave);
+    }
+    int mark = undoLog.size();
+    CountDownLatch done = new CountDownLatch(busy);
+    parallel = true;
+    for (Lane lane : lanes) {
+      if (!lane.properties.isEmpty()) {
+        lane.start(wave, done);
+      }
+    }
+    awaitUninterruptibly(done);
+    parallel = false;
+    boolean unbound = false;
+    Throwable failure = null;
+    ValidationResult laneRejection = null;
+    for (Lane lane : lanes) {
+      undoLog.append(lane.undoLog);
+      unbound |= lane.unbound;
+      if (failure == null) {
+        failure = lane.failure;
+      }
+      if (laneRejection == null) {
+        laneRejection = lane.rejection;
+      }
+    }
+    if (unbound) {
+      for (Lane lane : lanes) {
+        for (BasicProperty<?> property : lane.changed) {
+          property.changedWave = 0;
+        }
+        lane.reset();
+      }
+      undoLog.rollback(mark);
+      return recomputeInOrder(wave);
+    }
+    for (Lane lane : lanes) {
+      lane.reset();
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+    if (laneRejection != null) {
+      reject(laneRejection);
+      return false;
+    }
+    return true;
+  }
+
+  private int laneOf(PropertyIdentifier<?> representative) {
+    int hash = representative.hashCode();
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % lanes.length;
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean recompute(BasicProperty<?> property) {
+    if (profile == null) {
+      return property.recompute();
+    }
+    long start = System.nanoTime();
+    try {
+      return property.recompute();
+    } finally {
+      property.recomputeNanos += System.nanoTime() - start;
+      property.recomputeCount++;
+    }
+  }
+
+  private void addBroadcastModifier(Broadcast<?> broadcast, Runnable targets) {
+    // should a target reject the modifier, the batch rolls back the targets it was added to
+    batch(() -> {
+      targets.run();
+      broadcasts.put(broadcast.id, broadcast);
+      logInverse(() -> broadcasts.remove(broadcast.id));
     });
-    producerBindings.removeAll(producer.getId());
+  }
+
+  private <V> void fire(BasicProperty<V> property) {
+    purgeStaleListeners();
+    PropertyChangeListeners<V> propertyListeners = getListeners(property.getId());
+    if (propertyListeners != null) {
+      propertyListeners.fire(property.get());
+    }
+    @SuppressWarnings("unchecked")
+    PropertyWatches<V> propertyWatches = (PropertyWatches<V>) watches.get(property.getId());
+    if (propertyWatches != null) {
+      if (propertyWatches.isEmpty()) {
+        watches.remove(property.getId());
+      } else {
+        propertyWatches.fire(property.get());
+      }
+    }
+  }
+
+  private boolean dependsOnChange(BasicProperty<?> consumer, long wave) {
+    for (PropertyIdentifier<?> id : consumerBindings.get(consumer.getId())) {
+      BasicProperty<?> producer = getBasicProperty(id);
+      if (producer != null && producer.changedWave == wave) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // appends to the order the post-order of an iterative depth-first search from the given
+  // properties; visits are marked on the properties themselves, with the number of the pass
+  private void visitDownstream(Set<PropertyIdentifier<?>> sources, long wave) {
+    for (PropertyIdentifier<?> source : sources) {
+      BasicProperty<?> property = getBasicProperty(source);
+      if (property == null || property.visitedWave == wave) {
+        continue;
+      }
+      property.visitedWave = wave;
+      path.push(property);
+      iterators.push(producerBindings.get(source).iterator());
+      while (!iterators.isEmpty()) {
+        Iterator<PropertyIdentifier<?>> consumers = iterators.peek();
+        if (consumers.hasNext()) {
+          BasicProperty<?> consumer = getBasicProperty(consumers.next());
+          if (consumer != null && consumer.visitedWave != wave) {
+            consumer.visitedWave = wave;
+            path.push(consumer);
+            iterators.push(producerBindings.get(consumer.getId()).iterator());
+          }
+        } else {
+          iterators.pop();
+          order.add(path.pop());
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <V> PropertyChangeListeners<V> getListeners(PropertyIdentifier<V> id) {
+    return (PropertyChangeListeners<V>) listeners.get(id);
+  }
+
+  private <V> PropertyChangeListeners<V> getOrCreateListeners(PropertyIdentifier<V> id) {
+    PropertyChangeListeners<V> propertyListeners = getListeners(id);
+    if (propertyListeners == null) {
+      propertyListeners = new PropertyChangeListeners<>(id);
+      listeners.put(id, propertyListeners);
+    }
+    return propertyListeners;
+  }
+
+  private void removeIfEmpty(PropertyChangeListeners<?> propertyListeners) {
+    PropertyIdentifier<?> id = propertyListeners.getId();
+    if (propertyListeners.isEmpty() && listeners.get(id) == propertyListeners) {
+      listeners.remove(id);
+    }
+  }
+
+  private void purgeStaleListeners() {
+    Reference<?> reference;
+    while ((reference = staleListeners.poll()) != null) {
+      PropertyChangeListeners<?> propertyListeners = PropertyChangeListeners.purge(reference);
+      if (propertyListeners != null) {
+        removeIfEmpty(propertyListeners);
+      }
+    }
   }
 
   private <V> void register(BasicProperty<V> property) {
@@ -120,44 +1030,246 @@ class BasicPropertyManager implements PropertyManager {
     checkForCycles(consumer, producer);
     consumerBindings.put(consumer, producer);
     producerBindings.put(producer, consumer);
+    components.union(consumer, producer);
+  }
+  
+  // used when installing a precompiled plan, whose bindings are acyclic among themselves; a
+  // binding between properties that are not yet bound to anything cannot close a cycle, and any
+  // other binding is checked against those the manager already holds
+  void bindPlanned(PropertyIdentifier<?> consumer, PropertyIdentifier<?> producer) {
+    checkNotNull(consumer, "consumer cannot be null");
+    checkNotNull(producer, "producer cannot be null");
+    if (consumerBindings.containsEntry(consumer, producer)) {
+      return;
+    }
+    if (isBound(consumer) || isBound(producer)) {
+      bind(consumer, producer);
+    } else {
+      bindUnchecked(consumer, producer);
+    }
+  }
+
+  private boolean isBound(PropertyIdentifier<?> id) {
+    return consumerBindings.containsKey(id) || producerBindings.containsKey(id);
+  }
+
+  // used when restoring bindings that were already known to be acyclic
+  void bindUnchecked(PropertyIdentifier<?> consumer, PropertyIdentifier<?> producer) {
+    checkNotNull(consumer, "consumer cannot be null");
+    checkNotNull(producer, "producer cannot be null");
+    if (!consumerBindings.containsEntry(consumer, producer)) {
+      consumerBindings.put(consumer, producer);
+      producerBindings.put(producer, consumer);
+      components.union(consumer, producer);
+    }
   }
   
   private <V> V getValue(PropertyIdentifier<V> id) {
     checkNotNull(id, "id cannot be null");
-    Property<V> property = get(id);
+    Property<V> property = getBasicProperty(id);
     if (property == null) {
       return id.getDefaultValue();
     }
     return property.get();
   }
   
+  // binding the consumer to the producer closes a cycle if the producer is already
+  // downstream of the consumer; each property is visited at most once
   private void checkForCycles(PropertyIdentifier<?> consumer, PropertyIdentifier<?> producer) {
-    if (producer == consumer) {
-      throw new CyclicBindingException();
+    Set<PropertyIdentifier<?>> visited = Sets.newHashSet();
+    Deque<PropertyIdentifier<?>> stack = new ArrayDeque<>();
+    stack.push(consumer);
+    while (!stack.isEmpty()) {
+      PropertyIdentifier<?> current = stack.pop();
+      if (current.equals(producer)) {
+        throw new CyclicBindingException();
+      }
+      if (visited.add(current)) {
+        producerBindings.get(current).forEach(stack::push);
+      }
+    }
+  }
+  
+  private <V> void bindTo(BasicProperty<?> consumer, PropertyIdentifier<V> id) {
+    checkNotNull(id, "id cannot be null");
+    if(consumer.getId().equals(id)) {
+      throw new CyclicBindingException("A value function cannot reference itself");
+    }
+    if (!consumerBindings.containsEntry(consumer.getId(), id)) {
+      Lane lane = parallel ? currentLane.get() : null;
+      if (lane != null) {
+        lane.unbound = true;
+        return;
+      }
+      bind(consumer.getId(), id);
+      // a placeholder that a broadcast modifier would be added to is not left as a placeholder
+      if (!properties.containsKey(id) && !broadcasts.isEmpty()) {
+        for (Broadcast<?> broadcast : broadcasts.values()) {
+          if (broadcast.matches(id)) {
+            materialize(id);
+            break;
+          }
+        }
+      }
     }
-    producerBindings.get(consumer).forEach((c) -> checkForCycles(c, producer));
   }
   
+  private class Expiration<V> implements Runnable {
+    private final BasicProperty<V> property;
+    private final Identifier id;
+    private final Modifier<V> modifier;
+
+    private Expiration(BasicProperty<V> property, Identifier id, Modifier<V> modifier) {
+      this.property = property;
+      this.id = id;
+      this.modifier = modifier;
+    }
+
+    @Override
+    public void run() {
+      property.expireModifier(id);
+    }
+
+    private void retry() {
+      property.retryExpiration(id, modifier, clock.millis());
+    }
+  }
+
+  // the part of a parallel pass routed to one lane: the properties of its components, each
+  // component in topological order. A lane logs and rejects into state of its own, which is
+  // merged once every lane has finished; it stops at the first rejection or failure, or at the
+  // first read that would need a new binding, after which the rest of its work is moot
+  private class Lane implements Runnable {
+    private final List<BasicProperty<?>> properties = Lists.newArrayList();
+    private final List<BasicProperty<?>> changed = Lists.newArrayList();
+    private final UndoLog undoLog = new UndoLog();
+    private long wave;
+    private CountDownLatch done;
+    private ValidationResult rejection;
+    private Throwable failure;
+    private boolean unbound;
+
+    private void start(long wave, CountDownLatch done) {
+      this.wave = wave;
+      this.done = done;
+      try {
+        laneExecutor.execute(this);
+      } catch (RejectedExecutionException e) {
+        run();
+      }
+    }
+
+    @Override
+    public void run() {
+      currentLane.set(this);
+      try {
+        for (BasicProperty<?> property : properties) {
+          boolean marked = property.changedWave == wave;
+          if ((property.staleWave == wave || dependsOnChange(property, wave))
+              && recompute(property) && !marked) {
+            property.changedWave = wave;
+            changed.add(property);
+          }
+          if (rejection != null || unbound) {
+            break;
+          }
+        }
+      } catch (RuntimeException | Error e) {
+        failure = e;
+      } finally {
+        currentLane.remove();
+        done.countDown();
+      }
+    }
+
+    private void reset() {
+      properties.clear();
+      changed.clear();
+      undoLog.clear();
+      done = null;
+      rejection = null;
+      failure = null;
+      unbound = false;
+    }
+  }
+
+  private class Broadcast<V> {
+    private final Identifier id = new Identifier() {};
+    private final Modifier<V> modifier;
+    private final ModifierOrderingRule<V> rule;
+    private final Class<V> type;
+    private final Predicate<? super PropertyIdentifier<V>> predicate;
+    private final Set<PropertyIdentifier<V>> targets = Sets.newLinkedHashSet();
+
+    private Broadcast(Modifier<V> modifier, ModifierOrderingRule<V> rule, Class<V> type,
+        Predicate<? super PropertyIdentifier<V>> predicate) {
+      checkNotNull(modifier, "modifier cannot be null");
+      checkNotNull(rule, "rule cannot be null");
+      this.modifier = modifier;
+      this.rule = rule;
+      this.type = type;
+      this.predicate = predicate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyIfMatches(BasicProperty<?> property) {
+      if (!property.isMirrored() && matches(property.getId())) {
+        applyTo((BasicProperty<V>) property);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean matches(PropertyIdentifier<?> id) {
+      return predicate != null && type.equals(id.getType())
+          && predicate.test((PropertyIdentifier<V>) id);
+    }
+
+    private void applyTo(BasicProperty<V> property) {
+      property.addModifier(id, modifier, rule);
+      if (targets.add(property.getId())) {
+        logInverse(() -> targets.remove(property.getId()));
+      }
+    }
+
+    private void removeAll() {
+      Set<PropertyIdentifier<V>> removed = ImmutableSet.copyOf(targets);
+      logInverse(() -> targets.addAll(removed));
+      for (PropertyIdentifier<V> target : targets) {
+        BasicProperty<V> property = getBasicProperty(target);
+        if (property != null) {
+          property.removeModifier(id);
+        }
+      }
+      targets.clear();
+    }
+  }
+
   private class Context implements PropertyContext {
     private final BasicProperty<?> consumer;
     private final boolean createBindings;
+    private final Set<PropertyIdentifier<?>> declaredInputs;
     
-    private Context(BasicProperty<?> consumer, boolean createBindings) {
+    private Context(BasicProperty<?> consumer, boolean createBindings,
+        Set<PropertyIdentifier<?>> declaredInputs) {
       checkNotNull(consumer, "consumer cannot be null");
       this.consumer = consumer;
       this.createBindings = createBindings;
+      this.declaredInputs = declaredInputs;
     }
 
     public <V> V get(PropertyIdentifier<V> id) {
       checkNotNull(id, "id cannot be null");
-      if(consumer.getId().equals(id)) {
+      if (createBindings) {
+        bindTo(consumer, id);
+      } else if(consumer.getId().equals(id)) {
         throw new CyclicBindingException("A value function cannot reference itself");
-      }
-      if (createBindings && !properties.containsKey(id)) {
-        create(id).withValue(id.getDefaultValue()).build();
-      }
-      if (createBindings && !consumerBindings.containsEntry(consumer.getId(), id)) {
-        bind(consumer.getId(), id);
+      } else if (declaredInputs != null && !declaredInputs.contains(id)) {
+        if (strictDependencyChecks) {
+          throw new UndeclaredDependencyException(
+              consumer.getId() + " reads " + id + " without declaring it as an input");
+        }
+        // bound as a traced read would be, so that the consumer does not go stale
+        bindTo(consumer, id);
       }
       return getValue(id);
     }  
@@ -166,13 +1278,20 @@ class BasicPropertyManager implements PropertyManager {
   class Builder<V> implements PropertyManager.Builder<V> {
     private final PropertyIdentifier<V> identifier;
     private ValueSource<V> valueSource;
-    private Optional<Validator<V>> validator = Optional.empty();
+    private Optional<ValidationRule<V>> validator = Optional.empty();
+    private Optional<ValueEquivalence<? super V>> equivalence = Optional.empty();
     private BuilderState state = BuilderState.OPEN;
+    private String mirroredFrom;
 
     private Builder(PropertyIdentifier<V> identifier) {
       checkNotNull(identifier, "identifier cannot be null");
       this.identifier = identifier;
     }
+
+    private Builder<V> mirroredFrom(String owner) {
+      this.mirroredFrom = owner;
+      return this;
+    }
     
     @Override
     public Builder<V> withValue(V value) {
@@ -186,15 +1305,34 @@ class BasicPropertyManager implements PropertyManager {
     public Builder<V> withValue(ValueFunction<V> function) {
       checkNotNull(function, "function cannot be null");
       checkState();
-      this.valueSource = new ValueFunctionSource<>(function);
+      this.valueSource = ValueFunctionSource.of(function);
       return this;
     }
 
+    @Override
+    public Builder<V> withValue(ValueFunction<V> function, PropertyIdentifier<?>... inputs) {
+      return withValue(ValueFunctions.declare(function, inputs));
+    }
+
     @Override
     public Builder<V> withValidator(Validator<V> validator) {
       checkNotNull(validator, "validator cannot be null");
+      return withValidationRule(BasicProperty.asRule(validator));
+    }
+
+    @Override
+    public Builder<V> withValidationRule(ValidationRule<V> rule) {
+      checkNotNull(rule, "rule cannot be null");
+      checkState();
+      this.validator = Optional.of(rule);
+      return this;
+    }
+
+    @Override
+    public Builder<V> withEquivalence(ValueEquivalence<? super V> equivalence) {
+      checkNotNull(equivalence, "equivalence cannot be null");
       checkState();
-      this.validator = Optional.of(validator);
+      this.equivalence = Optional.of(equivalence);
       return this;
     }
     
@@ -210,10 +1348,14 @@ class BasicPropertyManager implements PropertyManager {
       return valueSource;
     }
 
-    Optional<Validator<V>> getValidator() {
+    Optional<ValidationRule<V>> getValidator() {
       return validator;
     }
 
+    Optional<ValueEquivalence<? super V>> getEquivalence() {
+      return equivalence;
+    }
+
     private void checkState () {
       if (state == BuilderState.CLOSED) {
         throw new IllegalStateException("builder is closed");
@@ -223,17 +1365,45 @@ class BasicPropertyManager implements PropertyManager {
     @Override
     public Property<V> build() {
       checkNotNull(valueSource, "must specify a value");
-      BasicProperty<V> property = new BasicProperty<>(this); 
-      register(property);
-      state = BuilderState.CLOSED;
-      return property;
+      beginBatch();
+      int mark = getUndoMark();
+      try {
+        BasicProperty<V> property = new BasicProperty<>(this);
+        register(property);
+        // the property is built within the batch, so that it is unregistered along with the
+        // bindings and expirations it was given if the batch is rolled back
+        logInverse(() -> {
+          if (properties.get(identifier) == property) {
+            properties.remove(identifier);
+          }
+          property.cancelExpirations();
+          unbindConsumer(property);
+        });
+        if (mirroredFrom != null) {
+          property.mirror(mirroredFrom);
+        } else {
+          broadcasts.values().forEach((broadcast) -> broadcast.applyIfMatches(property));
+        }
+        if (producerBindings.containsKey(identifier)) {
+          // consumers of the placeholder it replaces read the default value until now
+          firePropertyValueChange(property);
+        }
+        state = BuilderState.CLOSED;
+        return property;
+      } catch (RuntimeException e) {
+        rollback(mark);
+        throw e;
+      } finally {
+        endBatch();
+      }
     }
   }
   
   private class Updater<V> implements PropertyManager.Builder<V> {
     private final BasicProperty<V> property;
     private ValueSource<V> valueSource;
-    private Optional<Validator<V>> validator = Optional.empty();
+    private Optional<ValidationRule<V>> validator = Optional.empty();
+    private Optional<ValueEquivalence<? super V>> equivalence = Optional.empty();
     private BuilderState state = BuilderState.OPEN;
     
     private Updater(BasicProperty<V> property) {
@@ -253,15 +1423,34 @@ class BasicPropertyManager implements PropertyManager {
     public Updater<V> withValue(ValueFunction<V> function) {
       checkNotNull(function, "function cannot be null");
       checkState();
-      this.valueSource = new ValueFunctionSource<>(function);
+      this.valueSource = ValueFunctionSource.of(function);
       return this;
     }
 
+    @Override
+    public Updater<V> withValue(ValueFunction<V> function, PropertyIdentifier<?>... inputs) {
+      return withValue(ValueFunctions.declare(function, inputs));
+    }
+
     @Override
     public Updater<V> withValidator(Validator<V> validator) {
       checkNotNull(validator, "validator cannot be null");
+      return withValidationRule(BasicProperty.asRule(validator));
+    }
+
+    @Override
+    public Updater<V> withValidationRule(ValidationRule<V> rule) {
+      checkNotNull(rule, "rule cannot be null");
+      checkState();
+      this.validator = Optional.of(rule);
+      return this;
+    }
+
+    @Override
+    public Updater<V> withEquivalence(ValueEquivalence<? super V> equivalence) {
+      checkNotNull(equivalence, "equivalence cannot be null");
       checkState();
-      this.validator = Optional.of(validator);
+      this.equivalence = Optional.of(equivalence);
       return this;
     }
     
@@ -274,17 +1463,20 @@ class BasicPropertyManager implements PropertyManager {
     @Override
     public Property<V> build() {
       checkNotNull(valueSource, "must specify a value");
+      // the new validator is only checked against the new value; if that is rejected, the
+      // validator and equivalence are restored along with it
+      beginBatch();
+      int mark = getUndoMark();
       try {
-        if (validator.isPresent()) {
-          property.setValidator(validator.get());
-        } else {
-          property.removeValidator();
-        }
-      } catch (RuntimeException re) {
-        // We can safely ignore this, 
-        //since we will be changing the value below
+        property.replaceValidator(validator);
+        property.setEquivalence(equivalence.orElse(property.getId().getEquivalence()));
+        property.set(valueSource);
+      } catch (RuntimeException e) {
+        rollback(mark);
+        throw e;
+      } finally {
+        endBatch();
       }
-      property.set(valueSource);
       state = BuilderState.CLOSED;
       return property;
     }
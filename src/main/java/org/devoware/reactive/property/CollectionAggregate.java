@@ -0,0 +1,13 @@
+package org.devoware.reactive.property;
+
+// an aggregate over the elements of a collection property, maintained one element change at a
+// time; an updated element is removed with its old value and added again with its new one
+public interface CollectionAggregate<E, R> {
+
+  public void add(E element);
+
+  public void remove(E element);
+
+  public R get();
+
+}
@@ -0,0 +1,115 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.Function;
+
+// sums and counts are updated in constant time per element change, and extrema in logarithmic
+// time, since they keep their operands in a sorted multiset from which any one can be removed.
+// Sums of doubles, and so every average, are compensated, so that removing a large element
+// does not also take with it the small ones it had rounded away
+public class CollectionAggregates {
+
+  public static <E> CollectionAggregate<E, Integer> count() {
+    return new Count<>();
+  }
+
+  // the empty value is the result for an empty collection, and determines the arithmetic
+  public static <E, V extends Number> CollectionAggregate<E, V> sum(V empty,
+      Function<? super E, V> extractor) {
+    return new Numeric<>(AggregateModifier.Kind.SUM, empty, extractor);
+  }
+
+  public static <E, V extends Number> CollectionAggregate<E, V> min(V empty,
+      Function<? super E, V> extractor) {
+    return new Numeric<>(AggregateModifier.Kind.MIN, empty, extractor);
+  }
+
+  public static <E, V extends Number> CollectionAggregate<E, V> max(V empty,
+      Function<? super E, V> extractor) {
+    return new Numeric<>(AggregateModifier.Kind.MAX, empty, extractor);
+  }
+
+  // the average of an empty collection is zero
+  public static <E> CollectionAggregate<E, Double> average(
+      Function<? super E, ? extends Number> extractor) {
+    return new Average<>(extractor);
+  }
+
+  private CollectionAggregates() {}
+
+  private static class Count<E> implements CollectionAggregate<E, Integer> {
+    private int count;
+
+    @Override
+    public void add(E element) {
+      count++;
+    }
+
+    @Override
+    public void remove(E element) {
+      count--;
+    }
+
+    @Override
+    public Integer get() {
+      return count;
+    }
+  }
+
+  private static class Numeric<E, V extends Number> implements CollectionAggregate<E, V> {
+    private final V empty;
+    private final Function<? super E, V> extractor;
+    private final RunningAggregate<V> aggregate;
+
+    private Numeric(AggregateModifier.Kind kind, V empty, Function<? super E, V> extractor) {
+      checkNotNull(empty, "empty cannot be null");
+      checkNotNull(extractor, "extractor cannot be null");
+      this.empty = empty;
+      this.extractor = extractor;
+      this.aggregate = RunningAggregate.create(kind, Arithmetic.of(empty));
+    }
+
+    @Override
+    public void add(E element) {
+      aggregate.add(extractor.apply(element));
+    }
+
+    @Override
+    public void remove(E element) {
+      aggregate.remove(extractor.apply(element));
+    }
+
+    @Override
+    public V get() {
+      return aggregate.isEmpty() ? empty : aggregate.get();
+    }
+  }
+
+  private static class Average<E> implements CollectionAggregate<E, Double> {
+    private final Function<? super E, ? extends Number> extractor;
+    private final RunningAggregate<Double> sum =
+        RunningAggregate.create(AggregateModifier.Kind.SUM, Arithmetic.of(0.0));
+
+    private Average(Function<? super E, ? extends Number> extractor) {
+      checkNotNull(extractor, "extractor cannot be null");
+      this.extractor = extractor;
+    }
+
+    @Override
+    public void add(E element) {
+      sum.add(extractor.apply(element).doubleValue());
+    }
+
+    @Override
+    public void remove(E element) {
+      sum.remove(extractor.apply(element).doubleValue());
+    }
+
+    @Override
+    public Double get() {
+      return sum.isEmpty() ? 0.0 : sum.get() / sum.count();
+    }
+  }
+
+}
@@ -0,0 +1,31 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+// the changes made to a collection property by one update, in the order in which they were made
+public final class CollectionDelta<K, E> {
+  private final List<ElementChange<K, E>> changes;
+
+  CollectionDelta(List<ElementChange<K, E>> changes) {
+    checkNotNull(changes, "changes cannot be null");
+    this.changes = ImmutableList.copyOf(changes);
+  }
+
+  public List<ElementChange<K, E>> getChanges() {
+    return changes;
+  }
+
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return changes.toString();
+  }
+
+}
@@ -0,0 +1,35 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CollectionProperties {
+
+  public static <K, E> MapProperty<K, E> map(PropertyManager manager,
+      PropertyIdentifier<Map<K, E>> id) {
+    return register(new MapProperty<>(BasicPropertyManager.from(manager),
+        checkNotNull(id, "id cannot be null")));
+  }
+
+  public static <E> SetProperty<E> set(PropertyManager manager, PropertyIdentifier<Set<E>> id) {
+    return register(new SetProperty<>(BasicPropertyManager.from(manager),
+        checkNotNull(id, "id cannot be null")));
+  }
+
+  public static <E> ListProperty<E> list(PropertyManager manager,
+      PropertyIdentifier<List<E>> id) {
+    return register(new ListProperty<>(BasicPropertyManager.from(manager),
+        checkNotNull(id, "id cannot be null")));
+  }
+
+  private static <P extends CollectionProperty<?, ?, ?>> P register(P property) {
+    property.register();
+    return property;
+  }
+
+  private CollectionProperties() {}
+
+}
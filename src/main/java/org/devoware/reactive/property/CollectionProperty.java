@@ -0,0 +1,395 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// a collection whose changes are published as deltas, rather than as a new value that every
+// consumer has to scan again; the collection is also registered with the manager as a property
+// whose value is a read-only view of the elements, and which is fired on every change, so that
+// value functions may still read it through their context. Aggregates over the elements are
+// maintained from the deltas, and are registered as ordinary properties. Should propagating a
+// delta be rejected, the elements and the state of the aggregates are rolled back along with the
+// properties
+public abstract class CollectionProperty<K, E, C> {
+  private final BasicPropertyManager manager;
+  private final PropertyIdentifier<C> id;
+  private final Map<K, E> elements = Maps.newLinkedHashMap();
+  private final List<ElementChange<K, E>> pending = Lists.newArrayList();
+  private final List<Consumer<CollectionDelta<K, E>>> aggregates = Lists.newArrayList();
+  private final List<Consumer<? super CollectionDelta<K, E>>> listeners = Lists.newArrayList();
+  // the order of the keys before the first removal of the pending changes, which is all that
+  // undoing the changes one by one could not restore
+  private List<K> orderBeforeRemoval;
+  private int depth;
+  private long modifications;
+
+  CollectionProperty(BasicPropertyManager manager, PropertyIdentifier<C> id) {
+    this.manager = manager;
+    this.id = id;
+  }
+
+  public PropertyIdentifier<C> getId() {
+    return id;
+  }
+
+  public C get() {
+    return view();
+  }
+
+  public int size() {
+    return elements.size();
+  }
+
+  public boolean isEmpty() {
+    return elements.isEmpty();
+  }
+
+  // the changes made by the updates are published as a single delta, and the aggregates that
+  // depend on them are propagated together; should the updates throw, the changes they made are
+  // reverted and never published
+  public void batch(Runnable updates) {
+    checkNotNull(updates, "updates cannot be null");
+    int mark = pending.size();
+    // once a removal is pending, the order of the keys can no longer be derived from the changes
+    List<K> order = orderBeforeRemoval == null ? null : ImmutableList.copyOf(elements.keySet());
+    depth++;
+    try {
+      updates.run();
+    } catch (RuntimeException e) {
+      discard(mark, order);
+      throw e;
+    } finally {
+      if (--depth == 0) {
+        publish();
+      }
+    }
+  }
+
+  // listeners are told of each delta once the properties that depend on it have been propagated
+  // and committed
+  public CollectionProperty<K, E, C> addDeltaListener(
+      Consumer<? super CollectionDelta<K, E>> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    listeners.add(listener);
+    return this;
+  }
+
+  public CollectionProperty<K, E, C> removeDeltaListener(
+      Consumer<? super CollectionDelta<K, E>> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    listeners.remove(listener);
+    return this;
+  }
+
+  public <R> Property<R> aggregate(PropertyIdentifier<R> aggregateId,
+      CollectionAggregate<? super E, R> aggregate) {
+    checkNotNull(aggregateId, "aggregateId cannot be null");
+    checkNotNull(aggregate, "aggregate cannot be null");
+    elements.values().forEach(aggregate::add);
+    Property<R> property = manager.create(aggregateId).withValue(aggregate.get()).build();
+    aggregates.add((delta) -> {
+      for (ElementChange<K, E> change : delta.getChanges()) {
+        apply(aggregate, change);
+        manager.logInverse(() -> revert(aggregate, change));
+      }
+      Property<R> current = manager.get(aggregateId);
+      if (current != null) {
+        current.set(aggregate.get());
+      }
+    });
+    return property;
+  }
+
+  // maintains one aggregate per group of elements; the results are kept in a map property, so
+  // that a change to one element only updates the entry of its group, and is itself published
+  // as a delta
+  public <G, R> MapProperty<G, R> groupBy(PropertyIdentifier<Map<G, R>> groupsId,
+      Function<? super E, G> classifier,
+      Supplier<? extends CollectionAggregate<? super E, R>> aggregate) {
+    checkNotNull(groupsId, "groupsId cannot be null");
+    checkNotNull(classifier, "classifier cannot be null");
+    checkNotNull(aggregate, "aggregate cannot be null");
+    MapProperty<G, R> groups = CollectionProperties.map(manager, groupsId);
+    Map<G, Group<E, R>> members = Maps.newHashMap();
+    Consumer<ElementChange<K, E>> maintainer = (change) -> {
+      if (change.getOldElement() != null) {
+        G key = classifier.apply(change.getOldElement());
+        Group<E, R> group = members.get(key);
+        group.aggregate.remove(change.getOldElement());
+        if (--group.size == 0) {
+          members.remove(key);
+          groups.remove(key);
+        } else {
+          groups.put(key, group.aggregate.get());
+        }
+      }
+      if (change.getNewElement() != null) {
+        G key = classifier.apply(change.getNewElement());
+        Group<E, R> group = members.get(key);
+        if (group == null) {
+          group = new Group<>(aggregate.get());
+          members.put(key, group);
+        }
+        group.aggregate.add(change.getNewElement());
+        group.size++;
+        groups.put(key, group.aggregate.get());
+      }
+    };
+    // the entries of the groups roll themselves back, so only the members are reverted
+    Consumer<ElementChange<K, E>> reverter = (change) -> {
+      if (change.getNewElement() != null) {
+        G key = classifier.apply(change.getNewElement());
+        Group<E, R> group = members.get(key);
+        group.aggregate.remove(change.getNewElement());
+        if (--group.size == 0) {
+          members.remove(key);
+        }
+      }
+      if (change.getOldElement() != null) {
+        G key = classifier.apply(change.getOldElement());
+        Group<E, R> group = members.get(key);
+        if (group == null) {
+          group = new Group<>(aggregate.get());
+          members.put(key, group);
+        }
+        group.aggregate.add(change.getOldElement());
+        group.size++;
+      }
+    };
+    groups.batch(() -> {
+      elements.forEach((key, element) -> maintainer.accept(ElementChange.added(key, element)));
+    });
+    aggregates.add((delta) -> groups.batch(() -> {
+      for (ElementChange<K, E> change : delta.getChanges()) {
+        maintainer.accept(change);
+        manager.logInverse(() -> reverter.accept(change));
+      }
+    }));
+    return groups;
+  }
+
+  @Override
+  public String toString() {
+    return id + "=" + elements.values();
+  }
+
+  abstract C view();
+
+  // registers the view of the collection with the manager, once the subclass is initialized
+  void register() {
+    manager.create(id).withValue(view())
+        .withEquivalence(ValueEquivalences.from((a, b) -> false)).build();
+  }
+
+  Map<K, E> elements() {
+    return elements;
+  }
+
+  long getModifications() {
+    return modifications;
+  }
+
+  E getElement(K key) {
+    checkNotNull(key, "key cannot be null");
+    return elements.get(key);
+  }
+
+  E putElement(K key, E element) {
+    checkNotNull(key, "key cannot be null");
+    checkNotNull(element, "element cannot be null");
+    depth++;
+    try {
+      E previous = elements.put(key, element);
+      if (previous == null) {
+        record(ElementChange.added(key, element));
+      } else if (!previous.equals(element)) {
+        record(ElementChange.updated(key, previous, element));
+      }
+      return previous;
+    } finally {
+      if (--depth == 0) {
+        publish();
+      }
+    }
+  }
+
+  E removeElement(K key) {
+    checkNotNull(key, "key cannot be null");
+    depth++;
+    try {
+      if (orderBeforeRemoval == null && elements.containsKey(key)) {
+        orderBeforeRemoval = ImmutableList.copyOf(elements.keySet());
+      }
+      E previous = elements.remove(key);
+      if (previous != null) {
+        record(ElementChange.removed(key, previous));
+      }
+      return previous;
+    } finally {
+      if (--depth == 0) {
+        publish();
+      }
+    }
+  }
+
+  private void record(ElementChange<K, E> change) {
+    modifications++;
+    pending.add(change);
+  }
+
+  // reverts the changes recorded since the mark, in the order given or, should there be none, in
+  // the order from before the first removal among them
+  private void discard(int mark, List<K> order) {
+    List<ElementChange<K, E>> changes = pending.subList(mark, pending.size());
+    if (order == null) {
+      revertElements(changes, orderBeforeRemoval);
+      orderBeforeRemoval = null;
+    } else {
+      revertElements(changes, order);
+    }
+    changes.clear();
+  }
+
+  private void publish() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    CollectionDelta<K, E> delta = new CollectionDelta<>(pending);
+    List<K> order = orderBeforeRemoval;
+    pending.clear();
+    orderBeforeRemoval = null;
+    manager.batch(() -> {
+      // the elements were changed ahead of the batch, and are restored should it be rejected
+      manager.logInverse(() -> restore(delta, order));
+      Property<C> property = manager.get(id);
+      if (property != null && manager.isRecording()) {
+        manager.record((BasicProperty<C>) property, () -> undo(delta, order), () -> redo(delta));
+      }
+      // the aggregates and the view are derived from the elements, so only the delta is recorded
+      manager.withoutHistory(() -> {
+        aggregates.forEach((aggregate) -> aggregate.accept(delta));
+        if (property != null) {
+          property.set(view());
+        }
+      });
+      // listeners are only told of the delta once it is committed, which may be by an enclosing
+      // batch, so that a delta that is rolled back is never seen
+      manager.afterCommit(() -> {
+        Lists.newArrayList(listeners).forEach((listener) -> listener.accept(delta));
+      });
+    });
+  }
+
+  // the changes are reverted as a delta of their own, which the aggregates are maintained from;
+  // the keys end up as they were before the changes, so their order is restored as well
+  private void undo(CollectionDelta<K, E> delta, List<K> order) {
+    batch(() -> {
+      List<ElementChange<K, E>> changes = delta.getChanges();
+      for (int i = changes.size() - 1; i >= 0; i--) {
+        ElementChange<K, E> change = changes.get(i);
+        if (change.getOldElement() == null) {
+          removeElement(change.getKey());
+        } else {
+          putElement(change.getKey(), change.getOldElement());
+        }
+      }
+      if (order != null) {
+        reorder(order);
+      }
+    });
+  }
+
+  private void redo(CollectionDelta<K, E> delta) {
+    batch(() -> {
+      for (ElementChange<K, E> change : delta.getChanges()) {
+        if (change.getNewElement() == null) {
+          removeElement(change.getKey());
+        } else {
+          putElement(change.getKey(), change.getNewElement());
+        }
+      }
+    });
+  }
+
+  private void reorder(List<K> order) {
+    if (orderBeforeRemoval == null) {
+      orderBeforeRemoval = ImmutableList.copyOf(elements.keySet());
+    }
+    Map<K, E> reordered = Maps.newLinkedHashMap();
+    for (K key : order) {
+      if (elements.containsKey(key)) {
+        reordered.put(key, elements.get(key));
+      }
+    }
+    elements.clear();
+    elements.putAll(reordered);
+    modifications++;
+  }
+
+  private void restore(CollectionDelta<K, E> delta, List<K> order) {
+    revertElements(delta.getChanges(), order);
+  }
+
+  // the order may hold keys that were added ahead of the first removal, and are gone once the
+  // changes are reverted
+  private void revertElements(List<ElementChange<K, E>> changes, List<K> order) {
+    for (int i = changes.size() - 1; i >= 0; i--) {
+      ElementChange<K, E> change = changes.get(i);
+      if (change.getOldElement() == null) {
+        elements.remove(change.getKey());
+      } else {
+        elements.put(change.getKey(), change.getOldElement());
+      }
+    }
+    if (order != null) {
+      Map<K, E> restored = Maps.newLinkedHashMap();
+      for (K key : order) {
+        if (elements.containsKey(key)) {
+          restored.put(key, elements.get(key));
+        }
+      }
+      elements.clear();
+      elements.putAll(restored);
+    }
+    modifications++;
+  }
+
+  private static <E> void revert(CollectionAggregate<? super E, ?> aggregate,
+      ElementChange<?, E> change) {
+    if (change.getNewElement() != null) {
+      aggregate.remove(change.getNewElement());
+    }
+    if (change.getOldElement() != null) {
+      aggregate.add(change.getOldElement());
+    }
+  }
+
+  private static <E> void apply(CollectionAggregate<? super E, ?> aggregate,
+      ElementChange<?, E> change) {
+    if (change.getOldElement() != null) {
+      aggregate.remove(change.getOldElement());
+    }
+    if (change.getNewElement() != null) {
+      aggregate.add(change.getNewElement());
+    }
+  }
+
+  private static class Group<E, R> {
+    private final CollectionAggregate<? super E, R> aggregate;
+    private int size;
+
+    private Group(CollectionAggregate<? super E, R> aggregate) {
+      this.aggregate = aggregate;
+    }
+  }
+
+}
@@ -0,0 +1,7 @@
+package org.devoware.reactive.property;
+
+public interface ConflatedPropertyChangeListener<V> {
+
+  public void onValueChanged (PropertyIdentifier<V> sourceId, V oldValue, V newValue);
+
+}
@@ -0,0 +1,9 @@
+package org.devoware.reactive.property;
+
+import java.util.Set;
+
+public interface DeclaredValueFunction<V> extends ValueFunction<V> {
+
+  public Set<PropertyIdentifier<?>> getInputs();
+
+}
@@ -0,0 +1,32 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+class DeclaredValueFunctionSource<V> implements ValueSource<V> {
+
+  private final DeclaredValueFunction<V> function;
+  
+  DeclaredValueFunctionSource(DeclaredValueFunction<V> function) {
+    checkNotNull(function, "function cannot be null");
+    checkNotNull(function.getInputs(), "inputs cannot be null");
+    this.function = function;
+  }
+
+  @Override
+  public V apply(PropertyContext context) {
+    return function.onBoundValueChanged(context);
+  }
+
+  @Override
+  public boolean isDeclared() {
+    return true;
+  }
+
+  @Override
+  public Set<PropertyIdentifier<?>> getInputs() {
+    return function.getInputs();
+  }
+  
+}
@@ -0,0 +1,132 @@
+package org.devoware.reactive.property;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// the wire format of property deltas:
+//
+//   kind (byte), sequence (varlong)
+//   slot count (varint), then for each newly declared slot: slot (varint), name (string)
+//   value count (varint), then for each value: slot (varint), tag (byte), payload
+//
+// integers are zigzag encoded varints, so that small values of either sign take a single byte;
+// strings are their length in bytes (varint) followed by their UTF-8 bytes, so that their size
+// is not bounded as it is by DataOutput.writeUTF. Readers are given the number of bytes left in
+// the input, so that a malformed length is rejected before anything is allocated for it
+final class DeltaFormat {
+  static final byte SNAPSHOT = 1;
+  static final byte DELTA = 2;
+
+  static final byte REMOVED = 0;
+  static final byte INTEGER = 1;
+  static final byte LONG = 2;
+  static final byte DOUBLE = 3;
+  static final byte FALSE = 4;
+  static final byte TRUE = 5;
+  static final byte STRING = 6;
+
+  static boolean isEncodable(Class<?> type) {
+    return type == Integer.class || type == Long.class || type == Double.class
+        || type == Boolean.class || type == String.class;
+  }
+
+  static void writeValue(DataOutput out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(REMOVED);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      writeVarLong(out, (Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      writeVarLong(out, (Long) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString(out, (String) value);
+    } else {
+      throw new IllegalArgumentException(
+          "values of type " + value.getClass().getName() + " cannot be encoded");
+    }
+  }
+
+  // returns null for a removed property
+  static Object readValue(DataInput in, int available) throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case REMOVED:
+        return null;
+      case INTEGER:
+        return (int) readVarLong(in);
+      case LONG:
+        return readVarLong(in);
+      case DOUBLE:
+        return in.readDouble();
+      case FALSE:
+        return Boolean.FALSE;
+      case TRUE:
+        return Boolean.TRUE;
+      case STRING:
+        return readString(in, available - 1);
+      default:
+        throw new IOException("unknown value tag " + tag);
+    }
+  }
+
+  static void writeString(DataOutput out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(DataInput in, int available) throws IOException {
+    int length = readVarInt(in);
+    if (length < 0) {
+      throw new IOException("negative string length " + length);
+    }
+    if (length > available) {
+      throw new IOException("string length " + length + " exceeds the " + available
+          + " bytes left");
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static void writeVarLong(DataOutput out, long value) throws IOException {
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & ~0x7FL) != 0) {
+      out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+      zigzag >>>= 7;
+    }
+    out.writeByte((int) zigzag);
+  }
+
+  static long readVarLong(DataInput in) throws IOException {
+    long zigzag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.readByte();
+      zigzag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+      }
+    }
+    throw new IOException("malformed varint");
+  }
+
+  static void writeVarInt(DataOutput out, int value) throws IOException {
+    writeVarLong(out, value);
+  }
+
+  static int readVarInt(DataInput in) throws IOException {
+    return (int) readVarLong(in);
+  }
+
+  private DeltaFormat() {}
+
+}
@@ -0,0 +1,60 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+// a single change to the elements of a collection property; an added element has no old
+// element, and a removed one no new element
+public final class ElementChange<K, E> {
+  private final Kind kind;
+  private final K key;
+  private final E oldElement;
+  private final E newElement;
+
+  static <K, E> ElementChange<K, E> added(K key, E element) {
+    return new ElementChange<>(Kind.ADDED, key, null, element);
+  }
+
+  static <K, E> ElementChange<K, E> removed(K key, E element) {
+    return new ElementChange<>(Kind.REMOVED, key, element, null);
+  }
+
+  static <K, E> ElementChange<K, E> updated(K key, E oldElement, E newElement) {
+    return new ElementChange<>(Kind.UPDATED, key, oldElement, newElement);
+  }
+
+  private ElementChange(Kind kind, K key, E oldElement, E newElement) {
+    checkNotNull(key, "key cannot be null");
+    checkArgument(oldElement != null || newElement != null, "a change must have an element");
+    this.kind = kind;
+    this.key = key;
+    this.oldElement = oldElement;
+    this.newElement = newElement;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public K getKey() {
+    return key;
+  }
+
+  public E getOldElement() {
+    return oldElement;
+  }
+
+  public E getNewElement() {
+    return newElement;
+  }
+
+  @Override
+  public String toString() {
+    return kind + " " + key + ": " + oldElement + " -> " + newElement;
+  }
+
+  public enum Kind {
+    ADDED, REMOVED, UPDATED;
+  }
+
+}
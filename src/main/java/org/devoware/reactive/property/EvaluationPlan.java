@@ -0,0 +1,235 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+
+// the layout of a definition's properties in slots, the defined ones first, with the order in
+// which the defined ones are evaluated and the slots of each one's producers. A cached plan carries
+// a checksum of its contents, so that one that was damaged on disk is recomputed, while one that
+// is intact is trusted without checking each of its bindings again
+class EvaluationPlan {
+  private static final int MAGIC = 0x52504c4e;
+  private static final int VERSION = 2;
+
+  private final String hash;
+  private final List<String> slots;
+  private final int[] order;
+  private final int[][] producers;
+
+  // computes a topological order over the defined properties; producers that are not
+  // defined themselves are treated as external inputs
+  static EvaluationPlan compute(String hash,
+      Map<PropertyIdentifier<?>, ? extends Collection<PropertyIdentifier<?>>> inputsById) {
+    checkNotNull(hash, "hash cannot be null");
+    checkNotNull(inputsById, "inputsById cannot be null");
+    Map<String, Integer> slotsByName = Maps.newLinkedHashMap();
+    for (PropertyIdentifier<?> id : inputsById.keySet()) {
+      slotsByName.put(id.toString(), slotsByName.size());
+    }
+    int defined = slotsByName.size();
+    int[][] producers = new int[defined][];
+    int[] indegree = new int[defined];
+    List<List<Integer>> consumers = Lists.newArrayListWithCapacity(defined);
+    for (int i = 0; i < defined; i++) {
+      consumers.add(Lists.newArrayList());
+    }
+    int slot = 0;
+    for (Collection<PropertyIdentifier<?>> inputs : inputsById.values()) {
+      producers[slot] = new int[inputs.size()];
+      int i = 0;
+      for (PropertyIdentifier<?> input : inputs) {
+        Integer producer = slotsByName.get(input.toString());
+        if (producer == null) {
+          producer = slotsByName.size();
+          slotsByName.put(input.toString(), producer);
+        }
+        producers[slot][i++] = producer;
+        if (producer < defined) {
+          indegree[slot]++;
+          consumers.get(producer).add(slot);
+        }
+      }
+      slot++;
+    }
+    Deque<Integer> ready = new ArrayDeque<>();
+    for (int i = 0; i < defined; i++) {
+      if (indegree[i] == 0) {
+        ready.add(i);
+      }
+    }
+    int[] order = new int[defined];
+    int[][] orderedProducers = new int[defined][];
+    int count = 0;
+    while (!ready.isEmpty()) {
+      int current = ready.poll();
+      orderedProducers[count] = producers[current];
+      order[count++] = current;
+      for (int consumer : consumers.get(current)) {
+        if (--indegree[consumer] == 0) {
+          ready.add(consumer);
+        }
+      }
+    }
+    if (count < defined) {
+      List<String> names = ImmutableList.copyOf(slotsByName.keySet());
+      List<String> cyclic = Lists.newArrayList();
+      for (int i = 0; i < defined; i++) {
+        if (indegree[i] > 0) {
+          cyclic.add(names.get(i));
+        }
+      }
+      throw new CyclicBindingException("cyclic bindings between " + cyclic);
+    }
+    return new EvaluationPlan(hash, ImmutableList.copyOf(slotsByName.keySet()), order,
+        orderedProducers);
+  }
+
+  // the plan is checked to be intact and well formed: the defined properties take the first
+  // slots, the order visits each of them once, and every defined producer is visited before its
+  // consumer
+  static EvaluationPlan read(InputStream in) throws IOException {
+    checkNotNull(in, "in cannot be null");
+    DataInputStream header = new DataInputStream(in);
+    if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+      throw new IOException("not an evaluation plan");
+    }
+    long checksum = header.readLong();
+    byte[] contents = ByteStreams.toByteArray(in);
+    if (checksum(contents) != checksum) {
+      throw new IOException("the evaluation plan is damaged");
+    }
+    DataInputStream data = new DataInputStream(new ByteArrayInputStream(contents));
+    String hash = data.readUTF();
+    int slotCount = readCount(data, Integer.MAX_VALUE);
+    ImmutableList.Builder<String> slots = ImmutableList.builder();
+    for (int i = 0; i < slotCount; i++) {
+      slots.add(data.readUTF());
+    }
+    int[] order = new int[readCount(data, slotCount)];
+    int[][] producers = new int[order.length][];
+    boolean[] visited = new boolean[order.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = readIndex(data, order.length);
+      if (visited[order[i]]) {
+        throw new IOException("slot " + order[i] + " is ordered twice");
+      }
+      producers[i] = new int[readCount(data, slotCount)];
+      for (int j = 0; j < producers[i].length; j++) {
+        producers[i][j] = readIndex(data, slotCount);
+        if (producers[i][j] < order.length && !visited[producers[i][j]]) {
+          throw new IOException("slot " + order[i] + " is ordered before its producer "
+              + producers[i][j]);
+        }
+      }
+      visited[order[i]] = true;
+    }
+    return new EvaluationPlan(hash, slots.build(), order, producers);
+  }
+
+  private static int readCount(DataInputStream data, int max) throws IOException {
+    int count = data.readInt();
+    if (count < 0 || count > max) {
+      throw new IOException("count " + count + " is out of range");
+    }
+    return count;
+  }
+
+  private static int readIndex(DataInputStream data, int size) throws IOException {
+    int index = data.readInt();
+    if (index < 0 || index >= size) {
+      throw new IOException("index " + index + " is out of range");
+    }
+    return index;
+  }
+
+  private EvaluationPlan(String hash, List<String> slots, int[] order, int[][] producers) {
+    this.hash = hash;
+    this.slots = slots;
+    this.order = order;
+    this.producers = producers;
+  }
+
+  String getHash() {
+    return hash;
+  }
+
+  // the number of defined properties, which take the first slots
+  int size() {
+    return order.length;
+  }
+
+  int getSlotCount() {
+    return slots.size();
+  }
+
+  String getSlotName(int slot) {
+    return slots.get(slot);
+  }
+
+  int getSlot(int position) {
+    return order[position];
+  }
+
+  int getProducerCount(int position) {
+    return producers[position].length;
+  }
+
+  int getProducerSlot(int position, int index) {
+    return producers[position][index];
+  }
+
+  void write(OutputStream out) throws IOException {
+    checkNotNull(out, "out cannot be null");
+    ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    writeContents(new DataOutputStream(contents));
+    byte[] bytes = contents.toByteArray();
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeLong(checksum(bytes));
+    data.write(bytes);
+    data.flush();
+  }
+
+  private void writeContents(DataOutputStream data) throws IOException {
+    data.writeUTF(hash);
+    data.writeInt(slots.size());
+    for (String slot : slots) {
+      data.writeUTF(slot);
+    }
+    data.writeInt(order.length);
+    for (int i = 0; i < order.length; i++) {
+      data.writeInt(order[i]);
+      data.writeInt(producers[i].length);
+      for (int producer : producers[i]) {
+        data.writeInt(producer);
+      }
+    }
+    data.flush();
+  }
+
+  private static long checksum(byte[] contents) {
+    CRC32 crc = new CRC32();
+    crc.update(contents, 0, contents.length);
+    return crc.getValue();
+  }
+
+}
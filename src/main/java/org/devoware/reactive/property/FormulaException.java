@@ -0,0 +1,15 @@
+package org.devoware.reactive.property;
+
+public class FormulaException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public FormulaException(String message) {
+    super(message);
+  }
+
+  public FormulaException() {
+    super();
+  }
+  
+}
@@ -0,0 +1,362 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// the parsed tree of a formula, which is compiled into a tree of method handles of type
+// (PropertyContext, Number)int, long or double; the handles combine static methods with unboxed
+// arithmetic, so that evaluating a formula neither walks the tree nor boxes intermediate values.
+// The Number is the value a modifier formula is applied to, and is read by its value input
+abstract class FormulaExpression {
+  private static final MethodType EVALUATOR = MethodType.methodType(void.class,
+      PropertyContext.class, Number.class);
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final Map<String, MethodHandle> OPERATIONS = new ConcurrentHashMap<>();
+
+  abstract MethodHandle compile(Class<?> type);
+
+  boolean isIntegral() {
+    return true;
+  }
+
+  static class Constant extends FormulaExpression {
+    private final long longValue;
+    private final double doubleValue;
+    private final boolean integral;
+
+    Constant(String literal) {
+      checkNotNull(literal, "literal cannot be null");
+      this.doubleValue = Double.parseDouble(literal);
+      this.integral = literal.indexOf('.') < 0;
+      this.longValue = integral ? Long.parseLong(literal) : (long) doubleValue;
+    }
+
+    long getLongValue() {
+      return longValue;
+    }
+
+    @Override
+    MethodHandle compile(Class<?> type) {
+      Object value;
+      if (type == int.class) {
+        value = (int) longValue;
+      } else if (type == long.class) {
+        value = longValue;
+      } else {
+        value = doubleValue;
+      }
+      return MethodHandles.dropArguments(MethodHandles.constant(type, value), 0,
+          EVALUATOR.parameterList());
+    }
+
+    @Override
+    boolean isIntegral() {
+      return integral;
+    }
+  }
+
+  static class Input extends FormulaExpression {
+    private final PropertyIdentifier<? extends Number> id;
+
+    Input(PropertyIdentifier<? extends Number> id) {
+      checkNotNull(id, "id cannot be null");
+      this.id = id;
+    }
+
+    PropertyIdentifier<? extends Number> getId() {
+      return id;
+    }
+
+    @Override
+    MethodHandle compile(Class<?> type) {
+      if (id instanceof FormulaModifier.ValueIdentifier) {
+        return MethodHandles.dropArguments(find("unbox", type, Number.class), 0,
+            PropertyContext.class);
+      }
+      MethodHandle read = find("read", type, PropertyIdentifier.class, PropertyContext.class);
+      return MethodHandles.dropArguments(MethodHandles.insertArguments(read, 0, id), 1,
+          Number.class);
+    }
+
+    @Override
+    boolean isIntegral() {
+      Class<?> type = id.getType();
+      return type != Double.class && type != Float.class;
+    }
+  }
+
+  abstract static class Unary extends FormulaExpression {
+    final FormulaExpression operand;
+    private final String operation;
+
+    Unary(FormulaExpression operand, String operation) {
+      checkNotNull(operand, "operand cannot be null");
+      this.operand = operand;
+      this.operation = operation;
+    }
+
+    @Override
+    MethodHandle compile(Class<?> type) {
+      return MethodHandles.filterReturnValue(operand.compile(type), find(operation, type, type));
+    }
+
+    @Override
+    boolean isIntegral() {
+      return operand.isIntegral();
+    }
+  }
+
+  // both operands are evaluated against the same arguments, left first
+  abstract static class Binary extends FormulaExpression {
+    final FormulaExpression left;
+    final FormulaExpression right;
+    private final String operation;
+
+    Binary(FormulaExpression left, FormulaExpression right, String operation) {
+      checkNotNull(left, "left cannot be null");
+      checkNotNull(right, "right cannot be null");
+      this.left = left;
+      this.right = right;
+      this.operation = operation;
+    }
+
+    @Override
+    MethodHandle compile(Class<?> type) {
+      MethodHandle applied = MethodHandles.collectArguments(find(operation, type, type, type), 1,
+          right.compile(type));
+      MethodHandle combined = MethodHandles.collectArguments(applied, 0, left.compile(type));
+      return MethodHandles.permuteArguments(combined, EVALUATOR.changeReturnType(type), 0, 1,
+          0, 1);
+    }
+
+    @Override
+    boolean isIntegral() {
+      return left.isIntegral() && right.isIntegral();
+    }
+  }
+
+  static class Negate extends Unary {
+
+    Negate(FormulaExpression operand) {
+      super(operand, "negate");
+    }
+  }
+
+  static class Abs extends Unary {
+
+    Abs(FormulaExpression operand) {
+      super(operand, "abs");
+    }
+  }
+
+  static class Add extends Binary {
+
+    Add(FormulaExpression left, FormulaExpression right) {
+      super(left, right, "add");
+    }
+  }
+
+  static class Subtract extends Binary {
+
+    Subtract(FormulaExpression left, FormulaExpression right) {
+      super(left, right, "subtract");
+    }
+  }
+
+  static class Multiply extends Binary {
+
+    Multiply(FormulaExpression left, FormulaExpression right) {
+      super(left, right, "multiply");
+    }
+  }
+
+  static class Divide extends Binary {
+
+    Divide(FormulaExpression left, FormulaExpression right) {
+      super(left, right, "divide");
+    }
+  }
+
+  static class Remainder extends Binary {
+
+    Remainder(FormulaExpression left, FormulaExpression right) {
+      super(left, right, "remainder");
+    }
+  }
+
+  static class Min extends Binary {
+
+    Min(FormulaExpression left, FormulaExpression right) {
+      super(left, right, "min");
+    }
+  }
+
+  static class Max extends Binary {
+
+    Max(FormulaExpression left, FormulaExpression right) {
+      super(left, right, "max");
+    }
+  }
+
+  // operations are looked up once, and shared by every formula that uses them
+  private static MethodHandle find(String name, Class<?> returnType, Class<?>... parameterTypes) {
+    return OPERATIONS.computeIfAbsent(name + suffix(returnType), (method) -> {
+      try {
+        return LOOKUP.findStatic(FormulaExpression.class, method,
+            MethodType.methodType(returnType, parameterTypes));
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("no " + returnType + " operation named " + name, e);
+      }
+    });
+  }
+
+  private static String suffix(Class<?> type) {
+    if (type == int.class) {
+      return "Int";
+    }
+    if (type == long.class) {
+      return "Long";
+    }
+    return "Double";
+  }
+
+  // the operations that the compiled handles are built from, for each type of result
+
+  private static int unboxInt(Number value) {
+    return value.intValue();
+  }
+
+  private static int readInt(PropertyIdentifier<? extends Number> id, PropertyContext context) {
+    return context.get(id).intValue();
+  }
+
+  private static int negateInt(int a) {
+    return -a;
+  }
+
+  private static int absInt(int a) {
+    return Math.abs(a);
+  }
+
+  private static int addInt(int a, int b) {
+    return a + b;
+  }
+
+  private static int subtractInt(int a, int b) {
+    return a - b;
+  }
+
+  private static int multiplyInt(int a, int b) {
+    return a * b;
+  }
+
+  private static int divideInt(int a, int b) {
+    return a / b;
+  }
+
+  private static int remainderInt(int a, int b) {
+    return a % b;
+  }
+
+  private static int minInt(int a, int b) {
+    return Math.min(a, b);
+  }
+
+  private static int maxInt(int a, int b) {
+    return Math.max(a, b);
+  }
+
+  private static long unboxLong(Number value) {
+    return value.longValue();
+  }
+
+  private static long readLong(PropertyIdentifier<? extends Number> id, PropertyContext context) {
+    return context.get(id).longValue();
+  }
+
+  private static long negateLong(long a) {
+    return -a;
+  }
+
+  private static long absLong(long a) {
+    return Math.abs(a);
+  }
+
+  private static long addLong(long a, long b) {
+    return a + b;
+  }
+
+  private static long subtractLong(long a, long b) {
+    return a - b;
+  }
+
+  private static long multiplyLong(long a, long b) {
+    return a * b;
+  }
+
+  private static long divideLong(long a, long b) {
+    return a / b;
+  }
+
+  private static long remainderLong(long a, long b) {
+    return a % b;
+  }
+
+  private static long minLong(long a, long b) {
+    return Math.min(a, b);
+  }
+
+  private static long maxLong(long a, long b) {
+    return Math.max(a, b);
+  }
+
+  private static double unboxDouble(Number value) {
+    return value.doubleValue();
+  }
+
+  private static double readDouble(PropertyIdentifier<? extends Number> id, PropertyContext context) {
+    return context.get(id).doubleValue();
+  }
+
+  private static double negateDouble(double a) {
+    return -a;
+  }
+
+  private static double absDouble(double a) {
+    return Math.abs(a);
+  }
+
+  private static double addDouble(double a, double b) {
+    return a + b;
+  }
+
+  private static double subtractDouble(double a, double b) {
+    return a - b;
+  }
+
+  private static double multiplyDouble(double a, double b) {
+    return a * b;
+  }
+
+  private static double divideDouble(double a, double b) {
+    return a / b;
+  }
+
+  private static double remainderDouble(double a, double b) {
+    return a % b;
+  }
+
+  private static double minDouble(double a, double b) {
+    return Math.min(a, b);
+  }
+
+  private static double maxDouble(double a, double b) {
+    return Math.max(a, b);
+  }
+
+}
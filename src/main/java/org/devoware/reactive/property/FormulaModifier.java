@@ -0,0 +1,69 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.Sets;
+
+class FormulaModifier<V extends Number> implements Modifier<V> {
+  static final String VALUE = "value";
+
+  private final Formula<V> formula;
+  private final ValueIdentifier<V> valueId;
+
+  static <V extends Number> FormulaModifier<V> compile(String expression, Class<V> type,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    checkNotNull(type, "type cannot be null");
+    checkNotNull(resolver, "resolver cannot be null");
+    ValueIdentifier<V> valueId = new ValueIdentifier<>(type);
+    Formula<V> formula = Formulas.compile(expression, type,
+        (name) -> VALUE.equals(name) ? valueId : resolver.apply(name));
+    return new FormulaModifier<>(formula, valueId);
+  }
+
+  private FormulaModifier(Formula<V> formula, ValueIdentifier<V> valueId) {
+    this.formula = formula;
+    this.valueId = valueId;
+  }
+
+  Set<PropertyIdentifier<?>> getInputs() {
+    return Sets.filter(formula.getInputs(), (id) -> id != valueId);
+  }
+
+  @Override
+  public V onBoundValueChanged(PropertyContext context, V value) {
+    return formula.apply(context, value);
+  }
+
+  @Override
+  public String toString() {
+    return formula.toString();
+  }
+
+  // compiled to read the value being modified, rather than a property of the context
+  static class ValueIdentifier<V> implements PropertyIdentifier<V> {
+    private final Class<V> type;
+
+    private ValueIdentifier(Class<V> type) {
+      this.type = type;
+    }
+
+    @Override
+    public V getDefaultValue() {
+      return null;
+    }
+
+    @Override
+    public Class<V> getType() {
+      return type;
+    }
+
+    @Override
+    public String toString() {
+      return VALUE;
+    }
+  }
+
+}
@@ -0,0 +1,192 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+class FormulaParser {
+  private final String expression;
+  private final Function<String, ? extends PropertyIdentifier<?>> resolver;
+  private final Set<PropertyIdentifier<?>> inputs = Sets.newLinkedHashSet();
+  private long largestIntegralLiteral;
+  private int position;
+
+  FormulaParser(String expression, Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    checkNotNull(expression, "expression cannot be null");
+    checkNotNull(resolver, "resolver cannot be null");
+    this.expression = expression;
+    this.resolver = resolver;
+  }
+
+  FormulaExpression parse() {
+    FormulaExpression result = parseSum();
+    skipWhitespace();
+    if (position < expression.length()) {
+      throw error("unexpected '" + expression.charAt(position) + "'");
+    }
+    return result;
+  }
+
+  Set<PropertyIdentifier<?>> getInputs() {
+    return ImmutableSet.copyOf(inputs);
+  }
+
+  // literals are never negative, since a minus sign is parsed as an operator
+  long getLargestIntegralLiteral() {
+    return largestIntegralLiteral;
+  }
+
+  private FormulaExpression parseSum() {
+    FormulaExpression result = parseProduct();
+    while (true) {
+      if (accept('+')) {
+        result = new FormulaExpression.Add(result, parseProduct());
+      } else if (accept('-')) {
+        result = new FormulaExpression.Subtract(result, parseProduct());
+      } else {
+        return result;
+      }
+    }
+  }
+
+  private FormulaExpression parseProduct() {
+    FormulaExpression result = parseUnary();
+    while (true) {
+      if (accept('*')) {
+        result = new FormulaExpression.Multiply(result, parseUnary());
+      } else if (accept('/')) {
+        result = new FormulaExpression.Divide(result, parseUnary());
+      } else if (accept('%')) {
+        result = new FormulaExpression.Remainder(result, parseUnary());
+      } else {
+        return result;
+      }
+    }
+  }
+
+  private FormulaExpression parseUnary() {
+    if (accept('-')) {
+      return new FormulaExpression.Negate(parseUnary());
+    }
+    if (accept('+')) {
+      return parseUnary();
+    }
+    return parsePrimary();
+  }
+
+  private FormulaExpression parsePrimary() {
+    skipWhitespace();
+    if (accept('(')) {
+      FormulaExpression result = parseSum();
+      expect(')');
+      return result;
+    }
+    if (position >= expression.length()) {
+      throw error("unexpected end of formula");
+    }
+    char c = expression.charAt(position);
+    if (Character.isDigit(c) || c == '.') {
+      return parseNumber();
+    }
+    if (Character.isJavaIdentifierStart(c)) {
+      String name = parseName();
+      if (accept('(')) {
+        return parseFunction(name);
+      }
+      return parseInput(name);
+    }
+    throw error("unexpected '" + c + "'");
+  }
+
+  private FormulaExpression parseNumber() {
+    int start = position;
+    while (position < expression.length()
+        && (Character.isDigit(expression.charAt(position)) || expression.charAt(position) == '.')) {
+      position++;
+    }
+    String literal = expression.substring(start, position);
+    FormulaExpression.Constant constant;
+    try {
+      constant = new FormulaExpression.Constant(literal);
+    } catch (NumberFormatException e) {
+      throw error("invalid number '" + literal + "'");
+    }
+    if (constant.isIntegral()) {
+      largestIntegralLiteral = Math.max(largestIntegralLiteral, constant.getLongValue());
+    }
+    return constant;
+  }
+
+  private String parseName() {
+    int start = position;
+    while (position < expression.length()
+        && Character.isJavaIdentifierPart(expression.charAt(position))) {
+      position++;
+    }
+    return expression.substring(start, position);
+  }
+
+  private FormulaExpression parseFunction(String name) {
+    FormulaExpression first = parseSum();
+    switch (name) {
+      case "abs":
+        expect(')');
+        return new FormulaExpression.Abs(first);
+      case "min":
+        expect(',');
+        FormulaExpression min = new FormulaExpression.Min(first, parseSum());
+        expect(')');
+        return min;
+      case "max":
+        expect(',');
+        FormulaExpression max = new FormulaExpression.Max(first, parseSum());
+        expect(')');
+        return max;
+      default:
+        throw error("unknown function '" + name + "'");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private FormulaExpression parseInput(String name) {
+    PropertyIdentifier<?> id = resolver.apply(name);
+    if (id == null) {
+      throw error("unknown property '" + name + "'");
+    }
+    if (!Number.class.isAssignableFrom(id.getType())) {
+      throw error("property '" + name + "' is not numeric");
+    }
+    inputs.add(id);
+    return new FormulaExpression.Input((PropertyIdentifier<? extends Number>) id);
+  }
+
+  private boolean accept(char c) {
+    skipWhitespace();
+    if (position < expression.length() && expression.charAt(position) == c) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  private void expect(char c) {
+    if (!accept(c)) {
+      throw error("expected '" + c + "'");
+    }
+  }
+
+  private void skipWhitespace() {
+    while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+      position++;
+    }
+  }
+
+  private FormulaException error(String message) {
+    return new FormulaException(message + " at position " + position + " in '" + expression + "'");
+  }
+
+}
@@ -0,0 +1,100 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+// formulas are parsed once into a tree of expression nodes, which is then compiled into a tree of
+// method handles evaluated with unboxed arithmetic; FormulaBenchmark compares them with the
+// equivalent hand-written lambdas. An integral formula only reads inputs, and only contains
+// literals, whose values fit in its result type, so that none is silently truncated
+public class Formulas {
+  private static final Set<Class<?>> INT_INPUTS =
+      ImmutableSet.of(Integer.class, Short.class, Byte.class);
+  private static final Set<Class<?>> LONG_INPUTS =
+      ImmutableSet.of(Long.class, Integer.class, Short.class, Byte.class);
+
+  public static Formula<Integer> compileInt(String expression,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    FormulaParser parser = new FormulaParser(expression, resolver);
+    FormulaExpression root = checkIntegral(expression, parser.parse());
+    checkInputs(expression, parser.getInputs(), INT_INPUTS, "an int");
+    if (parser.getLargestIntegralLiteral() > Integer.MAX_VALUE) {
+      throw new FormulaException("'" + expression + "' contains the literal "
+          + parser.getLargestIntegralLiteral() + ", which does not fit in an int");
+    }
+    return new Formula.IntFormula(expression, parser.getInputs(), root);
+  }
+
+  public static Formula<Long> compileLong(String expression,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    FormulaParser parser = new FormulaParser(expression, resolver);
+    FormulaExpression root = checkIntegral(expression, parser.parse());
+    checkInputs(expression, parser.getInputs(), LONG_INPUTS, "a long");
+    return new Formula.LongFormula(expression, parser.getInputs(), root);
+  }
+
+  public static Formula<Double> compileDouble(String expression,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    FormulaParser parser = new FormulaParser(expression, resolver);
+    FormulaExpression root = parser.parse();
+    return new Formula.DoubleFormula(expression, parser.getInputs(), root);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <V extends Number> Formula<V> compile(String expression, Class<V> type,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    checkNotNull(type, "type cannot be null");
+    if (type == Integer.class) {
+      return (Formula<V>) compileInt(expression, resolver);
+    }
+    if (type == Long.class) {
+      return (Formula<V>) compileLong(expression, resolver);
+    }
+    if (type == Double.class) {
+      return (Formula<V>) compileDouble(expression, resolver);
+    }
+    throw new FormulaException("formulas cannot produce values of type " + type.getName());
+  }
+
+  public static Function<String, PropertyIdentifier<?>> resolver(PropertyIdentifier<?>... ids) {
+    checkNotNull(ids, "ids cannot be null");
+    return resolver(Arrays.asList(ids));
+  }
+
+  public static Function<String, PropertyIdentifier<?>> resolver(
+      Iterable<? extends PropertyIdentifier<?>> ids) {
+    checkNotNull(ids, "ids cannot be null");
+    ImmutableMap.Builder<String, PropertyIdentifier<?>> builder = ImmutableMap.builder();
+    for (PropertyIdentifier<?> id : ids) {
+      builder.put(id.toString(), id);
+    }
+    Map<String, PropertyIdentifier<?>> idsByName = builder.build();
+    return idsByName::get;
+  }
+
+  private static FormulaExpression checkIntegral(String expression, FormulaExpression root) {
+    if (!root.isIntegral()) {
+      throw new FormulaException("'" + expression + "' does not evaluate to an integral value");
+    }
+    return root;
+  }
+
+  private static void checkInputs(String expression, Set<PropertyIdentifier<?>> inputs,
+      Set<Class<?>> types, String description) {
+    for (PropertyIdentifier<?> id : inputs) {
+      if (!types.contains(id.getType())) {
+        throw new FormulaException("'" + expression + "' reads " + id + " of type "
+            + id.getType().getSimpleName() + ", which does not fit in " + description);
+      }
+    }
+  }
+
+  private Formulas() {}
+}
@@ -0,0 +1,504 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// a snapshot of the dependency graph of a manager, with the bindings held as arrays of node
+// indices, so that it can be analysed in time linear in its size. Transitive downstream sets
+// cannot be counted exactly in linear time, so every node is given an estimate from a sketch
+// of the smallest hashes found downstream of it, and only the nodes that the estimates rank
+// highest are then counted exactly. Costs are the mean recompute times of a profile, and are
+// all zero when the analysis was made without one
+public final class GraphAnalysis {
+  // the relative error of the downstream estimates is about 1 / sqrt(SKETCH_SIZE - 2)
+  private static final int SKETCH_SIZE = 32;
+  // the number of candidates counted exactly for each result that is asked for
+  private static final int CANDIDATES_PER_RESULT = 4;
+  private static final long SEED = 0x5eed_6a4f_1c3bL;
+
+  private final PropertyIdentifier<?>[] ids;
+  private final boolean[] placeholders;
+  private final double[] costs;
+  private final boolean profiled;
+  private final int[] consumerOffsets;
+  private final int[] consumers;
+  private final int[] producerOffsets;
+  private final int[] producers;
+  private final int[] depths;
+  private final int[] predecessors;
+  private final double[] pathCosts;
+  private final int[] criticalPredecessors;
+  private final double[] estimatedDownstream;
+  private final double[] estimatedDownstreamCosts;
+  private final int maxDepth;
+  // scratch state of the exact traversals
+  private final int[] marks;
+  private final int[] stack;
+  private int mark;
+
+  private GraphAnalysis(PropertyIdentifier<?>[] ids, boolean[] placeholders, double[] costs,
+      boolean profiled, int[] edgeProducers, int[] edgeConsumers) {
+    int n = ids.length;
+    this.ids = ids;
+    this.placeholders = placeholders;
+    this.costs = costs;
+    this.profiled = profiled;
+    this.consumerOffsets = new int[n + 1];
+    this.consumers = new int[edgeProducers.length];
+    index(edgeProducers, edgeConsumers, consumerOffsets, consumers);
+    this.producerOffsets = new int[n + 1];
+    this.producers = new int[edgeConsumers.length];
+    index(edgeConsumers, edgeProducers, producerOffsets, producers);
+    int[] order = topologicalOrder();
+    this.depths = new int[n];
+    this.predecessors = new int[n];
+    this.pathCosts = new double[n];
+    this.criticalPredecessors = new int[n];
+    this.maxDepth = computeDepths(order);
+    this.estimatedDownstream = new double[n];
+    this.estimatedDownstreamCosts = new double[n];
+    estimateDownstream(order);
+    this.marks = new int[n];
+    this.stack = new int[n];
+  }
+
+  // the edges run from each producer to each of its consumers
+  static GraphAnalysis compute(PropertyIdentifier<?>[] ids, boolean[] placeholders,
+      double[] costs, boolean profiled, int[] edgeProducers, int[] edgeConsumers) {
+    return new GraphAnalysis(ids, placeholders, costs, profiled, edgeProducers, edgeConsumers);
+  }
+
+  public int getPropertyCount() {
+    return ids.length;
+  }
+
+  public int getBindingCount() {
+    return consumers.length;
+  }
+
+  // the number of properties in the longest chain of bindings
+  public int getDepth() {
+    return maxDepth;
+  }
+
+  public boolean isProfiled() {
+    return profiled;
+  }
+
+  // the number of properties by their number of producers
+  public SortedMap<Integer, Integer> getFanInDistribution() {
+    return distribution(producerOffsets);
+  }
+
+  // the number of properties by their number of consumers
+  public SortedMap<Integer, Integer> getFanOutDistribution() {
+    return distribution(consumerOffsets);
+  }
+
+  // the longest chains, each from a property without producers to one without consumers
+  public List<List<PropertyIdentifier<?>>> getLongestChains(int limit) {
+    checkArgument(limit > 0, "limit must be positive");
+    List<List<PropertyIdentifier<?>>> chains = Lists.newArrayList();
+    for (int end : top(limit, (node) -> isSink(node) ? depths[node] : -1)) {
+      chains.add(chain(end, predecessors));
+    }
+    return ImmutableList.copyOf(chains);
+  }
+
+  // the chain whose recomputations take the longest in total
+  public List<PropertyIdentifier<?>> getCriticalPath() {
+    checkState(profiled, "the analysis was made without a recompute profile");
+    int[] end = top(1, (node) -> isSink(node) ? pathCosts[node] : -1);
+    return end.length == 0 ? ImmutableList.of() : chain(end[0], criticalPredecessors);
+  }
+
+  // the properties with the most properties downstream of them, in descending order; the
+  // counts are exact, but a property whose estimate was far too low may be missing
+  public Map<PropertyIdentifier<?>, Integer> getLargestDownstream(int limit) {
+    checkArgument(limit > 0, "limit must be positive");
+    int[] candidates = top(limit * CANDIDATES_PER_RESULT, (node) -> estimatedDownstream[node]);
+    Map<Integer, Integer> exact = Maps.newHashMap();
+    for (int node : candidates) {
+      exact.put(node, traverseDownstream(node, false).count);
+    }
+    return ranked(limit, candidates, exact);
+  }
+
+  // the properties whose changes take the longest to propagate, by the total mean recompute
+  // time of the properties downstream of them, in nanoseconds
+  public Map<PropertyIdentifier<?>, Double> getCostliestChanges(int limit) {
+    checkArgument(limit > 0, "limit must be positive");
+    checkState(profiled, "the analysis was made without a recompute profile");
+    int[] candidates =
+        top(limit * CANDIDATES_PER_RESULT, (node) -> estimatedDownstreamCosts[node]);
+    Map<Integer, Double> exact = Maps.newHashMap();
+    for (int node : candidates) {
+      exact.put(node, traverseDownstream(node, true).cost);
+    }
+    return ranked(limit, candidates, exact);
+  }
+
+  public int getDownstreamCount(PropertyIdentifier<?> id) {
+    return traverseDownstream(indexOf(id), false).count;
+  }
+
+  public double getDownstreamCost(PropertyIdentifier<?> id) {
+    return traverseDownstream(indexOf(id), true).cost;
+  }
+
+  // nodes are named by the toString of their identifiers; placeholders are drawn dashed
+  public void writeDot(Appendable out) {
+    checkNotNull(out, "out cannot be null");
+    try {
+      out.append("digraph properties {\n");
+      for (int node = 0; node < ids.length; node++) {
+        out.append("  n").append(Integer.toString(node)).append(" [label=\"")
+            .append(escapeDot(ids[node].toString())).append("\", depth=")
+            .append(Integer.toString(depths[node])).append(", fan_in=")
+            .append(Integer.toString(fanIn(node))).append(", fan_out=")
+            .append(Integer.toString(fanOut(node))).append(", downstream=")
+            .append(Long.toString(Math.round(estimatedDownstream[node])));
+        if (profiled) {
+          out.append(", cost=").append(Double.toString(costs[node]));
+        }
+        if (placeholders[node]) {
+          out.append(", style=dashed");
+        }
+        out.append("];\n");
+      }
+      for (int node = 0; node < ids.length; node++) {
+        for (int i = consumerOffsets[node]; i < consumerOffsets[node + 1]; i++) {
+          out.append("  n").append(Integer.toString(node)).append(" -> n")
+              .append(Integer.toString(consumers[i])).append(";\n");
+        }
+      }
+      out.append("}\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public void writeGraphMl(Appendable out) {
+    checkNotNull(out, "out cannot be null");
+    try {
+      out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+          .append("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+      key(out, "label", "string");
+      key(out, "placeholder", "boolean");
+      key(out, "depth", "int");
+      key(out, "fanIn", "int");
+      key(out, "fanOut", "int");
+      key(out, "downstream", "long");
+      if (profiled) {
+        key(out, "cost", "double");
+      }
+      out.append("  <graph id=\"properties\" edgedefault=\"directed\">\n");
+      for (int node = 0; node < ids.length; node++) {
+        out.append("    <node id=\"n").append(Integer.toString(node)).append("\">\n");
+        data(out, "label", escapeXml(ids[node].toString()));
+        data(out, "placeholder", Boolean.toString(placeholders[node]));
+        data(out, "depth", Integer.toString(depths[node]));
+        data(out, "fanIn", Integer.toString(fanIn(node)));
+        data(out, "fanOut", Integer.toString(fanOut(node)));
+        data(out, "downstream", Long.toString(Math.round(estimatedDownstream[node])));
+        if (profiled) {
+          data(out, "cost", Double.toString(costs[node]));
+        }
+        out.append("    </node>\n");
+      }
+      for (int node = 0; node < ids.length; node++) {
+        for (int i = consumerOffsets[node]; i < consumerOffsets[node + 1]; i++) {
+          out.append("    <edge source=\"n").append(Integer.toString(node))
+              .append("\" target=\"n").append(Integer.toString(consumers[i])).append("\"/>\n");
+        }
+      }
+      out.append("  </graph>\n</graphml>\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void index(int[] from, int[] to, int[] offsets, int[] targets) {
+    for (int node : from) {
+      offsets[node + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+    for (int i = 0; i < from.length; i++) {
+      targets[next[from[i]]++] = to[i];
+    }
+  }
+
+  private int[] topologicalOrder() {
+    int n = ids.length;
+    int[] remaining = new int[n];
+    int[] order = new int[n];
+    int size = 0;
+    for (int node = 0; node < n; node++) {
+      remaining[node] = fanIn(node);
+      if (remaining[node] == 0) {
+        order[size++] = node;
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      int node = order[i];
+      for (int j = consumerOffsets[node]; j < consumerOffsets[node + 1]; j++) {
+        if (--remaining[consumers[j]] == 0) {
+          order[size++] = consumers[j];
+        }
+      }
+    }
+    checkState(size == n, "the bindings contain a cycle");
+    return order;
+  }
+
+  private int computeDepths(int[] order) {
+    Arrays.fill(depths, 1);
+    Arrays.fill(predecessors, -1);
+    Arrays.fill(criticalPredecessors, -1);
+    int max = 0;
+    for (int node : order) {
+      pathCosts[node] += costs[node];
+      max = Math.max(max, depths[node]);
+      for (int i = consumerOffsets[node]; i < consumerOffsets[node + 1]; i++) {
+        int consumer = consumers[i];
+        if (depths[node] + 1 > depths[consumer]) {
+          depths[consumer] = depths[node] + 1;
+          predecessors[consumer] = node;
+        }
+        if (criticalPredecessors[consumer] == -1 || pathCosts[node] > pathCosts[consumer]) {
+          pathCosts[consumer] = pathCosts[node];
+          criticalPredecessors[consumer] = node;
+        }
+      }
+    }
+    return max;
+  }
+
+  // consumers are visited before their producers, and the sketch of a node, which covers the
+  // node and everything downstream of it, is released once all of its producers have used it
+  private void estimateDownstream(int[] order) {
+    int n = ids.length;
+    long[] hashes = new long[n];
+    SplittableRandom random = new SplittableRandom(SEED);
+    for (int node = 0; node < n; node++) {
+      hashes[node] = random.nextLong() >>> 1;
+    }
+    int[][] sketches = new int[n][];
+    int[] unused = new int[n];
+    for (int node = 0; node < n; node++) {
+      unused[node] = fanIn(node);
+    }
+    int[] single = new int[1];
+    for (int i = n - 1; i >= 0; i--) {
+      int node = order[i];
+      int[] downstream = new int[0];
+      for (int j = consumerOffsets[node]; j < consumerOffsets[node + 1]; j++) {
+        int consumer = consumers[j];
+        downstream = merge(downstream, sketches[consumer], hashes);
+        if (--unused[consumer] == 0) {
+          sketches[consumer] = null;
+        }
+      }
+      estimate(node, downstream, hashes);
+      if (unused[node] > 0) {
+        single[0] = node;
+        sketches[node] = merge(downstream, single, hashes);
+      }
+    }
+  }
+
+  // a sketch that is not full holds the whole set; otherwise the hash of its last entry is
+  // about SKETCH_SIZE / size of the way through the range of hashes, and its entries are a
+  // uniform sample of the set, from which the mean cost is taken
+  private void estimate(int node, int[] sketch, long[] hashes) {
+    double cost = 0;
+    for (int member : sketch) {
+      cost += costs[member];
+    }
+    if (sketch.length < SKETCH_SIZE) {
+      estimatedDownstream[node] = sketch.length;
+      estimatedDownstreamCosts[node] = cost;
+      return;
+    }
+    double fraction = (hashes[sketch[SKETCH_SIZE - 1]] + 1.0) / ((double) Long.MAX_VALUE + 1.0);
+    double size = (SKETCH_SIZE - 1) / fraction;
+    estimatedDownstream[node] = size;
+    estimatedDownstreamCosts[node] = cost / SKETCH_SIZE * size;
+  }
+
+  private static int[] merge(int[] a, int[] b, long[] hashes) {
+    int[] merged = new int[Math.min(SKETCH_SIZE, a.length + b.length)];
+    int i = 0;
+    int j = 0;
+    int size = 0;
+    while (size < merged.length && (i < a.length || j < b.length)) {
+      int order = i == a.length ? 1 : j == b.length ? -1 : compare(a[i], b[j], hashes);
+      if (order < 0) {
+        merged[size++] = a[i++];
+      } else if (order > 0) {
+        merged[size++] = b[j++];
+      } else {
+        // the same node, reached along two paths
+        merged[size++] = a[i++];
+        j++;
+      }
+    }
+    return size == merged.length ? merged : Arrays.copyOf(merged, size);
+  }
+
+  private static int compare(int a, int b, long[] hashes) {
+    int order = Long.compare(hashes[a], hashes[b]);
+    return order != 0 ? order : Integer.compare(a, b);
+  }
+
+  private Traversal traverseDownstream(int start, boolean withCosts) {
+    if (++mark == 0) {
+      Arrays.fill(marks, 0);
+      mark = 1;
+    }
+    Traversal traversal = new Traversal();
+    int size = 0;
+    stack[size++] = start;
+    marks[start] = mark;
+    while (size > 0) {
+      int node = stack[--size];
+      for (int i = consumerOffsets[node]; i < consumerOffsets[node + 1]; i++) {
+        int consumer = consumers[i];
+        if (marks[consumer] != mark) {
+          marks[consumer] = mark;
+          stack[size++] = consumer;
+          traversal.count++;
+          if (withCosts) {
+            traversal.cost += costs[consumer];
+          }
+        }
+      }
+    }
+    return traversal;
+  }
+
+  // the indices of the nodes with the highest scores, highest first; negative scores are
+  // never included
+  private int[] top(int limit, Score score) {
+    PriorityQueue<double[]> queue = new PriorityQueue<>(limit + 1,
+        (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(b[1], a[1]));
+    for (int node = 0; node < ids.length; node++) {
+      double value = score.of(node);
+      if (value < 0) {
+        continue;
+      }
+      if (queue.size() < limit) {
+        queue.add(new double[] {value, node});
+      } else if (value > queue.peek()[0]) {
+        queue.poll();
+        queue.add(new double[] {value, node});
+      }
+    }
+    int[] top = new int[queue.size()];
+    for (int i = top.length - 1; i >= 0; i--) {
+      top[i] = (int) queue.poll()[1];
+    }
+    return top;
+  }
+
+  private <T extends Number> Map<PropertyIdentifier<?>, T> ranked(int limit, int[] candidates,
+      Map<Integer, T> values) {
+    Integer[] sorted = new Integer[candidates.length];
+    for (int i = 0; i < candidates.length; i++) {
+      sorted[i] = candidates[i];
+    }
+    Arrays.sort(sorted,
+        (a, b) -> Double.compare(values.get(b).doubleValue(), values.get(a).doubleValue()));
+    ImmutableMap.Builder<PropertyIdentifier<?>, T> ranked = ImmutableMap.builder();
+    for (int i = 0; i < Math.min(limit, sorted.length); i++) {
+      ranked.put(ids[sorted[i]], values.get(sorted[i]));
+    }
+    return ranked.build();
+  }
+
+  private List<PropertyIdentifier<?>> chain(int end, int[] predecessors) {
+    List<PropertyIdentifier<?>> chain = Lists.newArrayList();
+    for (int node = end; node != -1; node = predecessors[node]) {
+      chain.add(ids[node]);
+    }
+    return ImmutableList.copyOf(chain).reverse();
+  }
+
+  private static SortedMap<Integer, Integer> distribution(int[] offsets) {
+    SortedMap<Integer, Integer> distribution = new TreeMap<>();
+    for (int node = 0; node < offsets.length - 1; node++) {
+      distribution.merge(offsets[node + 1] - offsets[node], 1, Integer::sum);
+    }
+    return ImmutableSortedMap.copyOfSorted(distribution);
+  }
+
+  private int indexOf(PropertyIdentifier<?> id) {
+    checkNotNull(id, "id cannot be null");
+    for (int node = 0; node < ids.length; node++) {
+      if (ids[node].equals(id)) {
+        return node;
+      }
+    }
+    throw new IllegalArgumentException(id + " is not part of the graph");
+  }
+
+  private boolean isSink(int node) {
+    return fanOut(node) == 0;
+  }
+
+  private int fanIn(int node) {
+    return producerOffsets[node + 1] - producerOffsets[node];
+  }
+
+  private int fanOut(int node) {
+    return consumerOffsets[node + 1] - consumerOffsets[node];
+  }
+
+  private static void key(Appendable out, String name, String type) throws IOException {
+    out.append("  <key id=\"").append(name).append("\" for=\"node\" attr.name=\"").append(name)
+        .append("\" attr.type=\"").append(type).append("\"/>\n");
+  }
+
+  private static void data(Appendable out, String key, String value) throws IOException {
+    out.append("      <data key=\"").append(key).append("\">").append(value).append("</data>\n");
+  }
+
+  private static String escapeDot(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private static String escapeXml(String value) {
+    return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+        .replace("\"", "&quot;");
+  }
+
+  private interface Score {
+    double of(int node);
+  }
+
+  private static class Traversal {
+    private int count;
+    private double cost;
+  }
+
+}
@@ -0,0 +1,149 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.devoware.reactive.property.ModifierOrderingRules.apply;
+import static org.devoware.reactive.property.ModifierOrderingRules.applyFirst;
+import static org.devoware.reactive.property.ModifierOrderingRules.applyLast;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+public class GraphDefinition {
+  private final Map<PropertyIdentifier<?>, PropertyDefinition<?>> definitions;
+  private final List<PropertyIdentifier<?>> order;
+  private final List<List<PropertyIdentifier<?>>> producers;
+  private final boolean planFromCache;
+
+  GraphDefinition(Map<PropertyIdentifier<?>, PropertyDefinition<?>> definitions,
+      List<PropertyIdentifier<?>> order, List<List<PropertyIdentifier<?>>> producers,
+      boolean planFromCache) {
+    this.definitions = definitions;
+    this.order = order;
+    this.producers = producers;
+    this.planFromCache = planFromCache;
+  }
+
+  public List<PropertyIdentifier<?>> getEvaluationOrder() {
+    return order;
+  }
+
+  public boolean isPlanFromCache() {
+    return planFromCache;
+  }
+
+  // properties are created in topological order, so each of them is evaluated exactly once.
+  // The bindings of the plan are acyclic among themselves, but the manager may already hold
+  // properties that they could close a cycle through, so those are checked as they are made
+  public void install(PropertyManager manager) {
+    checkNotNull(manager, "manager cannot be null");
+    for (int i = 0; i < order.size(); i++) {
+      PropertyIdentifier<?> id = order.get(i);
+      if (manager instanceof BasicPropertyManager) {
+        for (PropertyIdentifier<?> producer : producers.get(i)) {
+          ((BasicPropertyManager) manager).bindPlanned(id, producer);
+        }
+      }
+      definitions.get(id).install(manager);
+    }
+  }
+
+  static class PropertyDefinition<V> {
+    private final PropertyIdentifier<V> id;
+    private ValueFunction<V> function;
+    private V literal;
+    private Validator<V> validator;
+    private final List<ModifierDefinition<V>> modifiers = Lists.newArrayList();
+
+    static <V> PropertyDefinition<V> create(PropertyIdentifier<V> id) {
+      return new PropertyDefinition<>(id);
+    }
+
+    private PropertyDefinition(PropertyIdentifier<V> id) {
+      checkNotNull(id, "id cannot be null");
+      this.id = id;
+    }
+
+    PropertyIdentifier<V> getId() {
+      return id;
+    }
+
+    boolean hasValue() {
+      return function != null || literal != null;
+    }
+
+    Set<PropertyIdentifier<?>> getInputs() {
+      ImmutableSet.Builder<PropertyIdentifier<?>> inputs = ImmutableSet.builder();
+      if (function instanceof DeclaredValueFunction) {
+        inputs.addAll(((DeclaredValueFunction<V>) function).getInputs());
+      }
+      for (ModifierDefinition<V> modifier : modifiers) {
+        inputs.addAll(modifier.inputs);
+      }
+      return inputs.build();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setValue(String expression, Function<String, ? extends PropertyIdentifier<?>> resolver) {
+      Formula<?> formula = Formulas.compile(expression, (Class) id.getType(), resolver);
+      if (formula.getInputs().isEmpty()) {
+        this.literal = (V) formula.onBoundValueChanged(null);
+      } else {
+        this.function = (ValueFunction<V>) formula;
+      }
+    }
+
+    void setRange(double min, double max) {
+      checkArgument(min <= max, "min cannot be greater than max");
+      this.validator = (context, value) -> {
+        double d = ((Number) value).doubleValue();
+        checkArgument(d >= min && d <= max, "%s must be between %s and %s", id, min, max);
+      };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void addModifier(String expression, Function<String, ? extends PropertyIdentifier<?>> resolver,
+        String ordering) {
+      FormulaModifier<?> modifier = FormulaModifier.compile(expression, (Class) id.getType(),
+          resolver);
+      ModifierOrderingRule<V> rule = "first".equals(ordering) ? applyFirst()
+          : "last".equals(ordering) ? applyLast() : apply();
+      modifiers.add(new ModifierDefinition<>((Modifier<V>) modifier, modifier.getInputs(), rule));
+    }
+
+    private void install(PropertyManager manager) {
+      PropertyManager.Builder<V> builder = manager.create(id);
+      if (function != null) {
+        builder.withValue(function);
+      } else {
+        builder.withValue(literal);
+      }
+      if (validator != null) {
+        builder.withValidator(validator);
+      }
+      Property<V> property = builder.build();
+      for (ModifierDefinition<V> modifier : modifiers) {
+        property.addModifier(modifier.modifier, modifier.rule);
+      }
+    }
+  }
+
+  private static class ModifierDefinition<V> {
+    private final Modifier<V> modifier;
+    private final Set<PropertyIdentifier<?>> inputs;
+    private final ModifierOrderingRule<V> rule;
+
+    private ModifierDefinition(Modifier<V> modifier, Set<PropertyIdentifier<?>> inputs,
+        ModifierOrderingRule<V> rule) {
+      this.modifier = modifier;
+      this.inputs = ImmutableSet.copyOf(inputs);
+      this.rule = rule;
+    }
+  }
+
+}
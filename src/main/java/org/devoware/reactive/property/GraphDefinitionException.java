@@ -0,0 +1,15 @@
+package org.devoware.reactive.property;
+
+public class GraphDefinitionException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public GraphDefinitionException(String message) {
+    super(message);
+  }
+
+  public GraphDefinitionException(String message, Throwable cause) {
+    super(message, cause);
+  }
+  
+}
@@ -0,0 +1,91 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+
+class GraphDefinitionParser {
+  private static final Pattern PROPERTY = Pattern.compile("property\\s+(\\w+)\\s*=\\s*(.+)");
+  private static final Pattern VALIDATOR = Pattern.compile(
+      "validator\\s+(\\w+)\\s+(-?\\d+(?:\\.\\d+)?)\\s*\\.\\.\\s*(-?\\d+(?:\\.\\d+)?)");
+  private static final Pattern MODIFIER =
+      Pattern.compile("modifier\\s+(\\w+)(?:\\s+(first|apply|last))?\\s*=\\s*(.+)");
+
+  private final Function<String, ? extends PropertyIdentifier<?>> resolver;
+  private final Map<PropertyIdentifier<?>, GraphDefinition.PropertyDefinition<?>> definitions =
+      Maps.newLinkedHashMap();
+  private int lineNumber;
+
+  GraphDefinitionParser(Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    checkNotNull(resolver, "resolver cannot be null");
+    this.resolver = resolver;
+  }
+
+  Map<PropertyIdentifier<?>, GraphDefinition.PropertyDefinition<?>> parse(String text) {
+    checkNotNull(text, "text cannot be null");
+    for (String line : Splitter.onPattern("\r?\n").split(text)) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      try {
+        parseLine(line);
+      } catch (FormulaException e) {
+        throw error(e.getMessage());
+      }
+    }
+    for (GraphDefinition.PropertyDefinition<?> definition : definitions.values()) {
+      if (!definition.hasValue()) {
+        throw new GraphDefinitionException("no value defined for " + definition.getId());
+      }
+    }
+    return definitions;
+  }
+
+  private void parseLine(String line) {
+    Matcher matcher;
+    if ((matcher = PROPERTY.matcher(line)).matches()) {
+      GraphDefinition.PropertyDefinition<?> definition = getDefinition(matcher.group(1));
+      if (definition.hasValue()) {
+        throw error("duplicate definition of " + definition.getId());
+      }
+      definition.setValue(matcher.group(2), resolver);
+    } else if ((matcher = VALIDATOR.matcher(line)).matches()) {
+      getDefinition(matcher.group(1)).setRange(Double.parseDouble(matcher.group(2)),
+          Double.parseDouble(matcher.group(3)));
+    } else if ((matcher = MODIFIER.matcher(line)).matches()) {
+      getDefinition(matcher.group(1)).addModifier(matcher.group(3), resolver, matcher.group(2));
+    } else {
+      throw error("cannot parse '" + line + "'");
+    }
+  }
+
+  private GraphDefinition.PropertyDefinition<?> getDefinition(String name) {
+    PropertyIdentifier<?> id = resolver.apply(name);
+    if (id == null) {
+      throw error("unknown property '" + name + "'");
+    }
+    if (id.getType() != Integer.class && id.getType() != Long.class
+        && id.getType() != Double.class) {
+      throw error("property '" + name + "' is not of type Integer, Long or Double");
+    }
+    GraphDefinition.PropertyDefinition<?> definition = definitions.get(id);
+    if (definition == null) {
+      definition = GraphDefinition.PropertyDefinition.create(id);
+      definitions.put(id, definition);
+    }
+    return definition;
+  }
+
+  private GraphDefinitionException error(String message) {
+    return new GraphDefinitionException("line " + lineNumber + ": " + message);
+  }
+
+}
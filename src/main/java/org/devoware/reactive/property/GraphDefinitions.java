@@ -0,0 +1,158 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+public class GraphDefinitions {
+
+  public static GraphDefinition parse(String text,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    checkNotNull(text, "text cannot be null");
+    checkNotNull(resolver, "resolver cannot be null");
+    Map<String, PropertyIdentifier<?>> resolved = Maps.newHashMap();
+    Map<PropertyIdentifier<?>, GraphDefinition.PropertyDefinition<?>> definitions =
+        new GraphDefinitionParser(recording(resolver, resolved)).parse(text);
+    return create(definitions, computePlan(hash(text), definitions), resolved, false);
+  }
+
+  public static GraphDefinition load(Path file,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) throws IOException {
+    checkNotNull(file, "file cannot be null");
+    return parse(read(file), resolver);
+  }
+
+  // the plan cache holds the slot layout, evaluation order and bindings, and is reused as long as
+  // the content hash of the definition file matches; otherwise the plan is recomputed and the
+  // cache is rewritten. A cached plan saves the ordering and cycle checks, and is applied without
+  // checking each binding against the definitions again; every formula is still parsed on each
+  // load
+  public static GraphDefinition load(Path file, Path planCache,
+      Function<String, ? extends PropertyIdentifier<?>> resolver) throws IOException {
+    checkNotNull(file, "file cannot be null");
+    checkNotNull(planCache, "planCache cannot be null");
+    checkNotNull(resolver, "resolver cannot be null");
+    String text = read(file);
+    String hash = hash(text);
+    Map<String, PropertyIdentifier<?>> resolved = Maps.newHashMap();
+    Map<PropertyIdentifier<?>, GraphDefinition.PropertyDefinition<?>> definitions =
+        new GraphDefinitionParser(recording(resolver, resolved)).parse(text);
+    EvaluationPlan plan = readPlan(planCache, hash);
+    if (plan != null) {
+      GraphDefinition definition = create(definitions, plan, resolved, true);
+      if (definition != null) {
+        return definition;
+      }
+    }
+    plan = computePlan(hash, definitions);
+    writePlan(planCache, plan);
+    return create(definitions, plan, resolved, false);
+  }
+
+  private static EvaluationPlan computePlan(String hash,
+      Map<PropertyIdentifier<?>, GraphDefinition.PropertyDefinition<?>> definitions) {
+    Map<PropertyIdentifier<?>, Set<PropertyIdentifier<?>>> inputs = Maps.newLinkedHashMap();
+    for (GraphDefinition.PropertyDefinition<?> definition : definitions.values()) {
+      inputs.put(definition.getId(), definition.getInputs());
+    }
+    return EvaluationPlan.compute(hash, inputs);
+  }
+
+  // every identifier that the parser resolves is kept by name, so that the slots of a plan can
+  // be resolved without walking the inputs of every definition
+  private static Function<String, PropertyIdentifier<?>> recording(
+      Function<String, ? extends PropertyIdentifier<?>> resolver,
+      Map<String, PropertyIdentifier<?>> resolved) {
+    return (name) -> {
+      PropertyIdentifier<?> id = resolver.apply(name);
+      if (id != null) {
+        resolved.put(id.toString(), id);
+      }
+      return id;
+    };
+  }
+
+  // each slot of the plan is resolved once, and the order and bindings are then built from the
+  // slots; a plan computed from the same text binds each property to the inputs it declares.
+  // Returns null if the plan does not fit the definitions: a slot that was not resolved, or
+  // defined slots that are not exactly the defined properties
+  private static GraphDefinition create(
+      Map<PropertyIdentifier<?>, GraphDefinition.PropertyDefinition<?>> definitions,
+      EvaluationPlan plan, Map<String, PropertyIdentifier<?>> resolved, boolean planFromCache) {
+    if (plan.size() != definitions.size()) {
+      return null;
+    }
+    PropertyIdentifier<?>[] slots = new PropertyIdentifier<?>[plan.getSlotCount()];
+    for (int slot = 0; slot < slots.length; slot++) {
+      PropertyIdentifier<?> id = resolved.get(plan.getSlotName(slot));
+      if (id == null || definitions.containsKey(id) != slot < plan.size()) {
+        return null;
+      }
+      slots[slot] = id;
+    }
+    ImmutableList.Builder<PropertyIdentifier<?>> order = ImmutableList.builder();
+    ImmutableList.Builder<List<PropertyIdentifier<?>>> producers = ImmutableList.builder();
+    for (int i = 0; i < plan.size(); i++) {
+      order.add(slots[plan.getSlot(i)]);
+      PropertyIdentifier<?>[] bound = new PropertyIdentifier<?>[plan.getProducerCount(i)];
+      for (int j = 0; j < bound.length; j++) {
+        bound[j] = slots[plan.getProducerSlot(i, j)];
+      }
+      producers.add(ImmutableList.copyOf(bound));
+    }
+    return new GraphDefinition(definitions, order.build(), producers.build(), planFromCache);
+  }
+
+  private static EvaluationPlan readPlan(Path planCache, String hash) {
+    if (!Files.isRegularFile(planCache)) {
+      return null;
+    }
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(planCache))) {
+      EvaluationPlan plan = EvaluationPlan.read(in);
+      return hash.equals(plan.getHash()) ? plan : null;
+    } catch (IOException | RuntimeException e) {
+      // a corrupt or outdated cache is simply recomputed
+      return null;
+    }
+  }
+
+  private static void writePlan(Path planCache, EvaluationPlan plan) throws IOException {
+    Path directory = planCache.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temp = Files.createTempFile(directory, planCache.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+        plan.write(out);
+      }
+      Files.move(temp, planCache, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  private static String hash(String text) {
+    return Hashing.sha256().hashString(text, StandardCharsets.UTF_8).toString();
+  }
+
+  private GraphDefinitions() {}
+}
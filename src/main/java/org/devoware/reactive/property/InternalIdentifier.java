@@ -0,0 +1,8 @@
+package org.devoware.reactive.property;
+
+// marks the identifiers of properties that the library creates for its own bookkeeping, such as
+// the request properties of async properties; they are registered and propagated like any other,
+// but are left out of everything that enumerates the properties of a manager
+interface InternalIdentifier {
+
+}
@@ -0,0 +1,72 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+// elements are kept in insertion order, and are addressed by the identifiers returned when they
+// are added, so that a change never shifts the keys of the elements after it; the list view is
+// copied lazily, at most once per change, when it is first read
+public class ListProperty<E> extends CollectionProperty<Identifier, E, List<E>> {
+  private final List<E> view = new SnapshotList();
+
+  ListProperty(BasicPropertyManager manager, PropertyIdentifier<List<E>> id) {
+    super(manager, id);
+  }
+
+  public Identifier add(E element) {
+    checkNotNull(element, "element cannot be null");
+    Identifier id = new Identifier() {};
+    putElement(id, element);
+    return id;
+  }
+
+  public E get(Identifier id) {
+    return getElement(id);
+  }
+
+  // replaces the element held by the given id, and returns the previous one
+  public E set(Identifier id, E element) {
+    checkNotNull(id, "id cannot be null");
+    if (getElement(id) == null) {
+      throw new IllegalArgumentException("no element is held by " + id);
+    }
+    return putElement(id, element);
+  }
+
+  public E remove(Identifier id) {
+    return removeElement(id);
+  }
+
+  @Override
+  List<E> view() {
+    return view;
+  }
+
+  private class SnapshotList extends AbstractList<E> {
+    private List<E> snapshot = ImmutableList.of();
+    private long modifications;
+
+    @Override
+    public E get(int index) {
+      return snapshot().get(index);
+    }
+
+    @Override
+    public int size() {
+      return elements().size();
+    }
+
+    private List<E> snapshot() {
+      if (modifications != getModifications()) {
+        snapshot = ImmutableList.copyOf(elements().values());
+        modifications = getModifications();
+      }
+      return snapshot;
+    }
+  }
+
+}
@@ -16,5 +16,10 @@ class LiteralValueSource<V> implements ValueSource<V> {
     return value;
   }
 
+  @Override
+  public boolean isDeclared() {
+    return true;
+  }
+
   
 }
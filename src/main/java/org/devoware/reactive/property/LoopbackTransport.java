@@ -0,0 +1,67 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Maps;
+
+// an in-process transport for a single thread, which delivers messages in the order in which
+// they were sent; a message sent while another is being delivered is queued rather than
+// delivered recursively, so that a chain of partitions never nests one propagation inside another
+class LoopbackTransport implements PropertyTransport {
+  private final Map<String, Consumer<PartitionMessage>> receivers = Maps.newHashMap();
+  private final Deque<Delivery> deliveries = new ArrayDeque<>();
+  private boolean delivering;
+
+  @Override
+  public void register(String partition, Consumer<PartitionMessage> receiver) {
+    checkNotNull(partition, "partition cannot be null");
+    checkNotNull(receiver, "receiver cannot be null");
+    checkArgument(receivers.putIfAbsent(partition, receiver) == null,
+        "partition %s is already registered", partition);
+  }
+
+  @Override
+  public void unregister(String partition) {
+    checkNotNull(partition, "partition cannot be null");
+    receivers.remove(partition);
+  }
+
+  @Override
+  public void send(String partition, PartitionMessage message) {
+    checkNotNull(partition, "partition cannot be null");
+    checkNotNull(message, "message cannot be null");
+    deliveries.add(new Delivery(partition, message));
+    if (delivering) {
+      return;
+    }
+    delivering = true;
+    try {
+      Delivery delivery;
+      while ((delivery = deliveries.poll()) != null) {
+        Consumer<PartitionMessage> receiver = receivers.get(delivery.partition);
+        if (receiver != null) {
+          receiver.accept(delivery.message);
+        }
+      }
+    } finally {
+      delivering = false;
+    }
+  }
+
+  private static class Delivery {
+    private final String partition;
+    private final PartitionMessage message;
+
+    private Delivery(String partition, PartitionMessage message) {
+      this.partition = partition;
+      this.message = message;
+    }
+  }
+
+}
@@ -0,0 +1,35 @@
+package org.devoware.reactive.property;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class MapProperty<K, E> extends CollectionProperty<K, E, Map<K, E>> {
+  private final Map<K, E> view = Collections.unmodifiableMap(elements());
+
+  MapProperty(BasicPropertyManager manager, PropertyIdentifier<Map<K, E>> id) {
+    super(manager, id);
+  }
+
+  public E get(K key) {
+    return getElement(key);
+  }
+
+  public boolean containsKey(K key) {
+    return getElement(key) != null;
+  }
+
+  // returns the previous element, if any
+  public E put(K key, E element) {
+    return putElement(key, element);
+  }
+
+  public E remove(K key) {
+    return removeElement(key);
+  }
+
+  @Override
+  Map<K, E> view() {
+    return view;
+  }
+
+}
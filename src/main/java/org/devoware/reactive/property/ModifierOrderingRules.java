@@ -2,6 +2,8 @@ package org.devoware.reactive.property;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+// modifiers are applied in ascending order of priority; applyFirst() and applyLast() map to the
+// lowest and highest possible priorities, and apply() to a priority of zero
 public class ModifierOrderingRules {
 
   public static <V> ModifierOrderingRule<V> applyFirst() {
@@ -9,11 +11,24 @@ public class ModifierOrderingRules {
   }
   
   public static <V> ModifierOrderingRule<V> apply() {
-    return new Apply<>();
+    return new Apply<>(Modifiers.DEFAULT_PRIORITY);
   }
   
   public static <V> ModifierOrderingRule<V> applyLast() {
-    return new ApplyLast<>();
+    return new Apply<>(Modifiers.LAST_PRIORITY);
+  }
+
+  public static <V> ModifierOrderingRule<V> priority(int priority) {
+    return new Apply<>(priority);
+  }
+
+  public static <V> ModifierOrderingRule<V> stacking(StackingGroup group) {
+    return stacking(group, Modifiers.DEFAULT_PRIORITY);
+  }
+
+  public static <V> ModifierOrderingRule<V> stacking(StackingGroup group, int priority) {
+    checkNotNull(group, "group cannot be null");
+    return new Stacking<>(group, priority);
   }
   
   private static <V> void checkArguments(Modifiers<V> modifiers, Identifier id, Modifier<V> modifier) {
@@ -34,20 +49,32 @@ public class ModifierOrderingRules {
   }
 
   private static class Apply<V> implements ModifierOrderingRule<V> {
+    private final int priority;
+
+    private Apply(int priority) {
+      this.priority = priority;
+    }
 
     @Override
     public void insert(Modifiers<V> modifiers, Identifier id, Modifier<V> modifier) {
       checkArguments(modifiers, id, modifier);
-      modifiers.apply(id, modifier);
+      modifiers.apply(id, modifier, priority);
     }
   }
 
-  private static class ApplyLast<V> implements ModifierOrderingRule<V> {
+  private static class Stacking<V> implements ModifierOrderingRule<V> {
+    private final StackingGroup group;
+    private final int priority;
+
+    private Stacking(StackingGroup group, int priority) {
+      this.group = group;
+      this.priority = priority;
+    }
 
     @Override
     public void insert(Modifiers<V> modifiers, Identifier id, Modifier<V> modifier) {
       checkArguments(modifiers, id, modifier);
-      modifiers.applyLast(id, modifier);
+      modifiers.stack(id, modifier, group, priority);
     }
   }
 }
@@ -1,148 +1,358 @@
 package org.devoware.reactive.property;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Set;
 
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Lists;
+import com.google.common.collect.LinkedHashMultiset;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
 
 class Modifiers<V> implements Iterable<Modifier<V>> {
-  private Map<Identifier, LinkedList<Modifier<V>>> listsById = Maps.newHashMap();
-  private Map<Identifier, Modifier<V>> modifiersById = Maps.newHashMap();
-  private LinkedList<Modifier<V>> firstModifiers = Lists.newLinkedList();
-  private LinkedList<Modifier<V>> modifiers = Lists.newLinkedList();
-  private LinkedList<Modifier<V>> lastModifiers = Lists.newLinkedList();
-  
+  static final int FIRST_PRIORITY = Integer.MIN_VALUE;
+  static final int DEFAULT_PRIORITY = 0;
+  static final int LAST_PRIORITY = Integer.MAX_VALUE;
+  private static final AggregateModifier.Kind[] KINDS = AggregateModifier.Kind.values();
+
+  private final Map<Identifier, Entry<V>> entriesById = Maps.newHashMap();
+  private final NavigableMap<Integer, Stage> stages = Maps.newTreeMap();
+  // entries inserted at the front of a stage take decreasing sequence numbers, and all others
+  // increasing ones, so that each stage can keep its ordered modifiers in a sorted map
+  private long nextFirstSequence = -1;
+  private long nextLastSequence = 1;
+  // applyModifiers runs far more often than the chain changes, so it walks array snapshots of
+  // the stages, which are rebuilt lazily after a change, rather than allocating iterators
+  private Object[] stageChain;
+
   static <V> Modifiers<V> create() {
     return new Modifiers<>();
   }
-  
-  static <V> Modifiers<V> create(Modifiers<V> modifiers) {
-    checkNotNull(modifiers, "modifiers cannot be null");
-    return new Modifiers<>(modifiers);
-  }
 
   private Modifiers() {}
 
-  private Modifiers(Modifiers<V> modifiers) {
-    this.listsById.putAll(modifiers.listsById);
-    this.modifiersById.putAll(modifiersById);
-    this.firstModifiers.addAll(modifiers.firstModifiers);
-    this.modifiers.addAll(modifiers.modifiers);
-    this.lastModifiers.addAll(modifiers.lastModifiers);
-  }
-  
   Set<Identifier> keySet() {
-    return listsById.keySet();
+    return entriesById.keySet();
   }
-  
+
   boolean containsKey(Identifier id) {
     check(id);
-    return listsById.containsKey(id);
+    return entriesById.containsKey(id);
   }
-  
+
   int size() {
-    return listsById.size();
+    return entriesById.size();
   }
-  
+
   boolean isEmpty() {
-    return listsById.isEmpty();
+    return entriesById.isEmpty();
   }
-  
+
   Modifier<V> get(Identifier id) {
     check(id);
-    return modifiersById.get(id);
+    Entry<V> entry = entriesById.get(id);
+    return entry == null ? null : entry.modifier;
+  }
+
+  // returns a rule that reinserts a modifier at the priority and in the group of the entry that
+  // currently holds the given id
+  ModifierOrderingRule<V> getRule(Identifier id) {
+    check(id);
+    Entry<V> entry = entriesById.get(id);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.group != null) {
+      return ModifierOrderingRules.stacking(entry.group, entry.priority);
+    }
+    if (entry.sequence < 0) {
+      return ModifierOrderingRules.applyFirst();
+    }
+    return ModifierOrderingRules.priority(entry.priority);
+  }
+
+  // returns an action that puts back the entry currently held for the given id, at its exact
+  // position in the chain, or that removes the id if it holds none; used to roll back changes
+  Runnable restorer(Identifier id) {
+    check(id);
+    Entry<V> entry = entriesById.get(id);
+    if (entry == null) {
+      return () -> removeIfPresent(id);
+    }
+    return () -> insert(entry);
   }
-  
+
   Modifiers<V> applyFirst(Identifier id, Modifier<V> modifier) {
     check(id).check(modifier);
-    removeIfPresent(id, modifier);
-    index(firstModifiers, id, modifier);
-    firstModifiers.addFirst(modifier);
+    insert(new Entry<>(id, modifier, FIRST_PRIORITY, nextFirstSequence--, null));
     return this;
   }
-  
+
   Modifiers<V> apply(Identifier id, Modifier<V> modifier) {
+    return apply(id, modifier, DEFAULT_PRIORITY);
+  }
+
+  Modifiers<V> applyLast(Identifier id, Modifier<V> modifier) {
+    return apply(id, modifier, LAST_PRIORITY);
+  }
+
+  Modifiers<V> apply(Identifier id, Modifier<V> modifier, int priority) {
     check(id).check(modifier);
-    removeIfPresent(id, modifier);
-    index(modifiers, id, modifier);
-    modifiers.add(modifier);
+    insert(new Entry<>(id, modifier, priority, nextLastSequence++, null));
     return this;
   }
-  
-  Modifiers<V> applyLast(Identifier id, Modifier<V> modifier) {
+
+  // only the best member of a stacking group contributes to the value of the property; members
+  // must be aggregate modifiers of the same kind, so that they can be ranked by their operands
+  Modifiers<V> stack(Identifier id, Modifier<V> modifier, StackingGroup group, int priority) {
     check(id).check(modifier);
-    removeIfPresent(id, modifier);
-    index(lastModifiers, id, modifier);
-    lastModifiers.addLast(modifier);
+    checkNotNull(group, "group cannot be null");
+    checkArgument(modifier instanceof AggregateModifier,
+        "only aggregate modifiers can be added to stacking group %s", group);
+    insert(new Entry<>(id, modifier, priority, nextLastSequence++, group));
     return this;
   }
-  
+
   Modifiers<V> remove(Identifier id) {
     check(id);
     removeIfPresent(id);
     return this;
   }
-  
+
   V applyModifiers(PropertyContext context, V value) {
     checkNotNull(context, "context cannot be null");
     checkNotNull(value, "value cannot be null");
+    if (stageChain == null) {
+      stageChain = stages.values().toArray();
+    }
     V adjustedValue = value;
-    for (Modifier<V> modifier: this) {
-      adjustedValue = modifier.onBoundValueChanged(context, adjustedValue);
+    for (Object stage : stageChain) {
+      @SuppressWarnings("unchecked")
+      Stage chainedStage = (Stage) stage;
+      adjustedValue = chainedStage.apply(context, adjustedValue);
     }
     return adjustedValue;
   }
-  
+
   @Override
   public Iterator<Modifier<V>> iterator() {
-    return Iterators.concat(
-        firstModifiers.iterator(),
-        modifiers.iterator(),
-        lastModifiers.iterator());
-  }
-  
-  private void index(LinkedList<Modifier<V>> list, Identifier id, Modifier<V> modifier) {
-    listsById.put(id, list);
-    modifiersById.put(id, modifier);
+    return Iterators.concat(Iterators.transform(stages.values().iterator(), Stage::iterator));
   }
-  
-  private void removeIfPresent(Identifier id) {
-    LinkedList<Modifier<V>> list = listsById.get(id);
-    if (list == null) {
-      return;
+
+  private void insert(Entry<V> entry) {
+    // the stage is validated before the previous entry is removed, so that a rejected modifier
+    // leaves the existing one in place
+    Stage stage = stages.get(entry.priority);
+    if (stage != null) {
+      stage.checkGroup(entry);
+    }
+    removeIfPresent(entry.id);
+    stage = stages.get(entry.priority);
+    if (stage == null) {
+      stage = new Stage();
+      stages.put(entry.priority, stage);
+      stageChain = null;
     }
-    Modifier<V> modifier = modifiersById.get(id);
-    remove(list, id, modifier);
+    entriesById.put(entry.id, entry);
+    stage.add(entry);
   }
 
-  private void removeIfPresent(Identifier id, Modifier<V> modifier) {
-    LinkedList<Modifier<V>> list = listsById.get(id);
-    if (list == null) {
+  private void removeIfPresent(Identifier id) {
+    Entry<V> entry = entriesById.remove(id);
+    if (entry == null) {
       return;
     }
-    remove(list, id, modifier);
-  }
-
-  private void remove(LinkedList<Modifier<V>> list, Identifier id, Modifier<V> modifier) {
-    list.remove(modifier);
-    listsById.remove(id);
-    modifiersById.remove(id);
+    Stage stage = stages.get(entry.priority);
+    stage.remove(entry);
+    if (stage.isEmpty()) {
+      stages.remove(entry.priority);
+      stageChain = null;
+    }
   }
 
   private Modifiers<V> check(Identifier id) {
     checkNotNull(id, "id cannot be null");
     return this;
   }
-  
+
   private Modifiers<V> check(Modifier<V> modifier) {
     checkNotNull(modifier, "modifier cannot be null");
     return this;
   }
 
+  private static class Entry<V> {
+    private final Identifier id;
+    private final Modifier<V> modifier;
+    private final int priority;
+    private final long sequence;
+    private final StackingGroup group;
+
+    private Entry(Identifier id, Modifier<V> modifier, int priority, long sequence,
+        StackingGroup group) {
+      this.id = id;
+      this.modifier = modifier;
+      this.priority = priority;
+      this.sequence = sequence;
+      this.group = group;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AggregateModifier<V> aggregate() {
+      return (AggregateModifier<V>) modifier;
+    }
+  }
+
+  // commutative modifiers are folded into one running aggregate per kind, which is applied
+  // ahead of the stage's ordered modifiers; adding or removing one of them therefore never
+  // requires the rest of the chain to be walked
+  private class Stage implements Iterable<Modifier<V>> {
+    private final NavigableMap<Long, Modifier<V>> ordered = Maps.newTreeMap();
+    private final Multiset<AggregateModifier<V>> commutative = LinkedHashMultiset.create();
+    private final Map<AggregateModifier.Kind, RunningAggregate<V>> aggregates =
+        new EnumMap<>(AggregateModifier.Kind.class);
+    private final Map<StackingGroup, Group> groups = Maps.newHashMap();
+    private Object[] orderedChain;
+
+    private boolean isEmpty() {
+      return ordered.isEmpty() && commutative.isEmpty();
+    }
+
+    private void checkGroup(Entry<V> entry) {
+      if (entry.group == null) {
+        return;
+      }
+      Group group = groups.get(entry.group);
+      if (group == null) {
+        return;
+      }
+      Entry<V> member = group.members.first();
+      checkArgument(member.id.equals(entry.id) && group.members.size() == 1
+          || member.aggregate().getKind() == entry.aggregate().getKind(),
+          "stacking group %s cannot mix modifiers of different kinds", entry.group);
+    }
+
+    private void add(Entry<V> entry) {
+      if (!(entry.modifier instanceof AggregateModifier)) {
+        ordered.put(entry.sequence, entry.modifier);
+        orderedChain = null;
+        return;
+      }
+      commutative.add(entry.aggregate());
+      if (entry.group == null) {
+        aggregate(entry.aggregate());
+        return;
+      }
+      Group group = groups.get(entry.group);
+      if (group == null) {
+        group = new Group(entry.group, entry.aggregate().getArithmetic());
+        groups.put(entry.group, group);
+      }
+      Entry<V> best = group.best();
+      group.members.add(entry);
+      if (best != group.best()) {
+        if (best != null) {
+          disaggregate(best.aggregate());
+        }
+        aggregate(entry.aggregate());
+      }
+    }
+
+    private void remove(Entry<V> entry) {
+      if (!(entry.modifier instanceof AggregateModifier)) {
+        ordered.remove(entry.sequence);
+        orderedChain = null;
+        return;
+      }
+      commutative.remove(entry.aggregate());
+      if (entry.group == null) {
+        disaggregate(entry.aggregate());
+        return;
+      }
+      Group group = groups.get(entry.group);
+      Entry<V> best = group.best();
+      group.members.remove(entry);
+      if (best == entry) {
+        disaggregate(entry.aggregate());
+        if (group.members.isEmpty()) {
+          groups.remove(entry.group);
+        } else {
+          aggregate(group.best().aggregate());
+        }
+      }
+    }
+
+    private void aggregate(AggregateModifier<V> modifier) {
+      RunningAggregate<V> aggregate = aggregates.get(modifier.getKind());
+      if (aggregate == null) {
+        aggregate = RunningAggregate.create(modifier.getKind(), modifier.getArithmetic());
+        aggregates.put(modifier.getKind(), aggregate);
+      }
+      aggregate.add(modifier.getOperand());
+    }
+
+    private void disaggregate(AggregateModifier<V> modifier) {
+      RunningAggregate<V> aggregate = aggregates.get(modifier.getKind());
+      aggregate.remove(modifier.getOperand());
+      if (aggregate.isEmpty()) {
+        aggregates.remove(modifier.getKind());
+      }
+    }
+
+    private V apply(PropertyContext context, V value) {
+      V adjustedValue = value;
+      if (!aggregates.isEmpty()) {
+        for (AggregateModifier.Kind kind : KINDS) {
+          RunningAggregate<V> aggregate = aggregates.get(kind);
+          if (aggregate != null) {
+            adjustedValue = aggregate.apply(adjustedValue);
+          }
+        }
+      }
+      if (orderedChain == null) {
+        orderedChain = ordered.values().toArray();
+      }
+      for (Object modifier : orderedChain) {
+        @SuppressWarnings("unchecked")
+        Modifier<V> orderedModifier = (Modifier<V>) modifier;
+        adjustedValue = orderedModifier.onBoundValueChanged(context, adjustedValue);
+      }
+      return adjustedValue;
+    }
+
+    @Override
+    public Iterator<Modifier<V>> iterator() {
+      return Iterators.<Modifier<V>>concat(commutative.iterator(), ordered.values().iterator());
+    }
+  }
+
+  // members are ranked by operand, and then by insertion order, so that the best member of the
+  // group can be found in logarithmic time
+  private class Group {
+    private final StackingGroup group;
+    private final NavigableSet<Entry<V>> members;
+
+    private Group(StackingGroup group, Arithmetic<V> arithmetic) {
+      this.group = group;
+      Comparator<Entry<V>> byOperand =
+          (a, b) -> arithmetic.compare(a.aggregate().getOperand(), b.aggregate().getOperand());
+      this.members = Sets.newTreeSet(byOperand.thenComparing(
+          (a, b) -> Long.compare(b.sequence, a.sequence)));
+    }
+
+    private Entry<V> best() {
+      if (members.isEmpty()) {
+        return null;
+      }
+      return group.isHighest() ? members.last() : members.first();
+    }
+  }
+
 }
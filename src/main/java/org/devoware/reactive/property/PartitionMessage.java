@@ -0,0 +1,65 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+// unlike the deltas of PropertyDeltas, messages carry identifiers and values as they are, so a
+// transport that crosses a process boundary has to serialize them itself; the loopback
+// transport shares values between partitions, which should therefore be immutable
+public final class PartitionMessage {
+  private final String source;
+  private final long sequence;
+  private final Set<PropertyIdentifier<?>> subscriptions;
+  private final Map<PropertyIdentifier<?>, Object> values;
+
+  public static PartitionMessage subscribe(String source, long sequence,
+      Set<? extends PropertyIdentifier<?>> ids) {
+    checkNotNull(ids, "ids cannot be null");
+    return new PartitionMessage(source, sequence, ImmutableSet.<PropertyIdentifier<?>>copyOf(ids),
+        ImmutableMap.of());
+  }
+
+  public static PartitionMessage update(String source, long sequence,
+      Map<? extends PropertyIdentifier<?>, ?> values) {
+    checkNotNull(values, "values cannot be null");
+    return new PartitionMessage(source, sequence, ImmutableSet.of(),
+        ImmutableMap.<PropertyIdentifier<?>, Object>copyOf(values));
+  }
+
+  private PartitionMessage(String source, long sequence, Set<PropertyIdentifier<?>> subscriptions,
+      Map<PropertyIdentifier<?>, Object> values) {
+    checkNotNull(source, "source cannot be null");
+    this.source = source;
+    this.sequence = sequence;
+    this.subscriptions = subscriptions;
+    this.values = values;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  // messages are numbered per pair of partitions, starting at zero
+  public long getSequence() {
+    return sequence;
+  }
+
+  public Set<PropertyIdentifier<?>> getSubscriptions() {
+    return subscriptions;
+  }
+
+  public Map<PropertyIdentifier<?>, Object> getValues() {
+    return values;
+  }
+
+  @Override
+  public String toString() {
+    return source + "#" + sequence + (subscriptions.isEmpty() ? values : subscriptions);
+  }
+
+}
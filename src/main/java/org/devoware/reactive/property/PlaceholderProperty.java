@@ -0,0 +1,176 @@
+package org.devoware.reactive.property;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+// stands in for a property that is read by value functions but was never created; it holds
+// nothing but its identifier, and is created on demand whenever it is looked up. Reads are
+// answered from the default value, or from the property once it exists, while the first write
+// materializes the property and is then delegated to it
+class PlaceholderProperty<V> implements Property<V> {
+  private final BasicPropertyManager manager;
+  private final PropertyIdentifier<V> identifier;
+
+  PlaceholderProperty(BasicPropertyManager manager, PropertyIdentifier<V> identifier) {
+    this.manager = manager;
+    this.identifier = identifier;
+  }
+
+  @Override
+  public PropertyIdentifier<V> getId() {
+    return identifier;
+  }
+
+  @Override
+  public Property<V> set(V value) {
+    return materialize().set(value);
+  }
+
+  @Override
+  public Property<V> set(ValueFunction<V> function) {
+    return materialize().set(function);
+  }
+
+  @Override
+  public Property<V> set(ValueFunction<V> function, PropertyIdentifier<?>... inputs) {
+    return materialize().set(function, inputs);
+  }
+
+  @Override
+  public ValidationResult trySet(V value) {
+    return materialize().trySet(value);
+  }
+
+  @Override
+  public V get() {
+    Property<V> property = manager.getMaterialized(identifier);
+    return property == null ? identifier.getDefaultValue() : property.get();
+  }
+
+  // a placeholder has never changed, unlike any property created within a batch
+  @Override
+  public long getVersion() {
+    Property<V> property = manager.getMaterialized(identifier);
+    return property == null ? 0 : property.getVersion();
+  }
+
+  @Override
+  public Property<V> addPropertyChangeListener(PropertyChangeListener<V> listener) {
+    return materialize().addPropertyChangeListener(listener);
+  }
+
+  @Override
+  public Property<V> addWeakPropertyChangeListener(PropertyChangeListener<V> listener) {
+    return materialize().addWeakPropertyChangeListener(listener);
+  }
+
+  @Override
+  public Property<V> removePropertyChangeListener(PropertyChangeListener<V> listener) {
+    Property<V> property = manager.getMaterialized(identifier);
+    return property == null ? this : property.removePropertyChangeListener(listener);
+  }
+
+  @Override
+  public Watch watch(Predicate<? super V> condition, PropertyChangeListener<V> listener) {
+    return materialize().watch(condition, listener);
+  }
+
+  @Override
+  public Watch watchAtLeast(double threshold, PropertyChangeListener<V> listener) {
+    return materialize().watchAtLeast(threshold, listener);
+  }
+
+  @Override
+  public Watch watchBelow(double threshold, PropertyChangeListener<V> listener) {
+    return materialize().watchBelow(threshold, listener);
+  }
+
+  @Override
+  public Property<V> setValidator(Validator<V> validator) {
+    return materialize().setValidator(validator);
+  }
+
+  @Override
+  public Property<V> setValidationRule(ValidationRule<V> rule) {
+    return materialize().setValidationRule(rule);
+  }
+
+  @Override
+  public Property<V> removeValidator() {
+    Property<V> property = manager.getMaterialized(identifier);
+    return property == null ? this : property.removeValidator();
+  }
+
+  @Override
+  public Property<V> setEquivalence(ValueEquivalence<? super V> equivalence) {
+    return materialize().setEquivalence(equivalence);
+  }
+
+  @Override
+  public Identifier addModifier(Modifier<V> modifier) {
+    return materialize().addModifier(modifier);
+  }
+
+  @Override
+  public Identifier addModifier(Modifier<V> modifier, ModifierOrderingRule<V> rule) {
+    return materialize().addModifier(modifier, rule);
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier) {
+    return materialize().addModifier(id, modifier);
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier,
+      ModifierOrderingRule<V> rule) {
+    return materialize().addModifier(id, modifier, rule);
+  }
+
+  @Override
+  public Identifier addModifier(Modifier<V> modifier, Duration duration) {
+    return materialize().addModifier(modifier, duration);
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, Duration duration) {
+    return materialize().addModifier(id, modifier, duration);
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule,
+      Duration duration) {
+    return materialize().addModifier(id, modifier, rule, duration);
+  }
+
+  @Override
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule,
+      Instant deadline) {
+    return materialize().addModifier(id, modifier, rule, deadline);
+  }
+
+  @Override
+  public Property<V> removeModifier(Identifier id) {
+    Property<V> property = manager.getMaterialized(identifier);
+    return property == null ? this : property.removeModifier(id);
+  }
+
+  @Override
+  public Iterator<Identifier> getModifierIdentifiers() {
+    Property<V> property = manager.getMaterialized(identifier);
+    return property == null ? Collections.emptyIterator() : property.getModifierIdentifiers();
+  }
+
+  private Property<V> materialize() {
+    return manager.materialize(identifier);
+  }
+
+  @Override
+  public String toString() {
+    return "placeholder for " + identifier;
+  }
+
+}
@@ -1,6 +1,9 @@
 package org.devoware.reactive.property;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Iterator;
+import java.util.function.Predicate;
 
 public interface Property<V> {
 
@@ -9,17 +12,40 @@ public interface Property<V> {
   public Property<V> set(V value);
   
   public Property<V> set(ValueFunction<V> function);
+
+  public Property<V> set(ValueFunction<V> function, PropertyIdentifier<?>... inputs);
+
+  // sets the value unless a validation rule rejects it, here or downstream, in which case
+  // nothing changes and the rejection is returned rather than thrown. Within an enclosing batch,
+  // only the rules of this property are returned; a rule downstream only runs once the batch
+  // propagates, and its rejection is then thrown by the batch, which is rolled back as a whole
+  public ValidationResult trySet(V value);
   
   public V get();
+
+  // the sequence of the batch that last changed the value; versions only ever increase
+  public long getVersion();
   
   public Property<V> addPropertyChangeListener(PropertyChangeListener<V> listener);
   
+  public Property<V> addWeakPropertyChangeListener(PropertyChangeListener<V> listener);
+
   public Property<V> removePropertyChangeListener(PropertyChangeListener<V> listener);
+
+  public Watch watch(Predicate<? super V> condition, PropertyChangeListener<V> listener);
+
+  public Watch watchAtLeast(double threshold, PropertyChangeListener<V> listener);
+
+  public Watch watchBelow(double threshold, PropertyChangeListener<V> listener);
  
   public Property<V> setValidator(Validator<V> validator);
 
+  public Property<V> setValidationRule(ValidationRule<V> rule);
+
   public Property<V> removeValidator();
 
+  public Property<V> setEquivalence(ValueEquivalence<? super V> equivalence);
+
   public Identifier addModifier(Modifier<V> modifier);
 
   public Identifier addModifier(Modifier<V> modifier, ModifierOrderingRule<V> rule);
@@ -28,6 +54,16 @@ public interface Property<V> {
 
   public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule);
 
+  public Identifier addModifier(Modifier<V> modifier, Duration duration);
+
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, Duration duration);
+
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule,
+      Duration duration);
+
+  public Property<V> addModifier(Identifier id, Modifier<V> modifier, ModifierOrderingRule<V> rule,
+      Instant deadline);
+
   public Property<V> removeModifier(Identifier id);
 
   public Iterator<Identifier> getModifierIdentifiers();
@@ -0,0 +1,214 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.google.common.collect.Lists;
+
+// confines a manager to a mailbox; commands may be sent from any thread, and are run one at a
+// time by whichever thread of the executor drains the mailbox, so the manager itself never needs
+// to be thread-safe. An idle actor holds no thread, only its empty mailbox, so that a very large
+// number of them can share a small executor. Consecutive writes are run within one batch, and
+// their futures complete once it has propagated; should the batch be rolled back as a whole,
+// because it was rejected or failed before committing, each of its writes is run again in a
+// batch of its own, so that only the writes that are rejected by themselves fail. A batch that
+// fails once it has committed, as when a listener throws, is not run again, since its writes
+// were applied; every one of them fails with that exception instead. A read ends the batch ahead of it, so that it observes every write queued
+// before it, and none queued after it
+public class PropertyActor {
+  private final BasicPropertyManager manager;
+  private final Executor executor;
+  private final int throughput;
+  private final Queue<Command<?>> mailbox = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  PropertyActor(BasicPropertyManager manager, Executor executor, int throughput) {
+    this.manager = manager;
+    this.executor = executor;
+    this.throughput = throughput;
+  }
+
+  public <V> CompletableFuture<V> get(PropertyIdentifier<V> id) {
+    checkNotNull(id, "id cannot be null");
+    return send(false, (manager) -> getProperty(manager, id).get());
+  }
+
+  public <V> CompletableFuture<Void> set(PropertyIdentifier<V> id, V value) {
+    checkNotNull(id, "id cannot be null");
+    checkNotNull(value, "value cannot be null");
+    return send(true, (manager) -> {
+      getProperty(manager, id).set(value);
+      return null;
+    });
+  }
+
+  public <V> CompletableFuture<Identifier> addModifier(PropertyIdentifier<V> id,
+      Modifier<V> modifier) {
+    checkNotNull(id, "id cannot be null");
+    checkNotNull(modifier, "modifier cannot be null");
+    return send(true, (manager) -> getProperty(manager, id).addModifier(modifier));
+  }
+
+  public CompletableFuture<Void> removeModifier(PropertyIdentifier<?> id, Identifier modifierId) {
+    checkNotNull(id, "id cannot be null");
+    checkNotNull(modifierId, "modifierId cannot be null");
+    return send(true, (manager) -> {
+      getProperty(manager, id).removeModifier(modifierId);
+      return null;
+    });
+  }
+
+  // runs an arbitrary command against the manager, batched with the writes around it; the
+  // manager must not be used outside of the command
+  public <T> CompletableFuture<T> update(Function<? super PropertyManager, T> command) {
+    checkNotNull(command, "command cannot be null");
+    return send(true, command);
+  }
+
+  // runs an arbitrary command against the manager once every write queued before it has been
+  // propagated
+  public <T> CompletableFuture<T> read(Function<? super PropertyManager, T> command) {
+    checkNotNull(command, "command cannot be null");
+    return send(false, command);
+  }
+
+  private <T> CompletableFuture<T> send(boolean write,
+      Function<? super PropertyManager, T> action) {
+    Command<T> command = new Command<>(write, action);
+    mailbox.add(command);
+    schedule();
+    return command.future;
+  }
+
+  private void schedule() {
+    if (mailbox.isEmpty() || !scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      scheduled.set(false);
+      Command<?> command;
+      while ((command = mailbox.poll()) != null) {
+        command.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  // at most throughput commands are run before the executor is handed back, so that a busy
+  // actor cannot starve the others sharing its executor
+  private void drain() {
+    try {
+      int remaining = throughput;
+      while (remaining > 0 && !mailbox.isEmpty()) {
+        Command<?> command = mailbox.peek();
+        List<Command<?>> commands = Lists.newArrayList();
+        try {
+          if (!command.write) {
+            commands.add(mailbox.poll());
+            command.run(manager);
+          } else {
+            runWrites(commands, remaining);
+          }
+        } catch (Throwable e) {
+          // an error thrown by a command or while propagating is rethrown, but no future of the
+          // commands taken from the mailbox is left incomplete
+          commands.forEach((taken) -> taken.future.completeExceptionally(e));
+          throw e;
+        }
+        commands.forEach(Command::complete);
+        remaining -= commands.size();
+      }
+    } finally {
+      scheduled.set(false);
+      schedule();
+    }
+  }
+
+  private void runWrites(List<Command<?>> writes, int budget) {
+    RuntimeException rollback;
+    try {
+      rollback = manager.tryCommit(() -> {
+        Command<?> next;
+        while (writes.size() < budget && (next = mailbox.peek()) != null && next.write) {
+          mailbox.poll();
+          writes.add(next);
+          next.run(manager);
+        }
+      });
+    } catch (RuntimeException e) {
+      writes.forEach((write) -> write.fail(e));
+      return;
+    }
+    if (rollback == null) {
+      return;
+    }
+    if (writes.size() == 1) {
+      writes.get(0).fail(rollback);
+      return;
+    }
+    for (Command<?> write : writes) {
+      try {
+        manager.batch(() -> write.run(manager));
+      } catch (RuntimeException e) {
+        write.fail(e);
+      }
+    }
+  }
+
+  private static <V> Property<V> getProperty(PropertyManager manager, PropertyIdentifier<V> id) {
+    Property<V> property = manager.get(id);
+    checkNotNull(property, "no property is registered for %s", id);
+    return property;
+  }
+
+  private static class Command<T> {
+    private final boolean write;
+    private final Function<? super PropertyManager, T> action;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private T result;
+    private RuntimeException failure;
+
+    private Command(boolean write, Function<? super PropertyManager, T> action) {
+      this.write = write;
+      this.action = action;
+    }
+
+    // a write that fails part way through is rolled back, without the rest of its batch
+    private void run(PropertyManager manager) {
+      result = null;
+      failure = null;
+      try {
+        if (write) {
+          manager.batch(() -> result = action.apply(manager));
+        } else {
+          result = action.apply(manager);
+        }
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+
+    private void fail(RuntimeException e) {
+      result = null;
+      failure = e;
+    }
+
+    private void complete() {
+      if (failure != null) {
+        future.completeExceptionally(failure);
+      } else {
+        future.complete(result);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,31 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+public class PropertyActors {
+  static final int DEFAULT_THROUGHPUT = 64;
+
+  // actors created without an executor share the common pool
+  public static PropertyActor create(PropertyManager manager) {
+    return create(manager, ForkJoinPool.commonPool());
+  }
+
+  public static PropertyActor create(PropertyManager manager, Executor executor) {
+    return create(manager, executor, DEFAULT_THROUGHPUT);
+  }
+
+  public static PropertyActor create(PropertyManager manager, Executor executor,
+      int throughput) {
+    BasicPropertyManager basicManager = BasicPropertyManager.from(manager);
+    checkNotNull(executor, "executor cannot be null");
+    checkArgument(throughput > 0, "throughput must be positive");
+    return new PropertyActor(basicManager, executor, throughput);
+  }
+
+  private PropertyActors() {}
+
+}
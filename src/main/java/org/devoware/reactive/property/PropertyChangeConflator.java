@@ -0,0 +1,192 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+
+// a listener that throws does not keep the others from being notified; its failure is handed to
+// the failure handler, or, without one, the first failure is rethrown by flush once every entry
+// has been delivered. A scheduled conflator always has a handler, since an exception escaping
+// its task would cancel every later flush. A listener may flush the conflator it is notified by;
+// that flush is deferred until every entry of the current one has been delivered
+public class PropertyChangeConflator implements AutoCloseable {
+  private final Object flushLock = new Object();
+  // guarded by flushLock, which a listener already holds when it flushes from within a flush
+  private boolean flushing;
+  private boolean flushAgain;
+  private ArrayList<Entry<?>> queued = Lists.newArrayList();
+  private ArrayList<Entry<?>> draining = Lists.newArrayList();
+  private final Consumer<? super RuntimeException> failureHandler;
+  private final ScheduledFuture<?> task;
+
+  public static PropertyChangeConflator create() {
+    return new PropertyChangeConflator(null);
+  }
+
+  public static PropertyChangeConflator create(Consumer<? super RuntimeException> failureHandler) {
+    checkNotNull(failureHandler, "failureHandler cannot be null");
+    return new PropertyChangeConflator(failureHandler);
+  }
+
+  // failures are reported to the uncaught exception handler of the flushing thread
+  public static PropertyChangeConflator create(long window, TimeUnit unit,
+      ScheduledExecutorService executor) {
+    return create(window, unit, executor, (e) -> {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    });
+  }
+
+  public static PropertyChangeConflator create(long window, TimeUnit unit,
+      ScheduledExecutorService executor, Consumer<? super RuntimeException> failureHandler) {
+    checkArgument(window > 0, "window must be greater than zero");
+    checkNotNull(unit, "unit cannot be null");
+    checkNotNull(executor, "executor cannot be null");
+    checkNotNull(failureHandler, "failureHandler cannot be null");
+    return new PropertyChangeConflator(window, unit, executor, failureHandler);
+  }
+
+  private PropertyChangeConflator(Consumer<? super RuntimeException> failureHandler) {
+    this.failureHandler = failureHandler;
+    this.task = null;
+  }
+
+  private PropertyChangeConflator(long window, TimeUnit unit, ScheduledExecutorService executor,
+      Consumer<? super RuntimeException> failureHandler) {
+    this.failureHandler = failureHandler;
+    this.task = executor.scheduleAtFixedRate(this::flush, window, window, unit);
+  }
+
+  public <V> PropertyChangeListener<V> addPropertyChangeListener(Property<V> property,
+      ConflatedPropertyChangeListener<V> listener) {
+    checkNotNull(property, "property cannot be null");
+    checkNotNull(listener, "listener cannot be null");
+    Entry<V> entry = new Entry<>(property.getId(), property.get(), listener);
+    property.addPropertyChangeListener(entry);
+    return entry;
+  }
+
+  public void flush() {
+    synchronized (flushLock) {
+      if (flushing) {
+        flushAgain = true;
+        return;
+      }
+      flushing = true;
+      RuntimeException failure = null;
+      try {
+        do {
+          flushAgain = false;
+          failure = deliverQueued(failure);
+        } while (flushAgain);
+      } finally {
+        flushing = false;
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  // must be called while holding flushLock; returns the first failure not handed to the failure
+  // handler, with the later ones suppressed by it
+  private RuntimeException deliverQueued(RuntimeException failure) {
+    ArrayList<Entry<?>> entries;
+    synchronized (this) {
+      if (queued.isEmpty()) {
+        return failure;
+      }
+      entries = queued;
+      queued = draining;
+      draining = entries;
+      for (int i = 0; i < entries.size(); i++) {
+        entries.get(i).drain();
+      }
+    }
+    try {
+      for (int i = 0; i < entries.size(); i++) {
+        try {
+          entries.get(i).deliver();
+        } catch (RuntimeException e) {
+          if (failureHandler != null) {
+            failureHandler.accept(e);
+          } else if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+    } finally {
+      entries.clear();
+    }
+    return failure;
+  }
+
+  @Override
+  public void close() {
+    if (task != null) {
+      task.cancel(false);
+    }
+    flush();
+  }
+
+  private synchronized void enqueue(Entry<?> entry) {
+    queued.add(entry);
+  }
+
+  private class Entry<V> implements PropertyChangeListener<V> {
+    private final PropertyIdentifier<V> id;
+    private final ConflatedPropertyChangeListener<V> listener;
+    private V windowStart;
+    private V latest;
+    private boolean queued;
+    private V drainedOldValue;
+    private V drainedNewValue;
+
+    private Entry(PropertyIdentifier<V> id, V value, ConflatedPropertyChangeListener<V> listener) {
+      this.id = id;
+      this.windowStart = value;
+      this.latest = value;
+      this.listener = listener;
+    }
+
+    @Override
+    public void onValueChanged(PropertyIdentifier<V> sourceId, V value) {
+      synchronized (PropertyChangeConflator.this) {
+        this.latest = value;
+        if (!queued) {
+          queued = true;
+          enqueue(this);
+        }
+      }
+    }
+
+    // must be called while holding the conflator's monitor
+    private void drain() {
+      this.drainedOldValue = windowStart;
+      this.drainedNewValue = latest;
+      this.windowStart = latest;
+      this.queued = false;
+    }
+
+    private void deliver() {
+      V oldValue = drainedOldValue;
+      V newValue = drainedNewValue;
+      drainedOldValue = null;
+      drainedNewValue = null;
+      if (!Objects.equals(oldValue, newValue)) {
+        listener.onValueChanged(id, oldValue, newValue);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,187 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.google.common.collect.Maps;
+
+class PropertyChangeListeners<V> {
+  private final PropertyIdentifier<V> id;
+  private Map<PropertyChangeListener<V>, Node<V>> strongIndex;
+  private Map<PropertyChangeListener<V>, Node<V>> weakIndex;
+  private Node<V> head;
+  private Node<V> tail;
+
+  PropertyChangeListeners(PropertyIdentifier<V> id) {
+    checkNotNull(id, "id cannot be null");
+    this.id = id;
+  }
+
+  PropertyIdentifier<V> getId() {
+    return id;
+  }
+
+  boolean isEmpty() {
+    return head == null;
+  }
+
+  void add(PropertyChangeListener<V> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    if (strongIndex == null) {
+      strongIndex = Maps.newHashMap();
+    }
+    Node<V> node = strongIndex.get(listener);
+    if (node == null) {
+      node = new Node<>(listener);
+      strongIndex.put(listener, node);
+      link(node);
+    }
+    node.count++;
+  }
+
+  void addWeak(PropertyChangeListener<V> listener,
+      ReferenceQueue<? super PropertyChangeListener<?>> queue) {
+    checkNotNull(listener, "listener cannot be null");
+    checkNotNull(queue, "queue cannot be null");
+    if (weakIndex == null) {
+      weakIndex = new WeakHashMap<>();
+    }
+    Node<V> node = weakIndex.get(listener);
+    if (node == null) {
+      node = new Node<>(new WeakListenerReference(listener, queue));
+      weakIndex.put(listener, node);
+      link(node);
+    }
+    node.count++;
+  }
+
+  boolean remove(PropertyChangeListener<V> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    if (remove(strongIndex, listener)) {
+      return true;
+    }
+    return remove(weakIndex, listener);
+  }
+
+  Reference<?> getWeakReference(PropertyChangeListener<V> listener) {
+    Node<V> node = weakIndex == null ? null : weakIndex.get(listener);
+    return node == null ? null : node.reference;
+  }
+
+  void fire(V value) {
+    Node<V> node = head;
+    while (node != null) {
+      if (!node.removed) {
+        PropertyChangeListener<V> listener = node.get();
+        if (listener == null) {
+          unlink(node);
+        } else {
+          for (int i = node.count; i > 0 && !node.removed; i--) {
+            listener.onValueChanged(id, value);
+          }
+        }
+      }
+      node = node.next;
+    }
+  }
+
+  static PropertyChangeListeners<?> purge(Reference<?> reference) {
+    if (!(reference instanceof PropertyChangeListeners.WeakListenerReference)) {
+      return null;
+    }
+    return ((PropertyChangeListeners<?>.WeakListenerReference) reference).purge();
+  }
+
+  private boolean remove(Map<PropertyChangeListener<V>, Node<V>> index,
+      PropertyChangeListener<V> listener) {
+    if (index == null) {
+      return false;
+    }
+    Node<V> node = index.get(listener);
+    if (node == null) {
+      return false;
+    }
+    if (--node.count == 0) {
+      index.remove(listener);
+      unlink(node);
+    }
+    return true;
+  }
+
+  private void link(Node<V> node) {
+    if (tail == null) {
+      head = node;
+    } else {
+      tail.next = node;
+      node.prev = tail;
+    }
+    tail = node;
+  }
+
+  // the next pointer of a removed node is left intact, so that a dispatch which is
+  // currently positioned on the node can carry on with the rest of the list
+  private void unlink(Node<V> node) {
+    if (node.removed) {
+      return;
+    }
+    node.removed = true;
+    if (node.prev == null) {
+      head = node.next;
+    } else {
+      node.prev.next = node.next;
+    }
+    if (node.next == null) {
+      tail = node.prev;
+    } else {
+      node.next.prev = node.prev;
+    }
+  }
+
+  private static class Node<V> {
+    private final PropertyChangeListener<V> listener;
+    private final PropertyChangeListeners<V>.WeakListenerReference reference;
+    private Node<V> prev;
+    private Node<V> next;
+    private int count;
+    private boolean removed;
+
+    private Node(PropertyChangeListener<V> listener) {
+      this.listener = listener;
+      this.reference = null;
+    }
+
+    private Node(PropertyChangeListeners<V>.WeakListenerReference reference) {
+      this.listener = null;
+      this.reference = reference;
+      reference.node = this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PropertyChangeListener<V> get() {
+      if (reference == null) {
+        return listener;
+      }
+      return (PropertyChangeListener<V>) reference.get();
+    }
+  }
+
+  private class WeakListenerReference extends WeakReference<PropertyChangeListener<?>> {
+    private Node<V> node;
+
+    private WeakListenerReference(PropertyChangeListener<V> listener,
+        ReferenceQueue<? super PropertyChangeListener<?>> queue) {
+      super(listener, queue);
+    }
+
+    private PropertyChangeListeners<V> purge() {
+      unlink(node);
+      return PropertyChangeListeners.this;
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+package org.devoware.reactive.property;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+// the connected components of the binding graph, regardless of the direction of the bindings,
+// kept as a union-find forest: a binding unites the components of its two ends in near-constant
+// time. A union cannot be undone, so an unbinding is only noted, and the components it may have
+// split are traversed and re-rooted the next time a component is asked for; a binding that is
+// restored in the meantime, as when a property is rebound to the same inputs, costs nothing.
+// Properties without any binding are components of their own, and are not tracked
+final class PropertyComponents {
+  private static final int MAX_PENDING_UNBINDINGS = 1024;
+
+  private final Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> consumerBindings;
+  private final Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> producerBindings;
+  private final Map<PropertyIdentifier<?>, Node> nodes = Maps.newHashMap();
+  // consumer and producer of each unbinding not yet accounted for, in pairs
+  private final List<PropertyIdentifier<?>> unbound = Lists.newArrayList();
+
+  PropertyComponents(Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> consumerBindings,
+      Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> producerBindings) {
+    this.consumerBindings = consumerBindings;
+    this.producerBindings = producerBindings;
+  }
+
+  // the smaller component is attached under the larger, which keeps the trees shallow. Pending
+  // unbindings are accounted for once there are too many of them, even if no component is asked
+  // for; this is only done here, where the bindings are never halfway through being removed
+  void union(PropertyIdentifier<?> consumer, PropertyIdentifier<?> producer) {
+    if (unbound.size() >= 2 * MAX_PENDING_UNBINDINGS) {
+      split();
+    }
+    Node root = find(getOrCreateNode(consumer));
+    Node other = find(getOrCreateNode(producer));
+    if (root == other) {
+      return;
+    }
+    if (root.size < other.size) {
+      Node larger = other;
+      other = root;
+      root = larger;
+    }
+    other.parent = root;
+    root.size += other.size;
+  }
+
+  void unbind(PropertyIdentifier<?> consumer, PropertyIdentifier<?> producer) {
+    unbound.add(consumer);
+    unbound.add(producer);
+  }
+
+  // the representative of the component of the property, which stays the same until the
+  // component is united with another or split
+  PropertyIdentifier<?> getRepresentative(PropertyIdentifier<?> id) {
+    split();
+    Node node = nodes.get(id);
+    return node == null ? id : find(node).id;
+  }
+
+  int getComponentSize(PropertyIdentifier<?> id) {
+    split();
+    Node node = nodes.get(id);
+    return node == null ? 1 : find(node).size;
+  }
+
+  // every piece of a split component still holds an end of one of the removed bindings, so
+  // traversing the component of each end, as the bindings now stand, re-roots all of the pieces
+  private void split() {
+    if (unbound.isEmpty()) {
+      return;
+    }
+    Set<PropertyIdentifier<?>> rerooted = Sets.newHashSet();
+    for (int i = 0; i < unbound.size(); i += 2) {
+      PropertyIdentifier<?> consumer = unbound.get(i);
+      PropertyIdentifier<?> producer = unbound.get(i + 1);
+      if (consumerBindings.containsEntry(consumer, producer)) {
+        continue;
+      }
+      if (!rerooted.contains(consumer)) {
+        reroot(consumer, rerooted);
+      }
+      if (!rerooted.contains(producer)) {
+        reroot(producer, rerooted);
+      }
+    }
+    unbound.clear();
+  }
+
+  private void reroot(PropertyIdentifier<?> start, Set<PropertyIdentifier<?>> rerooted) {
+    List<PropertyIdentifier<?>> members = Lists.newArrayList();
+    Deque<PropertyIdentifier<?>> stack = new ArrayDeque<>();
+    rerooted.add(start);
+    stack.push(start);
+    while (!stack.isEmpty()) {
+      PropertyIdentifier<?> id = stack.pop();
+      members.add(id);
+      for (PropertyIdentifier<?> producer : consumerBindings.get(id)) {
+        if (rerooted.add(producer)) {
+          stack.push(producer);
+        }
+      }
+      for (PropertyIdentifier<?> consumer : producerBindings.get(id)) {
+        if (rerooted.add(consumer)) {
+          stack.push(consumer);
+        }
+      }
+    }
+    if (members.size() == 1) {
+      nodes.remove(start);
+      return;
+    }
+    Node root = getOrCreateNode(start);
+    root.parent = root;
+    root.size = members.size();
+    for (int i = 1; i < members.size(); i++) {
+      Node node = getOrCreateNode(members.get(i));
+      node.parent = root;
+      node.size = 1;
+    }
+  }
+
+  private Node getOrCreateNode(PropertyIdentifier<?> id) {
+    Node node = nodes.get(id);
+    if (node == null) {
+      node = new Node(id);
+      nodes.put(id, node);
+    }
+    return node;
+  }
+
+  // halves the path on the way up, so that later finds along it are shorter
+  private static Node find(Node node) {
+    while (node.parent != node) {
+      node.parent = node.parent.parent;
+      node = node.parent;
+    }
+    return node;
+  }
+
+  private static class Node {
+    private final PropertyIdentifier<?> id;
+    private Node parent = this;
+    private int size = 1;
+
+    private Node(PropertyIdentifier<?> id) {
+      this.id = id;
+    }
+  }
+
+}
@@ -0,0 +1,136 @@
+package org.devoware.reactive.property;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+// tracks the properties whose value changed, or which were removed, since the last checkpoint,
+// and encodes their current values as a compact binary delta; properties are addressed by
+// small slot numbers, each of which is declared by name in the first delta that uses it. A
+// property whose type cannot be encoded is never tracked, so that it cannot fail a checkpoint
+public class PropertyDeltaEncoder {
+  private final BasicPropertyManager manager;
+  private final Predicate<? super PropertyIdentifier<?>> filter;
+  private final Map<PropertyIdentifier<?>, Integer> slots = Maps.newHashMap();
+  private final List<PropertyIdentifier<?>> undeclared = Lists.newArrayList();
+  private final Set<PropertyIdentifier<?>> changed = Sets.newLinkedHashSet();
+  private final Consumer<Set<PropertyIdentifier<?>>> propagationListener = this::onPropagation;
+  private final Consumer<PropertyIdentifier<?>> removalListener = this::onRemoval;
+  private long sequence;
+
+  PropertyDeltaEncoder(BasicPropertyManager manager,
+      Predicate<? super PropertyIdentifier<?>> filter) {
+    this.manager = manager;
+    this.filter = filter;
+    manager.addPropagationListener(propagationListener);
+    manager.addRemovalListener(removalListener);
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public boolean hasChanges() {
+    return !changed.isEmpty();
+  }
+
+  // each value is read as it stands at the checkpoint, so that a property that changed several
+  // times is only encoded once
+  public byte[] checkpoint() {
+    byte[] delta = encode(DeltaFormat.DELTA, sequence + 1, undeclared, changed);
+    sequence++;
+    undeclared.clear();
+    changed.clear();
+    return delta;
+  }
+
+  // encodes every property, so that a new replica can catch up; the snapshot takes the
+  // sequence of the last checkpoint, and leaves the changes since then to the next one
+  public byte[] snapshot() {
+    Set<PropertyIdentifier<?>> ids = Sets.newLinkedHashSet();
+    for (PropertyIdentifier<?> id : manager.getIds()) {
+      if (isTracked(id)) {
+        ids.add(id);
+      }
+    }
+    return encode(DeltaFormat.SNAPSHOT, sequence, slots.keySet(), ids);
+  }
+
+  public void close() {
+    manager.removePropagationListener(propagationListener);
+    manager.removeRemovalListener(removalListener);
+    changed.clear();
+  }
+
+  private void onPropagation(Set<PropertyIdentifier<?>> ids) {
+    for (PropertyIdentifier<?> id : ids) {
+      if (isTracked(id)) {
+        changed.add(id);
+      }
+    }
+  }
+
+  private void onRemoval(PropertyIdentifier<?> id) {
+    if (isTracked(id)) {
+      changed.add(id);
+    }
+  }
+
+  private boolean isTracked(PropertyIdentifier<?> id) {
+    return !BasicPropertyManager.isInternal(id) && DeltaFormat.isEncodable(id.getType())
+        && filter.test(id);
+  }
+
+  private byte[] encode(byte kind, long sequence, Collection<PropertyIdentifier<?>> declared,
+      Set<PropertyIdentifier<?>> ids) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(kind);
+      DeltaFormat.writeVarLong(out, sequence);
+      // slots are assigned before the declarations are written, so that they are included
+      List<Integer> values = Lists.newArrayList();
+      for (PropertyIdentifier<?> id : ids) {
+        values.add(slotOf(id));
+      }
+      DeltaFormat.writeVarInt(out, declared.size());
+      for (PropertyIdentifier<?> id : declared) {
+        DeltaFormat.writeVarInt(out, slots.get(id));
+        DeltaFormat.writeString(out, id.toString());
+      }
+      DeltaFormat.writeVarInt(out, ids.size());
+      int i = 0;
+      for (PropertyIdentifier<?> id : ids) {
+        Property<?> property = manager.get(id);
+        DeltaFormat.writeVarInt(out, values.get(i++));
+        DeltaFormat.writeValue(out, property == null ? null : property.get());
+      }
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private int slotOf(PropertyIdentifier<?> id) {
+    Integer slot = slots.get(id);
+    if (slot == null) {
+      slot = slots.size();
+      slots.put(id, slot);
+      undeclared.add(id);
+    }
+    return slot;
+  }
+
+}
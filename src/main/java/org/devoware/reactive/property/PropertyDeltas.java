@@ -0,0 +1,32 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class PropertyDeltas {
+
+  public static PropertyDeltaEncoder encoder(PropertyManager manager) {
+    return encoder(manager, (id) -> true);
+  }
+
+  // only the properties accepted by the filter are replicated; those whose type cannot be
+  // encoded are always left out
+  public static PropertyDeltaEncoder encoder(PropertyManager manager,
+      Predicate<? super PropertyIdentifier<?>> filter) {
+    BasicPropertyManager basicManager = BasicPropertyManager.from(manager);
+    checkNotNull(filter, "filter cannot be null");
+    return new PropertyDeltaEncoder(basicManager, filter);
+  }
+
+  // the resolver maps the names of properties, as given by their toString methods, back to
+  // their identifiers; see Formulas.resolver
+  public static PropertyReplica replica(Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    checkNotNull(resolver, "resolver cannot be null");
+    return new PropertyReplica(resolver);
+  }
+
+  private PropertyDeltas() {}
+
+}
@@ -0,0 +1,83 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+public class PropertyGraphs {
+
+  public static GraphAnalysis analyze(PropertyManager manager) {
+    return analyze(BasicPropertyManager.from(manager), null);
+  }
+
+  // the analysis includes the mean recompute time of each property, as measured by the profile
+  public static GraphAnalysis analyze(RecomputeProfile profile) {
+    checkNotNull(profile, "profile cannot be null");
+    return analyze((BasicPropertyManager) profile.getManager(), profile);
+  }
+
+  // a manager is timed by at most one profile at a time
+  public static RecomputeProfile profile(PropertyManager manager) {
+    BasicPropertyManager basicManager = BasicPropertyManager.from(manager);
+    checkState(basicManager.getProfile() == null, "manager already has a profile");
+    RecomputeProfile profile = new RecomputeProfile(basicManager);
+    basicManager.setProfile(profile);
+    return profile;
+  }
+
+  // placeholders, which are only known from their bindings, are included as well; internal
+  // properties are not, and neither are their bindings
+  private static GraphAnalysis analyze(BasicPropertyManager manager, RecomputeProfile profile) {
+    Map<PropertyIdentifier<?>, Integer> index = Maps.newHashMap();
+    List<PropertyIdentifier<?>> ids = Lists.newArrayList();
+    for (PropertyIdentifier<?> id : manager.getIds()) {
+      indexOf(id, index, ids);
+    }
+    Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> bindings =
+        manager.getProducerBindings();
+    int[] edgeProducers = new int[bindings.size()];
+    int[] edgeConsumers = new int[bindings.size()];
+    int edge = 0;
+    for (Map.Entry<PropertyIdentifier<?>, PropertyIdentifier<?>> binding : bindings.entries()) {
+      if (BasicPropertyManager.isInternal(binding.getKey())
+          || BasicPropertyManager.isInternal(binding.getValue())) {
+        continue;
+      }
+      edgeProducers[edge] = indexOf(binding.getKey(), index, ids);
+      edgeConsumers[edge] = indexOf(binding.getValue(), index, ids);
+      edge++;
+    }
+    PropertyIdentifier<?>[] nodes = ids.toArray(new PropertyIdentifier<?>[ids.size()]);
+    boolean[] placeholders = new boolean[nodes.length];
+    double[] costs = new double[nodes.length];
+    for (int node = 0; node < nodes.length; node++) {
+      placeholders[node] = manager.getMaterialized(nodes[node]) == null;
+      if (profile != null) {
+        costs[node] = profile.getMeanRecomputeNanos(nodes[node]);
+      }
+    }
+    return GraphAnalysis.compute(nodes, placeholders, costs, profile != null,
+        Arrays.copyOf(edgeProducers, edge), Arrays.copyOf(edgeConsumers, edge));
+  }
+
+  private static int indexOf(PropertyIdentifier<?> id, Map<PropertyIdentifier<?>, Integer> index,
+      List<PropertyIdentifier<?>> ids) {
+    Integer node = index.get(id);
+    if (node == null) {
+      node = ids.size();
+      index.put(id, node);
+      ids.add(id);
+    }
+    return node;
+  }
+
+  private PropertyGraphs() {}
+
+}
@@ -0,0 +1,25 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+public class PropertyHistories {
+  static final int DEFAULT_MAX_DEPTH = 100;
+
+  public static PropertyHistory create(PropertyManager manager) {
+    return create(manager, DEFAULT_MAX_DEPTH);
+  }
+
+  // a manager records into at most one history at a time
+  public static PropertyHistory create(PropertyManager manager, int maxDepth) {
+    BasicPropertyManager basicManager = BasicPropertyManager.from(manager);
+    checkArgument(maxDepth > 0, "maxDepth must be positive");
+    checkState(basicManager.getHistory() == null, "manager already has a history");
+    PropertyHistory history = new PropertyHistory(basicManager, maxDepth);
+    basicManager.setHistory(history);
+    return history;
+  }
+
+  private PropertyHistories() {}
+
+}
@@ -0,0 +1,178 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+// an undo history kept as a log of inverse operations, rather than as copies of the manager;
+// the operations made by one outermost batch form one step, and a step is undone or redone
+// within a single batch, so that only the properties downstream of its changes are recomputed.
+// Derived values are never recorded, since propagation restores them. The oldest steps are
+// discarded once the history holds more than its maximum depth
+public class PropertyHistory {
+  private final BasicPropertyManager manager;
+  private final int maxDepth;
+  private final Deque<Step> undoable = new ArrayDeque<>();
+  private final Deque<Step> redoable = new ArrayDeque<>();
+  private List<Operation> current = Lists.newArrayList();
+
+  PropertyHistory(BasicPropertyManager manager, int maxDepth) {
+    this.manager = manager;
+    this.maxDepth = maxDepth;
+  }
+
+  public PropertyManager getManager() {
+    return manager;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public int getUndoDepth() {
+    return undoable.size();
+  }
+
+  public int getRedoDepth() {
+    return redoable.size();
+  }
+
+  public boolean canUndo() {
+    return !undoable.isEmpty();
+  }
+
+  public boolean canRedo() {
+    return !redoable.isEmpty();
+  }
+
+  // returns false if there was nothing to undo
+  public boolean undo() {
+    checkState(!manager.isBatchOpen(), "cannot undo within a batch");
+    if (undoable.isEmpty()) {
+      return false;
+    }
+    Step step = undoable.peekLast();
+    manager.withoutHistory(() -> step.undo());
+    redoable.addLast(undoable.removeLast());
+    return true;
+  }
+
+  public boolean redo() {
+    checkState(!manager.isBatchOpen(), "cannot redo within a batch");
+    if (redoable.isEmpty()) {
+      return false;
+    }
+    Step step = redoable.peekLast();
+    manager.withoutHistory(() -> step.redo());
+    undoable.addLast(redoable.removeLast());
+    return true;
+  }
+
+  public void clear() {
+    undoable.clear();
+    redoable.clear();
+    current.clear();
+  }
+
+  // detaches the history from its manager, which stops recording
+  public void close() {
+    if (manager.getHistory() == this) {
+      manager.setHistory(null);
+    }
+    clear();
+  }
+
+  void record(BasicProperty<?> property, Runnable undo, Runnable redo) {
+    current.add(new Operation(property, undo, redo));
+  }
+
+  // drops an operation that was rolled back before its step ended
+  void discardLast() {
+    current.remove(current.size() - 1);
+  }
+
+  // a new step makes the steps that were undone unreachable
+  void endStep() {
+    if (current.isEmpty()) {
+      return;
+    }
+    undoable.addLast(new Step(current));
+    current = Lists.newArrayList();
+    redoable.clear();
+    while (undoable.size() > maxDepth) {
+      undoable.removeFirst();
+    }
+  }
+
+  private class Step {
+    private final ImmutableList<Operation> operations;
+
+    private Step(List<Operation> operations) {
+      this.operations = ImmutableList.copyOf(operations);
+    }
+
+    // if an operation fails, those already applied are reverted before the failure is thrown,
+    // so that a step is applied either entirely or not at all
+    private void undo() {
+      int applied = 0;
+      try {
+        for (Operation operation : operations.reverse()) {
+          operation.undo();
+          applied++;
+        }
+      } catch (RuntimeException e) {
+        for (Operation operation : operations.subList(operations.size() - applied,
+            operations.size())) {
+          operation.redo();
+        }
+        throw e;
+      }
+    }
+
+    private void redo() {
+      int applied = 0;
+      try {
+        for (Operation operation : operations) {
+          operation.redo();
+          applied++;
+        }
+      } catch (RuntimeException e) {
+        for (Operation operation : operations.subList(0, applied).reverse()) {
+          operation.undo();
+        }
+        throw e;
+      }
+    }
+  }
+
+  // operations on a property that has since been removed from the manager are skipped
+  private class Operation {
+    private final BasicProperty<?> property;
+    private final Runnable undo;
+    private final Runnable redo;
+
+    private Operation(BasicProperty<?> property, Runnable undo, Runnable redo) {
+      this.property = property;
+      this.undo = undo;
+      this.redo = redo;
+    }
+
+    private void undo() {
+      if (manager.isRegistered(property)) {
+        undo.run();
+      }
+    }
+
+    private void redo() {
+      if (manager.isRegistered(property)) {
+        redo.run();
+      }
+    }
+  }
+
+}
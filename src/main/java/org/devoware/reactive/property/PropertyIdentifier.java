@@ -6,4 +6,8 @@ public interface PropertyIdentifier<V> extends TypedIdentifier<V> {
   
   public Class<V> getType();
 
+  public default ValueEquivalence<? super V> getEquivalence() {
+    return ValueEquivalences.equality();
+  }
+
 }
@@ -1,6 +1,8 @@
 package org.devoware.reactive.property;
 
+import java.util.Collection;
 import java.util.Set;
+import java.util.function.Predicate;
 
 public interface PropertyManager {
 
@@ -8,11 +10,35 @@ public interface PropertyManager {
 
   public <V> PropertyManager remove(PropertyIdentifier<V> id);
 
+  public PropertyManager removeAll(Collection<? extends PropertyIdentifier<?>> ids);
+
+  public PropertyManager removeIf(Predicate<? super PropertyIdentifier<?>> predicate);
+
   public <V> Property<V> get(PropertyIdentifier<V> id);
   
   public Set<PropertyIdentifier<?>> getConsumerBindings(Property<?> consumer);
  
   public Set<PropertyIdentifier<?>> getProducerBindings(Property<?> producer);
+
+  public void batch(Runnable updates);
+
+  // reads the values of the given properties as they stood between two batches, so that they
+  // are consistent with one another even while another thread is updating the manager
+  public PropertyReading readConsistent(PropertyIdentifier<?>... ids);
+
+  public <V> Identifier addBroadcastModifier(Iterable<? extends PropertyIdentifier<V>> ids,
+      Modifier<V> modifier);
+
+  public <V> Identifier addBroadcastModifier(Iterable<? extends PropertyIdentifier<V>> ids,
+      Modifier<V> modifier, ModifierOrderingRule<V> rule);
+
+  public <V> Identifier addBroadcastModifier(Class<V> type,
+      Predicate<? super PropertyIdentifier<V>> predicate, Modifier<V> modifier,
+      ModifierOrderingRule<V> rule);
+
+  public PropertyManager removeBroadcastModifier(Identifier id);
+
+  public void expireModifiers();
   
   public interface Builder<V> {
      
@@ -20,8 +46,14 @@ public interface PropertyManager {
 
     public Builder<V> withValue(ValueFunction<V> function);
 
+    public Builder<V> withValue(ValueFunction<V> function, PropertyIdentifier<?>... inputs);
+
     public Builder<V> withValidator(Validator<V> validator);
 
+    public Builder<V> withValidationRule(ValidationRule<V> rule);
+
+    public Builder<V> withEquivalence(ValueEquivalence<? super V> equivalence);
+
     public Property<V> build();
 
   }
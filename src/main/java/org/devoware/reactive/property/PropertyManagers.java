@@ -1,10 +1,101 @@
 package org.devoware.reactive.property;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
 public class PropertyManagers {
 
   public static PropertyManager create () {
-    return new BasicPropertyManager();
+    return builder().build();
+  }
+
+  public static Builder builder () {
+    return new Builder();
   }
   
   private PropertyManagers () {}
+
+  public static class Builder {
+    // below this many properties, a pass is assumed to be recomputed faster in order than handed
+    // out to lanes; ComponentBenchmark measures where the lanes start to pay off on a machine
+    private static final int DEFAULT_MIN_PARALLEL_PASS = 256;
+
+    private boolean strictDependencyChecks;
+    private Clock clock = Clock.systemUTC();
+    private Duration tickDuration = Duration.ofMillis(10);
+    private Executor laneExecutor;
+    private int lanes = 1;
+    private int minParallelPass = DEFAULT_MIN_PARALLEL_PASS;
+
+    private Builder () {}
+
+    public Builder withStrictDependencyChecks() {
+      this.strictDependencyChecks = true;
+      return this;
+    }
+
+    public Builder withClock(Clock clock) {
+      checkNotNull(clock, "clock cannot be null");
+      this.clock = clock;
+      return this;
+    }
+
+    public Builder withTickDuration(Duration tickDuration) {
+      checkNotNull(tickDuration, "tickDuration cannot be null");
+      checkArgument(tickDuration.toMillis() > 0, "tickDuration must be at least one millisecond");
+      this.tickDuration = tickDuration;
+      return this;
+    }
+
+    // large propagation passes that span several connected components are recomputed on up to
+    // the given number of lanes run by the executor, each component on a single lane; listeners
+    // are still called on the thread that ends the batch
+    public Builder withPropagationLanes(Executor executor, int lanes) {
+      return withPropagationLanes(executor, lanes, DEFAULT_MIN_PARALLEL_PASS);
+    }
+
+    // passes of fewer than minParallelPass properties are always recomputed in order; value
+    // functions that do more work than usual pay off on lanes in smaller passes
+    public Builder withPropagationLanes(Executor executor, int lanes, int minParallelPass) {
+      checkNotNull(executor, "executor cannot be null");
+      checkArgument(lanes > 1, "lanes must be at least two");
+      checkArgument(minParallelPass > 0, "minParallelPass must be positive");
+      this.laneExecutor = executor;
+      this.lanes = lanes;
+      this.minParallelPass = minParallelPass;
+      return this;
+    }
+
+    public PropertyManager build() {
+      return new BasicPropertyManager(this);
+    }
+
+    boolean isStrictDependencyChecks() {
+      return strictDependencyChecks;
+    }
+
+    Clock getClock() {
+      return clock;
+    }
+
+    Duration getTickDuration() {
+      return tickDuration;
+    }
+
+    Executor getLaneExecutor() {
+      return laneExecutor;
+    }
+
+    int getLanes() {
+      return lanes;
+    }
+
+    int getMinParallelPass() {
+      return minParallelPass;
+    }
+  }
 }
@@ -0,0 +1,164 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+// a partition owns the properties of one manager, and mirrors the properties that it imports
+// from other partitions; the changes of each propagation are sent to every subscriber as a
+// single numbered update, and updates are applied strictly in order, each within one batch, so
+// that consumers only ever observe the state of a remote partition between two propagations.
+// Mirrors are read-only: they can be read and bound to, but only their owner can change them.
+// An update that is rejected locally, by a validator downstream of a mirror, is rolled back and
+// handed to the failure handler, and the updates after it are applied as usual; it is never
+// thrown back into the partition that sent it
+public class PropertyPartition {
+  private final String name;
+  private final BasicPropertyManager manager;
+  private final PropertyTransport transport;
+  private final SetMultimap<PropertyIdentifier<?>, String> subscribers = HashMultimap.create();
+  private final Map<PropertyIdentifier<?>, String> owners = Maps.newHashMap();
+  private final Map<String, Long> sentSequences = Maps.newHashMap();
+  private final Map<String, Long> receivedSequences = Maps.newHashMap();
+  private final Map<String, NavigableMap<Long, PartitionMessage>> outOfOrder = Maps.newHashMap();
+  private final Consumer<Set<PropertyIdentifier<?>>> propagationListener = this::onPropagation;
+  private final Consumer<? super RuntimeException> failureHandler;
+
+  PropertyPartition(String name, BasicPropertyManager manager, PropertyTransport transport,
+      Consumer<? super RuntimeException> failureHandler) {
+    this.name = name;
+    this.manager = manager;
+    this.transport = transport;
+    this.failureHandler = failureHandler;
+    manager.addPropagationListener(propagationListener);
+    transport.register(name, this::receive);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public PropertyManager getManager() {
+    return manager;
+  }
+
+  // imported properties are created locally with their default values, and take the values of
+  // the owning partition once its first update arrives
+  public synchronized PropertyPartition importFrom(String owner, PropertyIdentifier<?>... ids) {
+    checkNotNull(owner, "owner cannot be null");
+    checkNotNull(ids, "ids cannot be null");
+    manager.batch(() -> {
+      for (PropertyIdentifier<?> id : ids) {
+        checkNotNull(id, "id cannot be null");
+        owners.put(id, owner);
+        manager.mirror(id, owner);
+      }
+    });
+    transport.send(owner, PartitionMessage.subscribe(name, nextSequence(owner),
+        Sets.newLinkedHashSet(Arrays.asList(ids))));
+    return this;
+  }
+
+  // a closed partition neither receives updates nor sends them
+  public synchronized void close() {
+    manager.removePropagationListener(propagationListener);
+    transport.unregister(name);
+  }
+
+  private synchronized void onPropagation(Set<PropertyIdentifier<?>> changed) {
+    Map<String, Map<PropertyIdentifier<?>, Object>> updates = Maps.newHashMap();
+    for (PropertyIdentifier<?> id : changed) {
+      for (String subscriber : subscribers.get(id)) {
+        Map<PropertyIdentifier<?>, Object> values = updates.get(subscriber);
+        if (values == null) {
+          values = Maps.newLinkedHashMap();
+          updates.put(subscriber, values);
+        }
+        values.put(id, manager.get(id).get());
+      }
+    }
+    updates.forEach((subscriber, values) -> send(subscriber, values));
+  }
+
+  private synchronized void receive(PartitionMessage message) {
+    String source = message.getSource();
+    long expected = receivedSequences.getOrDefault(source, 0L);
+    if (message.getSequence() != expected) {
+      if (message.getSequence() > expected) {
+        NavigableMap<Long, PartitionMessage> pending = outOfOrder.get(source);
+        if (pending == null) {
+          pending = Maps.newTreeMap();
+          outOfOrder.put(source, pending);
+        }
+        pending.put(message.getSequence(), message);
+      }
+      return;
+    }
+    PartitionMessage next = message;
+    while (next != null) {
+      try {
+        apply(next);
+      } catch (RuntimeException e) {
+        failureHandler.accept(e);
+      }
+      receivedSequences.put(source, ++expected);
+      NavigableMap<Long, PartitionMessage> pending = outOfOrder.get(source);
+      next = pending == null ? null : pending.remove(expected);
+    }
+  }
+
+  private void apply(PartitionMessage message) {
+    String source = message.getSource();
+    if (!message.getSubscriptions().isEmpty()) {
+      Map<PropertyIdentifier<?>, Object> values = Maps.newLinkedHashMap();
+      manager.batch(() -> {
+        for (PropertyIdentifier<?> id : message.getSubscriptions()) {
+          subscribers.put(id, source);
+          values.put(id, createIfAbsent(id).get());
+        }
+      });
+      send(source, values);
+    }
+    if (!message.getValues().isEmpty()) {
+      manager.withoutHistory(() -> message.getValues().forEach((id, value) -> {
+        if (source.equals(owners.get(id))) {
+          set(id, value, source);
+        }
+      }));
+    }
+  }
+
+  private void send(String partition, Map<PropertyIdentifier<?>, Object> values) {
+    transport.send(partition, PartitionMessage.update(name, nextSequence(partition), values));
+  }
+
+  private long nextSequence(String partition) {
+    long sequence = sentSequences.getOrDefault(partition, 0L);
+    sentSequences.put(partition, sequence + 1);
+    return sequence;
+  }
+
+  private <V> Property<V> createIfAbsent(PropertyIdentifier<V> id) {
+    Property<V> property = manager.get(id);
+    if (property == null) {
+      property = manager.create(id).withValue(id.getDefaultValue()).build();
+    }
+    return property;
+  }
+
+  // a mirror that was removed locally is recreated as its owner's next update arrives
+  @SuppressWarnings("unchecked")
+  private <V> void set(PropertyIdentifier<V> id, Object value, String owner) {
+    ((BasicProperty<V>) manager.mirror(id, owner)).setMirroredValue((V) value);
+  }
+
+}
@@ -0,0 +1,29 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.Consumer;
+
+public class PropertyPartitions {
+
+  // rejected updates are reported to the uncaught exception handler of the receiving thread
+  public static PropertyPartition create(String name, PropertyManager manager,
+      PropertyTransport transport) {
+    return create(name, manager, transport, (e) -> {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    });
+  }
+
+  public static PropertyPartition create(String name, PropertyManager manager,
+      PropertyTransport transport, Consumer<? super RuntimeException> failureHandler) {
+    checkNotNull(name, "name cannot be null");
+    BasicPropertyManager basicManager = BasicPropertyManager.from(manager);
+    checkNotNull(transport, "transport cannot be null");
+    checkNotNull(failureHandler, "failureHandler cannot be null");
+    return new PropertyPartition(name, basicManager, transport, failureHandler);
+  }
+
+  private PropertyPartitions() {}
+
+}
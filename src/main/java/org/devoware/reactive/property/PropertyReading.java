@@ -0,0 +1,47 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+// the values of a set of properties, as they stood at one point between two batches; a property
+// that was not registered at the time reads as null, with a version of -1
+public final class PropertyReading {
+  private final PropertyIdentifier<?>[] ids;
+  private final Object[] values;
+  private final long[] versions;
+  private final long sequence;
+
+  PropertyReading(PropertyIdentifier<?>[] ids, Object[] values, long[] versions, long sequence) {
+    this.ids = ids;
+    this.values = values;
+    this.versions = versions;
+    this.sequence = sequence;
+  }
+
+  // the sequence of the manager at the time of the reading; every version in it is lower
+  public long getSequence() {
+    return sequence;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <V> V get(PropertyIdentifier<V> id) {
+    return (V) values[indexOf(id)];
+  }
+
+  public long getVersion(PropertyIdentifier<?> id) {
+    return versions[indexOf(id)];
+  }
+
+  // readings cover a handful of properties, for which a scan is cheaper than a hash lookup
+  private int indexOf(PropertyIdentifier<?> id) {
+    checkNotNull(id, "id cannot be null");
+    for (int i = 0; i < ids.length; i++) {
+      if (ids[i].equals(id)) {
+        return i;
+      }
+    }
+    checkArgument(false, "%s was not read", id);
+    return -1;
+  }
+
+}
@@ -0,0 +1,137 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// a read-only copy of the values of a manager, patched from the deltas of an encoder; no value
+// function is ever evaluated on the replica. Slots whose names the resolver does not know are
+// ignored, so that a replica may follow a subset of the properties of its source. A delta is
+// decoded entirely before any of it is applied, so that a malformed one leaves the replica as
+// it was
+public class PropertyReplica {
+  private final Function<String, ? extends PropertyIdentifier<?>> resolver;
+  private final Map<Integer, PropertyIdentifier<?>> slots = Maps.newHashMap();
+  private final Map<PropertyIdentifier<?>, Object> values = Maps.newLinkedHashMap();
+  private final List<Consumer<? super Set<PropertyIdentifier<?>>>> listeners =
+      Lists.newArrayList();
+  // no delta can be applied before the first snapshot
+  private long sequence = -1;
+
+  PropertyReplica(Function<String, ? extends PropertyIdentifier<?>> resolver) {
+    this.resolver = resolver;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <V> V get(PropertyIdentifier<V> id) {
+    checkNotNull(id, "id cannot be null");
+    return (V) values.get(id);
+  }
+
+  public Set<PropertyIdentifier<?>> getIds() {
+    return Collections.unmodifiableSet(values.keySet());
+  }
+
+  // listeners are told which properties changed once a delta has been applied
+  public PropertyReplica addChangeListener(Consumer<? super Set<PropertyIdentifier<?>>> listener) {
+    checkNotNull(listener, "listener cannot be null");
+    listeners.add(listener);
+    return this;
+  }
+
+  // deltas must be applied in order; one that was already applied is ignored, and one that
+  // follows a missing delta is rejected, after which the replica needs a new snapshot
+  public Set<PropertyIdentifier<?>> apply(byte[] delta) {
+    checkNotNull(delta, "delta cannot be null");
+    Decoded decoded;
+    try {
+      decoded = decode(delta);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("malformed delta", e);
+    }
+    if (decoded.kind == DeltaFormat.DELTA) {
+      if (decoded.sequence <= sequence) {
+        return ImmutableSet.of();
+      }
+      if (sequence < 0 || decoded.sequence != sequence + 1) {
+        throw new IllegalStateException("expected delta " + (sequence + 1) + " but received "
+            + decoded.sequence + "; the replica needs a new snapshot");
+      }
+    } else {
+      slots.clear();
+      values.clear();
+    }
+    slots.putAll(decoded.slots);
+    ImmutableSet.Builder<PropertyIdentifier<?>> changed = ImmutableSet.builder();
+    for (Map.Entry<Integer, Object> entry : decoded.values.entrySet()) {
+      PropertyIdentifier<?> id = slots.get(entry.getKey());
+      if (id == null) {
+        continue;
+      }
+      if (entry.getValue() == null) {
+        values.remove(id);
+      } else {
+        values.put(id, entry.getValue());
+      }
+      changed.add(id);
+    }
+    sequence = decoded.sequence;
+    Set<PropertyIdentifier<?>> ids = changed.build();
+    if (!ids.isEmpty()) {
+      listeners.forEach((listener) -> listener.accept(ids));
+    }
+    return ids;
+  }
+
+  private Decoded decode(byte[] delta) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta));
+    Decoded decoded = new Decoded();
+    decoded.kind = in.readByte();
+    if (decoded.kind != DeltaFormat.DELTA && decoded.kind != DeltaFormat.SNAPSHOT) {
+      throw new IOException("unknown delta kind " + decoded.kind);
+    }
+    decoded.sequence = DeltaFormat.readVarLong(in);
+    int declared = DeltaFormat.readVarInt(in);
+    for (int i = 0; i < declared; i++) {
+      int slot = DeltaFormat.readVarInt(in);
+      PropertyIdentifier<?> id = resolver.apply(DeltaFormat.readString(in, in.available()));
+      if (id != null) {
+        decoded.slots.put(slot, id);
+      }
+    }
+    int count = DeltaFormat.readVarInt(in);
+    for (int i = 0; i < count; i++) {
+      int slot = DeltaFormat.readVarInt(in);
+      decoded.values.put(slot, DeltaFormat.readValue(in, in.available()));
+    }
+    if (in.read() != -1) {
+      throw new EOFException("trailing bytes after delta");
+    }
+    return decoded;
+  }
+
+  private static class Decoded {
+    private byte kind;
+    private long sequence;
+    private final Map<Integer, PropertyIdentifier<?>> slots = Maps.newHashMap();
+    private final Map<Integer, Object> values = Maps.newLinkedHashMap();
+  }
+
+}
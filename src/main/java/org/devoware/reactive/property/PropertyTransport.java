@@ -0,0 +1,13 @@
+package org.devoware.reactive.property;
+
+import java.util.function.Consumer;
+
+public interface PropertyTransport {
+
+  public void register(String partition, Consumer<PartitionMessage> receiver);
+
+  public void unregister(String partition);
+
+  public void send(String partition, PartitionMessage message);
+
+}
@@ -0,0 +1,11 @@
+package org.devoware.reactive.property;
+
+public class PropertyTransports {
+
+  public static PropertyTransport loopback() {
+    return new LoopbackTransport();
+  }
+
+  private PropertyTransports() {}
+
+}
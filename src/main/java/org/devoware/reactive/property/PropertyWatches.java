@@ -0,0 +1,162 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+// numeric thresholds are kept in sorted maps keyed by threshold, so that a change only visits the
+// watches whose threshold lies between the previous value and the new one; predicate watches
+// have no such order, and are evaluated on every change
+class PropertyWatches<V> {
+  private final PropertyIdentifier<V> id;
+  private final NavigableMap<Double, Set<ThresholdWatch>> atLeast = Maps.newTreeMap();
+  private final NavigableMap<Double, Set<ThresholdWatch>> below = Maps.newTreeMap();
+  private final Set<PredicateWatch> predicates = Sets.newLinkedHashSet();
+  private V lastValue;
+
+  PropertyWatches(PropertyIdentifier<V> id, V value) {
+    checkNotNull(id, "id cannot be null");
+    this.id = id;
+    this.lastValue = value;
+  }
+
+  PropertyIdentifier<V> getId() {
+    return id;
+  }
+
+  boolean isEmpty() {
+    return atLeast.isEmpty() && below.isEmpty() && predicates.isEmpty();
+  }
+
+  Watch watch(Predicate<? super V> condition, PropertyChangeListener<V> listener) {
+    PredicateWatch watch = new PredicateWatch(condition, listener);
+    predicates.add(watch);
+    return watch;
+  }
+
+  Watch watchAtLeast(double threshold, PropertyChangeListener<V> listener) {
+    return add(atLeast, threshold, listener);
+  }
+
+  Watch watchBelow(double threshold, PropertyChangeListener<V> listener) {
+    return add(below, threshold, listener);
+  }
+
+  // a value rising from below a threshold to at least the threshold triggers the at least
+  // watches, and a value falling from at least a threshold to below it triggers the below ones
+  void fire(V value) {
+    V oldValue = lastValue;
+    lastValue = value;
+    if (!atLeast.isEmpty() || !below.isEmpty()) {
+      double from = ((Number) oldValue).doubleValue();
+      double to = ((Number) value).doubleValue();
+      List<ThresholdWatch> triggered = Lists.newArrayList();
+      if (to > from) {
+        collect(atLeast.subMap(from, false, to, true).values(), triggered);
+      } else if (to < from) {
+        collect(below.subMap(to, false, from, true).values(), triggered);
+      }
+      for (ThresholdWatch watch : triggered) {
+        watch.fire(value);
+      }
+    }
+    if (!predicates.isEmpty()) {
+      for (PredicateWatch watch : Lists.newArrayList(predicates)) {
+        watch.test(value);
+      }
+    }
+  }
+
+  private Watch add(NavigableMap<Double, Set<ThresholdWatch>> watches, double threshold,
+      PropertyChangeListener<V> listener) {
+    checkArgument(lastValue instanceof Number, "%s does not have a numeric value", id);
+    checkArgument(!Double.isNaN(threshold), "threshold cannot be NaN");
+    ThresholdWatch watch = new ThresholdWatch(watches, threshold, listener);
+    Set<ThresholdWatch> atThreshold = watches.get(threshold);
+    if (atThreshold == null) {
+      atThreshold = Sets.newLinkedHashSet();
+      watches.put(threshold, atThreshold);
+    }
+    atThreshold.add(watch);
+    return watch;
+  }
+
+  private void collect(Collection<Set<ThresholdWatch>> watches, List<ThresholdWatch> triggered) {
+    for (Set<ThresholdWatch> atThreshold : watches) {
+      triggered.addAll(atThreshold);
+    }
+  }
+
+  private class ThresholdWatch implements Watch {
+    private final Map<Double, Set<ThresholdWatch>> watches;
+    private final double threshold;
+    private final PropertyChangeListener<V> listener;
+    private boolean cancelled;
+
+    private ThresholdWatch(Map<Double, Set<ThresholdWatch>> watches, double threshold,
+        PropertyChangeListener<V> listener) {
+      checkNotNull(listener, "listener cannot be null");
+      this.watches = watches;
+      this.threshold = threshold;
+      this.listener = listener;
+    }
+
+    private void fire(V value) {
+      if (!cancelled) {
+        listener.onValueChanged(id, value);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      Set<ThresholdWatch> atThreshold = watches.get(threshold);
+      atThreshold.remove(this);
+      if (atThreshold.isEmpty()) {
+        watches.remove(threshold);
+      }
+    }
+  }
+
+  // fires whenever the condition becomes true, rather than on every change while it holds
+  private class PredicateWatch implements Watch {
+    private final Predicate<? super V> condition;
+    private final PropertyChangeListener<V> listener;
+    private boolean satisfied;
+
+    private PredicateWatch(Predicate<? super V> condition, PropertyChangeListener<V> listener) {
+      checkNotNull(condition, "condition cannot be null");
+      checkNotNull(listener, "listener cannot be null");
+      this.condition = condition;
+      this.listener = listener;
+      this.satisfied = condition.test(lastValue);
+    }
+
+    private void test(V value) {
+      boolean wasSatisfied = satisfied;
+      satisfied = condition.test(value);
+      if (satisfied && !wasSatisfied && predicates.contains(this)) {
+        listener.onValueChanged(id, value);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      predicates.remove(this);
+    }
+  }
+
+}
@@ -0,0 +1,59 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+// times every recomputation made while propagating changes; the timings are kept on the
+// properties themselves, so that profiling adds no lookups to the propagation pass
+public class RecomputeProfile {
+  private final BasicPropertyManager manager;
+
+  RecomputeProfile(BasicPropertyManager manager) {
+    this.manager = manager;
+  }
+
+  public PropertyManager getManager() {
+    return manager;
+  }
+
+  public long getRecomputeCount(PropertyIdentifier<?> id) {
+    BasicProperty<?> property = getProperty(id);
+    return property == null ? 0 : property.recomputeCount;
+  }
+
+  public long getRecomputeNanos(PropertyIdentifier<?> id) {
+    BasicProperty<?> property = getProperty(id);
+    return property == null ? 0 : property.recomputeNanos;
+  }
+
+  // zero for a property that was never recomputed
+  public double getMeanRecomputeNanos(PropertyIdentifier<?> id) {
+    BasicProperty<?> property = getProperty(id);
+    if (property == null || property.recomputeCount == 0) {
+      return 0;
+    }
+    return property.recomputeNanos / (double) property.recomputeCount;
+  }
+
+  public void reset() {
+    for (PropertyIdentifier<?> id : manager.getIds()) {
+      BasicProperty<?> property = getProperty(id);
+      if (property != null) {
+        property.recomputeCount = 0;
+        property.recomputeNanos = 0;
+      }
+    }
+  }
+
+  // detaches the profile from its manager, which stops timing recomputations
+  public void close() {
+    if (manager.getProfile() == this) {
+      manager.setProfile(null);
+    }
+  }
+
+  private BasicProperty<?> getProperty(PropertyIdentifier<?> id) {
+    checkNotNull(id, "id cannot be null");
+    return (BasicProperty<?>) manager.getMaterialized(id);
+  }
+
+}
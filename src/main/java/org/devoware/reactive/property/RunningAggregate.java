@@ -0,0 +1,281 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.TreeMultiset;
+
+abstract class RunningAggregate<V> {
+  final AggregateModifier.Kind kind;
+  final Arithmetic<V> arithmetic;
+  private int count;
+
+  @SuppressWarnings("unchecked")
+  static <V> RunningAggregate<V> create(AggregateModifier.Kind kind, Arithmetic<V> arithmetic) {
+    checkNotNull(kind, "kind cannot be null");
+    checkNotNull(arithmetic, "arithmetic cannot be null");
+    switch (kind) {
+      case SUM:
+        if (arithmetic == Arithmetic.DOUBLE) {
+          return (RunningAggregate<V>) new CompensatedSum();
+        }
+        return new Sum<>(arithmetic);
+      case PRODUCT:
+        return new Product<>(arithmetic);
+      default:
+        return new Extremum<>(kind, arithmetic);
+    }
+  }
+
+  private RunningAggregate(AggregateModifier.Kind kind, Arithmetic<V> arithmetic) {
+    this.kind = kind;
+    this.arithmetic = arithmetic;
+  }
+
+  void add(V operand) {
+    checkNotNull(operand, "operand cannot be null");
+    count++;
+    doAdd(operand);
+  }
+
+  void remove(V operand) {
+    checkNotNull(operand, "operand cannot be null");
+    if (--count == 0) {
+      // start over from scratch, so that rounding errors cannot build up over time
+      reset();
+    } else {
+      doRemove(operand);
+    }
+  }
+
+  boolean isEmpty() {
+    return count == 0;
+  }
+
+  int count() {
+    return count;
+  }
+
+  V apply(V value) {
+    return kind.apply(arithmetic, value, get());
+  }
+
+  abstract V get();
+
+  abstract void doAdd(V operand);
+
+  abstract void doRemove(V operand);
+
+  abstract void reset();
+
+  private static class Sum<V> extends RunningAggregate<V> {
+    private V total;
+
+    private Sum(Arithmetic<V> arithmetic) {
+      super(AggregateModifier.Kind.SUM, arithmetic);
+      this.total = arithmetic.zero();
+    }
+
+    @Override
+    V get() {
+      return total;
+    }
+
+    @Override
+    void doAdd(V operand) {
+      total = arithmetic.add(total, operand);
+    }
+
+    @Override
+    void doRemove(V operand) {
+      total = arithmetic.subtract(total, operand);
+    }
+
+    @Override
+    void reset() {
+      total = arithmetic.zero();
+    }
+  }
+
+  // subtracting a large operand back out of a floating point sum would also take with it every
+  // small operand that it had rounded away, so the rounding errors are carried in a separate
+  // compensation term (Neumaier's variant of Kahan summation), and added back on every read
+  private static class CompensatedSum extends RunningAggregate<Double> {
+    private double total;
+    private double compensation;
+
+    private CompensatedSum() {
+      super(AggregateModifier.Kind.SUM, Arithmetic.DOUBLE);
+    }
+
+    @Override
+    Double get() {
+      return total + compensation;
+    }
+
+    @Override
+    void doAdd(Double operand) {
+      accumulate(operand);
+    }
+
+    @Override
+    void doRemove(Double operand) {
+      accumulate(-operand);
+    }
+
+    @Override
+    void reset() {
+      total = 0.0;
+      compensation = 0.0;
+    }
+
+    private void accumulate(double operand) {
+      double sum = total + operand;
+      if (Math.abs(total) >= Math.abs(operand)) {
+        compensation += (total - sum) + operand;
+      } else {
+        compensation += (operand - sum) + total;
+      }
+      total = sum;
+    }
+  }
+
+  // a factor cannot be divided back out of the product once an integral product has overflowed,
+  // or without rounding a floating point one, so the factors are kept at the leaves of a
+  // complete binary tree whose every inner node holds the product of its children; adding or
+  // removing a factor only multiplies the nodes on its path to the root, in logarithmic time
+  private static class Product<V> extends RunningAggregate<V> {
+    private static final int INITIAL_CAPACITY = 4;
+
+    // the leaves that hold each factor, and the leaves freed by removals, which hold one
+    private final Map<V, Deque<Integer>> leaves = Maps.newHashMap();
+    private final Deque<Integer> free = new ArrayDeque<>();
+    private Object[] tree;
+    private int capacity;
+    private int used;
+
+    private Product(Arithmetic<V> arithmetic) {
+      super(AggregateModifier.Kind.PRODUCT, arithmetic);
+      reset();
+    }
+
+    @Override
+    V get() {
+      return node(1);
+    }
+
+    @Override
+    void doAdd(V operand) {
+      int leaf;
+      if (!free.isEmpty()) {
+        leaf = free.pop();
+      } else {
+        if (used == capacity) {
+          grow();
+        }
+        leaf = used++;
+      }
+      leaves.computeIfAbsent(operand, (factor) -> new ArrayDeque<>()).push(leaf);
+      set(leaf, operand);
+    }
+
+    @Override
+    void doRemove(V operand) {
+      Deque<Integer> factorLeaves = leaves.get(operand);
+      if (factorLeaves == null) {
+        return;
+      }
+      int leaf = factorLeaves.pop();
+      if (factorLeaves.isEmpty()) {
+        leaves.remove(operand);
+      }
+      free.push(leaf);
+      set(leaf, arithmetic.one());
+    }
+
+    @Override
+    void reset() {
+      leaves.clear();
+      free.clear();
+      capacity = INITIAL_CAPACITY;
+      used = 0;
+      tree = new Object[2 * capacity];
+      Arrays.fill(tree, arithmetic.one());
+    }
+
+    private void set(int leaf, V factor) {
+      int index = capacity + leaf;
+      tree[index] = factor;
+      for (index >>= 1; index > 0; index >>= 1) {
+        tree[index] = arithmetic.multiply(node(2 * index), node(2 * index + 1));
+      }
+    }
+
+    // the leaves are copied into a tree of twice the capacity, whose inner nodes are then
+    // multiplied again from the bottom up
+    private void grow() {
+      Object[] leavesBefore = tree;
+      int capacityBefore = capacity;
+      capacity *= 2;
+      tree = new Object[2 * capacity];
+      Arrays.fill(tree, arithmetic.one());
+      System.arraycopy(leavesBefore, capacityBefore, tree, capacity, capacityBefore);
+      for (int index = capacity - 1; index > 0; index--) {
+        tree[index] = arithmetic.multiply(node(2 * index), node(2 * index + 1));
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V node(int index) {
+      return (V) tree[index];
+    }
+  }
+
+  // the extremum is cached, since reading it from the multiset allocates an entry each time
+  private static class Extremum<V> extends RunningAggregate<V> {
+    private final TreeMultiset<V> operands;
+    private V extremum;
+
+    private Extremum(AggregateModifier.Kind kind, Arithmetic<V> arithmetic) {
+      super(kind, arithmetic);
+      this.operands = TreeMultiset.create(arithmetic);
+    }
+
+    @Override
+    V get() {
+      return extremum;
+    }
+
+    @Override
+    void doAdd(V operand) {
+      operands.add(operand);
+      update();
+    }
+
+    @Override
+    void doRemove(V operand) {
+      operands.remove(operand);
+      update();
+    }
+
+    @Override
+    void reset() {
+      operands.clear();
+      extremum = null;
+    }
+
+    private void update() {
+      if (kind == AggregateModifier.Kind.MAX) {
+        extremum = operands.lastEntry().getElement();
+      } else {
+        extremum = operands.firstEntry().getElement();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,31 @@
+package org.devoware.reactive.property;
+
+import java.util.Collections;
+import java.util.Set;
+
+// elements are their own keys, so a set never publishes updated elements
+public class SetProperty<E> extends CollectionProperty<E, E, Set<E>> {
+  private final Set<E> view = Collections.unmodifiableSet(elements().keySet());
+
+  SetProperty(BasicPropertyManager manager, PropertyIdentifier<Set<E>> id) {
+    super(manager, id);
+  }
+
+  public boolean contains(E element) {
+    return getElement(element) != null;
+  }
+
+  public boolean add(E element) {
+    return getElement(element) == null && putElement(element, element) == null;
+  }
+
+  public boolean remove(E element) {
+    return removeElement(element) != null;
+  }
+
+  @Override
+  Set<E> view() {
+    return view;
+  }
+
+}
@@ -0,0 +1,52 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class StackingGroup {
+  private final String name;
+  private final boolean highest;
+
+  public static StackingGroup highest(String name) {
+    return new StackingGroup(name, true);
+  }
+
+  public static StackingGroup lowest(String name) {
+    return new StackingGroup(name, false);
+  }
+
+  private StackingGroup(String name, boolean highest) {
+    checkNotNull(name, "name cannot be null");
+    this.name = name;
+    this.highest = highest;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  boolean isHighest() {
+    return highest;
+  }
+
+  // groups are identified by value, so that modifiers added from separately built groups of the
+  // same name still stack with one another
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof StackingGroup)) {
+      return false;
+    }
+    StackingGroup other = (StackingGroup) obj;
+    return other.name.equals(name) && other.highest == highest;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * name.hashCode() + (highest ? 1 : 0);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
@@ -0,0 +1,192 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+// a hierarchical timing wheel with LEVELS wheels of WHEEL_SIZE slots each; a timeout is kept in
+// the lowest wheel whose current revolution still contains its deadline, and is cascaded into
+// the wheel below whenever the slot holding it comes around, so that scheduling and cancelling
+// are constant time operations
+class TimingWheel<T> {
+  private static final int WHEEL_BITS = 6;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final int LEVELS = 6;
+
+  private final long tickMillis;
+  private final Timeout<T>[][] slots;
+  private final int[] counts = new int[LEVELS];
+  // the next tick that has yet to be processed
+  private long currentTick;
+  private int size;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  TimingWheel(long tickMillis, long nowMillis) {
+    checkArgument(tickMillis > 0, "tickMillis must be positive");
+    this.tickMillis = tickMillis;
+    this.slots = new Timeout[LEVELS][WHEEL_SIZE];
+    this.currentTick = nowMillis / tickMillis;
+  }
+
+  int size() {
+    return size;
+  }
+
+  // deadlines are rounded up to the next tick, so that a timeout never fires early
+  Timeout<T> schedule(T value, long deadlineMillis) {
+    checkNotNull(value, "value cannot be null");
+    long deadlineTick = deadlineMillis / tickMillis + (deadlineMillis % tickMillis == 0 ? 0 : 1);
+    Timeout<T> timeout = new Timeout<>(this, value, Math.max(deadlineTick, currentTick));
+    place(timeout);
+    size++;
+    return timeout;
+  }
+
+  // a cancelled timeout is scheduled again for its original deadline, or for the current tick
+  // if that has since passed
+  Timeout<T> reschedule(Timeout<T> cancelled) {
+    checkNotNull(cancelled, "cancelled cannot be null");
+    checkArgument(!cancelled.isPending(), "timeout is still pending");
+    Timeout<T> timeout = new Timeout<>(this, cancelled.value,
+        Math.max(cancelled.deadlineTick, currentTick));
+    place(timeout);
+    size++;
+    return timeout;
+  }
+
+  List<T> advance(long nowMillis) {
+    long targetTick = nowMillis / tickMillis;
+    if (targetTick < currentTick) {
+      return ImmutableList.of();
+    }
+    if (size == 0) {
+      currentTick = targetTick + 1;
+      return ImmutableList.of();
+    }
+    List<T> expired = Lists.newArrayList();
+    while (currentTick <= targetTick && size > 0) {
+      cascade();
+      Timeout<T> timeout = slots[0][(int) (currentTick & WHEEL_MASK)];
+      slots[0][(int) (currentTick & WHEEL_MASK)] = null;
+      while (timeout != null) {
+        Timeout<T> next = timeout.next;
+        timeout.detach();
+        counts[0]--;
+        size--;
+        expired.add(timeout.value);
+        timeout = next;
+      }
+      currentTick = Math.min(nextTick(), targetTick + 1);
+    }
+    currentTick = Math.max(currentTick, targetTick + 1);
+    return expired;
+  }
+
+  // while the lower wheels are empty, nothing can expire before the next revolution of the
+  // lowest wheel that is not, so the ticks in between are skipped
+  private long nextTick() {
+    long next = currentTick + 1;
+    for (int level = 0; level < LEVELS - 1 && counts[level] == 0; level++) {
+      int shift = (level + 1) * WHEEL_BITS;
+      next = ((currentTick >>> shift) + 1) << shift;
+    }
+    return next;
+  }
+
+  // when the current tick starts a new revolution of a lower wheel, the timeouts of the
+  // matching slot in the wheel above are redistributed; higher wheels are cascaded first, since
+  // they may feed the slot that is cascaded next
+  private void cascade() {
+    for (int level = LEVELS - 1; level > 0; level--) {
+      int shift = level * WHEEL_BITS;
+      if ((currentTick & ((1L << shift) - 1)) != 0) {
+        continue;
+      }
+      int slot = (int) ((currentTick >>> shift) & WHEEL_MASK);
+      Timeout<T> timeout = slots[level][slot];
+      slots[level][slot] = null;
+      while (timeout != null) {
+        Timeout<T> next = timeout.next;
+        timeout.prev = null;
+        timeout.next = null;
+        counts[level]--;
+        place(timeout);
+        timeout = next;
+      }
+    }
+  }
+
+  private void place(Timeout<T> timeout) {
+    int level = 0;
+    while (level < LEVELS - 1
+        && (timeout.deadlineTick >>> ((level + 1) * WHEEL_BITS))
+            != (currentTick >>> ((level + 1) * WHEEL_BITS))) {
+      level++;
+    }
+    int shift = level * WHEEL_BITS;
+    int slot = (int) ((timeout.deadlineTick >>> shift) & WHEEL_MASK);
+    if (level == LEVELS - 1
+        && (timeout.deadlineTick >>> (LEVELS * WHEEL_BITS)) != (currentTick >>> (LEVELS * WHEEL_BITS))) {
+      // beyond the range of the top wheel; park the timeout in the next slot to come around,
+      // from which it will be placed again
+      slot = (int) (((currentTick >>> shift) + 1) & WHEEL_MASK);
+    }
+    timeout.level = level;
+    timeout.slot = slot;
+    counts[level]++;
+    timeout.next = slots[level][slot];
+    if (timeout.next != null) {
+      timeout.next.prev = timeout;
+    }
+    slots[level][slot] = timeout;
+  }
+
+  static class Timeout<T> {
+    private TimingWheel<T> wheel;
+    private final T value;
+    private final long deadlineTick;
+    private int level;
+    private int slot;
+    private Timeout<T> prev;
+    private Timeout<T> next;
+
+    private Timeout(TimingWheel<T> wheel, T value, long deadlineTick) {
+      this.wheel = wheel;
+      this.value = value;
+      this.deadlineTick = deadlineTick;
+    }
+
+    boolean isPending() {
+      return wheel != null;
+    }
+
+    void cancel() {
+      if (wheel == null) {
+        return;
+      }
+      if (prev != null) {
+        prev.next = next;
+      } else {
+        wheel.slots[level][slot] = next;
+      }
+      if (next != null) {
+        next.prev = prev;
+      }
+      wheel.counts[level]--;
+      wheel.size--;
+      detach();
+    }
+
+    private void detach() {
+      wheel = null;
+      prev = null;
+      next = null;
+    }
+  }
+
+}
@@ -0,0 +1,15 @@
+package org.devoware.reactive.property;
+
+public class UndeclaredDependencyException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public UndeclaredDependencyException(String message) {
+    super(message);
+  }
+
+  public UndeclaredDependencyException() {
+    super();
+  }
+  
+}
@@ -0,0 +1,77 @@
+package org.devoware.reactive.property;
+
+import java.util.Arrays;
+
+// the state overwritten since the last commit point of a batch, so that a batch that fails can
+// be rolled back; recomputed values are logged as plain entries, and every other change as an
+// inverse operation. The arrays are reused across batches, so that logging a recomputation
+// does not allocate
+final class UndoLog {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private BasicProperty<?>[] properties = new BasicProperty<?>[INITIAL_CAPACITY];
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private long[] versions = new long[INITIAL_CAPACITY];
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  void logValue(BasicProperty<?> property, Object value, long version) {
+    ensureCapacity();
+    properties[size] = property;
+    values[size] = value;
+    versions[size] = version;
+    size++;
+  }
+
+  void logInverse(Runnable inverse) {
+    ensureCapacity();
+    values[size] = inverse;
+    size++;
+  }
+
+  // undoes the entries logged after the mark, most recent first
+  void rollback(int mark) {
+    while (size > mark) {
+      size--;
+      BasicProperty<?> property = properties[size];
+      if (property != null) {
+        property.restoreValue(values[size], versions[size]);
+      } else {
+        ((Runnable) values[size]).run();
+      }
+      properties[size] = null;
+      values[size] = null;
+    }
+  }
+
+  // moves the entries of another log after those of this one
+  void append(UndoLog other) {
+    for (int i = 0; i < other.size; i++) {
+      ensureCapacity();
+      properties[size] = other.properties[i];
+      values[size] = other.values[i];
+      versions[size] = other.versions[i];
+      size++;
+    }
+    other.clear();
+  }
+
+  void clear() {
+    Arrays.fill(properties, 0, size, null);
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+  }
+
+  private void ensureCapacity() {
+    if (size == values.length) {
+      int capacity = size * 2;
+      properties = Arrays.copyOf(properties, capacity);
+      values = Arrays.copyOf(values, capacity);
+      versions = Arrays.copyOf(versions, capacity);
+    }
+  }
+
+}
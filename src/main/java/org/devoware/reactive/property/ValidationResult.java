@@ -0,0 +1,39 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+// the outcome of a validation rule; a rejection carries only its message, with no stack trace,
+// so rules may keep their rejections in constants and reject without allocating at all
+public final class ValidationResult {
+  private static final ValidationResult VALID = new ValidationResult(null);
+
+  private final String message;
+
+  private ValidationResult(String message) {
+    this.message = message;
+  }
+
+  public static ValidationResult valid() {
+    return VALID;
+  }
+
+  public static ValidationResult invalid(String message) {
+    checkNotNull(message, "message cannot be null");
+    return new ValidationResult(message);
+  }
+
+  public boolean isValid() {
+    return message == null;
+  }
+
+  // null if the value is valid
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return isValid() ? "valid" : "invalid: " + message;
+  }
+
+}
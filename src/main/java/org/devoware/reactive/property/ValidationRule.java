@@ -0,0 +1,9 @@
+package org.devoware.reactive.property;
+
+// an alternative to a validator that reports a rejection as a result rather than by throwing;
+// see Property.trySet
+public interface ValidationRule<V> {
+
+  public ValidationResult check(PropertyContext context, V value);
+
+}
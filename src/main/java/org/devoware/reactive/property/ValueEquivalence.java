@@ -0,0 +1,7 @@
+package org.devoware.reactive.property;
+
+public interface ValueEquivalence<V> {
+
+  public boolean equivalent(V a, V b);
+
+}
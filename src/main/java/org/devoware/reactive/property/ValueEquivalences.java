@@ -0,0 +1,70 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.BiPredicate;
+
+public class ValueEquivalences {
+
+  @SuppressWarnings("unchecked")
+  public static <V> ValueEquivalence<V> equality() {
+    return (ValueEquivalence<V>) Equality.INSTANCE;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <V> ValueEquivalence<V> identity() {
+    return (ValueEquivalence<V>) Identity.INSTANCE;
+  }
+
+  public static ValueEquivalence<Number> tolerance(double tolerance) {
+    checkArgument(tolerance >= 0, "tolerance cannot be negative");
+    return new Tolerance(tolerance);
+  }
+
+  public static <V> ValueEquivalence<V> from(BiPredicate<? super V, ? super V> predicate) {
+    checkNotNull(predicate, "predicate cannot be null");
+    return (a, b) -> predicate.test(a, b);
+  }
+
+  private ValueEquivalences() {}
+
+  private static enum Equality implements ValueEquivalence<Object> {
+    INSTANCE;
+
+    @Override
+    public boolean equivalent(Object a, Object b) {
+      return a == b || (a != null && a.equals(b));
+    }
+  }
+
+  private static enum Identity implements ValueEquivalence<Object> {
+    INSTANCE;
+
+    @Override
+    public boolean equivalent(Object a, Object b) {
+      return a == b;
+    }
+  }
+
+  private static class Tolerance implements ValueEquivalence<Number> {
+    private final double tolerance;
+
+    private Tolerance(double tolerance) {
+      this.tolerance = tolerance;
+    }
+
+    @Override
+    public boolean equivalent(Number a, Number b) {
+      if (a == b) {
+        return true;
+      }
+      if (a == null || b == null) {
+        return false;
+      }
+      double x = a.doubleValue();
+      double y = b.doubleValue();
+      return Math.abs(x - y) <= tolerance || Double.compare(x, y) == 0;
+    }
+  }
+}
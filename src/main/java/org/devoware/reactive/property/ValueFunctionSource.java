@@ -5,6 +5,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 class ValueFunctionSource<V> implements ValueSource<V> {
 
   private final ValueFunction<V> function;
+
+  static <V> ValueSource<V> of(ValueFunction<V> function) {
+    if (function instanceof DeclaredValueFunction) {
+      return new DeclaredValueFunctionSource<>((DeclaredValueFunction<V>) function);
+    }
+    return new ValueFunctionSource<>(function);
+  }
   
   ValueFunctionSource(ValueFunction<V> function) {
     checkNotNull(function, "function cannot be null");
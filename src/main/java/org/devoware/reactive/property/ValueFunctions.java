@@ -0,0 +1,39 @@
+package org.devoware.reactive.property;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+public class ValueFunctions {
+
+  public static <V> DeclaredValueFunction<V> declare(ValueFunction<V> function,
+      PropertyIdentifier<?>... inputs) {
+    checkNotNull(function, "function cannot be null");
+    checkNotNull(inputs, "inputs cannot be null");
+    return new Declared<>(function, ImmutableSet.copyOf(inputs));
+  }
+
+  private ValueFunctions() {}
+
+  private static class Declared<V> implements DeclaredValueFunction<V> {
+    private final ValueFunction<V> function;
+    private final Set<PropertyIdentifier<?>> inputs;
+
+    private Declared(ValueFunction<V> function, Set<PropertyIdentifier<?>> inputs) {
+      this.function = function;
+      this.inputs = inputs;
+    }
+
+    @Override
+    public V onBoundValueChanged(PropertyContext context) {
+      return function.onBoundValueChanged(context);
+    }
+
+    @Override
+    public Set<PropertyIdentifier<?>> getInputs() {
+      return inputs;
+    }
+  }
+}
@@ -1,7 +1,19 @@
 package org.devoware.reactive.property;
 
+import java.util.Set;
 import java.util.function.Function;
 
+import com.google.common.collect.ImmutableSet;
+
 interface ValueSource<V> extends Function<PropertyContext, V> {
 
+  // a declared source reads nothing but its inputs, so it need not be traced
+  public default boolean isDeclared() {
+    return false;
+  }
+
+  public default Set<PropertyIdentifier<?>> getInputs() {
+    return ImmutableSet.of();
+  }
+
 }
@@ -0,0 +1,7 @@
+package org.devoware.reactive.property;
+
+public interface Watch {
+
+  public void cancel();
+
+}
@@ -0,0 +1,288 @@
+package org.devoware.reactive;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import org.devoware.reactive.property.AsyncProperties;
+import org.devoware.reactive.property.AsyncPropertyGroup;
+import org.devoware.reactive.property.AsyncValueFunction;
+import org.devoware.reactive.property.Formulas;
+import org.devoware.reactive.property.GraphAnalysis;
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyDeltaEncoder;
+import org.devoware.reactive.property.PropertyDeltas;
+import org.devoware.reactive.property.PropertyGraphs;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.property.PropertyReplica;
+import org.devoware.reactive.property.ValidationResult;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+
+public class AsyncPropertyTest {
+  private static final Id REACH = new Id("REACH");
+  private static final Id THREAT_RANGE = new Id("THREAT_RANGE");
+  private static final Id DOUBLE_REACH = new Id("DOUBLE_REACH");
+  private static final Id LEVEL_CAP = new Id("LEVEL_CAP");
+
+  private final Queue<Runnable> completions = Queues.newArrayDeque();
+  // the computations started, in order, along with the level each was started from
+  private final List<CompletableFuture<Integer>> computations = Lists.newArrayList();
+  private final List<Integer> levels = Lists.newArrayList();
+  private PropertyManager manager;
+
+  @Before
+  public void setUp() {
+    manager = PropertyManagers.create();
+    manager.create(LEVEL).withValue(1).build();
+  }
+
+  @Test
+  public void test_stale_while_revalidate() {
+    AsyncPropertyGroup group = AsyncProperties.create(manager, completions::add);
+    Property<Integer> reach = group.create(REACH, 0, compute());
+    Property<Integer> doubleReach =
+        manager.create(DOUBLE_REACH).withValue((context) -> context.get(REACH) * 2).build();
+    List<Integer> values = Lists.newArrayList();
+    reach.addPropertyChangeListener((id, value) -> values.add(value));
+
+    assertThat(reach.get(), equalTo(0));
+    assertTrue(group.isRevalidating(REACH));
+
+    computations.get(0).complete(10);
+
+    // results are only applied by the thread that owns the manager
+    assertThat(reach.get(), equalTo(0));
+
+    runCompletions();
+
+    assertThat(reach.get(), equalTo(10));
+    assertThat(doubleReach.get(), equalTo(20));
+    assertFalse(group.isRevalidating(REACH));
+
+    manager.get(LEVEL).set(2);
+
+    assertThat(levels, equalTo(Lists.newArrayList(1, 2)));
+    assertThat(reach.get(), equalTo(10));
+    assertTrue(group.isRevalidating(REACH));
+
+    computations.get(1).complete(12);
+    runCompletions();
+
+    assertThat(values, equalTo(Lists.newArrayList(10, 12)));
+    assertThat(doubleReach.get(), equalTo(24));
+  }
+
+  @Test
+  public void test_superseded_computations_are_cancelled() {
+    AsyncPropertyGroup group = AsyncProperties.create(manager, completions::add);
+    Property<Integer> reach = group.create(REACH, 0, compute());
+    List<Integer> values = Lists.newArrayList();
+    reach.addPropertyChangeListener((id, value) -> values.add(value));
+
+    manager.get(LEVEL).set(2);
+    manager.get(LEVEL).set(3);
+
+    assertThat(computations.size(), equalTo(3));
+    assertTrue(computations.get(0).isCancelled());
+    assertTrue(computations.get(1).isCancelled());
+    assertFalse(computations.get(1).complete(20));
+    assertThat(group.getInFlight(), equalTo(1));
+
+    computations.get(2).complete(30);
+    runCompletions();
+
+    assertThat(values, equalTo(Lists.newArrayList(30)));
+    assertThat(group.getInFlight(), equalTo(0));
+  }
+
+  // the waiting property computes from the inputs as they stand once a slot is free
+  @Test
+  public void test_in_flight_bound() {
+    AsyncPropertyGroup group = AsyncProperties.create(manager, completions::add, 1);
+    Property<Integer> reach = group.create(REACH, 0, compute());
+    Property<Integer> threatRange = group.create(THREAT_RANGE, 0, compute());
+
+    assertThat(computations.size(), equalTo(1));
+    assertTrue(group.isRevalidating(THREAT_RANGE));
+
+    manager.get(LEVEL).set(5);
+
+    assertThat(computations.size(), equalTo(2));
+    assertThat(group.getInFlight(), equalTo(1));
+
+    computations.get(1).complete(50);
+    runCompletions();
+
+    assertThat(reach.get(), equalTo(50));
+    assertThat(computations.size(), equalTo(3));
+    assertThat(levels.get(2), equalTo(5));
+
+    computations.get(2).complete(7);
+    runCompletions();
+
+    assertThat(threatRange.get(), equalTo(7));
+    assertThat(group.getInFlight(), equalTo(0));
+  }
+
+  // a rejected result is reported, and its slot still goes to the property waiting for it
+  @Test
+  public void test_rejected_result_releases_slot() {
+    List<RuntimeException> failures = Lists.newArrayList();
+    AsyncPropertyGroup group =
+        AsyncProperties.create(manager, completions::add, 1, failures::add);
+    Property<Integer> reach = group.create(REACH, 0, compute());
+    Property<Integer> threatRange = group.create(THREAT_RANGE, 0, compute());
+    manager.create(DOUBLE_REACH).withValue((context) -> context.get(REACH) * 2)
+        .withValidator((context, value) -> checkArgument(value <= 200, "reach too long"))
+        .build();
+
+    computations.get(0).complete(500);
+    runCompletions();
+
+    assertThat(reach.get(), equalTo(0));
+    assertThat(failures.size(), equalTo(1));
+    assertThat(failures.get(0).getMessage(), equalTo("reach too long"));
+    assertThat(computations.size(), equalTo(2));
+    assertThat(group.getInFlight(), equalTo(1));
+
+    computations.get(1).complete(7);
+    runCompletions();
+
+    assertThat(threatRange.get(), equalTo(7));
+    assertFalse(group.isRevalidating(THREAT_RANGE));
+    assertThat(group.getInFlight(), equalTo(0));
+  }
+
+  // the slot of a removed property is handed on to the property waiting for it
+  @Test
+  public void test_removal_releases_slot() {
+    AsyncPropertyGroup group = AsyncProperties.create(manager, completions::add, 1);
+    group.create(REACH, 0, compute());
+    Property<Integer> threatRange = group.create(THREAT_RANGE, 0, compute());
+
+    assertThat(computations.size(), equalTo(1));
+    assertTrue(group.isRevalidating(THREAT_RANGE));
+
+    group.remove(REACH);
+    runCompletions();
+
+    assertTrue(computations.get(0).isCancelled());
+    assertThat(computations.size(), equalTo(2));
+    assertThat(group.getInFlight(), equalTo(1));
+
+    computations.get(1).complete(7);
+    runCompletions();
+
+    assertThat(threatRange.get(), equalTo(7));
+    assertFalse(group.isRevalidating(THREAT_RANGE));
+    assertThat(group.getInFlight(), equalTo(0));
+  }
+
+  @Test
+  public void test_rolled_back_computation_is_cancelled() {
+    manager.create(LEVEL_CAP).withValue((context) -> context.get(LEVEL))
+        .withValidationRule((context, value) ->
+            value <= 20 ? ValidationResult.valid() : ValidationResult.invalid("level too high"))
+        .build();
+    AsyncPropertyGroup group = AsyncProperties.create(manager, completions::add);
+    Property<Integer> reach = group.create(REACH, 0, compute());
+    computations.get(0).complete(10);
+    runCompletions();
+
+    try {
+      manager.get(LEVEL).set(25);
+      fail("the level should have been rejected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), equalTo("level too high"));
+    }
+
+    assertThat(computations.size(), equalTo(2));
+    assertTrue(computations.get(1).isCancelled());
+    assertThat(group.getInFlight(), equalTo(0));
+    assertFalse(group.isRevalidating(REACH));
+    runCompletions();
+    assertThat(reach.get(), equalTo(10));
+  }
+
+  // the request property that reads the inputs is left out of the graph, and never replicated
+  @Test
+  public void test_request_properties_are_hidden() {
+    AsyncPropertyGroup group = AsyncProperties.create(manager, completions::add);
+    group.create(REACH, 0, compute());
+    PropertyDeltaEncoder encoder = PropertyDeltas.encoder(manager);
+    PropertyReplica replica = PropertyDeltas.replica(Formulas.resolver(LEVEL, REACH));
+
+    replica.apply(encoder.snapshot());
+
+    assertThat(replica.getIds(), equalTo(ImmutableSet.of(LEVEL, REACH)));
+    assertTrue(manager.getProducerBindings(manager.get(LEVEL)).isEmpty());
+
+    manager.get(LEVEL).set(2);
+    computations.get(1).complete(12);
+    runCompletions();
+    replica.apply(encoder.checkpoint());
+
+    assertThat(replica.get(REACH), equalTo(12));
+    assertThat(replica.getIds(), equalTo(ImmutableSet.of(LEVEL, REACH)));
+
+    GraphAnalysis analysis = PropertyGraphs.analyze(manager);
+
+    assertThat(analysis.getPropertyCount(), equalTo(2));
+    assertThat(analysis.getBindingCount(), equalTo(0));
+  }
+
+  private AsyncValueFunction<Integer> compute() {
+    return (context) -> {
+      levels.add(context.get(LEVEL));
+      CompletableFuture<Integer> computation = new CompletableFuture<>();
+      computations.add(computation);
+      return computation;
+    };
+  }
+
+  private void runCompletions() {
+    Runnable completion;
+    while ((completion = completions.poll()) != null) {
+      completion.run();
+    }
+  }
+
+  private static class Id implements PropertyIdentifier<Integer> {
+    private final String name;
+
+    private Id(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+}
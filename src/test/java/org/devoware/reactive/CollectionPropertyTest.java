@@ -0,0 +1,341 @@
+package org.devoware.reactive;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.devoware.reactive.property.CollectionAggregates;
+import org.devoware.reactive.property.CollectionDelta;
+import org.devoware.reactive.property.CollectionProperties;
+import org.devoware.reactive.property.ElementChange;
+import org.devoware.reactive.property.Identifier;
+import org.devoware.reactive.property.ListProperty;
+import org.devoware.reactive.property.MapProperty;
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyHistories;
+import org.devoware.reactive.property.PropertyHistory;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.property.SetProperty;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+public class CollectionPropertyTest {
+  private static final Id<Map<String, Integer>> INVENTORY = new Id<>("INVENTORY", ImmutableMap.of());
+  private static final Id<Map<String, Integer>> ITEMS_BY_CLASS =
+      new Id<>("ITEMS_BY_CLASS", ImmutableMap.of());
+  private static final Id<List<Integer>> PARTY_LEVELS = new Id<>("PARTY_LEVELS", ImmutableList.of());
+  private static final Id<Set<String>> CONDITIONS = new Id<>("CONDITIONS", ImmutableSet.of());
+  private static final Id<Integer> TOTAL_WEIGHT = new Id<>("TOTAL_WEIGHT", 0);
+  private static final Id<Integer> HEAVIEST_ITEM = new Id<>("HEAVIEST_ITEM", 0);
+  private static final Id<Integer> ENCUMBERED = new Id<>("ENCUMBERED", 0);
+  private static final Id<Integer> ITEM_COUNT = new Id<>("ITEM_COUNT", 0);
+  private static final Id<Double> AVERAGE_LEVEL = new Id<>("AVERAGE_LEVEL", 0.0);
+  private static final Id<Integer> CONDITION_COUNT = new Id<>("CONDITION_COUNT", 0);
+  private static final Id<List<Double>> FRACTIONAL_LEVELS =
+      new Id<>("FRACTIONAL_LEVELS", ImmutableList.of());
+  private static final Id<Integer> TOTAL_LEVEL = new Id<>("TOTAL_LEVEL", 0);
+  private static final Id<Map<String, Integer>> LEVELS_BY_PARITY =
+      new Id<>("LEVELS_BY_PARITY", ImmutableMap.of());
+
+  @Test
+  public void test_map_properties() {
+    PropertyManager manager = PropertyManagers.create();
+    MapProperty<String, Integer> inventory = CollectionProperties.map(manager, INVENTORY);
+    inventory.put("rope", 5);
+    Property<Integer> totalWeight =
+        inventory.aggregate(TOTAL_WEIGHT, CollectionAggregates.sum(0, (weight) -> weight));
+    Property<Integer> heaviestItem =
+        inventory.aggregate(HEAVIEST_ITEM, CollectionAggregates.max(0, (weight) -> weight));
+    Property<Integer> encumbered = manager.create(ENCUMBERED)
+        .withValue((context) -> context.get(TOTAL_WEIGHT) > 30 ? 1 : 0).build();
+    // value functions may still read the whole collection through their context
+    Property<Integer> itemCount = manager.create(ITEM_COUNT)
+        .withValue((context) -> context.get(INVENTORY).size()).build();
+    MapProperty<String, Integer> itemsByClass = inventory.groupBy(ITEMS_BY_CLASS,
+        (weight) -> weight >= 10 ? "heavy" : "light", CollectionAggregates::count);
+    List<CollectionDelta<String, Integer>> deltas = Lists.newArrayList();
+    inventory.addDeltaListener(deltas::add);
+    List<Integer> totals = Lists.newArrayList();
+    totalWeight.addPropertyChangeListener((id, value) -> totals.add(value));
+
+    assertThat(totalWeight.get(), equalTo(5));
+    assertThat(itemsByClass.get(), equalTo(ImmutableMap.of("light", 1)));
+
+    inventory.batch(() -> {
+      inventory.put("armor", 20);
+      inventory.put("shield", 6);
+    });
+
+    assertThat(deltas.size(), equalTo(1));
+    assertThat(deltas.get(0).getChanges().size(), equalTo(2));
+    assertThat(totals, equalTo(Lists.newArrayList(31)));
+    assertThat(encumbered.get(), equalTo(1));
+    assertThat(heaviestItem.get(), equalTo(20));
+    assertThat(itemCount.get(), equalTo(3));
+    assertThat(itemsByClass.get(), equalTo(ImmutableMap.of("light", 2, "heavy", 1)));
+
+    inventory.put("shield", 12);
+
+    ElementChange<String, Integer> change = deltas.get(1).getChanges().get(0);
+    assertThat(change.getKind(), equalTo(ElementChange.Kind.UPDATED));
+    assertThat(change.getOldElement(), equalTo(6));
+    assertThat(change.getNewElement(), equalTo(12));
+    assertThat(itemsByClass.get(), equalTo(ImmutableMap.of("light", 1, "heavy", 2)));
+
+    inventory.remove("armor");
+
+    assertThat(deltas.get(2).getChanges().get(0).getKind(), equalTo(ElementChange.Kind.REMOVED));
+    assertThat(totalWeight.get(), equalTo(17));
+    assertThat(heaviestItem.get(), equalTo(12));
+    assertThat(encumbered.get(), equalTo(0));
+    assertThat(itemCount.get(), equalTo(2));
+
+    // an unchanged element is not published
+    inventory.put("rope", 5);
+
+    assertThat(deltas.size(), equalTo(3));
+
+    inventory.remove("rope");
+    inventory.remove("shield");
+
+    assertThat(heaviestItem.get(), equalTo(0));
+    assertTrue(itemsByClass.isEmpty());
+  }
+
+  @Test
+  public void test_list_and_set_properties() {
+    PropertyManager manager = PropertyManagers.create();
+    ListProperty<Integer> levels = CollectionProperties.list(manager, PARTY_LEVELS);
+    Property<Double> averageLevel =
+        levels.aggregate(AVERAGE_LEVEL, CollectionAggregates.average((level) -> level));
+    Identifier fighter = levels.add(4);
+    levels.add(6);
+    Identifier wizard = levels.add(5);
+
+    assertThat(averageLevel.get(), equalTo(5.0));
+    assertThat(levels.get(), equalTo(ImmutableList.of(4, 6, 5)));
+
+    levels.set(fighter, 7);
+    levels.remove(wizard);
+
+    assertThat(averageLevel.get(), equalTo(6.5));
+    assertThat(manager.get(PARTY_LEVELS).get(), equalTo(ImmutableList.of(7, 6)));
+
+    SetProperty<String> conditions = CollectionProperties.set(manager, CONDITIONS);
+    Property<Integer> conditionCount =
+        conditions.aggregate(CONDITION_COUNT, CollectionAggregates.count());
+
+    assertTrue(conditions.add("poisoned"));
+    assertFalse(conditions.add("poisoned"));
+    assertTrue(conditions.add("prone"));
+    assertThat(conditionCount.get(), equalTo(2));
+
+    assertTrue(conditions.remove("poisoned"));
+    assertThat(conditionCount.get(), equalTo(1));
+    assertThat(conditions.get(), equalTo(ImmutableSet.of("prone")));
+  }
+
+  // listeners only see deltas that were committed, even by an enclosing batch
+  @Test
+  public void test_rolled_back_deltas() {
+    PropertyManager manager = PropertyManagers.create();
+    MapProperty<String, Integer> inventory = CollectionProperties.map(manager, INVENTORY);
+    List<CollectionDelta<String, Integer>> deltas = Lists.newArrayList();
+    inventory.addDeltaListener(deltas::add);
+
+    try {
+      manager.batch(() -> {
+        inventory.put("rope", 5);
+        throw new IllegalStateException("aborted");
+      });
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+
+    assertTrue(deltas.isEmpty());
+    assertTrue(inventory.isEmpty());
+
+    manager.batch(() -> {
+      inventory.put("rope", 5);
+      assertTrue(deltas.isEmpty());
+    });
+
+    assertThat(deltas.size(), equalTo(1));
+    assertThat(deltas.get(0).getChanges().get(0).getNewElement(), equalTo(5));
+  }
+
+  // a batch whose updates throw publishes nothing, and leaves the elements in their order; a
+  // nested batch that fails only discards its own changes
+  @Test
+  public void test_failed_batch() {
+    PropertyManager manager = PropertyManagers.create();
+    ListProperty<Integer> levels = CollectionProperties.list(manager, PARTY_LEVELS);
+    Property<Integer> totalLevel =
+        levels.aggregate(TOTAL_LEVEL, CollectionAggregates.sum(0, (level) -> level));
+    Identifier first = levels.add(5);
+    Identifier second = levels.add(7);
+    levels.add(2);
+    List<CollectionDelta<Identifier, Integer>> deltas = Lists.newArrayList();
+    levels.addDeltaListener(deltas::add);
+
+    try {
+      levels.batch(() -> {
+        levels.add(4);
+        levels.remove(first);
+        levels.set(second, 1);
+        throw new IllegalStateException("aborted");
+      });
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+
+    assertTrue(deltas.isEmpty());
+    assertThat(levels.get(), equalTo(ImmutableList.of(5, 7, 2)));
+    assertThat(totalLevel.get(), equalTo(14));
+
+    levels.batch(() -> {
+      levels.remove(second);
+      try {
+        levels.batch(() -> {
+          levels.remove(first);
+          levels.add(3);
+          throw new IllegalStateException("aborted");
+        });
+        fail("Expected an IllegalStateException");
+      } catch (IllegalStateException e) {}
+      assertThat(levels.get(), equalTo(ImmutableList.of(5, 2)));
+    });
+
+    assertThat(deltas.size(), equalTo(1));
+    assertThat(deltas.get(0).getChanges().size(), equalTo(1));
+    assertThat(levels.get(), equalTo(ImmutableList.of(5, 2)));
+    assertThat(totalLevel.get(), equalTo(7));
+  }
+
+  // a change to the elements is undone as a whole, and the aggregates follow it; the order of
+  // removed elements is restored
+  @Test
+  public void test_undo_redo() {
+    PropertyManager manager = PropertyManagers.create();
+    ListProperty<Integer> levels = CollectionProperties.list(manager, PARTY_LEVELS);
+    Property<Integer> totalLevel =
+        levels.aggregate(TOTAL_LEVEL, CollectionAggregates.sum(0, (level) -> level));
+    PropertyHistory history = PropertyHistories.create(manager);
+
+    Identifier first = levels.add(5);
+    levels.add(7);
+    history.undo();
+
+    assertThat(levels.get(), equalTo(ImmutableList.of(5)));
+    assertThat(totalLevel.get(), equalTo(5));
+
+    history.redo();
+
+    assertThat(levels.get(), equalTo(ImmutableList.of(5, 7)));
+    assertThat(totalLevel.get(), equalTo(12));
+
+    levels.batch(() -> {
+      levels.remove(first);
+      levels.add(3);
+    });
+    history.undo();
+
+    assertThat(levels.get(), equalTo(ImmutableList.of(5, 7)));
+    assertThat(totalLevel.get(), equalTo(12));
+
+    history.undo();
+    history.undo();
+
+    assertTrue(levels.isEmpty());
+    assertThat(totalLevel.get(), equalTo(0));
+    assertFalse(history.canUndo());
+  }
+
+  @Test
+  public void test_averages_after_cancellation() {
+    PropertyManager manager = PropertyManagers.create();
+    ListProperty<Double> levels = CollectionProperties.list(manager, FRACTIONAL_LEVELS);
+    Property<Double> averageLevel =
+        levels.aggregate(AVERAGE_LEVEL, CollectionAggregates.average((level) -> level));
+    Identifier outlier = levels.add(1e16);
+    levels.add(1.0);
+
+    levels.remove(outlier);
+
+    assertThat(averageLevel.get(), equalTo(1.0));
+  }
+
+  @Test
+  public void test_rejected_changes() {
+    PropertyManager manager = PropertyManagers.create();
+    ListProperty<Integer> levels = CollectionProperties.list(manager, PARTY_LEVELS);
+    Property<Integer> totalLevel =
+        levels.aggregate(TOTAL_LEVEL, CollectionAggregates.sum(0, (level) -> level));
+    totalLevel.setValidator(
+        (context, value) -> checkArgument(value <= 10, "total level cannot exceed 10"));
+    MapProperty<String, Integer> levelsByParity = levels.groupBy(LEVELS_BY_PARITY,
+        (level) -> level % 2 == 0 ? "even" : "odd", CollectionAggregates::count);
+    levels.add(5);
+
+    try {
+      levels.add(20);
+      fail("expected the total level to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    // the elements and the running aggregates are rolled back along with the properties
+    assertThat(levels.get(), equalTo(ImmutableList.of(5)));
+    assertThat(totalLevel.get(), equalTo(5));
+    assertThat(levelsByParity.get(), equalTo(ImmutableMap.of("odd", 1)));
+
+    levels.add(1);
+
+    assertThat(levels.get(), equalTo(ImmutableList.of(5, 1)));
+    assertThat(totalLevel.get(), equalTo(6));
+    assertThat(levelsByParity.get(), equalTo(ImmutableMap.of("odd", 2)));
+
+    levels.add(4);
+
+    assertThat(totalLevel.get(), equalTo(10));
+    assertThat(levelsByParity.get(), equalTo(ImmutableMap.of("odd", 2, "even", 1)));
+  }
+
+  private static class Id<V> implements PropertyIdentifier<V> {
+    private final String name;
+    private final V defaultValue;
+
+    private Id(String name, V defaultValue) {
+      this.name = name;
+      this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public V getDefaultValue() {
+      return defaultValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Class<V> getType() {
+      return (Class<V>) defaultValue.getClass();
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+}
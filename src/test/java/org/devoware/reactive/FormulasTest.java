@@ -0,0 +1,170 @@
+package org.devoware.reactive;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.devoware.reactive.testutil.BasicProperty.MELEE_ATTACK_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.function.Function;
+
+import org.devoware.reactive.property.Formula;
+import org.devoware.reactive.property.FormulaException;
+import org.devoware.reactive.property.Formulas;
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyContext;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.testutil.Sense;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FormulasTest {
+
+  private static final PropertyIdentifier<Long> EXPERIENCE = new PropertyIdentifier<Long>() {
+    @Override
+    public Long getDefaultValue() {
+      return 0L;
+    }
+
+    @Override
+    public Class<Long> getType() {
+      return Long.class;
+    }
+
+    @Override
+    public String toString() {
+      return "EXPERIENCE";
+    }
+  };
+
+  private static final Function<String, PropertyIdentifier<?>> RESOLVER =
+      Formulas.resolver(STRENGTH, STRENGTH_MOD, LEVEL, PROFICIENCY_BONUS, MELEE_ATTACK_MOD,
+          Sense.DARKVISION, EXPERIENCE);
+
+  private PropertyManager manager;
+
+  @Before
+  public void setup() {
+    manager = PropertyManagers.create();
+  }
+
+  @Test
+  public void test_formulas() {
+    Formula<Integer> strengthModifierFormula =
+        Formulas.compileInt("(STRENGTH - 10) / 2", RESOLVER);
+    Formula<Integer> meleeAttackModifierFormula =
+        Formulas.compileInt("STRENGTH_MOD + PROFICIENCY_BONUS", RESOLVER);
+
+    assertThat(strengthModifierFormula.getInputs().size(), equalTo(1));
+    assertTrue(strengthModifierFormula.getInputs().contains(STRENGTH));
+
+    Property<Integer> strength = manager.create(STRENGTH).withValue(17).build();
+    Property<Integer> proficiencyBonus = manager.create(PROFICIENCY_BONUS)
+        .withValue(Formulas.compileInt("min(6, max(2, (LEVEL - 1) / 4 + 2))", RESOLVER))
+        .build();
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue(strengthModifierFormula)
+        .build();
+    Property<Integer> meleeAttackModifier = manager.create(MELEE_ATTACK_MOD)
+        .withValue(meleeAttackModifierFormula)
+        .build();
+
+    assertThat(manager.getConsumerBindings(meleeAttackModifier).size(), equalTo(2));
+    assertThat(proficiencyBonus.get(), equalTo(2));
+    assertThat(strengthModifier.get(), equalTo(3));
+    assertThat(meleeAttackModifier.get(), equalTo(5));
+
+    manager.get(LEVEL).set(12);
+    strength.set(18);
+
+    assertThat(proficiencyBonus.get(), equalTo(4));
+    assertThat(strengthModifier.get(), equalTo(4));
+    assertThat(meleeAttackModifier.get(), equalTo(8));
+  }
+
+  @Test
+  public void test_double_formulas() {
+    PropertyContext context = new PropertyContext() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public <V> V get(PropertyIdentifier<V> id) {
+        return (V) Integer.valueOf(17);
+      }
+    };
+
+    assertThat(Formulas.compileDouble("-STRENGTH * 1.5 % 4 + abs(-2)", RESOLVER)
+        .onBoundValueChanged(context), equalTo(0.5));
+    assertThat(Formulas.compileLong("STRENGTH * 1000000000", RESOLVER)
+        .onBoundValueChanged(context), equalTo(17000000000L));
+  }
+
+  // the exceptions of the arithmetic are thrown as they are, rather than wrapped
+  @Test
+  public void test_division_by_zero() {
+    Formula<Integer> formula = Formulas.compileInt("STRENGTH / (LEVEL - 1)", RESOLVER);
+    Property<Integer> strength = manager.create(STRENGTH).withValue(12).build();
+    Property<Integer> level = manager.create(LEVEL).withValue(4).build();
+    Property<Integer> quotient = manager.create(STRENGTH_MOD).withValue(formula).build();
+
+    try {
+      level.set(1);
+      fail("Expected an ArithmeticException");
+    } catch (ArithmeticException e) {}
+
+    assertThat(level.get(), equalTo(4));
+    assertThat(quotient.get(), equalTo(4));
+
+    strength.set(18);
+
+    assertThat(quotient.get(), equalTo(6));
+  }
+
+  @Test
+  public void test_invalid_formulas() {
+    assertInvalid("(STRENGTH - 10 / 2");
+    assertInvalid("STRENGTH -");
+    assertInvalid("STRENGTH 10");
+    assertInvalid("UNKNOWN + 1");
+    assertInvalid("DARKVISION + 1");
+    assertInvalid("pow(STRENGTH, 2)");
+    assertInvalid("STRENGTH * 1.5");
+    // a long input would be truncated by an int formula
+    assertInvalid("EXPERIENCE / 1000");
+    // so would a literal beyond the range of an int
+    assertInvalid("STRENGTH + 3000000000");
+    assertInvalid("STRENGTH + 99999999999999999999");
+  }
+
+  @Test
+  public void test_long_inputs() {
+    PropertyContext context = new PropertyContext() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public <V> V get(PropertyIdentifier<V> id) {
+        Number value = id == EXPERIENCE ? (Number) 5_000_000_000L : (Number) 17;
+        return (V) value;
+      }
+    };
+
+    assertThat(Formulas.compileLong("EXPERIENCE + STRENGTH", RESOLVER)
+        .onBoundValueChanged(context), equalTo(5_000_000_017L));
+    assertThat(Formulas.compile("EXPERIENCE / 2", Long.class, RESOLVER)
+        .onBoundValueChanged(context), equalTo(2_500_000_000L));
+    assertThat(Formulas.compileLong("STRENGTH + 3000000000", RESOLVER)
+        .onBoundValueChanged(context), equalTo(3_000_000_017L));
+  }
+
+  private static void assertInvalid(String expression) {
+    try {
+      Formulas.compileInt(expression, RESOLVER);
+      fail("Expected a FormulaException for " + expression);
+    } catch (FormulaException e) {}
+  }
+
+}
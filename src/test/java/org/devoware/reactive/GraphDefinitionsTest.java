@@ -0,0 +1,209 @@
+package org.devoware.reactive;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.devoware.reactive.testutil.BasicProperty.MELEE_ATTACK_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import org.devoware.reactive.property.CyclicBindingException;
+import org.devoware.reactive.property.Formulas;
+import org.devoware.reactive.property.GraphDefinition;
+import org.devoware.reactive.property.GraphDefinitionException;
+import org.devoware.reactive.property.GraphDefinitions;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+
+public class GraphDefinitionsTest {
+
+  private static final Function<String, PropertyIdentifier<?>> RESOLVER =
+      Formulas.resolver(STRENGTH, STRENGTH_MOD, LEVEL, PROFICIENCY_BONUS, MELEE_ATTACK_MOD);
+
+  /* @formatter: off */
+  private static final String DEFINITION =
+      "# derived character statistics\n" +
+      "property MELEE_ATTACK_MOD = STRENGTH_MOD + PROFICIENCY_BONUS\n" +
+      "property STRENGTH_MOD = (STRENGTH - 10) / 2\n" +
+      "property PROFICIENCY_BONUS = min(6, (LEVEL - 1) / 4 + 2)\n" +
+      "property STRENGTH = 14\n" +
+      "property LEVEL = 1\n" +
+      "validator LEVEL 1 .. 20\n" +
+      "modifier STRENGTH last = max(value, 19)\n";
+  /* @formatter: on */
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void test_plan_cache() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("character.rules");
+    Path cache = folder.getRoot().toPath().resolve("character.plan");
+    Files.write(file, DEFINITION.getBytes(StandardCharsets.UTF_8));
+
+    GraphDefinition cold = GraphDefinitions.load(file, cache, RESOLVER);
+
+    assertFalse(cold.isPlanFromCache());
+    assertTrue(Files.exists(cache));
+    List<PropertyIdentifier<?>> order = cold.getEvaluationOrder();
+    assertThat(order.size(), equalTo(5));
+    assertTrue(order.indexOf(STRENGTH) < order.indexOf(STRENGTH_MOD));
+    assertTrue(order.indexOf(STRENGTH_MOD) < order.indexOf(MELEE_ATTACK_MOD));
+    assertTrue(order.indexOf(LEVEL) < order.indexOf(PROFICIENCY_BONUS));
+    assertTrue(order.indexOf(PROFICIENCY_BONUS) < order.indexOf(MELEE_ATTACK_MOD));
+
+    GraphDefinition warm = GraphDefinitions.load(file, cache, RESOLVER);
+
+    assertTrue(warm.isPlanFromCache());
+    assertThat(warm.getEvaluationOrder(), equalTo(order));
+
+    PropertyManager manager = PropertyManagers.create();
+    warm.install(manager);
+
+    assertThat(manager.get(STRENGTH).get(), equalTo(19));
+    assertThat(manager.get(STRENGTH_MOD).get(), equalTo(4));
+    assertThat(manager.get(PROFICIENCY_BONUS).get(), equalTo(2));
+    assertThat(manager.get(MELEE_ATTACK_MOD).get(), equalTo(6));
+    assertThat(manager.getConsumerBindings(manager.get(MELEE_ATTACK_MOD)).size(), equalTo(2));
+
+    manager.get(LEVEL).set(9);
+
+    assertThat(manager.get(MELEE_ATTACK_MOD).get(), equalTo(8));
+
+    try {
+      manager.get(LEVEL).set(21);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+
+    Files.write(file, (DEFINITION + "property LEVEL = 5\n").replace("property LEVEL = 1\n", "")
+        .getBytes(StandardCharsets.UTF_8));
+
+    GraphDefinition changed = GraphDefinitions.load(file, cache, RESOLVER);
+
+    assertFalse(changed.isPlanFromCache());
+    assertTrue(GraphDefinitions.load(file, cache, RESOLVER).isPlanFromCache());
+  }
+
+  // a cache with the right hash whose contents are corrupt is recomputed and rewritten
+  @Test
+  public void test_corrupt_plan_cache() throws IOException {
+    String text = "property STRENGTH_MOD = (STRENGTH - 10) / 2\nproperty STRENGTH = 14\n";
+    Path file = folder.getRoot().toPath().resolve("strength.rules");
+    Path cache = folder.getRoot().toPath().resolve("strength.plan");
+    Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    String hash = Hashing.sha256().hashString(text, StandardCharsets.UTF_8).toString();
+
+    // the slots of STRENGTH_MOD and STRENGTH are 0 and 1; slot 7 does not exist
+    writePlan(cache, hash, new int[] {1, 7}, new int[][] {{}, {1}});
+    assertRecomputed(file, cache);
+
+    // STRENGTH_MOD is ordered before STRENGTH, which it reads
+    writePlan(cache, hash, new int[] {0, 1}, new int[][] {{1}, {}});
+    assertRecomputed(file, cache);
+
+    // STRENGTH_MOD is bound to itself rather than to STRENGTH
+    writePlan(cache, hash, new int[] {1, 0}, new int[][] {{}, {0}});
+    assertRecomputed(file, cache);
+  }
+
+  // a cache that was damaged on disk fails its checksum, and is recomputed
+  @Test
+  public void test_damaged_plan_cache() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("character.rules");
+    Path cache = folder.getRoot().toPath().resolve("character.plan");
+    Files.write(file, DEFINITION.getBytes(StandardCharsets.UTF_8));
+    List<PropertyIdentifier<?>> order = GraphDefinitions.load(file, cache, RESOLVER)
+        .getEvaluationOrder();
+    byte[] bytes = Files.readAllBytes(cache);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(cache, bytes);
+
+    GraphDefinition definition = GraphDefinitions.load(file, cache, RESOLVER);
+
+    assertFalse(definition.isPlanFromCache());
+    assertThat(definition.getEvaluationOrder(), equalTo(order));
+    assertTrue(GraphDefinitions.load(file, cache, RESOLVER).isPlanFromCache());
+  }
+
+  @Test(expected = CyclicBindingException.class)
+  public void test_cycles() {
+    GraphDefinitions.parse(
+        "property STRENGTH = STRENGTH_MOD + 10\nproperty STRENGTH_MOD = (STRENGTH - 10) / 2",
+        RESOLVER);
+  }
+
+  // an existing consumer of STRENGTH_MOD would close a cycle with the plan's bindings
+  @Test(expected = CyclicBindingException.class)
+  public void test_cycles_through_existing_properties() {
+    PropertyManager manager = PropertyManagers.create();
+    manager.create(LEVEL).withValue((context) -> context.get(MELEE_ATTACK_MOD)).build();
+
+    GraphDefinitions.parse(
+        "property MELEE_ATTACK_MOD = STRENGTH_MOD + 2\nproperty STRENGTH_MOD = LEVEL / 2",
+        RESOLVER).install(manager);
+  }
+
+  @Test(expected = GraphDefinitionException.class)
+  public void test_syntax_errors() {
+    GraphDefinitions.parse("property STRENGTH = (STRENGTH_MOD + 10", RESOLVER);
+  }
+
+  private static void assertRecomputed(Path file, Path cache) throws IOException {
+    GraphDefinition definition = GraphDefinitions.load(file, cache, RESOLVER);
+
+    assertFalse(definition.isPlanFromCache());
+    assertThat(definition.getEvaluationOrder(), equalTo(ImmutableList.of(STRENGTH, STRENGTH_MOD)));
+    assertTrue(GraphDefinitions.load(file, cache, RESOLVER).isPlanFromCache());
+  }
+
+  // writes a plan in the format of the cache, with the slots STRENGTH_MOD and STRENGTH and a
+  // checksum that matches, so that only the structure of the plan is wrong
+  private static void writePlan(Path cache, String hash, int[] order, int[][] producers)
+      throws IOException {
+    ByteArrayOutputStream contents = new ByteArrayOutputStream();
+    DataOutputStream data = new DataOutputStream(contents);
+    data.writeUTF(hash);
+    data.writeInt(2);
+    data.writeUTF(STRENGTH_MOD.toString());
+    data.writeUTF(STRENGTH.toString());
+    data.writeInt(order.length);
+    for (int i = 0; i < order.length; i++) {
+      data.writeInt(order[i]);
+      data.writeInt(producers[i].length);
+      for (int producer : producers[i]) {
+        data.writeInt(producer);
+      }
+    }
+    byte[] bytes = contents.toByteArray();
+    CRC32 checksum = new CRC32();
+    checksum.update(bytes);
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(cache))) {
+      out.writeInt(0x52504c4e);
+      out.writeInt(2);
+      out.writeLong(checksum.getValue());
+      out.write(bytes);
+    }
+  }
+
+}
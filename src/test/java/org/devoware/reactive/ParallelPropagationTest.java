@@ -0,0 +1,212 @@
+package org.devoware.reactive;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.property.ValidationResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class ParallelPropagationTest {
+  private static final int COMPONENTS = 64;
+  private static final int CHAIN_LENGTH = 8;
+
+  private ExecutorService executor;
+  private AtomicInteger laneRuns;
+  private PropertyManager manager;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    laneRuns = new AtomicInteger();
+    manager = PropertyManagers.builder()
+        .withPropagationLanes((task) -> {
+          laneRuns.incrementAndGet();
+          executor.execute(task);
+        }, 4)
+        .build();
+    defineChains(manager);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  // each component is a chain whose every link adds one to the link before it
+  @Test
+  public void test_parallel_passes() {
+    PropertyManager sequential = PropertyManagers.create();
+    defineChains(sequential);
+    Set<PropertyIdentifier<?>> fired = Sets.newConcurrentHashSet();
+    AtomicInteger firings = new AtomicInteger();
+    for (int component = 0; component < COMPONENTS; component++) {
+      Property<Integer> tail = manager.get(new Link(component, CHAIN_LENGTH - 1));
+      tail.addPropertyChangeListener((id, value) -> {
+        fired.add(id);
+        firings.incrementAndGet();
+      });
+    }
+
+    for (int round = 1; round <= 3; round++) {
+      setSources(manager, round * 100);
+      setSources(sequential, round * 100);
+    }
+
+    assertTrue(laneRuns.get() > 0);
+    assertThat(fired.size(), equalTo(COMPONENTS));
+    assertThat(firings.get(), equalTo(3 * COMPONENTS));
+    for (int component = 0; component < COMPONENTS; component++) {
+      for (int index = 0; index < CHAIN_LENGTH; index++) {
+        Link link = new Link(component, index);
+        assertThat(manager.get(link).get(), equalTo(sequential.get(link).get()));
+      }
+      assertThat(manager.get(new Link(component, CHAIN_LENGTH - 1)).get(),
+          equalTo(300 + component + CHAIN_LENGTH - 1));
+    }
+  }
+
+  // passes smaller than the configured minimum are recomputed in order
+  @Test
+  public void test_min_parallel_pass() {
+    AtomicInteger runs = new AtomicInteger();
+    PropertyManager small = PropertyManagers.builder()
+        .withPropagationLanes((task) -> {
+          runs.incrementAndGet();
+          executor.execute(task);
+        }, 4, COMPONENTS * CHAIN_LENGTH + 1)
+        .build();
+    defineChains(small);
+
+    setSources(small, 100);
+
+    assertThat(runs.get(), equalTo(0));
+    assertThat(small.get(new Link(3, CHAIN_LENGTH - 1)).get(), equalTo(103 + CHAIN_LENGTH - 1));
+
+    small = PropertyManagers.builder()
+        .withPropagationLanes((task) -> {
+          runs.incrementAndGet();
+          executor.execute(task);
+        }, 4, COMPONENTS * CHAIN_LENGTH)
+        .build();
+    defineChains(small);
+
+    setSources(small, 100);
+
+    assertTrue(runs.get() > 0);
+    assertThat(small.get(new Link(3, CHAIN_LENGTH - 1)).get(), equalTo(103 + CHAIN_LENGTH - 1));
+  }
+
+  // the new binding unites two components that were recomputed on different lanes
+  @Test
+  public void test_new_binding_during_parallel_pass() {
+    Link tail = new Link(0, CHAIN_LENGTH - 1);
+    Link other = new Link(1, CHAIN_LENGTH - 1);
+    Link source = new Link(0, 0);
+    manager.get(tail).set((context) -> context.get(new Link(0, CHAIN_LENGTH - 2)) > 100
+        ? context.get(other) : -1);
+
+    setSources(manager, 200);
+
+    assertTrue(laneRuns.get() > 0);
+    assertThat(manager.get(tail).get(), equalTo(201 + CHAIN_LENGTH - 1));
+
+    manager.get(new Link(1, 0)).set(0);
+
+    assertThat(manager.get(tail).get(), equalTo(CHAIN_LENGTH - 1));
+    assertThat(manager.get(source).get(), equalTo(200));
+  }
+
+  @Test
+  public void test_rejection_rolls_back_every_lane() {
+    Link guarded = new Link(5, CHAIN_LENGTH - 1);
+    manager.get(guarded).setValidationRule((context, value) ->
+        value < 1000 ? ValidationResult.valid() : ValidationResult.invalid("too large"));
+    setSources(manager, 10);
+
+    try {
+      setSources(manager, 2000);
+      fail("the pass should have been rejected");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), equalTo("too large"));
+    }
+
+    for (int component = 0; component < COMPONENTS; component++) {
+      Property<Integer> link = manager.get(new Link(component, CHAIN_LENGTH - 1));
+      assertThat(link.get(), equalTo(10 + component + CHAIN_LENGTH - 1));
+    }
+  }
+
+  private static void setSources(PropertyManager manager, int offset) {
+    manager.batch(() -> {
+      for (int component = 0; component < COMPONENTS; component++) {
+        manager.get(new Link(component, 0)).set(offset + component);
+      }
+    });
+  }
+
+  private static void defineChains(PropertyManager manager) {
+    for (int component = 0; component < COMPONENTS; component++) {
+      manager.create(new Link(component, 0)).withValue(component).build();
+      for (int index = 1; index < CHAIN_LENGTH; index++) {
+        Link previous = new Link(component, index - 1);
+        manager.create(new Link(component, index))
+            .withValue((context) -> context.get(previous) + 1).build();
+      }
+    }
+  }
+
+  private static class Link implements PropertyIdentifier<Integer> {
+    private final int component;
+    private final int index;
+
+    private Link(int component, int index) {
+      this.component = component;
+      this.index = index;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Link)) {
+        return false;
+      }
+      Link other = (Link) obj;
+      return other.component == component && other.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * component + index;
+    }
+
+    @Override
+    public String toString() {
+      return "LINK_" + component + "_" + index;
+    }
+  }
+
+}
@@ -0,0 +1,220 @@
+package org.devoware.reactive;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.devoware.reactive.testutil.BasicProperty.MELEE_ATTACK_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.devoware.reactive.property.AggregateModifiers;
+import org.devoware.reactive.property.Identifier;
+import org.devoware.reactive.property.PropertyActor;
+import org.devoware.reactive.property.PropertyActors;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.testutil.ValueMaps;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+
+public class PropertyActorTest {
+
+  @Test
+  public void test_batched_commands() throws Exception {
+    Queue<Runnable> tasks = Queues.newArrayDeque();
+    PropertyManager manager = createManager();
+    List<Integer> values = Lists.newArrayList();
+    manager.get(MELEE_ATTACK_MOD).addPropertyChangeListener((id, value) -> values.add(value));
+    PropertyActor actor = PropertyActors.create(manager, tasks::add);
+
+    CompletableFuture<Void> strength = actor.set(STRENGTH, 18);
+    CompletableFuture<Void> level = actor.set(LEVEL, 5);
+    CompletableFuture<Identifier> modifier =
+        actor.addModifier(STRENGTH_MOD, AggregateModifiers.sum(1));
+    CompletableFuture<Integer> melee = actor.get(MELEE_ATTACK_MOD);
+    CompletableFuture<Void> rejected = actor.set(LEVEL, 21);
+
+    // the actor is scheduled once, however many commands are queued
+    assertThat(tasks.size(), equalTo(1));
+    assertFalse(strength.isDone());
+
+    tasks.poll().run();
+
+    assertThat(melee.get(), equalTo(8));
+    // the three writes ahead of the read were propagated together
+    assertThat(values, equalTo(Lists.newArrayList(8)));
+    assertTrue(strength.isDone() && level.isDone() && modifier.isDone());
+    try {
+      rejected.get();
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+    }
+    assertThat(manager.get(LEVEL).get(), equalTo(5));
+    assertTrue(tasks.isEmpty());
+
+    actor.removeModifier(STRENGTH_MOD, modifier.get());
+    CompletableFuture<Integer> proficiency = actor.read((m) -> m.get(PROFICIENCY_BONUS).get());
+    tasks.poll().run();
+
+    assertThat(proficiency.get(), equalTo(3));
+    assertThat(manager.get(MELEE_ATTACK_MOD).get(), equalTo(7));
+  }
+
+  // only the write that is rejected downstream fails, rather than the batch it was run in
+  @Test
+  public void test_rejected_write() throws Exception {
+    Queue<Runnable> tasks = Queues.newArrayDeque();
+    PropertyManager manager = createManager();
+    manager.get(MELEE_ATTACK_MOD).setValidator((context, value) -> {
+      if (value > 8) {
+        throw new IllegalArgumentException("melee attack modifier cannot exceed 8");
+      }
+    });
+    PropertyActor actor = PropertyActors.create(manager, tasks::add);
+
+    CompletableFuture<Void> level = actor.set(LEVEL, 5);
+    CompletableFuture<Void> strength = actor.set(STRENGTH, 30);
+    CompletableFuture<Identifier> modifier =
+        actor.addModifier(STRENGTH_MOD, AggregateModifiers.sum(1));
+    tasks.poll().run();
+
+    assertTrue(level.isDone() && modifier.isDone());
+    try {
+      strength.get();
+      fail("Expected an ExecutionException");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+    }
+    assertThat(manager.get(LEVEL).get(), equalTo(5));
+    assertThat(manager.get(STRENGTH).get(), equalTo(14));
+    assertThat(manager.get(MELEE_ATTACK_MOD).get(), equalTo(6));
+  }
+
+  // a listener that throws once the batch has committed fails its writes, which are not run again
+  @Test
+  public void test_failing_listener() throws Exception {
+    Queue<Runnable> tasks = Queues.newArrayDeque();
+    PropertyManager manager = createManager();
+    manager.get(STRENGTH).set(10);
+    int[] failures = {1};
+    manager.get(STRENGTH).addPropertyChangeListener((id, value) -> {
+      if (failures[0]-- > 0) {
+        throw new IllegalStateException("listener failed");
+      }
+    });
+    PropertyActor actor = PropertyActors.create(manager, tasks::add);
+    List<Integer> updates = Lists.newArrayList();
+
+    CompletableFuture<Identifier> small = actor.addModifier(STRENGTH, AggregateModifiers.sum(1));
+    CompletableFuture<Identifier> large =
+        actor.addModifier(STRENGTH, AggregateModifiers.sum(100));
+    CompletableFuture<Void> update = actor.update((m) -> {
+      updates.add(1);
+      return null;
+    });
+    tasks.poll().run();
+
+    assertThat(manager.get(STRENGTH).get(), equalTo(111));
+    assertThat(updates.size(), equalTo(1));
+    for (CompletableFuture<?> future : Lists.newArrayList(small, large, update)) {
+      try {
+        future.get();
+        fail("Expected an ExecutionException");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause().getMessage(), equalTo("listener failed"));
+      }
+    }
+
+    CompletableFuture<Void> strength = actor.set(STRENGTH, 12);
+    tasks.poll().run();
+
+    strength.get();
+    assertThat(manager.get(STRENGTH).get(), equalTo(113));
+  }
+
+  @Test
+  public void test_errors_complete_futures() throws Exception {
+    Queue<Runnable> tasks = Queues.newArrayDeque();
+    PropertyActor actor = PropertyActors.create(createManager(), tasks::add);
+
+    CompletableFuture<Void> level = actor.set(LEVEL, 5);
+    CompletableFuture<Void> failed = actor.update((manager) -> {
+      throw new AssertionError("failed");
+    });
+    try {
+      tasks.poll().run();
+      fail("Expected an AssertionError");
+    } catch (AssertionError e) {}
+
+    assertTrue(level.isCompletedExceptionally());
+    assertTrue(failed.isCompletedExceptionally());
+  }
+
+  @Test
+  public void test_shared_executor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<PropertyActor> actors = Lists.newArrayList();
+      for (int i = 0; i < 100; i++) {
+        actors.add(PropertyActors.create(createManager(), executor, 8));
+      }
+      List<Thread> senders = Lists.newArrayList();
+      for (int t = 0; t < 4; t++) {
+        Thread sender = new Thread(() -> {
+          for (int i = 0; i < 250; i++) {
+            for (PropertyActor actor : actors) {
+              actor.addModifier(STRENGTH, AggregateModifiers.sum(1));
+            }
+          }
+        });
+        senders.add(sender);
+        sender.start();
+      }
+      for (Thread sender : senders) {
+        sender.join();
+      }
+      for (PropertyActor actor : actors) {
+        assertThat(actor.get(STRENGTH).get(10, TimeUnit.SECONDS), equalTo(1014));
+        assertThat(actor.get(STRENGTH_MOD).get(10, TimeUnit.SECONDS), equalTo(502));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static PropertyManager createManager() {
+    PropertyManager manager = PropertyManagers.create();
+    manager.create(STRENGTH).withValue(14).build();
+    manager.create(STRENGTH_MOD).withValue((context) -> (context.get(STRENGTH) - 10) / 2).build();
+    manager.create(LEVEL).withValue(1)
+        .withValidator((context, value) -> {
+          if (value > 20) {
+            throw new IllegalArgumentException("level cannot exceed 20");
+          }
+        }).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+        .build();
+    manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+    return manager;
+  }
+
+}
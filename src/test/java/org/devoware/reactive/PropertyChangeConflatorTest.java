@@ -0,0 +1,180 @@
+package org.devoware.reactive;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.devoware.reactive.property.ConflatedPropertyChangeListener;
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyChangeConflator;
+import org.devoware.reactive.property.PropertyChangeListener;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class PropertyChangeConflatorTest {
+
+  private PropertyManager manager;
+  private PropertyChangeConflator conflator;
+
+  @Before
+  public void setup() {
+    manager = PropertyManagers.create();
+    conflator = PropertyChangeConflator.create();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void test_conflation() {
+    Property<Integer> strength = manager.create(STRENGTH)
+        .withValue(8)
+        .build();
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .build();
+
+    ConflatedPropertyChangeListener<Integer> strengthListener =
+        mock(ConflatedPropertyChangeListener.class);
+    ConflatedPropertyChangeListener<Integer> strengthModifierListener =
+        mock(ConflatedPropertyChangeListener.class);
+    PropertyChangeListener<Integer> registration =
+        conflator.addPropertyChangeListener(strength, strengthListener);
+    conflator.addPropertyChangeListener(strengthModifier, strengthModifierListener);
+
+    strength.set(12);
+    strength.set(14);
+    strength.set(17);
+
+    verify(strengthListener, never()).onValueChanged(any(), any(), any());
+
+    conflator.flush();
+
+    verify(strengthListener, times(1)).onValueChanged(any(), any(), any());
+    verify(strengthListener, times(1)).onValueChanged(eq(STRENGTH), eq(8), eq(17));
+    verify(strengthModifierListener, times(1)).onValueChanged(any(), any(), any());
+    verify(strengthModifierListener, times(1)).onValueChanged(eq(STRENGTH_MOD), eq(-1), eq(3));
+
+    // a window in which the value returns to where it started yields no notification
+    strength.set(10);
+    strength.set(17);
+    conflator.flush();
+
+    verify(strengthListener, times(1)).onValueChanged(any(), any(), any());
+    verify(strengthModifierListener, times(1)).onValueChanged(any(), any(), any());
+
+    strength.removePropertyChangeListener(registration);
+    strength.set(18);
+    conflator.flush();
+
+    verify(strengthListener, times(1)).onValueChanged(any(), any(), any());
+    verify(strengthModifierListener, times(1)).onValueChanged(eq(STRENGTH_MOD), eq(3), eq(4));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void test_failing_listeners() {
+    Property<Integer> strength = manager.create(STRENGTH).withValue(8).build();
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2).build();
+    ConflatedPropertyChangeListener<Integer> strengthModifierListener =
+        mock(ConflatedPropertyChangeListener.class);
+    conflator.addPropertyChangeListener(strength, (id, oldValue, newValue) -> {
+      throw new IllegalStateException("listener failed");
+    });
+    conflator.addPropertyChangeListener(strengthModifier, strengthModifierListener);
+
+    strength.set(14);
+    try {
+      conflator.flush();
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertThat(e.getMessage(), equalTo("listener failed"));
+    }
+
+    // the failure is rethrown once every other entry has been delivered
+    verify(strengthModifierListener, times(1)).onValueChanged(eq(STRENGTH_MOD), eq(-1), eq(2));
+  }
+
+  // a listener that flushes the conflator is only notified again once the current flush has
+  // delivered every entry
+  @SuppressWarnings("unchecked")
+  @Test
+  public void test_reentrant_flush() {
+    Property<Integer> strength = manager.create(STRENGTH).withValue(8).build();
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2).build();
+    ConflatedPropertyChangeListener<Integer> strengthModifierListener =
+        mock(ConflatedPropertyChangeListener.class);
+    List<Integer> strengths = Lists.newArrayList();
+    conflator.addPropertyChangeListener(strength, (id, oldValue, newValue) -> {
+      strengths.add(newValue);
+      if (newValue < 16) {
+        strength.set(16);
+        conflator.flush();
+        assertThat(strengths, equalTo(Lists.newArrayList(14)));
+      }
+    });
+    conflator.addPropertyChangeListener(strengthModifier, strengthModifierListener);
+
+    strength.set(14);
+    conflator.flush();
+
+    assertThat(strengths, equalTo(Lists.newArrayList(14, 16)));
+    verify(strengthModifierListener, times(2)).onValueChanged(any(), any(), any());
+    verify(strengthModifierListener, times(1)).onValueChanged(eq(STRENGTH_MOD), eq(-1), eq(2));
+    verify(strengthModifierListener, times(1)).onValueChanged(eq(STRENGTH_MOD), eq(2), eq(3));
+
+    strength.set(18);
+    conflator.flush();
+
+    assertThat(strengths, equalTo(Lists.newArrayList(14, 16, 18)));
+    verify(strengthModifierListener, times(1)).onValueChanged(eq(STRENGTH_MOD), eq(3), eq(4));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void test_scheduled_flushes_survive_failures() throws InterruptedException {
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    List<RuntimeException> failures = Lists.newCopyOnWriteArrayList();
+    try (PropertyChangeConflator scheduled =
+        PropertyChangeConflator.create(10, TimeUnit.MILLISECONDS, executor, failures::add)) {
+      Property<Integer> strength = manager.create(STRENGTH).withValue(8).build();
+      CountDownLatch delivered = new CountDownLatch(2);
+      scheduled.addPropertyChangeListener(strength, (id, oldValue, newValue) -> {
+        delivered.countDown();
+        throw new IllegalStateException("listener failed");
+      });
+
+      strength.set(14);
+      while (failures.isEmpty()) {
+        Thread.sleep(5);
+      }
+      strength.set(16);
+
+      // the failure did not cancel the flushes that follow it
+      assertTrue(delivered.await(5, TimeUnit.SECONDS));
+      assertThat(failures.get(0).getMessage(), equalTo("listener failed"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
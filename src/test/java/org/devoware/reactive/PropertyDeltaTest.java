@@ -0,0 +1,238 @@
+package org.devoware.reactive;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.devoware.reactive.testutil.BasicProperty.MELEE_ATTACK_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
+import static org.devoware.reactive.testutil.Sense.DARKVISION;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.devoware.reactive.property.AggregateModifiers;
+import org.devoware.reactive.property.CollectionProperties;
+import org.devoware.reactive.property.Formulas;
+import org.devoware.reactive.property.ListProperty;
+import org.devoware.reactive.property.PropertyDeltaEncoder;
+import org.devoware.reactive.property.PropertyDeltas;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.property.PropertyReplica;
+import org.devoware.reactive.testutil.ValueMaps;
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.primitives.Bytes;
+
+public class PropertyDeltaTest {
+  private static final Function<String, PropertyIdentifier<?>> RESOLVER =
+      Formulas.resolver(STRENGTH, STRENGTH_MOD, LEVEL, PROFICIENCY_BONUS, MELEE_ATTACK_MOD);
+  private static final PropertyIdentifier<List<Integer>> PARTY_LEVELS =
+      new PropertyIdentifier<List<Integer>>() {
+        @Override
+        public List<Integer> getDefaultValue() {
+          return ImmutableList.of();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Class<List<Integer>> getType() {
+          return (Class<List<Integer>>) (Class<?>) List.class;
+        }
+
+        @Override
+        public String toString() {
+          return "PARTY_LEVELS";
+        }
+      };
+
+  @Test
+  public void test_replication() {
+    PropertyManager manager = createManager();
+    PropertyDeltaEncoder encoder = PropertyDeltas.encoder(manager);
+    Queue<byte[]> channel = Queues.newArrayDeque();
+    PropertyReplica replica = PropertyDeltas.replica(RESOLVER);
+    List<Set<PropertyIdentifier<?>>> changes = Lists.newArrayList();
+    replica.addChangeListener(changes::add);
+
+    channel.add(encoder.snapshot());
+    deliver(channel, replica);
+
+    assertThat(replica.get(MELEE_ATTACK_MOD), equalTo(4));
+    assertThat(replica.getIds().size(), equalTo(5));
+    assertFalse(encoder.hasChanges());
+
+    manager.get(STRENGTH).set(18);
+    manager.get(STRENGTH).set(16);
+    byte[] delta = encoder.checkpoint();
+    channel.add(delta);
+    deliver(channel, replica);
+
+    assertThat(changes.get(1),
+        equalTo(ImmutableSet.of(STRENGTH, STRENGTH_MOD, MELEE_ATTACK_MOD)));
+    assertThat(replica.get(STRENGTH), equalTo(16));
+    assertThat(replica.get(MELEE_ATTACK_MOD), equalTo(5));
+    assertThat(replica.get(LEVEL), equalTo(1));
+
+    manager.get(STRENGTH).set(20);
+    manager.get(STRENGTH).set(19);
+    delta = encoder.checkpoint();
+    replica.apply(delta);
+
+    // once their slots are declared, only the values that changed are sent, each once, by slot
+    assertThat(delta.length, equalTo(13));
+    assertThat(replica.get(MELEE_ATTACK_MOD), equalTo(6));
+
+    // a late joiner catches up from a snapshot, then follows the same deltas
+    PropertyReplica late = PropertyDeltas.replica(RESOLVER);
+    late.apply(encoder.snapshot());
+    manager.get(LEVEL).addModifier(AggregateModifiers.sum(4));
+    manager.remove(MELEE_ATTACK_MOD);
+    delta = encoder.checkpoint();
+    replica.apply(delta);
+    late.apply(delta);
+    // a delta that was already applied is ignored
+    assertTrue(late.apply(delta).isEmpty());
+
+    for (PropertyReplica r : Lists.newArrayList(replica, late)) {
+      assertThat(r.getSequence(), equalTo(encoder.getSequence()));
+      assertThat(r.get(LEVEL), equalTo(5));
+      assertThat(r.get(PROFICIENCY_BONUS), equalTo(3));
+      assertThat(r.get(MELEE_ATTACK_MOD), nullValue());
+    }
+  }
+
+  @Test
+  public void test_missing_delta() {
+    PropertyManager manager = createManager();
+    PropertyDeltaEncoder encoder = PropertyDeltas.encoder(manager);
+    PropertyReplica replica = PropertyDeltas.replica(RESOLVER);
+    replica.apply(encoder.snapshot());
+    manager.get(STRENGTH).set(12);
+    encoder.checkpoint();
+    manager.get(STRENGTH).set(10);
+    try {
+      replica.apply(encoder.checkpoint());
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+    }
+    assertThat(replica.get(STRENGTH), equalTo(14));
+
+    replica.apply(encoder.snapshot());
+
+    assertThat(replica.get(STRENGTH_MOD), equalTo(0));
+    try {
+      replica.apply(new byte[] {2, 4, 0, 1, 0, 9});
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+    }
+    encoder.close();
+  }
+
+  @Test
+  public void test_unencodable_properties() {
+    PropertyManager manager = createManager();
+    ListProperty<Integer> levels = CollectionProperties.list(manager, PARTY_LEVELS);
+    PropertyDeltaEncoder encoder = PropertyDeltas.encoder(manager, (id) -> id != LEVEL);
+    PropertyReplica replica = PropertyDeltas.replica(RESOLVER);
+    replica.apply(encoder.snapshot());
+
+    assertThat(replica.getIds().size(), equalTo(4));
+
+    // a property whose values cannot be encoded is not tracked, so it cannot fail a checkpoint
+    levels.add(3);
+    assertFalse(encoder.hasChanges());
+    manager.get(LEVEL).set(5);
+    manager.get(STRENGTH).set(16);
+    replica.apply(encoder.checkpoint());
+    manager.remove(PARTY_LEVELS);
+    assertFalse(encoder.hasChanges());
+
+    assertThat(replica.get(LEVEL), nullValue());
+    assertThat(replica.get(PROFICIENCY_BONUS), equalTo(3));
+    assertThat(replica.get(MELEE_ATTACK_MOD), equalTo(6));
+  }
+
+  // strings are not limited to the 64 KB of DataOutput.writeUTF
+  @Test
+  public void test_long_strings() {
+    PropertyManager manager = createManager();
+    manager.create(DARKVISION).withValue("").build();
+    PropertyDeltaEncoder encoder = PropertyDeltas.encoder(manager);
+    PropertyReplica replica = PropertyDeltas.replica(Formulas.resolver(DARKVISION));
+    replica.apply(encoder.snapshot());
+    String description = Strings.repeat("\u00e9", 40000);
+
+    manager.get(DARKVISION).set(description);
+    replica.apply(encoder.checkpoint());
+
+    assertThat(replica.get(DARKVISION), equalTo(description));
+    PropertyReplica late = PropertyDeltas.replica(Formulas.resolver(DARKVISION));
+    late.apply(encoder.snapshot());
+    assertThat(late.get(DARKVISION), equalTo(description));
+  }
+
+  // a length prefix longer than the rest of the delta is rejected before anything is allocated
+  @Test
+  public void test_oversized_string_length() {
+    PropertyManager manager = createManager();
+    manager.create(DARKVISION).withValue("60 ft").build();
+    PropertyDeltaEncoder encoder = PropertyDeltas.encoder(manager);
+    PropertyReplica replica = PropertyDeltas.replica(Formulas.resolver(DARKVISION));
+    replica.apply(encoder.snapshot());
+    byte[] huge = {(byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+    byte[][] deltas = {
+        Bytes.concat(new byte[] {2, 2, 2, 0}, huge, new byte[] {0x41}),
+        Bytes.concat(new byte[] {2, 2, 0, 2, 0, 6}, huge, new byte[] {0x41})};
+    for (byte[] delta : deltas) {
+      try {
+        replica.apply(delta);
+        fail("Expected an IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        assertThat(e.getMessage(), equalTo("malformed delta"));
+      }
+    }
+
+    assertThat(replica.get(DARKVISION), equalTo("60 ft"));
+    manager.get(DARKVISION).set("120 ft");
+    replica.apply(encoder.checkpoint());
+    assertThat(replica.get(DARKVISION), equalTo("120 ft"));
+  }
+
+  private static void deliver(Queue<byte[]> channel, PropertyReplica replica) {
+    byte[] delta;
+    while ((delta = channel.poll()) != null) {
+      replica.apply(delta);
+    }
+  }
+
+  private static PropertyManager createManager() {
+    PropertyManager manager = PropertyManagers.create();
+    manager.create(STRENGTH).withValue(14).build();
+    manager.create(STRENGTH_MOD).withValue((context) -> (context.get(STRENGTH) - 10) / 2).build();
+    manager.create(LEVEL).withValue(1).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+        .build();
+    manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+    return manager;
+  }
+
+}
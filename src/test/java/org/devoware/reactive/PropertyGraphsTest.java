@@ -0,0 +1,105 @@
+package org.devoware.reactive;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.devoware.reactive.testutil.BasicProperty.MELEE_ATTACK_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.devoware.reactive.property.GraphAnalysis;
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyGraphs;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.property.RecomputeProfile;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+
+public class PropertyGraphsTest {
+
+  @Test
+  public void test_graph_analysis() throws Exception {
+    PropertyManager manager = createManager();
+    GraphAnalysis analysis = PropertyGraphs.analyze(manager);
+
+    // the level is read but never created, and is analysed as a placeholder
+    assertThat(analysis.getPropertyCount(), equalTo(5));
+    assertThat(analysis.getBindingCount(), equalTo(5));
+    assertThat(analysis.getDepth(), equalTo(4));
+    assertThat(analysis.getFanInDistribution(), equalTo(ImmutableSortedMap.of(0, 2, 1, 1, 2, 2)));
+    assertThat(analysis.getFanOutDistribution(), equalTo(ImmutableSortedMap.of(0, 1, 1, 3, 2, 1)));
+    assertThat(analysis.getLongestChains(3), equalTo(ImmutableList.of(
+        ImmutableList.of(LEVEL, PROFICIENCY_BONUS, STRENGTH_MOD, MELEE_ATTACK_MOD))));
+    assertThat(analysis.getLargestDownstream(1), equalTo(ImmutableMap.of(LEVEL, 3)));
+    assertThat(analysis.getDownstreamCount(STRENGTH), equalTo(2));
+
+    StringBuilder dot = new StringBuilder();
+    analysis.writeDot(dot);
+
+    assertTrue(dot.toString().startsWith("digraph properties {"));
+    assertThat(dot.toString().split("->", -1).length - 1, equalTo(5));
+    assertThat(dot.toString().split("style=dashed", -1).length - 1, equalTo(1));
+
+    StringBuilder graphMl = new StringBuilder();
+    analysis.writeGraphMl(graphMl);
+    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+        new ByteArrayInputStream(graphMl.toString().getBytes(StandardCharsets.UTF_8)));
+
+    assertThat(document.getElementsByTagName("node").getLength(), equalTo(5));
+    assertThat(document.getElementsByTagName("edge").getLength(), equalTo(5));
+  }
+
+  @Test
+  public void test_recompute_profile() {
+    PropertyManager manager = createManager();
+    RecomputeProfile profile = PropertyGraphs.profile(manager);
+    Property<Integer> strength = manager.get(STRENGTH);
+    for (int i = 0; i < 100; i++) {
+      strength.set(10 + i % 8);
+    }
+    GraphAnalysis analysis = PropertyGraphs.analyze(profile);
+
+    assertThat(profile.getRecomputeCount(STRENGTH_MOD), equalTo(100L));
+    assertThat(profile.getRecomputeCount(PROFICIENCY_BONUS), equalTo(0L));
+    assertTrue(analysis.isProfiled());
+    assertTrue(analysis.getDownstreamCost(STRENGTH) > 0);
+    assertThat(analysis.getCostliestChanges(4).size(), equalTo(4));
+    List<PropertyIdentifier<?>> criticalPath = analysis.getCriticalPath();
+    assertThat(criticalPath.get(criticalPath.size() - 1), equalTo(MELEE_ATTACK_MOD));
+
+    profile.close();
+    strength.set(9);
+
+    assertThat(profile.getRecomputeCount(STRENGTH_MOD), equalTo(100L));
+    profile.reset();
+    assertThat(profile.getRecomputeNanos(STRENGTH_MOD), equalTo(0L));
+  }
+
+  private static PropertyManager createManager() {
+    PropertyManager manager = PropertyManagers.create();
+    manager.create(STRENGTH).withValue(14).build();
+    manager.create(PROFICIENCY_BONUS).withValue((context) -> 2 + context.get(LEVEL) / 4).build();
+    manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2 + context.get(PROFICIENCY_BONUS))
+        .build();
+    manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+    return manager;
+  }
+
+}
@@ -0,0 +1,213 @@
+package org.devoware.reactive;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.devoware.reactive.testutil.BasicProperty.MELEE_ATTACK_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.devoware.reactive.property.AggregateModifiers;
+import org.devoware.reactive.property.ModifierOrderingRules;
+import org.devoware.reactive.property.PartitionMessage;
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.property.PropertyPartition;
+import org.devoware.reactive.property.PropertyPartitions;
+import org.devoware.reactive.property.PropertyTransport;
+import org.devoware.reactive.property.PropertyTransports;
+import org.devoware.reactive.testutil.ValueMaps;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class PropertyPartitionTest {
+
+  @Test
+  public void test_remote_bindings() {
+    PropertyTransport transport = PropertyTransports.loopback();
+    PropertyManager characters = PropertyManagers.create();
+    PropertyManager combat = PropertyManagers.create();
+    PropertyPartitions.create("characters", characters, transport);
+    PropertyPartition combatPartition = PropertyPartitions.create("combat", combat, transport);
+
+    Property<Integer> strength = characters.create(STRENGTH).withValue(14).build();
+    Property<Integer> level = characters.create(LEVEL).withValue(4).build();
+    combatPartition.importFrom("characters", STRENGTH, LEVEL);
+    Property<Integer> meleeAttackModifier = createMeleeAttackModifier(combat);
+
+    assertThat(meleeAttackModifier.get(), equalTo(4));
+
+    List<Integer> values = Lists.newArrayList();
+    meleeAttackModifier.addPropertyChangeListener((id, value) -> values.add(value));
+    characters.batch(() -> {
+      strength.set(18);
+      level.set(5);
+    });
+
+    // both changes arrive in one update, so the consumer never sees only one of them
+    assertThat(values, equalTo(Lists.newArrayList(7)));
+
+    strength.set(12);
+    level.set(1);
+
+    assertThat(meleeAttackModifier.get(), equalTo(3));
+    assertThat(values, equalTo(Lists.newArrayList(7, 4, 3)));
+  }
+
+  @Test
+  public void test_out_of_order_delivery() {
+    ReorderingTransport transport = new ReorderingTransport();
+    PropertyManager characters = PropertyManagers.create();
+    PropertyManager combat = PropertyManagers.create();
+    PropertyPartitions.create("characters", characters, transport);
+    PropertyPartition combatPartition = PropertyPartitions.create("combat", combat, transport);
+
+    Property<Integer> strength = characters.create(STRENGTH).withValue(14).build();
+    combatPartition.importFrom("characters", STRENGTH, LEVEL);
+    Property<Integer> meleeAttackModifier = createMeleeAttackModifier(combat);
+    transport.deliverInReverse();
+
+    assertThat(combat.get(STRENGTH).get(), equalTo(14));
+
+    strength.set(16);
+    strength.set(20);
+    strength.set(18);
+    transport.deliverInReverse();
+
+    assertThat(combat.get(STRENGTH).get(), equalTo(18));
+    assertThat(meleeAttackModifier.get(), equalTo(6));
+  }
+
+  @Test
+  public void test_mirrors_are_read_only() {
+    PropertyTransport transport = PropertyTransports.loopback();
+    PropertyManager characters = PropertyManagers.create();
+    PropertyManager combat = PropertyManagers.create();
+    PropertyPartitions.create("characters", characters, transport);
+    PropertyPartition combatPartition = PropertyPartitions.create("combat", combat, transport);
+    Property<Integer> strength = characters.create(STRENGTH).withValue(14).build();
+    combatPartition.importFrom("characters", STRENGTH);
+    Property<Integer> mirror = combat.get(STRENGTH);
+
+    try {
+      mirror.set(20);
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+    try {
+      mirror.addModifier(AggregateModifiers.sum(2));
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+    // broadcast modifiers only apply to the properties the partition owns
+    combat.addBroadcastModifier(Integer.class, (id) -> true, AggregateModifiers.sum(1),
+        ModifierOrderingRules.apply());
+
+    assertThat(mirror.get(), equalTo(14));
+    assertFalse(mirror.getModifierIdentifiers().hasNext());
+
+    strength.set(16);
+
+    assertThat(mirror.get(), equalTo(16));
+  }
+
+  @Test
+  public void test_closed_partitions_stop_sending() {
+    PropertyTransport transport = PropertyTransports.loopback();
+    PropertyManager characters = PropertyManagers.create();
+    PropertyManager combat = PropertyManagers.create();
+    PropertyPartition charactersPartition =
+        PropertyPartitions.create("characters", characters, transport);
+    PropertyPartition combatPartition = PropertyPartitions.create("combat", combat, transport);
+    Property<Integer> strength = characters.create(STRENGTH).withValue(14).build();
+    combatPartition.importFrom("characters", STRENGTH);
+
+    charactersPartition.close();
+    strength.set(20);
+
+    assertThat(combat.get(STRENGTH).get(), equalTo(14));
+  }
+
+  // a rejected update is reported rather than thrown into its sender, and later updates still
+  // arrive
+  @Test
+  public void test_rejected_updates() {
+    PropertyTransport transport = PropertyTransports.loopback();
+    PropertyManager characters = PropertyManagers.create();
+    PropertyManager combat = PropertyManagers.create();
+    List<RuntimeException> failures = Lists.newArrayList();
+    PropertyPartitions.create("characters", characters, transport);
+    PropertyPartition combatPartition =
+        PropertyPartitions.create("combat", combat, transport, failures::add);
+    Property<Integer> strength = characters.create(STRENGTH).withValue(14).build();
+    combatPartition.importFrom("characters", STRENGTH);
+    Property<Integer> strengthModifier = combat.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .withValidator((context, value) -> checkArgument(value <= 5, "big"))
+        .build();
+
+    strength.set(25);
+
+    assertThat(strength.get(), equalTo(25));
+    assertThat(combat.get(STRENGTH).get(), equalTo(14));
+    assertThat(failures.size(), equalTo(1));
+    assertThat(failures.get(0).getMessage(), equalTo("big"));
+
+    strength.set(15);
+
+    assertThat(combat.get(STRENGTH).get(), equalTo(15));
+    assertThat(strengthModifier.get(), equalTo(2));
+    assertThat(failures.size(), equalTo(1));
+  }
+
+  private static Property<Integer> createMeleeAttackModifier(PropertyManager manager) {
+    manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) ->
+            ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(Math.max(1, context.get(LEVEL))))
+        .build();
+    return manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+  }
+
+  private static class ReorderingTransport implements PropertyTransport {
+    private final Map<String, Consumer<PartitionMessage>> receivers = Maps.newHashMap();
+    private final List<Map.Entry<String, PartitionMessage>> messages = Lists.newArrayList();
+
+    @Override
+    public void register(String partition, Consumer<PartitionMessage> receiver) {
+      receivers.put(partition, receiver);
+    }
+
+    @Override
+    public void unregister(String partition) {
+      receivers.remove(partition);
+    }
+
+    @Override
+    public void send(String partition, PartitionMessage message) {
+      messages.add(Maps.immutableEntry(partition, message));
+    }
+
+    private void deliverInReverse() {
+      while (!messages.isEmpty()) {
+        List<Map.Entry<String, PartitionMessage>> batch = Lists.reverse(Lists.newArrayList(messages));
+        messages.clear();
+        batch.forEach((entry) -> receivers.get(entry.getKey()).accept(entry.getValue()));
+      }
+    }
+  }
+
+}
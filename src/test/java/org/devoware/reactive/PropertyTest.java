@@ -10,6 +10,7 @@ import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
 import static org.devoware.reactive.testutil.Sense.DARKVISION;
 import static org.devoware.reactive.testutil.SenseDistance.DARKVISION_DISTANCE;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -19,6 +20,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.devoware.reactive.property.AggregateModifiers;
 import org.devoware.reactive.property.CyclicBindingException;
 import org.devoware.reactive.property.PropertyIdentifier;
 import org.devoware.reactive.property.Identifier;
@@ -26,12 +34,25 @@ import org.devoware.reactive.property.Property;
 import org.devoware.reactive.property.PropertyChangeListener;
 import org.devoware.reactive.property.PropertyManager;
 import org.devoware.reactive.property.PropertyManagers;
+import org.devoware.reactive.property.PropertyHistories;
+import org.devoware.reactive.property.PropertyHistory;
+import org.devoware.reactive.property.PropertyReading;
+import org.devoware.reactive.property.UndeclaredDependencyException;
+import org.devoware.reactive.property.ValidationResult;
+import org.devoware.reactive.property.ValueEquivalences;
+import org.devoware.reactive.property.Watch;
+import org.devoware.reactive.testutil.ManualClock;
 import org.devoware.reactive.testutil.Sense;
 import org.devoware.reactive.testutil.SenseDistance;
 import org.devoware.reactive.testutil.ValueMaps;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
 public class PropertyTest {
   
   private PropertyManager manager;
@@ -209,6 +230,325 @@ public class PropertyTest {
     verify(strengthModifierListener, times(1)).onValueChanged(any(), any());
   }
   
+  @Test
+  public void test_aggregate_modifiers() {
+    Property<Integer> strength = manager.create(STRENGTH)
+        .withValidator(
+            (context, value) -> checkArgument(value > 0 && value < 31, "strength must be between 1 and 30"))
+        .withValue(14)
+        .build();
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .build();
+
+    Identifier gauntlets = strength.addModifier(AggregateModifiers.max(19), applyLast());
+    Identifier belt = strength.addModifier(AggregateModifiers.max(21), applyLast());
+    Identifier bless = strength.addModifier(AggregateModifiers.sum(2));
+    strength.addModifier(AggregateModifiers.sum(1));
+
+    assertThat(strength.get(), equalTo(21));
+    assertThat(strengthModifier.get(), equalTo(5));
+
+    strength.removeModifier(belt);
+    assertThat(strength.get(), equalTo(19));
+
+    strength.set(18);
+    assertThat(strength.get(), equalTo(21));
+    assertThat(strengthModifier.get(), equalTo(5));
+
+    try {
+      strength.addModifier(bless, AggregateModifiers.sum(20));
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+
+    assertThat(strength.get(), equalTo(21));
+
+    // a rejected replacement leaves the previous modifier at its place in the chain
+    Identifier halved = strength.addModifier((context, value) -> value / 2);
+    Identifier raised = strength.addModifier((context, value) -> value + 10);
+    // (18 + 2 + 1) / 2 + 10 = 20
+    assertThat(strength.get(), equalTo(20));
+
+    try {
+      strength.addModifier(halved, (context, value) -> value * 4);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+
+    assertThat(strength.get(), equalTo(20));
+    strength.removeModifier(raised);
+    strength.removeModifier(halved);
+
+    strength.removeModifier(bless);
+    strength.removeModifier(gauntlets);
+    assertThat(strength.get(), equalTo(19));
+    assertThat(strengthModifier.get(), equalTo(4));
+  }
+
+  @Test
+  public void test_expiring_modifiers() {
+    ManualClock clock = new ManualClock(Instant.parse("2015-06-01T12:00:00Z"));
+    manager = PropertyManagers.builder()
+        .withClock(clock)
+        .withTickDuration(Duration.ofMillis(10))
+        .build();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(14).build();
+    manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .build();
+    Property<Integer> level = manager.create(LEVEL).withValue(4).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+        .build();
+    Property<Integer> meleeAttackModifier = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+    AtomicInteger changes = new AtomicInteger();
+    meleeAttackModifier.addPropertyChangeListener((id, value) -> changes.incrementAndGet());
+
+    Identifier bullsStrength = strength.addModifier(AggregateModifiers.sum(4), Duration.ofSeconds(1));
+    Identifier training = new Identifier() {};
+    level.addModifier(training, AggregateModifiers.sum(1), apply(),
+        clock.instant().plus(Duration.ofSeconds(1)));
+    Identifier bless = new Identifier() {};
+    strength.addModifier(bless, AggregateModifiers.sum(2), Duration.ofSeconds(5));
+
+    assertThat(meleeAttackModifier.get(), equalTo(8));
+    assertThat(changes.get(), equalTo(3));
+
+    strength.addModifier(bless, AggregateModifiers.sum(2));
+    clock.advance(Duration.ofMillis(999));
+    manager.expireModifiers();
+
+    assertThat(meleeAttackModifier.get(), equalTo(8));
+
+    clock.advance(Duration.ofMillis(1));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(16));
+    assertThat(level.get(), equalTo(4));
+    assertThat(meleeAttackModifier.get(), equalTo(5));
+    assertThat(changes.get(), equalTo(4));
+    assertTrue(strength.getModifierIdentifiers().hasNext());
+
+    clock.advance(Duration.ofSeconds(10));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(16));
+    strength.addModifier(bullsStrength, AggregateModifiers.sum(4), Duration.ofMillis(5));
+    manager.remove(STRENGTH);
+    clock.advance(Duration.ofSeconds(1));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(20));
+  }
+
+  // the rejected expiration is retried on each tick, without holding back the other one
+  @Test
+  public void test_rejected_expirations() {
+    ManualClock clock = new ManualClock(Instant.parse("2015-06-01T12:00:00Z"));
+    manager = PropertyManagers.builder()
+        .withClock(clock)
+        .withTickDuration(Duration.ofMillis(10))
+        .build();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(20).build();
+    Identifier bullsStrength = strength.addModifier(AggregateModifiers.sum(4),
+        Duration.ofSeconds(1));
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .withValidator((context, value) -> checkArgument(value >= 7, "too weak"))
+        .build();
+    strengthModifier.addModifier(AggregateModifiers.sum(1), Duration.ofSeconds(1));
+
+    assertThat(strengthModifier.get(), equalTo(8));
+
+    clock.advance(Duration.ofSeconds(1));
+    try {
+      manager.expireModifiers();
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), equalTo("too weak"));
+    }
+
+    assertThat(strength.get(), equalTo(24));
+    assertThat(strengthModifier.get(), equalTo(7));
+    assertThat(Lists.newArrayList(strength.getModifierIdentifiers()),
+        equalTo(Lists.newArrayList(bullsStrength)));
+    assertFalse(strengthModifier.getModifierIdentifiers().hasNext());
+
+    clock.advance(Duration.ofMillis(10));
+    try {
+      manager.expireModifiers();
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+
+    strength.set(24);
+    clock.advance(Duration.ofMillis(10));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(24));
+    assertThat(strengthModifier.get(), equalTo(7));
+    assertFalse(strength.getModifierIdentifiers().hasNext());
+  }
+
+  // a rolled back removal restores the expiration of the modifier, and a rolled back timed
+  // addition leaves no expiration behind
+  @Test
+  public void test_rolled_back_expirations() {
+    ManualClock clock = new ManualClock(Instant.parse("2015-06-01T12:00:00Z"));
+    manager = PropertyManagers.builder()
+        .withClock(clock)
+        .withTickDuration(Duration.ofMillis(10))
+        .build();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(10).build();
+    Identifier bullsStrength = strength.addModifier(AggregateModifiers.sum(5),
+        Duration.ofSeconds(1));
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .withValidator((context, value) -> checkArgument(value >= 2, "too weak"))
+        .build();
+
+    try {
+      strength.removeModifier(bullsStrength);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+
+    assertThat(strength.get(), equalTo(15));
+
+    strengthModifier.removeValidator();
+    clock.advance(Duration.ofSeconds(5));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(10));
+
+    Identifier bless = new Identifier() {};
+    try {
+      manager.batch(() -> {
+        strength.addModifier(bless, AggregateModifiers.sum(2), Duration.ofSeconds(1));
+        throw new IllegalStateException();
+      });
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+
+    assertThat(strength.get(), equalTo(10));
+
+    strength.addModifier(bless, AggregateModifiers.sum(2));
+    clock.advance(Duration.ofSeconds(5));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(12));
+  }
+
+  @Test
+  public void test_broadcast_modifiers() {
+    Property<Integer> strength = manager.create(STRENGTH).withValue(14).build();
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .build();
+    manager.create(LEVEL).withValue(4).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+        .build();
+    AtomicInteger changes = new AtomicInteger();
+    Property<Integer> meleeAttackModifier = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build()
+        .addPropertyChangeListener((id, value) -> changes.incrementAndGet());
+
+    Identifier enlarge = manager.addBroadcastModifier(ImmutableSet.of(STRENGTH, LEVEL),
+        AggregateModifiers.sum(2));
+
+    assertThat(strength.get(), equalTo(16));
+    assertThat(manager.get(LEVEL).get(), equalTo(6));
+    assertThat(meleeAttackModifier.get(), equalTo(6));
+    assertThat(changes.get(), equalTo(1));
+
+    Identifier rage = manager.addBroadcastModifier(Integer.class,
+        (id) -> id.toString().endsWith("_MOD"), AggregateModifiers.sum(1), applyLast());
+
+    assertThat(strengthModifier.get(), equalTo(4));
+    assertThat(meleeAttackModifier.get(), equalTo(8));
+    assertThat(changes.get(), equalTo(2));
+
+    manager.remove(MELEE_ATTACK_MOD);
+    meleeAttackModifier = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+
+    assertThat(meleeAttackModifier.get(), equalTo(8));
+
+    manager.removeBroadcastModifier(enlarge).removeBroadcastModifier(rage);
+
+    assertThat(strength.get(), equalTo(14));
+    assertThat(strengthModifier.get(), equalTo(2));
+    assertThat(meleeAttackModifier.get(), equalTo(4));
+    assertTrue(!strength.getModifierIdentifiers().hasNext());
+  }
+
+  // a target that rejects the modifier rolls back the targets it was already added to, and the
+  // rejection is what is thrown
+  @Test
+  public void test_rejected_broadcast_addition() {
+    Property<Integer> strength = manager.create(STRENGTH).withValue(14).build();
+    manager.create(LEVEL).withValue(19)
+        .withValidator((context, value) -> checkArgument(value <= 20, "level cannot exceed 20"))
+        .build();
+
+    try {
+      manager.addBroadcastModifier(ImmutableSet.of(STRENGTH, LEVEL), AggregateModifiers.sum(2));
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), equalTo("level cannot exceed 20"));
+    }
+
+    assertThat(strength.get(), equalTo(14));
+    assertThat(manager.get(LEVEL).get(), equalTo(19));
+    assertFalse(strength.getModifierIdentifiers().hasNext());
+  }
+
+  // the rejected removal leaves the broadcast in place, so that it can be removed later on
+  @Test
+  public void test_rejected_broadcast_removal() {
+    Property<Integer> strength = manager.create(STRENGTH).withValue(14).build();
+    Identifier enlarge = manager.addBroadcastModifier(ImmutableSet.of(STRENGTH),
+        AggregateModifiers.sum(4));
+    manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .withValidator((context, value) -> checkArgument(value >= 3, "too weak"))
+        .build();
+
+    try {
+      manager.removeBroadcastModifier(enlarge);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+
+    assertThat(strength.get(), equalTo(18));
+
+    strength.set(16);
+    manager.removeBroadcastModifier(enlarge);
+
+    assertThat(strength.get(), equalTo(16));
+    assertFalse(strength.getModifierIdentifiers().hasNext());
+  }
+
+  @Test
+  public void test_weak_listeners() {
+    Property<Integer> strength = manager.create(STRENGTH)
+        .withValue(8)
+        .build();
+
+    AtomicInteger notifications = new AtomicInteger();
+    PropertyChangeListener<Integer> listener = (id, value) -> notifications.incrementAndGet();
+    strength.addWeakPropertyChangeListener(listener);
+    strength.addWeakPropertyChangeListener(listener);
+
+    strength.set(10);
+    assertThat(notifications.get(), equalTo(2));
+
+    strength.removePropertyChangeListener(listener);
+    strength.set(12);
+    assertThat(notifications.get(), equalTo(3));
+  }
+  
   public void test_validators() {
     
     try {
@@ -289,6 +629,116 @@ public class PropertyTest {
     assertThat(strengthModifier.get(), equalTo(2));
   }
 
+  @Test
+  public void test_declared_dependencies() {
+    Property<Integer> meleeAttackModifier = manager.create(MELEE_ATTACK_MOD)
+        .withValue(
+            (context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS),
+            STRENGTH_MOD, PROFICIENCY_BONUS)
+        .build();
+
+    assertThat(manager.getConsumerBindings(meleeAttackModifier).size(), equalTo(2));
+    assertTrue(manager.getConsumerBindings(meleeAttackModifier).contains(STRENGTH_MOD));
+    assertTrue(manager.getConsumerBindings(meleeAttackModifier).contains(PROFICIENCY_BONUS));
+    assertThat(meleeAttackModifier.get(), equalTo(0));
+
+    manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2, STRENGTH)
+        .build();
+    manager.create(PROFICIENCY_BONUS).withValue(2).build();
+    manager.create(STRENGTH).withValue(16).build();
+
+    assertThat(meleeAttackModifier.get(), equalTo(5));
+
+    // a removed input that is declared stays bound, and is picked up again once recreated
+    manager.remove(PROFICIENCY_BONUS);
+
+    assertThat(meleeAttackModifier.get(), equalTo(3));
+
+    manager.create(PROFICIENCY_BONUS).withValue(4).build();
+
+    assertThat(meleeAttackModifier.get(), equalTo(7));
+
+    // undeclared reads are tolerated, and bound so that the property does not go stale
+    meleeAttackModifier.set((context) -> context.get(STRENGTH_MOD) + context.get(LEVEL),
+        STRENGTH_MOD);
+
+    assertThat(manager.getConsumerBindings(meleeAttackModifier).size(), equalTo(2));
+    assertThat(meleeAttackModifier.get(), equalTo(3));
+
+    manager.get(LEVEL).set(5);
+
+    assertThat(meleeAttackModifier.get(), equalTo(8));
+  }
+
+  @Test(expected = UndeclaredDependencyException.class)
+  public void test_strict_dependency_checks() {
+    PropertyManager manager = PropertyManagers.builder()
+        .withStrictDependencyChecks()
+        .build();
+    manager.create(MELEE_ATTACK_MOD)
+        .withValue(
+            (context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS),
+            STRENGTH_MOD)
+        .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void test_equivalence() {
+    PropertyChangeListener<Double> speedListener = mock(PropertyChangeListener.class);
+
+    Property<Double> speed = manager.create(DoublePropertyId.SPEED)
+        .withValue(30.0)
+        .withEquivalence(ValueEquivalences.tolerance(1e-9))
+        .build();
+    speed.addPropertyChangeListener(speedListener);
+
+    Property<Double> dashSpeed = manager.create(DoublePropertyId.DASH_SPEED)
+        .withValue((context) -> context.get(DoublePropertyId.SPEED) * 2)
+        .build();
+
+    speed.set(30.0 + 1e-12);
+
+    assertThat(speed.get(), equalTo(30.0));
+    assertThat(dashSpeed.get(), equalTo(60.0));
+    verify(speedListener, times(0)).onValueChanged(any(), any());
+
+    speed.set(35.0);
+
+    assertThat(speed.get(), equalTo(35.0));
+    assertThat(dashSpeed.get(), equalTo(70.0));
+    verify(speedListener, times(1)).onValueChanged(eq(DoublePropertyId.SPEED), eq(35.0));
+
+    PropertyChangeListener<Double> dashSpeedListener = mock(PropertyChangeListener.class);
+    dashSpeed.addPropertyChangeListener(dashSpeedListener);
+    dashSpeed.setEquivalence(ValueEquivalences.from((a, b) -> Math.abs(a - b) < 5));
+
+    speed.set(36.0);
+
+    assertThat(dashSpeed.get(), equalTo(70.0));
+    verify(dashSpeedListener, times(0)).onValueChanged(any(), any());
+
+    speed.set(40.0);
+
+    assertThat(dashSpeed.get(), equalTo(80.0));
+    verify(dashSpeedListener, times(1)).onValueChanged(eq(DoublePropertyId.DASH_SPEED), eq(80.0));
+  }
+
+  private static enum DoublePropertyId implements PropertyIdentifier<Double> {
+    SPEED, DASH_SPEED;
+
+    @Override
+    public Double getDefaultValue() {
+      return 0.0;
+    }
+
+    @Override
+    public Class<Double> getType() {
+      return Double.class;
+    }
+  }
+
   private static enum PropertyId implements PropertyIdentifier<Integer> {
     PROPERTY1, PROPERTY2, PROPERTY3;
   
@@ -425,4 +875,405 @@ public class PropertyTest {
 
     assertThat(manager.get(DARKVISION).get(), equalTo("Darkvision (0 ft.)"));
   }
+
+  @Test
+  public void test_remove_all() {
+    AtomicInteger evaluations = new AtomicInteger();
+    manager.create(STRENGTH).withValue(14).build();
+    manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .build();
+    manager.create(LEVEL).withValue(5).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+        .build();
+    Property<Integer> meleeAttackModifier = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> {
+          evaluations.incrementAndGet();
+          return context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS);
+        })
+        .build();
+
+    assertThat(meleeAttackModifier.get(), equalTo(5));
+
+    evaluations.set(0);
+    manager.removeAll(ImmutableSet.of(STRENGTH, STRENGTH_MOD, PROFICIENCY_BONUS));
+
+    // the surviving consumer reads the default values of the producers that were removed
+    assertThat(evaluations.get(), equalTo(1));
+    assertThat(meleeAttackModifier.get(), equalTo(0));
+    assertThat(manager.getConsumerBindings(meleeAttackModifier).size(), equalTo(2));
+    assertTrue(manager.get(STRENGTH) == null);
+
+    manager.removeIf((id) -> id.getType() == Integer.class);
+
+    assertTrue(manager.get(MELEE_ATTACK_MOD) == null);
+    assertTrue(manager.get(LEVEL) == null);
+    assertTrue(manager.get(STRENGTH_MOD) == null);
+  }
+
+  @Test
+  public void test_watches() {
+    Property<Integer> level = manager.create(LEVEL).withValue(1).build();
+    List<String> events = Lists.newArrayList();
+    Watch reachedFive = level.watchAtLeast(5, (id, value) -> events.add("reached 5 at " + value));
+    level.watchBelow(3, (id, value) -> events.add("below 3 at " + value));
+    Watch even = level.watch((value) -> value % 2 == 0, (id, value) -> events.add("even at " + value));
+    AtomicInteger inactive = new AtomicInteger();
+    for (int i = 100; i < 1100; i++) {
+      level.watchAtLeast(i, (id, value) -> inactive.incrementAndGet());
+    }
+
+    level.set(2);
+    level.set(4);
+    level.set(7);
+    level.set(5);
+    level.set(1);
+
+    assertThat(events, equalTo(Lists.newArrayList("even at 2", "reached 5 at 7",
+        "below 3 at 1")));
+    assertThat(inactive.get(), equalTo(0));
+
+    reachedFive.cancel();
+    even.cancel();
+    events.clear();
+    level.set(10);
+    level.set(150);
+
+    assertThat(events.isEmpty(), equalTo(true));
+    assertThat(inactive.get(), equalTo(51));
+  }
+
+  @Test
+  public void test_consistent_reads() throws InterruptedException {
+    Property<Integer> strength = manager.create(STRENGTH).withValue(10).build();
+    Property<Integer> level = manager.create(LEVEL).withValue(1).build();
+    manager.create(STRENGTH_MOD).withValue((context) -> (context.get(STRENGTH) - 10) / 2).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL))).build();
+    Property<Integer> melee = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS)).build();
+    long version = melee.getVersion();
+
+    strength.set(14);
+
+    assertTrue(melee.getVersion() > version);
+    assertThat(manager.readConsistent(MELEE_ATTACK_MOD).getVersion(MELEE_ATTACK_MOD),
+        equalTo(melee.getVersion()));
+    try {
+      manager.batch(() -> manager.readConsistent(STRENGTH));
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+
+    // the writer keeps the derived values changing, and every reading must still add up
+    AtomicInteger torn = new AtomicInteger();
+    Thread writer = new Thread(() -> {
+      for (int i = 0; i < 20000; i++) {
+        strength.set(10 + (i % 10));
+        level.set(1 + (i % 20));
+      }
+    });
+    writer.start();
+    long lastSequence = -1;
+    while (writer.isAlive()) {
+      PropertyReading reading =
+          manager.readConsistent(STRENGTH_MOD, PROFICIENCY_BONUS, MELEE_ATTACK_MOD);
+      if (reading.get(MELEE_ATTACK_MOD)
+          != reading.get(STRENGTH_MOD) + reading.get(PROFICIENCY_BONUS)) {
+        torn.incrementAndGet();
+      }
+      assertTrue(reading.getSequence() >= lastSequence);
+      assertTrue(reading.getVersion(MELEE_ATTACK_MOD) < reading.getSequence());
+      lastSequence = reading.getSequence();
+    }
+    writer.join();
+
+    assertThat(torn.get(), equalTo(0));
+  }
+
+  @Test
+  public void test_undo_redo() {
+    Property<Integer> strength = manager.create(STRENGTH).withValue(10).build();
+    Property<Integer> level = manager.create(LEVEL).withValue(1).build();
+    manager.create(STRENGTH_MOD).withValue((context) -> (context.get(STRENGTH) - 10) / 2).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL))).build();
+    Property<Integer> melee = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS)).build();
+    PropertyHistory history = PropertyHistories.create(manager, 3);
+    List<Integer> values = Lists.newArrayList();
+    melee.addPropertyChangeListener((id, value) -> values.add(value));
+
+    strength.set(14);
+    Identifier bonus = strength.addModifier(AggregateModifiers.sum(4));
+    manager.batch(() -> {
+      level.set(9);
+      strength.removeModifier(bonus);
+    });
+    level.setValidator((context, value) -> checkArgument(value <= 10, "level cannot exceed 10"));
+
+    assertThat(melee.get(), equalTo(6));
+    assertThat(history.getUndoDepth(), equalTo(3));
+
+    // a batch is undone as one step, within a single propagation, so the consumer never sees
+    // the level restored without the modifier
+    values.clear();
+    assertTrue(history.undo());
+    assertTrue(history.undo());
+
+    assertThat(melee.get(), equalTo(6));
+    assertThat(values.isEmpty(), equalTo(true));
+    assertThat(strength.get(), equalTo(18));
+    assertThat(level.get(), equalTo(1));
+    level.set(15);
+
+    // a new operation discards the steps that could have been redone
+    assertThat(history.canRedo(), equalTo(false));
+    assertTrue(history.undo());
+    assertTrue(history.undo());
+
+    assertThat(strength.get(), equalTo(14));
+    assertThat(melee.get(), equalTo(4));
+    // the oldest steps were discarded once the history was full
+    assertThat(history.undo(), equalTo(false));
+
+    assertTrue(history.redo());
+    assertTrue(history.redo());
+
+    assertThat(level.get(), equalTo(15));
+    assertThat(melee.get(), equalTo(9));
+    assertThat(history.getRedoDepth(), equalTo(0));
+
+    history.close();
+    strength.set(12);
+
+    assertThat(history.canUndo(), equalTo(false));
+  }
+
+  // a timed modifier that is redone, or whose removal is undone, keeps its deadline
+  @Test
+  public void test_undo_redo_expiring_modifiers() {
+    ManualClock clock = new ManualClock(Instant.parse("2015-06-01T12:00:00Z"));
+    manager = PropertyManagers.builder()
+        .withClock(clock)
+        .withTickDuration(Duration.ofMillis(10))
+        .build();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(10).build();
+    PropertyHistory history = PropertyHistories.create(manager);
+
+    Identifier bullsStrength = strength.addModifier(AggregateModifiers.sum(4),
+        Duration.ofSeconds(1));
+    history.undo();
+    history.redo();
+
+    assertThat(strength.get(), equalTo(14));
+
+    clock.advance(Duration.ofSeconds(1));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(10));
+
+    Identifier bless = new Identifier() {};
+    strength.addModifier(bless, AggregateModifiers.sum(2), Duration.ofSeconds(1));
+    strength.removeModifier(bless);
+    history.undo();
+
+    assertThat(strength.get(), equalTo(12));
+
+    strength.addModifier(bullsStrength, AggregateModifiers.sum(4));
+    strength.addModifier(bullsStrength, AggregateModifiers.sum(3), Duration.ofSeconds(5));
+    history.undo();
+    clock.advance(Duration.ofSeconds(1));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(14));
+
+    clock.advance(Duration.ofSeconds(10));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(14));
+  }
+
+  @Test
+  public void test_atomic_propagation() {
+    ValidationResult levelTooHigh = ValidationResult.invalid("level cannot exceed 20");
+    ValidationResult bonusTooHigh = ValidationResult.invalid("proficiency bonus cannot exceed 5");
+    Property<Integer> level = manager.create(LEVEL).withValue(1)
+        .withValidationRule((context, value) -> value > 20 ? levelTooHigh : ValidationResult.valid())
+        .build();
+    Property<Integer> proficiencyBonus = manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+        .withValidationRule((context, value) -> value > 5 ? bonusTooHigh : ValidationResult.valid())
+        .build();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(14).build();
+    Property<Integer> melee = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2 + context.get(PROFICIENCY_BONUS))
+        .build();
+    List<Integer> values = Lists.newArrayList();
+    melee.addPropertyChangeListener((id, value) -> values.add(value));
+
+    // rejections are returned rather than thrown, whether made here or downstream
+    assertThat(level.trySet(21), equalTo(levelTooHigh));
+    assertThat(level.trySet(17), equalTo(bonusTooHigh));
+    assertThat(level.get(), equalTo(1));
+    assertThat(level.trySet(9).isValid(), equalTo(true));
+    assertThat(melee.get(), equalTo(6));
+
+    try {
+      manager.batch(() -> {
+        strength.set(18);
+        level.set(17);
+      });
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), equalTo("proficiency bonus cannot exceed 5"));
+    }
+
+    // nothing in the rejected batch was committed, and listeners never saw it
+    assertThat(strength.get(), equalTo(14));
+    assertThat(level.get(), equalTo(9));
+    assertThat(proficiencyBonus.get(), equalTo(4));
+    assertThat(melee.get(), equalTo(6));
+    assertThat(values, equalTo(Lists.newArrayList(6)));
+
+    // within a batch, only the rules of the property itself are returned; those downstream are
+    // thrown once the batch propagates
+    List<ValidationResult> results = Lists.newArrayList();
+    try {
+      manager.batch(() -> {
+        results.add(level.trySet(21));
+        results.add(level.trySet(17));
+      });
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), equalTo("proficiency bonus cannot exceed 5"));
+    }
+
+    assertThat(results.get(0), equalTo(levelTooHigh));
+    assertThat(results.get(1).isValid(), equalTo(true));
+    assertThat(level.get(), equalTo(9));
+    assertThat(values, equalTo(Lists.newArrayList(6)));
+
+    // a failing value function rolls back the change that triggered it
+    Property<Integer> divisor = manager.create(PropertyId.PROPERTY1).withValue(2).build();
+    Property<Integer> quotient = manager.create(PropertyId.PROPERTY2)
+        .withValue((context) -> 12 / context.get(PropertyId.PROPERTY1)).build();
+    try {
+      divisor.set(0);
+      fail("Expected an ArithmeticException");
+    } catch (ArithmeticException e) {}
+
+    assertThat(divisor.get(), equalTo(2));
+    assertThat(quotient.get(), equalTo(6));
+
+    // an update whose value is rejected leaves the previous validator in place
+    try {
+      manager.create(LEVEL).withValue(12)
+          .withValidator((context, value) -> checkArgument(value <= 10, "level cannot exceed 10"))
+          .build();
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+
+    assertThat(level.get(), equalTo(9));
+    assertThat(level.trySet(21), equalTo(levelTooHigh));
+  }
+
+  @Test
+  public void test_aborted_registration() {
+    ManualClock clock = new ManualClock(Instant.parse("2015-06-01T12:00:00Z"));
+    manager = PropertyManagers.builder()
+        .withClock(clock)
+        .withTickDuration(Duration.ofMillis(10))
+        .build();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(14).build();
+    Property<Integer> strengthModifier = manager.create(STRENGTH_MOD)
+        .withValue((context) -> (context.get(STRENGTH) - 10) / 2)
+        .build();
+    strength.addModifier(AggregateModifiers.sum(4), Duration.ofSeconds(1));
+
+    try {
+      manager.batch(() -> {
+        manager.remove(STRENGTH);
+        throw new IllegalStateException();
+      });
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+
+    // the removed property is restored along with its bindings and expirations
+    assertTrue(manager.get(STRENGTH) == strength);
+    assertThat(strengthModifier.get(), equalTo(4));
+    assertThat(manager.getProducerBindings(strength), equalTo(ImmutableSet.of(STRENGTH_MOD)));
+
+    strength.set(16);
+
+    assertThat(strengthModifier.get(), equalTo(5));
+
+    clock.advance(Duration.ofSeconds(1));
+    manager.expireModifiers();
+
+    assertThat(strength.get(), equalTo(16));
+    assertThat(strengthModifier.get(), equalTo(3));
+
+    try {
+      manager.batch(() -> {
+        manager.create(LEVEL).withValue(5).build();
+        manager.create(PROFICIENCY_BONUS)
+            .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+            .build();
+        throw new IllegalStateException();
+      });
+      fail("Expected an IllegalStateException");
+    } catch (IllegalStateException e) {}
+
+    // the created properties are unregistered, and leave no bindings behind
+    assertTrue(manager.get(LEVEL) == null);
+    assertTrue(manager.get(PROFICIENCY_BONUS) == null);
+
+    Property<Integer> level = manager.create(LEVEL).withValue(9).build();
+
+    assertThat(level.get(), equalTo(9));
+    assertTrue(manager.getProducerBindings(level).isEmpty());
+  }
+
+  @Test
+  public void test_placeholders() {
+    Property<Integer> melee = manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+    Property<Integer> successor = manager.create(PropertyId.PROPERTY2)
+        .withValue((context) -> context.get(PropertyId.PROPERTY1) + 1).build();
+
+    // producers that were never created are read from their defaults, without being registered
+    assertThat(melee.get(), equalTo(0));
+    assertThat(registeredIds(), equalTo(ImmutableSet.of(MELEE_ATTACK_MOD, PropertyId.PROPERTY2)));
+    assertThat(manager.get(PROFICIENCY_BONUS).get(), equalTo(0));
+
+    // the first write to a placeholder creates the property
+    manager.get(PROFICIENCY_BONUS).set(3);
+    manager.create(STRENGTH_MOD).withValue(2).build();
+
+    assertThat(melee.get(), equalTo(5));
+    assertThat(registeredIds(), equalTo(
+        ImmutableSet.of(MELEE_ATTACK_MOD, PropertyId.PROPERTY2, PROFICIENCY_BONUS, STRENGTH_MOD)));
+
+    // removing a placeholder leaves it in place for its consumers, with removeAll as with remove
+    manager.remove(PropertyId.PROPERTY1);
+    manager.removeAll(ImmutableList.of(PropertyId.PROPERTY1));
+
+    assertThat(manager.get(PropertyId.PROPERTY1).get(), equalTo(0));
+    assertThat(successor.get(), equalTo(1));
+
+    // a placeholder without consumers is gone
+    manager.remove(PropertyId.PROPERTY2);
+
+    assertThat(successor.get(), equalTo(1));
+    assertTrue(manager.get(PropertyId.PROPERTY1) == null);
+  }
+
+  private Set<PropertyIdentifier<?>> registeredIds() {
+    Set<PropertyIdentifier<?>> ids = Sets.newHashSet();
+    manager.removeIf((id) -> !ids.add(id));
+    return ids;
+  }
+
 }
@@ -0,0 +1,213 @@
+package org.devoware.reactive.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// measures the throughput of passes that span every component of a manager, as the same number
+// of properties is split into more and more connected components, both sequentially and on
+// propagation lanes; options are passed as name=value pairs, e.g. components=1,16,256 lanes=8.
+// Smaller properties and minParallelPass values measure where handing a pass out to the lanes
+// starts to pay off
+public class ComponentBenchmark {
+  private static final Map<String, String> DEFAULTS = ImmutableMap.<String, String>builder()
+      .put("properties", "4096")
+      .put("components", "1,4,16,64,256")
+      .put("lanes", String.valueOf(Math.max(2, Runtime.getRuntime().availableProcessors())))
+      .put("work", "200")
+      .put("minParallelPass", "256")
+      .put("warmup", "2")
+      .put("duration", "5")
+      .put("output", "")
+      .build();
+
+  private final Map<String, String> options;
+
+  public static void main(String[] args) throws Exception {
+    ComponentBenchmark benchmark = new ComponentBenchmark(args);
+    String result = benchmark.run();
+    String output = benchmark.options.get("output");
+    if (output.isEmpty()) {
+      System.out.println(result);
+    } else {
+      Files.write(Paths.get(output), result.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  ComponentBenchmark(String... args) {
+    checkNotNull(args, "args cannot be null");
+    Map<String, String> options = Maps.newLinkedHashMap(DEFAULTS);
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      checkArgument(separator > 0, "expected name=value but found %s", arg);
+      String name = arg.substring(0, separator);
+      checkArgument(DEFAULTS.containsKey(name), "unknown option %s; expected one of %s", name,
+          DEFAULTS.keySet());
+      options.put(name, arg.substring(separator + 1));
+    }
+    this.options = ImmutableMap.copyOf(options);
+    checkArgument(getInt("lanes") > 1, "lanes must be at least two");
+    checkArgument(getInt("minParallelPass") > 0, "minParallelPass must be positive");
+    checkArgument(getDouble("duration") > 0, "duration must be positive");
+    for (int components : getComponentCounts()) {
+      checkArgument(components > 0 && components <= getInt("properties"),
+          "components must be between one and the number of properties");
+    }
+  }
+
+  // returns the results of the run as a single JSON document, with one entry per component count
+  String run() {
+    int lanes = getInt("lanes");
+    ExecutorService executor = Executors.newFixedThreadPool(lanes);
+    try {
+      StringBuilder json = new StringBuilder("{\"configuration\":{");
+      int option = 0;
+      for (Map.Entry<String, String> entry : options.entrySet()) {
+        json.append(option++ == 0 ? "" : ",").append('"').append(entry.getKey()).append("\":\"")
+            .append(entry.getValue()).append('"');
+      }
+      json.append("},\"results\":[");
+      List<Integer> counts = getComponentCounts();
+      for (int i = 0; i < counts.size(); i++) {
+        int components = counts.get(i);
+        double sequential = measure(PropertyManagers.create(), components);
+        double parallel = measure(PropertyManagers.builder()
+            .withPropagationLanes(executor, lanes, getInt("minParallelPass")).build(), components);
+        json.append(i == 0 ? "" : ",")
+            .append("{\"components\":").append(components)
+            .append(",\"sequentialPassesPerSecond\":").append(sequential)
+            .append(",\"parallelPassesPerSecond\":").append(parallel)
+            .append(",\"speedup\":").append(parallel / sequential).append('}');
+      }
+      json.append("]}");
+      return json.toString();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // every pass sets the source of each component, so that every property is recomputed
+  private double measure(PropertyManager manager, int components) {
+    int length = getInt("properties") / components;
+    int work = getInt("work");
+    for (int component = 0; component < components; component++) {
+      manager.create(new Node(component, 0)).withValue(0).build();
+      for (int index = 1; index < length; index++) {
+        Node previous = new Node(component, index - 1);
+        manager.create(new Node(component, index))
+            .withValue((context) -> spin(context.get(previous), work)).build();
+      }
+    }
+    int[] round = new int[1];
+    Runnable pass = () -> {
+      round[0]++;
+      manager.batch(() -> {
+        for (int component = 0; component < components; component++) {
+          manager.get(new Node(component, 0)).set(round[0]);
+        }
+      });
+    };
+    runFor(pass, seconds(getDouble("warmup")));
+    long start = System.nanoTime();
+    long passes = runFor(pass, seconds(getDouble("duration")));
+    return passes / ((System.nanoTime() - start) / 1e9);
+  }
+
+  private List<Integer> getComponentCounts() {
+    List<Integer> counts = Lists.newArrayList();
+    for (String count : Splitter.on(',').omitEmptyStrings().trimResults()
+        .split(options.get("components"))) {
+      counts.add(Integer.parseInt(count));
+    }
+    return counts;
+  }
+
+  private int getInt(String name) {
+    return Integer.parseInt(options.get(name));
+  }
+
+  private double getDouble(String name) {
+    return Double.parseDouble(options.get(name));
+  }
+
+  private static long runFor(Runnable pass, long nanos) {
+    long end = System.nanoTime() + nanos;
+    long passes = 0;
+    while (System.nanoTime() < end) {
+      pass.run();
+      passes++;
+    }
+    return passes;
+  }
+
+  // stands in for a value function that does some real work, so that the cost of a pass is not
+  // all bookkeeping; the result depends on the work, so that it cannot be optimized away
+  private static int spin(int value, int work) {
+    int hash = value;
+    for (int i = 0; i < work; i++) {
+      hash = hash * 31 + i;
+    }
+    return hash == value ? value : value + 1;
+  }
+
+  private static long seconds(double seconds) {
+    return (long) (seconds * 1e9);
+  }
+
+  private static class Node implements PropertyIdentifier<Integer> {
+    private final int component;
+    private final int index;
+
+    private Node(int component, int index) {
+      this.component = component;
+      this.index = index;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Node)) {
+        return false;
+      }
+      Node other = (Node) obj;
+      return other.component == component && other.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+      // chains are long, so the index must not spill into the hash of the next component
+      return (component << 16) ^ index;
+    }
+
+    @Override
+    public String toString() {
+      return "NODE_" + component + "_" + index;
+    }
+  }
+
+}
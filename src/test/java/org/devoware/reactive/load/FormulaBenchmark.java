@@ -0,0 +1,208 @@
+package org.devoware.reactive.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.devoware.reactive.property.DeclaredValueFunction;
+import org.devoware.reactive.property.Formulas;
+import org.devoware.reactive.property.PropertyContext;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.ValueFunction;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+// measures how many times a second compiled formulas are evaluated, against the hand-written
+// lambdas that compute the same values; both are called through the same interface, as the
+// manager calls them, with inputs that change on every evaluation. Options are passed as
+// name=value pairs, e.g. rounds=5 duration=2
+public class FormulaBenchmark {
+  private static final Map<String, String> DEFAULTS = ImmutableMap.<String, String>builder()
+      .put("rounds", "3")
+      .put("warmup", "2")
+      .put("duration", "2")
+      .put("output", "")
+      .build();
+
+  private static final Input STRENGTH = new Input("STRENGTH");
+  private static final Input LEVEL = new Input("LEVEL");
+  private static final Input PROFICIENCY_BONUS = new Input("PROFICIENCY_BONUS");
+  private static final Function<String, PropertyIdentifier<?>> RESOLVER =
+      Formulas.resolver(STRENGTH, LEVEL, PROFICIENCY_BONUS);
+
+  private final Map<String, String> options;
+
+  public static void main(String[] args) throws Exception {
+    FormulaBenchmark benchmark = new FormulaBenchmark(args);
+    String result = benchmark.run();
+    String output = benchmark.options.get("output");
+    if (output.isEmpty()) {
+      System.out.println(result);
+    } else {
+      Files.write(Paths.get(output), result.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  FormulaBenchmark(String... args) {
+    checkNotNull(args, "args cannot be null");
+    Map<String, String> options = Maps.newLinkedHashMap(DEFAULTS);
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      checkArgument(separator > 0, "expected name=value but found %s", arg);
+      String name = arg.substring(0, separator);
+      checkArgument(DEFAULTS.containsKey(name), "unknown option %s; expected one of %s", name,
+          DEFAULTS.keySet());
+      options.put(name, arg.substring(separator + 1));
+    }
+    this.options = ImmutableMap.copyOf(options);
+    checkArgument(getInt("rounds") > 0, "rounds must be positive");
+    checkArgument(getDouble("duration") > 0, "duration must be positive");
+  }
+
+  // returns the results of the run as a single JSON document, with one entry per formula; the
+  // best round of each is kept, so that a collection or a recompilation does not skew it
+  String run() {
+    StringBuilder json = new StringBuilder("{\"configuration\":{");
+    int option = 0;
+    for (Map.Entry<String, String> entry : options.entrySet()) {
+      json.append(option++ == 0 ? "" : ",").append('"').append(entry.getKey()).append("\":\"")
+          .append(entry.getValue()).append('"');
+    }
+    json.append("},\"results\":[");
+    List<Case> cases = getCases();
+    for (Case c : cases) {
+      runFor(c.formula, seconds(getDouble("warmup")));
+      runFor(c.lambda, seconds(getDouble("warmup")));
+    }
+    for (int i = 0; i < cases.size(); i++) {
+      Case c = cases.get(i);
+      double formula = 0;
+      double lambda = 0;
+      for (int round = 0; round < getInt("rounds"); round++) {
+        formula = Math.max(formula, measure(c.formula));
+        lambda = Math.max(lambda, measure(c.lambda));
+      }
+      json.append(i == 0 ? "" : ",")
+          .append("{\"formula\":\"").append(c.expression).append('"')
+          .append(",\"formulaEvaluationsPerSecond\":").append(formula)
+          .append(",\"lambdaEvaluationsPerSecond\":").append(lambda)
+          .append(",\"ratio\":").append(formula / lambda).append('}');
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  private double measure(ValueFunction<? extends Number> function) {
+    long start = System.nanoTime();
+    long evaluations = runFor(function, seconds(getDouble("duration")));
+    return evaluations / ((System.nanoTime() - start) / 1e9);
+  }
+
+  private static List<Case> getCases() {
+    String modifier = "(STRENGTH - 10) / 2 + PROFICIENCY_BONUS";
+    String bonus = "min(6, max(2, (LEVEL - 1) / 4 + 2))";
+    String fractional = "-STRENGTH * 1.5 % 4 + abs(LEVEL - 10)";
+    return ImmutableList.of(
+        new Case(modifier, Formulas.compileInt(modifier, RESOLVER),
+            (context) -> (context.get(STRENGTH).intValue() - 10) / 2
+                + context.get(PROFICIENCY_BONUS).intValue()),
+        new Case(bonus, Formulas.compileInt(bonus, RESOLVER),
+            (context) -> Math.min(6, Math.max(2, (context.get(LEVEL).intValue() - 1) / 4 + 2))),
+        new Case(fractional, Formulas.compileDouble(fractional, RESOLVER),
+            (context) -> -context.get(STRENGTH).doubleValue() * 1.5 % 4
+                + Math.abs(context.get(LEVEL).doubleValue() - 10)));
+  }
+
+  // the inputs change on every evaluation, and the results are summed, so that neither the
+  // reads nor the evaluations can be hoisted out of the loop
+  private static long runFor(ValueFunction<? extends Number> function, long nanos) {
+    MutableContext context = new MutableContext();
+    long end = System.nanoTime() + nanos;
+    long evaluations = 0;
+    double sum = 0;
+    while (System.nanoTime() < end) {
+      for (int i = 0; i < 1000; i++) {
+        context.round = i;
+        sum += function.onBoundValueChanged(context).doubleValue();
+      }
+      evaluations += 1000;
+    }
+    if (sum == Double.MIN_VALUE) {
+      System.out.println(sum);
+    }
+    return evaluations;
+  }
+
+  private int getInt(String name) {
+    return Integer.parseInt(options.get(name));
+  }
+
+  private double getDouble(String name) {
+    return Double.parseDouble(options.get(name));
+  }
+
+  private static long seconds(double seconds) {
+    return (long) (seconds * 1e9);
+  }
+
+  private static class Case {
+    private final String expression;
+    private final DeclaredValueFunction<? extends Number> formula;
+    private final ValueFunction<? extends Number> lambda;
+
+    private Case(String expression, DeclaredValueFunction<? extends Number> formula,
+        ValueFunction<? extends Number> lambda) {
+      this.expression = expression;
+      this.formula = formula;
+      this.lambda = lambda;
+    }
+  }
+
+  private static class MutableContext implements PropertyContext {
+    private int round;
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <V> V get(PropertyIdentifier<V> id) {
+      if (id == STRENGTH) {
+        return (V) Integer.valueOf(8 + (round & 15));
+      }
+      if (id == LEVEL) {
+        return (V) Integer.valueOf(1 + (round % 20));
+      }
+      return (V) Integer.valueOf(2 + (round & 3));
+    }
+  }
+
+  private static class Input implements PropertyIdentifier<Integer> {
+    private final String name;
+
+    private Input(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+}
@@ -0,0 +1,167 @@
+package org.devoware.reactive.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.devoware.reactive.property.Formulas;
+import org.devoware.reactive.property.GraphDefinition;
+import org.devoware.reactive.property.GraphDefinitions;
+import org.devoware.reactive.property.PropertyIdentifier;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// measures how long a large graph definition takes to load without a plan cache (cold) and
+// with one written by the previous load (warm), against parsing the same text without any cache
+// at all. Each property but the first few is bound to three random properties declared after
+// it. Options are passed as name=value pairs, e.g. properties=20000 rounds=10
+public class GraphDefinitionBenchmark {
+  private static final Map<String, String> DEFAULTS = ImmutableMap.<String, String>builder()
+      .put("properties", "20000")
+      .put("rounds", "10")
+      .put("warmup", "3")
+      .put("seed", "1")
+      .put("output", "")
+      .build();
+
+  private final Map<String, String> options;
+
+  public static void main(String[] args) throws Exception {
+    GraphDefinitionBenchmark benchmark = new GraphDefinitionBenchmark(args);
+    String result = benchmark.run();
+    String output = benchmark.options.get("output");
+    if (output.isEmpty()) {
+      System.out.println(result);
+    } else {
+      Files.write(Paths.get(output), result.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  GraphDefinitionBenchmark(String... args) {
+    checkNotNull(args, "args cannot be null");
+    Map<String, String> options = Maps.newLinkedHashMap(DEFAULTS);
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      checkArgument(separator > 0, "expected name=value but found %s", arg);
+      String name = arg.substring(0, separator);
+      checkArgument(DEFAULTS.containsKey(name), "unknown option %s; expected one of %s", name,
+          DEFAULTS.keySet());
+      options.put(name, arg.substring(separator + 1));
+    }
+    this.options = ImmutableMap.copyOf(options);
+    checkArgument(getInt("properties") > 0, "properties must be positive");
+    checkArgument(getInt("rounds") > 0, "rounds must be positive");
+  }
+
+  // returns the results of the run as a single JSON document; the best round of each kind of
+  // load is kept, so that a collection or a recompilation does not skew it
+  String run() {
+    StringBuilder json = new StringBuilder("{\"configuration\":{");
+    int option = 0;
+    for (Map.Entry<String, String> entry : options.entrySet()) {
+      json.append(option++ == 0 ? "" : ",").append('"').append(entry.getKey()).append("\":\"")
+          .append(entry.getValue()).append('"');
+    }
+    List<PropertyIdentifier<?>> ids = Lists.newArrayList();
+    String text = generate(ids);
+    Function<String, PropertyIdentifier<?>> resolver = Formulas.resolver(ids);
+    try {
+      Path folder = Files.createTempDirectory("graph-definition-benchmark");
+      Path file = folder.resolve("benchmark.rules");
+      Path cache = folder.resolve("benchmark.plan");
+      Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+      long cold = Long.MAX_VALUE;
+      long warm = Long.MAX_VALUE;
+      long parse = Long.MAX_VALUE;
+      for (int round = -getInt("warmup"); round < getInt("rounds"); round++) {
+        Files.deleteIfExists(cache);
+        long start = System.nanoTime();
+        GraphDefinitions.load(file, cache, resolver);
+        long loaded = System.nanoTime();
+        GraphDefinition definition = GraphDefinitions.load(file, cache, resolver);
+        long reloaded = System.nanoTime();
+        GraphDefinitions.parse(text, resolver);
+        long parsed = System.nanoTime();
+        checkArgument(definition.isPlanFromCache(), "the plan was not read from the cache");
+        if (round >= 0) {
+          cold = Math.min(cold, loaded - start);
+          warm = Math.min(warm, reloaded - loaded);
+          parse = Math.min(parse, parsed - reloaded);
+        }
+      }
+      Files.deleteIfExists(cache);
+      Files.deleteIfExists(file);
+      Files.deleteIfExists(folder);
+      json.append("},\"results\":{")
+          .append("\"coldLoadMillis\":").append(cold / 1e6)
+          .append(",\"warmLoadMillis\":").append(warm / 1e6)
+          .append(",\"parseMillis\":").append(parse / 1e6)
+          .append(",\"warmToCold\":").append((double) warm / cold).append("}}");
+      return json.toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // declares the properties in reverse order of evaluation, so that the plan cannot simply
+  // follow the text
+  private String generate(List<PropertyIdentifier<?>> ids) {
+    int properties = getInt("properties");
+    Random random = new Random(getInt("seed"));
+    for (int i = 0; i < properties; i++) {
+      ids.add(new Input("P" + i));
+    }
+    StringBuilder text = new StringBuilder();
+    for (int i = properties - 1; i >= 0; i--) {
+      text.append("property P").append(i).append(" = ");
+      if (i < 10) {
+        text.append(i);
+      } else {
+        text.append("(P").append(random.nextInt(i)).append(" + P").append(random.nextInt(i))
+            .append(") / 2 + min(P").append(random.nextInt(i)).append(", 3)");
+      }
+      text.append('\n');
+    }
+    return text.toString();
+  }
+
+  private int getInt(String name) {
+    return Integer.parseInt(options.get(name));
+  }
+
+  private static class Input implements PropertyIdentifier<Integer> {
+    private final String name;
+
+    private Input(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+package org.devoware.reactive.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+// a log-linear histogram: values below 64 are counted exactly, and larger values in 32
+// sub-buckets per power of two, which bounds the relative error of a percentile to about 3%
+class LatencyHistogram {
+  private static final int SUB_BUCKETS = 32;
+  private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+  private static final int SIZE = (64 - 5) * SUB_BUCKETS + LINEAR_LIMIT;
+
+  private final long[] counts = new long[SIZE];
+  private long total;
+  private long max;
+
+  void record(long value) {
+    checkArgument(value >= 0, "value cannot be negative");
+    counts[indexOf(value)]++;
+    total++;
+    max = Math.max(max, value);
+  }
+
+  void add(LatencyHistogram other) {
+    for (int i = 0; i < SIZE; i++) {
+      counts[i] += other.counts[i];
+    }
+    total += other.total;
+    max = Math.max(max, other.max);
+  }
+
+  long getTotal() {
+    return total;
+  }
+
+  long getMax() {
+    return max;
+  }
+
+  long getPercentile(double percentile) {
+    checkArgument(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < SIZE; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(valueOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  private static int indexOf(long value) {
+    if (value < LINEAR_LIMIT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+    return shift * SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  // the upper bound of a bucket, so that percentiles are never understated
+  private static long valueOf(int index) {
+    if (index < LINEAR_LIMIT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+
+}
@@ -0,0 +1,139 @@
+package org.devoware.reactive.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+// options are passed as name=value pairs, e.g. managers=5000 threads=8 duration=600
+class LoadConfiguration {
+  private static final Map<String, String> DEFAULTS = ImmutableMap.<String, String>builder()
+      .put("label", "unlabelled")
+      .put("managers", "1000")
+      .put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))
+      .put("baseProperties", "6")
+      .put("layers", "3")
+      .put("propertiesPerLayer", "6")
+      .put("fanIn", "3")
+      .put("maxModifiers", "8")
+      .put("setWeight", "50")
+      .put("addModifierWeight", "25")
+      .put("removeModifierWeight", "25")
+      .put("warmup", "5")
+      .put("duration", "30")
+      .put("sampleInterval", "5")
+      .put("seed", "42")
+      .put("output", "")
+      .build();
+
+  private final Map<String, String> options;
+
+  static LoadConfiguration parse(String... args) {
+    checkNotNull(args, "args cannot be null");
+    Map<String, String> options = Maps.newLinkedHashMap(DEFAULTS);
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      checkArgument(separator > 0, "expected name=value but found %s", arg);
+      String name = arg.substring(0, separator);
+      checkArgument(DEFAULTS.containsKey(name), "unknown option %s; expected one of %s", name,
+          DEFAULTS.keySet());
+      options.put(name, arg.substring(separator + 1));
+    }
+    return new LoadConfiguration(options);
+  }
+
+  static LoadConfiguration parse(String args) {
+    return parse(Splitter.on(' ').omitEmptyStrings().splitToList(args).toArray(new String[0]));
+  }
+
+  private LoadConfiguration(Map<String, String> options) {
+    this.options = ImmutableMap.copyOf(options);
+    checkArgument(getManagers() > 0, "managers must be positive");
+    checkArgument(getThreads() > 0, "threads must be positive");
+    checkArgument(getBaseProperties() > 0, "baseProperties must be positive");
+    checkArgument(getFanIn() > 0, "fanIn must be positive");
+    checkArgument(getDurationSeconds() > 0, "duration must be positive");
+    checkArgument(getSampleIntervalSeconds() > 0, "sampleInterval must be positive");
+  }
+
+  Map<String, String> getOptions() {
+    return options;
+  }
+
+  String getLabel() {
+    return options.get("label");
+  }
+
+  int getManagers() {
+    return getInt("managers");
+  }
+
+  int getThreads() {
+    return getInt("threads");
+  }
+
+  int getBaseProperties() {
+    return getInt("baseProperties");
+  }
+
+  int getLayers() {
+    return getInt("layers");
+  }
+
+  int getPropertiesPerLayer() {
+    return getInt("propertiesPerLayer");
+  }
+
+  int getFanIn() {
+    return getInt("fanIn");
+  }
+
+  int getMaxModifiers() {
+    return getInt("maxModifiers");
+  }
+
+  int getSetWeight() {
+    return getInt("setWeight");
+  }
+
+  int getAddModifierWeight() {
+    return getInt("addModifierWeight");
+  }
+
+  int getRemoveModifierWeight() {
+    return getInt("removeModifierWeight");
+  }
+
+  double getWarmupSeconds() {
+    return getDouble("warmup");
+  }
+
+  double getDurationSeconds() {
+    return getDouble("duration");
+  }
+
+  double getSampleIntervalSeconds() {
+    return getDouble("sampleInterval");
+  }
+
+  long getSeed() {
+    return Long.parseLong(options.get("seed"));
+  }
+
+  String getOutput() {
+    return options.get("output");
+  }
+
+  private int getInt(String name) {
+    return Integer.parseInt(options.get(name));
+  }
+
+  private double getDouble(String name) {
+    return Double.parseDouble(options.get(name));
+  }
+
+}
@@ -0,0 +1,334 @@
+package org.devoware.reactive.load;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.devoware.reactive.property.AggregateModifiers;
+import org.devoware.reactive.property.Identifier;
+import org.devoware.reactive.property.Modifier;
+import org.devoware.reactive.property.Property;
+import org.devoware.reactive.property.PropertyIdentifier;
+import org.devoware.reactive.property.PropertyManager;
+import org.devoware.reactive.property.PropertyManagers;
+
+import com.google.common.collect.Lists;
+
+// builds a population of managers with a layered graph shape, and drives randomized set,
+// addModifier and removeModifier churn against them from several threads; each manager is
+// confined to the thread that owns it, since managers are not thread-safe
+public class LoadGenerator {
+  private final LoadConfiguration configuration;
+  private final LongAdder operations = new LongAdder();
+  private volatile boolean measuring;
+  private volatile boolean stopped;
+
+  public static void main(String[] args) throws Exception {
+    LoadConfiguration configuration = LoadConfiguration.parse(args);
+    String result = new LoadGenerator(configuration).run();
+    if (configuration.getOutput().isEmpty()) {
+      System.out.println(result);
+    } else {
+      Files.write(Paths.get(configuration.getOutput()), result.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  LoadGenerator(LoadConfiguration configuration) {
+    checkNotNull(configuration, "configuration cannot be null");
+    this.configuration = configuration;
+  }
+
+  // returns the results of the run as a single JSON document
+  String run() throws InterruptedException {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long heapBefore = usedHeapAfterGc(memory);
+    List<Worker> workers = Lists.newArrayList();
+    for (int i = 0; i < configuration.getThreads(); i++) {
+      workers.add(new Worker(i));
+    }
+    for (int i = 0; i < configuration.getManagers(); i++) {
+      workers.get(i % workers.size()).managers.add(createManager(i));
+    }
+    long graphBytes = usedHeapAfterGc(memory) - heapBefore;
+
+    CountDownLatch finished = new CountDownLatch(workers.size());
+    for (Worker worker : workers) {
+      Thread thread = new Thread(() -> {
+        try {
+          worker.run();
+        } finally {
+          finished.countDown();
+        }
+      }, "load-" + worker.index);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    sleep(configuration.getWarmupSeconds());
+    measuring = true;
+    long start = System.nanoTime();
+    long end = start + seconds(configuration.getDurationSeconds());
+    List<Sample> samples = Lists.newArrayList();
+    long peakHeap = 0;
+    long lastOperations = 0;
+    long lastSample = start;
+    while (System.nanoTime() < end) {
+      long next = Math.min(end, lastSample + seconds(configuration.getSampleIntervalSeconds()));
+      TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+      long now = System.nanoTime();
+      long total = operations.sum();
+      long heap = memory.getHeapMemoryUsage().getUsed();
+      peakHeap = Math.max(peakHeap, heap);
+      samples.add(new Sample((now - start) / 1e9,
+          (total - lastOperations) / ((now - lastSample) / 1e9), heap));
+      lastOperations = total;
+      lastSample = now;
+    }
+    measuring = false;
+    stopped = true;
+    finished.await();
+    double elapsed = (lastSample - start) / 1e9;
+
+    LatencyHistogram latencies = new LatencyHistogram();
+    long allocatedBytes = 0;
+    boolean allocationSupported = true;
+    long failures = 0;
+    for (Worker worker : workers) {
+      latencies.add(worker.latencies);
+      allocationSupported &= worker.allocatedBytes >= 0;
+      allocatedBytes += Math.max(0, worker.allocatedBytes);
+      failures += worker.failures;
+    }
+    long heapAfter = usedHeapAfterGc(memory);
+    return toJson(latencies, elapsed, allocationSupported ? allocatedBytes : -1, failures,
+        graphBytes, peakHeap, heapAfter, samples);
+  }
+
+  private PropertyManager createManager(int index) {
+    Random random = new Random(configuration.getSeed() + index);
+    PropertyManager manager = PropertyManagers.create();
+    List<LoadProperty> previous = Lists.newArrayList();
+    for (int i = 0; i < configuration.getBaseProperties(); i++) {
+      LoadProperty id = new LoadProperty(0, i);
+      manager.create(id).withValue(1 + random.nextInt(20)).build();
+      previous.add(id);
+    }
+    for (int layer = 1; layer <= configuration.getLayers(); layer++) {
+      List<LoadProperty> current = Lists.newArrayList();
+      for (int i = 0; i < configuration.getPropertiesPerLayer(); i++) {
+        LoadProperty id = new LoadProperty(layer, i);
+        List<LoadProperty> producers = Lists.newArrayList();
+        for (int j = 0; j < configuration.getFanIn(); j++) {
+          producers.add(previous.get(random.nextInt(previous.size())));
+        }
+        manager.create(id).withValue((context) -> {
+          int sum = 0;
+          for (LoadProperty producer : producers) {
+            sum += context.get(producer);
+          }
+          return sum / producers.size();
+        }).build();
+        current.add(id);
+      }
+      previous = current;
+    }
+    return manager;
+  }
+
+  private String toJson(LatencyHistogram latencies, double elapsed, long allocatedBytes,
+      long failures, long graphBytes, long peakHeap, long heapAfter, List<Sample> samples) {
+    long count = latencies.getTotal();
+    StringBuilder json = new StringBuilder("{");
+    json.append("\"label\":\"").append(escape(configuration.getLabel())).append("\",");
+    json.append("\"configuration\":{");
+    int option = 0;
+    for (Map.Entry<String, String> entry : configuration.getOptions().entrySet()) {
+      json.append(option++ == 0 ? "" : ",").append('"').append(entry.getKey()).append("\":\"")
+          .append(escape(entry.getValue())).append('"');
+    }
+    json.append("},");
+    json.append("\"elapsedSeconds\":").append(elapsed).append(',');
+    json.append("\"operations\":").append(count).append(',');
+    json.append("\"failures\":").append(failures).append(',');
+    json.append("\"throughput\":").append(count / elapsed).append(',');
+    json.append("\"latencyNanos\":{")
+        .append("\"p50\":").append(latencies.getPercentile(50)).append(',')
+        .append("\"p99\":").append(latencies.getPercentile(99)).append(',')
+        .append("\"p999\":").append(latencies.getPercentile(99.9)).append(',')
+        .append("\"max\":").append(latencies.getMax()).append("},");
+    json.append("\"allocation\":{")
+        .append("\"bytesPerSecond\":").append(allocatedBytes < 0 ? -1 : allocatedBytes / elapsed)
+        .append(',')
+        .append("\"bytesPerOperation\":")
+        .append(allocatedBytes < 0 || count == 0 ? -1 : (double) allocatedBytes / count)
+        .append("},");
+    json.append("\"heap\":{")
+        .append("\"graphBytes\":").append(graphBytes).append(',')
+        .append("\"peakUsedBytes\":").append(peakHeap).append(',')
+        .append("\"finalUsedBytes\":").append(heapAfter).append("},");
+    json.append("\"samples\":[");
+    for (int i = 0; i < samples.size(); i++) {
+      Sample sample = samples.get(i);
+      json.append(i == 0 ? "" : ",")
+          .append("{\"elapsedSeconds\":").append(sample.elapsed)
+          .append(",\"throughput\":").append(sample.throughput)
+          .append(",\"heapUsedBytes\":").append(sample.heapUsed).append('}');
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private static long usedHeapAfterGc(MemoryMXBean memory) {
+    System.gc();
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private static long seconds(double seconds) {
+    return (long) (seconds * 1e9);
+  }
+
+  private static void sleep(double seconds) throws InterruptedException {
+    TimeUnit.NANOSECONDS.sleep(seconds(seconds));
+  }
+
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean counters = (com.sun.management.ThreadMXBean) threads;
+      if (counters.isThreadAllocatedMemorySupported() && counters.isThreadAllocatedMemoryEnabled()) {
+        return counters.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  private class Worker {
+    private final int index;
+    private final List<PropertyManager> managers = Lists.newArrayList();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private long allocatedBytes;
+    private long failures;
+
+    private Worker(int index) {
+      this.index = index;
+    }
+
+    private void run() {
+      Random random = new Random(configuration.getSeed() * 31 + index);
+      List<List<Identifier>> modifiers = Lists.newArrayList();
+      for (int i = 0; i < managers.size() * configuration.getBaseProperties(); i++) {
+        modifiers.add(Lists.newArrayList());
+      }
+      int totalWeight = configuration.getSetWeight() + configuration.getAddModifierWeight()
+          + configuration.getRemoveModifierWeight();
+      boolean measured = false;
+      long allocatedAtStart = 0;
+      while (!stopped) {
+        if (measuring && !measured) {
+          measured = true;
+          allocatedAtStart = allocatedBytes();
+        }
+        int m = random.nextInt(managers.size());
+        int p = random.nextInt(configuration.getBaseProperties());
+        Property<Integer> property = managers.get(m).get(new LoadProperty(0, p));
+        List<Identifier> active = modifiers.get(m * configuration.getBaseProperties() + p);
+        int choice = random.nextInt(totalWeight);
+        long start = System.nanoTime();
+        try {
+          if (choice < configuration.getSetWeight()) {
+            property.set(1 + random.nextInt(20));
+          } else if (choice < totalWeight - configuration.getRemoveModifierWeight()
+              && active.size() < configuration.getMaxModifiers()) {
+            active.add(property.addModifier(createModifier(random)));
+          } else if (!active.isEmpty()) {
+            property.removeModifier(active.remove(random.nextInt(active.size())));
+          }
+        } catch (RuntimeException e) {
+          failures++;
+        }
+        long latency = System.nanoTime() - start;
+        if (measuring) {
+          latencies.record(latency);
+          operations.increment();
+        }
+      }
+      long allocatedAtEnd = allocatedBytes();
+      allocatedBytes = measured && allocatedAtStart >= 0 ? allocatedAtEnd - allocatedAtStart : -1;
+    }
+
+    private Modifier<Integer> createModifier(Random random) {
+      int operand = random.nextInt(5) - 2;
+      if (random.nextBoolean()) {
+        return AggregateModifiers.sum(operand);
+      }
+      return (context, value) -> Math.max(1, value + operand);
+    }
+  }
+
+  private static class Sample {
+    private final double elapsed;
+    private final double throughput;
+    private final long heapUsed;
+
+    private Sample(double elapsed, double throughput, long heapUsed) {
+      this.elapsed = elapsed;
+      this.throughput = throughput;
+      this.heapUsed = heapUsed;
+    }
+  }
+
+  // identifiers are compared by layer and position, so that each manager can use fresh instances
+  private static class LoadProperty implements PropertyIdentifier<Integer> {
+    private final int layer;
+    private final int position;
+
+    private LoadProperty(int layer, int position) {
+      this.layer = layer;
+      this.position = position;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof LoadProperty)) {
+        return false;
+      }
+      LoadProperty other = (LoadProperty) obj;
+      return layer == other.layer && position == other.position;
+    }
+
+    @Override
+    public int hashCode() {
+      return layer * 31 + position;
+    }
+
+    @Override
+    public String toString() {
+      return "P" + layer + "_" + position;
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+package org.devoware.reactive.load;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LoadGeneratorTest {
+
+  @Test
+  public void test_short_run() throws InterruptedException {
+    String result = new LoadGenerator(LoadConfiguration.parse(
+        "label=smoke managers=20 threads=2 warmup=0 duration=0.5 sampleInterval=0.25")).run();
+
+    assertTrue(result.startsWith("{\"label\":\"smoke\""));
+    assertThat(result, containsString("\"p999\":"));
+    assertThat(result, containsString("\"bytesPerOperation\":"));
+    assertThat(result, containsString("\"graphBytes\":"));
+    assertThat(result, containsString("\"failures\":0,"));
+    assertTrue(!result.contains("\"operations\":0,"));
+  }
+
+  @Test
+  public void test_component_benchmark() {
+    String result = new ComponentBenchmark("properties=512", "components=1,64",
+        "lanes=2", "work=10", "warmup=0", "duration=0.2").run();
+
+    assertTrue(result.startsWith("{\"configuration\":{\"properties\":\"512\""));
+    assertThat(result, containsString("{\"components\":1,"));
+    assertThat(result, containsString("{\"components\":64,"));
+    assertThat(result, containsString("\"speedup\":"));
+  }
+
+  @Test
+  public void test_formula_benchmark() {
+    String result = new FormulaBenchmark("rounds=1", "warmup=0", "duration=0.05").run();
+
+    assertTrue(result.startsWith("{\"configuration\":{\"rounds\":\"1\""));
+    assertThat(result, containsString("\"formulaEvaluationsPerSecond\":"));
+    assertThat(result, containsString("\"ratio\":"));
+  }
+
+  @Test
+  public void test_graph_definition_benchmark() {
+    String result =
+        new GraphDefinitionBenchmark("properties=200", "rounds=1", "warmup=0").run();
+
+    assertTrue(result.startsWith("{\"configuration\":{\"properties\":\"200\""));
+    assertThat(result, containsString("\"coldLoadMillis\":"));
+    assertThat(result, containsString("\"warmLoadMillis\":"));
+  }
+
+  @Test
+  public void test_percentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000);
+    }
+
+    assertThat(histogram.getMax(), equalTo(1000000L));
+    assertTrue(Math.abs(histogram.getPercentile(50) - 500000) < 500000 * 0.04);
+    assertTrue(Math.abs(histogram.getPercentile(99) - 990000) < 990000 * 0.04);
+    assertThat(histogram.getPercentile(100), equalTo(1000000L));
+  }
+
+}
@@ -0,0 +1,112 @@
+package org.devoware.reactive.property;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.AttributeModifier.STRENGTH_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.devoware.reactive.testutil.BasicProperty.MELEE_ATTACK_MOD;
+import static org.devoware.reactive.testutil.BasicProperty.PROFICIENCY_BONUS;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.devoware.reactive.testutil.ValueMaps;
+import org.junit.Before;
+import org.junit.Test;
+
+// measures the bytes allocated per operation on the steady-state paths, using the allocation
+// counter of the current thread; each operation fails once it exceeds its declared budget, so
+// that allocations creeping back into a hot path are caught by the build
+public class AllocationBudgetTest {
+  private static final int WARMUP_ITERATIONS = 50000;
+  private static final int MEASURED_ITERATIONS = 100000;
+
+  // reading a cached value, reading a producer through a context, and applying a modifier chain
+  // should not allocate at all
+  private static final long GET_BUDGET = 0;
+  private static final long CONTEXT_GET_BUDGET = 0;
+  private static final long APPLY_MODIFIERS_BUDGET = 0;
+  // recomputing a consumer re-checks its bindings, which goes through the multimap views
+  private static final long RECOMPUTE_BUDGET = 128;
+  // a set records the change, and walks the bindings downstream of the property
+  private static final long SET_BUDGET = 1536;
+
+  private com.sun.management.ThreadMXBean threads;
+  private BasicPropertyManager manager;
+  private Property<Integer> strength;
+  private BasicProperty<Integer> melee;
+
+  @Before
+  public void setUp() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    manager = (BasicPropertyManager) PropertyManagers.create();
+    strength = manager.create(STRENGTH).withValue(14).build();
+    manager.create(STRENGTH_MOD).withValue((context) -> (context.get(STRENGTH) - 10) / 2).build();
+    manager.create(LEVEL).withValue(5).build();
+    manager.create(PROFICIENCY_BONUS)
+        .withValue((context) -> ValueMaps.PROFICIENCY_BONUS_BY_LEVEL.get(context.get(LEVEL)))
+        .build();
+    melee = (BasicProperty<Integer>) manager.create(MELEE_ATTACK_MOD)
+        .withValue((context) -> context.get(STRENGTH_MOD) + context.get(PROFICIENCY_BONUS))
+        .build();
+  }
+
+  @Test
+  public void test_get() {
+    assertWithinBudget("get", GET_BUDGET, () -> melee.get());
+  }
+
+  @Test
+  public void test_context_get() {
+    PropertyContext context = manager.getPropertyContextFor(melee, false);
+    assertWithinBudget("Context.get", CONTEXT_GET_BUDGET, () -> context.get(STRENGTH_MOD));
+  }
+
+  @Test
+  public void test_apply_modifiers() {
+    Modifiers<Integer> modifiers = Modifiers.create();
+    modifiers.applyFirst(new Identifier() {}, AggregateModifiers.product(2));
+    modifiers.apply(new Identifier() {}, AggregateModifiers.sum(2));
+    modifiers.apply(new Identifier() {}, (context, value) -> value + 1);
+    modifiers.applyLast(new Identifier() {}, AggregateModifiers.max(19));
+    PropertyContext context = manager.getPropertyContextFor(melee, false);
+    assertWithinBudget("Modifiers.applyModifiers", APPLY_MODIFIERS_BUDGET,
+        () -> modifiers.applyModifiers(context, 10));
+  }
+
+  @Test
+  public void test_recompute() {
+    melee.addModifier(AggregateModifiers.sum(1));
+    melee.addModifier((context, value) -> value * 2);
+    assertWithinBudget("BasicProperty.recompute", RECOMPUTE_BUDGET, () -> melee.recompute());
+  }
+
+  @Test
+  public void test_set() {
+    int[] next = {0};
+    assertWithinBudget("Property.set", SET_BUDGET, () -> strength.set(10 + (next[0]++ & 7)));
+  }
+
+  private void assertWithinBudget(String operation, long budget, Runnable runnable) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      runnable.run();
+    }
+    long id = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(id);
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      runnable.run();
+    }
+    double bytesPerOperation =
+        (threads.getThreadAllocatedBytes(id) - before) / (double) MEASURED_ITERATIONS;
+    // the counter picks up the odd allocation made outside of the operation, so anything short
+    // of a byte per operation is not attributed to it
+    assertTrue(operation + " allocated " + bytesPerOperation + " bytes per operation, over its "
+        + "budget of " + budget, bytesPerOperation < budget + 1);
+  }
+
+}
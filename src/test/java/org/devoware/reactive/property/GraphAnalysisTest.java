@@ -0,0 +1,113 @@
+package org.devoware.reactive.property;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+
+public class GraphAnalysisTest {
+  private static final int LARGE_GRAPH_SIZE = 1_000_000;
+  private static final long LARGE_GRAPH_BUDGET_MILLIS = 10_000;
+
+  // the estimates only select the candidates, which are then counted exactly
+  @Test
+  public void test_largest_downstream() {
+    GraphAnalysis analysis = randomGraph(3_000, 200, new Random(7));
+    List<Integer> exact = Lists.newArrayList();
+    for (int node = 0; node < analysis.getPropertyCount(); node++) {
+      exact.add(analysis.getDownstreamCount(new Node(node)));
+    }
+    List<Integer> expected = Ordering.natural().greatestOf(exact, 10);
+
+    assertThat(Lists.newArrayList(analysis.getLargestDownstream(10).values()), equalTo(expected));
+  }
+
+  @Test
+  public void test_large_graph() {
+    long start = System.nanoTime();
+    GraphAnalysis analysis = randomGraph(LARGE_GRAPH_SIZE, 1_000, new Random(11));
+    analysis.getLargestDownstream(10);
+    analysis.getLongestChains(10);
+    analysis.getFanInDistribution();
+    analysis.writeDot(new NullAppendable());
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertThat(analysis.getBindingCount(), equalTo(2 * (LARGE_GRAPH_SIZE - 1)));
+    assertTrue("analysed " + LARGE_GRAPH_SIZE + " properties in " + elapsedMillis + " ms",
+        elapsedMillis < LARGE_GRAPH_BUDGET_MILLIS);
+  }
+
+  // each node but the first reads two of the nodes created shortly before it
+  private static GraphAnalysis randomGraph(int size, int window, Random random) {
+    PropertyIdentifier<?>[] ids = new PropertyIdentifier<?>[size];
+    for (int node = 0; node < size; node++) {
+      ids[node] = new Node(node);
+    }
+    int edges = 2 * (size - 1);
+    int[] producers = new int[edges];
+    int[] consumers = new int[edges];
+    int edge = 0;
+    for (int node = 1; node < size; node++) {
+      for (int i = 0; i < 2; i++) {
+        producers[edge] = Math.max(0, node - 1 - random.nextInt(window));
+        consumers[edge] = node;
+        edge++;
+      }
+    }
+    return GraphAnalysis.compute(ids, new boolean[size], new double[size], false, producers,
+        consumers);
+  }
+
+  private static class Node implements PropertyIdentifier<Integer> {
+    private final int index;
+
+    private Node(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Node && ((Node) obj).index == index;
+    }
+
+    @Override
+    public int hashCode() {
+      return index;
+    }
+  }
+
+  private static class NullAppendable implements Appendable {
+    @Override
+    public Appendable append(CharSequence csq) {
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      return this;
+    }
+  }
+
+}
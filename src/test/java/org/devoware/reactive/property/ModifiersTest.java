@@ -5,16 +5,22 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 public class ModifiersTest {
   
   private static enum Identifiers implements Identifier {
-    ID_1, ID_2, ID_3, ID_4, ID_5;
+    ID_1, ID_2, ID_3, ID_4, ID_5, ID_6, ID_7;
   }
   
   private static final Modifier<Integer> modifier1 = (context, value) -> value + 1;
@@ -88,4 +94,192 @@ public class ModifiersTest {
     assertFalse(it.hasNext());
   }
 
+  @Test
+  public void test_aggregates () {
+    PropertyContext context = mock(PropertyContext.class);
+
+    modifiers.apply(Identifiers.ID_1, AggregateModifiers.sum(2));
+    modifiers.apply(Identifiers.ID_2, AggregateModifiers.sum(3));
+    modifiers.apply(Identifiers.ID_3, modifier1);
+    modifiers.apply(Identifiers.ID_4, AggregateModifiers.product(2));
+    modifiers.applyLast(Identifiers.ID_5, AggregateModifiers.max(19));
+    modifiers.applyLast(Identifiers.ID_6, AggregateModifiers.max(17));
+    modifiers.applyLast(Identifiers.ID_7, AggregateModifiers.min(22));
+
+    assertThat(modifiers.size(), equalTo(7));
+    // ((10 + 2 + 3) * 2) + 1 = 31, capped at 22
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(22));
+    // ((1 + 2 + 3) * 2) + 1 = 13, raised to 19
+    assertThat(modifiers.applyModifiers(context, 1), equalTo(19));
+
+    modifiers.remove(Identifiers.ID_5);
+    assertThat(modifiers.applyModifiers(context, 1), equalTo(17));
+
+    modifiers.remove(Identifiers.ID_2);
+    modifiers.remove(Identifiers.ID_6);
+    modifiers.apply(Identifiers.ID_4, AggregateModifiers.product(0));
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(1));
+
+    modifiers.remove(Identifiers.ID_4);
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(13));
+
+    modifiers.remove(Identifiers.ID_1);
+    modifiers.remove(Identifiers.ID_3);
+    modifiers.remove(Identifiers.ID_7);
+    assertTrue(modifiers.isEmpty());
+    assertFalse(modifiers.iterator().hasNext());
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(10));
+  }
+
+  // the product overflows, so a factor cannot simply be divided back out of it
+  @Test
+  public void test_products_after_overflow () {
+    PropertyContext context = mock(PropertyContext.class);
+
+    modifiers.apply(Identifiers.ID_1, AggregateModifiers.product(65536));
+    modifiers.apply(Identifiers.ID_2, AggregateModifiers.product(65536));
+    modifiers.apply(Identifiers.ID_3, AggregateModifiers.product(3));
+    assertThat(modifiers.applyModifiers(context, 1), equalTo(0));
+
+    modifiers.remove(Identifiers.ID_2);
+    assertThat(modifiers.applyModifiers(context, 1), equalTo(196608));
+
+    modifiers.apply(Identifiers.ID_4, AggregateModifiers.product(0));
+    modifiers.remove(Identifiers.ID_1);
+    assertThat(modifiers.applyModifiers(context, 1), equalTo(0));
+
+    modifiers.remove(Identifiers.ID_4);
+    assertThat(modifiers.applyModifiers(context, 1), equalTo(3));
+  }
+
+  // factors are removed and added again out of order, as the product grows past its capacity
+  @Test
+  public void test_many_stacked_products () {
+    PropertyContext context = mock(PropertyContext.class);
+    List<Identifier> ids = Lists.newArrayList();
+    List<Integer> factors = Lists.newArrayList();
+    Random random = new Random(7);
+    for (int round = 0; round < 500; round++) {
+      if (ids.isEmpty() || random.nextInt(3) > 0) {
+        Identifier id = new Identifier() {};
+        int factor = 1 + random.nextInt(5);
+        ids.add(id);
+        factors.add(factor);
+        modifiers.apply(id, AggregateModifiers.product(factor));
+      } else {
+        int index = random.nextInt(ids.size());
+        modifiers.remove(ids.remove(index));
+        factors.remove(index);
+      }
+      int product = 1;
+      for (int factor : factors) {
+        product *= factor;
+      }
+      assertThat(modifiers.applyModifiers(context, 1), equalTo(product));
+    }
+  }
+
+  @Test
+  public void test_double_sums_after_cancellation () {
+    PropertyContext context = mock(PropertyContext.class);
+    Modifiers<Double> sums = Modifiers.create();
+
+    sums.apply(Identifiers.ID_1, AggregateModifiers.sum(1e16));
+    sums.apply(Identifiers.ID_2, AggregateModifiers.sum(1.0));
+    sums.apply(Identifiers.ID_3, AggregateModifiers.sum(1.0));
+    sums.remove(Identifiers.ID_1);
+    // the small operands that the large one had rounded away are not lost with it
+    assertThat(sums.applyModifiers(context, 0.0), equalTo(2.0));
+
+    sums.apply(Identifiers.ID_4, AggregateModifiers.sum(0.1));
+    sums.apply(Identifiers.ID_5, AggregateModifiers.sum(-1e20));
+    sums.remove(Identifiers.ID_5);
+    sums.remove(Identifiers.ID_2);
+    assertThat(sums.applyModifiers(context, 0.0), equalTo(1.1));
+  }
+
+  @Test
+  public void test_restorer () {
+    PropertyContext context = mock(PropertyContext.class);
+    Modifier<Integer> doubled = (ctx, value) -> value * 2;
+
+    modifiers.apply(Identifiers.ID_1, modifier1);
+    modifiers.apply(Identifiers.ID_2, doubled);
+    Runnable restoreFirst = modifiers.restorer(Identifiers.ID_1);
+    Runnable restoreThird = modifiers.restorer(Identifiers.ID_3);
+    modifiers.apply(Identifiers.ID_1, modifier2);
+    modifiers.apply(Identifiers.ID_3, modifier3);
+    // (10 * 2) + 2 + 3 = 25
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(25));
+
+    restoreFirst.run();
+    restoreThird.run();
+    // (10 + 1) * 2 = 22
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(22));
+    assertFalse(modifiers.containsKey(Identifiers.ID_3));
+  }
+
+  @Test
+  public void test_equal_stacking_groups () {
+    PropertyContext context = mock(PropertyContext.class);
+
+    modifiers.stack(Identifiers.ID_1, AggregateModifiers.sum(2),
+        StackingGroup.highest("enhancement"), 0);
+    modifiers.stack(Identifiers.ID_2, AggregateModifiers.sum(4),
+        StackingGroup.highest("enhancement"), 0);
+    modifiers.stack(Identifiers.ID_3, AggregateModifiers.sum(-1),
+        StackingGroup.lowest("enhancement"), 0);
+
+    assertThat(StackingGroup.highest("enhancement"),
+        equalTo(StackingGroup.highest("enhancement")));
+    // 10 + 4 - 1 = 13
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(13));
+  }
+
+  @Test
+  public void test_priorities_and_stacking_groups () {
+    PropertyContext context = mock(PropertyContext.class);
+    StackingGroup enhancement = StackingGroup.highest("enhancement");
+    StackingGroup penalty = StackingGroup.lowest("penalty");
+
+    modifiers.apply(Identifiers.ID_1, AggregateModifiers.product(2), 10);
+    modifiers.apply(Identifiers.ID_2, AggregateModifiers.sum(1), -10);
+    modifiers.stack(Identifiers.ID_3, AggregateModifiers.sum(2), enhancement, 0);
+    modifiers.stack(Identifiers.ID_4, AggregateModifiers.sum(4), enhancement, 0);
+    modifiers.stack(Identifiers.ID_5, AggregateModifiers.sum(3), enhancement, 0);
+    modifiers.stack(Identifiers.ID_6, AggregateModifiers.sum(-1), penalty, 0);
+    modifiers.stack(Identifiers.ID_7, AggregateModifiers.sum(-3), penalty, 0);
+
+    assertThat(modifiers.size(), equalTo(7));
+    // ((10 + 1) + 4 - 3) * 2 = 24
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(24));
+
+    modifiers.remove(Identifiers.ID_4);
+    modifiers.remove(Identifiers.ID_6);
+    // ((10 + 1) + 3 - 3) * 2 = 22
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(22));
+
+    modifiers.stack(Identifiers.ID_7, AggregateModifiers.sum(5), enhancement, 0);
+    // ((10 + 1) + 5) * 2 = 32
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(32));
+
+    modifiers.apply(Identifiers.ID_2, AggregateModifiers.sum(1), 20);
+    // ((10 + 5) * 2) + 1 = 31
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(31));
+
+    try {
+      modifiers.stack(Identifiers.ID_6, AggregateModifiers.product(2), enhancement, 0);
+      fail("Expected an IllegalArgumentException");
+    } catch (IllegalArgumentException e) {}
+    assertFalse(modifiers.containsKey(Identifiers.ID_6));
+
+    modifiers.remove(Identifiers.ID_1);
+    modifiers.remove(Identifiers.ID_2);
+    modifiers.remove(Identifiers.ID_3);
+    modifiers.remove(Identifiers.ID_5);
+    modifiers.remove(Identifiers.ID_7);
+    assertTrue(modifiers.isEmpty());
+    assertThat(modifiers.applyModifiers(context, 10), equalTo(10));
+  }
+
 }
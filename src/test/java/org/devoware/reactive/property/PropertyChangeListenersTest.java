@@ -0,0 +1,63 @@
+package org.devoware.reactive.property;
+
+import static org.devoware.reactive.testutil.Attribute.STRENGTH;
+import static org.devoware.reactive.testutil.BasicProperty.LEVEL;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.Reference;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+// the collector is stood in for by clearing and enqueuing the reference of a weak listener
+// directly, as it would once the listener is unreachable
+public class PropertyChangeListenersTest {
+
+  @Test
+  public void test_collected_weak_listener_is_purged() {
+    BasicPropertyManager manager = (BasicPropertyManager) PropertyManagers.create();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(8).build();
+    Property<Integer> level = manager.create(LEVEL).withValue(1).build();
+    AtomicInteger notifications = new AtomicInteger();
+    PropertyChangeListener<Integer> listener = (id, value) -> notifications.incrementAndGet();
+    strength.addWeakPropertyChangeListener(listener);
+
+    strength.set(10);
+    assertThat(notifications.get(), equalTo(1));
+
+    Reference<?> reference = manager.getWeakReference(STRENGTH, listener);
+    reference.clear();
+    assertTrue(reference.enqueue());
+
+    assertTrue(manager.hasListeners(STRENGTH));
+
+    // the queue is drained by the next registration, whichever property it is for
+    level.addPropertyChangeListener((id, value) -> {});
+
+    assertFalse(manager.hasListeners(STRENGTH));
+
+    strength.set(12);
+    assertThat(notifications.get(), equalTo(1));
+  }
+
+  // a cleared listener that has not been purged yet is skipped, and unlinked, by dispatch
+  @Test
+  public void test_cleared_weak_listener_is_skipped() {
+    BasicPropertyManager manager = (BasicPropertyManager) PropertyManagers.create();
+    Property<Integer> strength = manager.create(STRENGTH).withValue(8).build();
+    AtomicInteger notifications = new AtomicInteger();
+    PropertyChangeListener<Integer> weak = (id, value) -> notifications.incrementAndGet();
+    PropertyChangeListener<Integer> strong = (id, value) -> notifications.addAndGet(10);
+    strength.addWeakPropertyChangeListener(weak);
+    strength.addPropertyChangeListener(strong);
+
+    manager.getWeakReference(STRENGTH, weak).clear();
+    strength.set(10);
+
+    assertThat(notifications.get(), equalTo(10));
+  }
+
+}
@@ -0,0 +1,149 @@
+package org.devoware.reactive.property;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+
+public class PropertyComponentsTest {
+
+  @Test
+  public void test_split_on_unbind() {
+    BasicPropertyManager manager = (BasicPropertyManager) PropertyManagers.create();
+    manager.create(new Node(0)).withValue(1).build();
+    manager.create(new Node(1)).withValue((context) -> context.get(new Node(0)) + 1).build();
+    manager.create(new Node(2)).withValue((context) -> context.get(new Node(1)) + 1).build();
+    manager.create(new Node(3)).withValue((context) -> context.get(new Node(2)) + 1).build();
+    manager.create(new Node(4)).withValue(1).build();
+    PropertyComponents components = manager.getComponents();
+
+    assertThat(components.getRepresentative(new Node(0)),
+        equalTo(components.getRepresentative(new Node(3))));
+    assertThat(components.getComponentSize(new Node(2)), equalTo(4));
+    assertThat(components.getComponentSize(new Node(4)), equalTo(1));
+
+    manager.get(new Node(1)).set(5);
+
+    assertThat(components.getComponentSize(new Node(0)), equalTo(1));
+    assertThat(components.getComponentSize(new Node(3)), equalTo(3));
+
+    manager.remove(new Node(2));
+
+    // the consumer of a removed property stays bound to it, as a placeholder
+    assertThat(components.getComponentSize(new Node(1)), equalTo(1));
+    assertThat(components.getComponentSize(new Node(3)), equalTo(2));
+
+    manager.get(new Node(1)).set((context) -> context.get(new Node(4)) + context.get(new Node(0)));
+
+    assertThat(components.getRepresentative(new Node(4)),
+        equalTo(components.getRepresentative(new Node(0))));
+    assertThat(components.getRepresentative(new Node(4)),
+        not(equalTo(components.getRepresentative(new Node(3)))));
+  }
+
+  // random bindings and unbindings, checked against components traversed from scratch
+  @Test
+  public void test_random_bindings() {
+    Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> consumerBindings =
+        LinkedHashMultimap.create();
+    Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> producerBindings =
+        LinkedHashMultimap.create();
+    PropertyComponents components = new PropertyComponents(consumerBindings, producerBindings);
+    List<Node> nodes = Lists.newArrayList();
+    for (int i = 0; i < 200; i++) {
+      nodes.add(new Node(i));
+    }
+    Random random = new Random(3);
+    for (int step = 0; step < 20_000; step++) {
+      Node consumer = nodes.get(random.nextInt(nodes.size()));
+      Node producer = nodes.get(random.nextInt(nodes.size()));
+      if (consumer.equals(producer)) {
+        continue;
+      }
+      if (consumerBindings.containsEntry(consumer, producer)) {
+        consumerBindings.remove(consumer, producer);
+        producerBindings.remove(producer, consumer);
+        components.unbind(consumer, producer);
+      } else if (random.nextInt(3) > 0) {
+        consumerBindings.put(consumer, producer);
+        producerBindings.put(producer, consumer);
+        components.union(consumer, producer);
+      }
+      if (step % 500 == 0) {
+        for (Node node : nodes) {
+          Set<PropertyIdentifier<?>> expected =
+              traverse(node, consumerBindings, producerBindings);
+          assertThat(components.getComponentSize(node), equalTo(expected.size()));
+          PropertyIdentifier<?> representative = components.getRepresentative(node);
+          for (PropertyIdentifier<?> member : expected) {
+            assertThat(components.getRepresentative(member), equalTo(representative));
+          }
+        }
+      }
+    }
+  }
+
+  private static Set<PropertyIdentifier<?>> traverse(PropertyIdentifier<?> start,
+      Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> consumerBindings,
+      Multimap<PropertyIdentifier<?>, PropertyIdentifier<?>> producerBindings) {
+    Set<PropertyIdentifier<?>> visited = Sets.newHashSet(start);
+    Deque<PropertyIdentifier<?>> stack = new ArrayDeque<>();
+    stack.push(start);
+    while (!stack.isEmpty()) {
+      PropertyIdentifier<?> id = stack.pop();
+      for (PropertyIdentifier<?> next : Sets.union(Sets.newHashSet(consumerBindings.get(id)),
+          Sets.newHashSet(producerBindings.get(id)))) {
+        if (visited.add(next)) {
+          stack.push(next);
+        }
+      }
+    }
+    return visited;
+  }
+
+  private static class Node implements PropertyIdentifier<Integer> {
+    private final int index;
+
+    private Node(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public Integer getDefaultValue() {
+      return 0;
+    }
+
+    @Override
+    public Class<Integer> getType() {
+      return Integer.class;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Node && ((Node) obj).index == index;
+    }
+
+    @Override
+    public int hashCode() {
+      return index;
+    }
+
+    @Override
+    public String toString() {
+      return "NODE_" + index;
+    }
+  }
+
+}
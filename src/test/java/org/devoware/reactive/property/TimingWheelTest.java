@@ -0,0 +1,49 @@
+package org.devoware.reactive.property;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TimingWheelTest {
+  private TimingWheel<String> wheel;
+
+  @Before
+  public void setup() {
+    wheel = new TimingWheel<>(10, 1000);
+  }
+
+  @Test
+  public void test_expiration() {
+    wheel.schedule("a", 1005);
+    wheel.schedule("b", 1010);
+    wheel.schedule("c", 1000 + 10 * 64 * 64 + 5);
+    wheel.schedule("d", 1000 + 10L * 64 * 64 * 64 * 64 * 64 * 64 * 3);
+    wheel.schedule("e", 500);
+    TimingWheel.Timeout<String> cancelled = wheel.schedule("f", 1010);
+
+    assertThat(wheel.size(), equalTo(6));
+    assertThat(wheel.advance(1009), equalTo(ImmutableList.of("e")));
+
+    cancelled.cancel();
+    assertFalse(cancelled.isPending());
+    List<String> expired = wheel.advance(1015);
+
+    assertThat(expired, equalTo(ImmutableList.of("b", "a")));
+    assertTrue(wheel.advance(1000 + 10 * 64 * 64).isEmpty());
+    assertThat(wheel.advance(1000 + 10 * 64 * 64 + 10), equalTo(ImmutableList.of("c")));
+    assertThat(wheel.size(), equalTo(1));
+    assertTrue(wheel.advance(1000 + 10L * 64 * 64 * 64 * 64 * 64 * 64 * 3 - 10).isEmpty());
+    assertThat(wheel.advance(1000 + 10L * 64 * 64 * 64 * 64 * 64 * 64 * 3),
+        equalTo(ImmutableList.of("d")));
+    assertThat(wheel.size(), equalTo(0));
+  }
+
+}
@@ -0,0 +1,41 @@
+package org.devoware.reactive.testutil;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+public class ManualClock extends Clock {
+  private final ZoneId zone;
+  private Instant now;
+
+  public ManualClock(Instant now) {
+    this(now, ZoneOffset.UTC);
+  }
+
+  public ManualClock(Instant now, ZoneId zone) {
+    this.now = now;
+    this.zone = zone;
+  }
+
+  public void advance(Duration duration) {
+    now = now.plus(duration);
+  }
+
+  @Override
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  // the copy starts at this clock's current instant and is advanced separately
+  @Override
+  public Clock withZone(ZoneId zone) {
+    return new ManualClock(now, zone);
+  }
+
+  @Override
+  public Instant instant() {
+    return now;
+  }
+}